@@ -0,0 +1,13 @@
+package com.andrelucs.realtimepolls.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactivePollsApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactivePollsApplication.class, args);
+    }
+
+}
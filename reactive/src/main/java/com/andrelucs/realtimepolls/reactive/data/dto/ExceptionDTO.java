@@ -0,0 +1,6 @@
+package com.andrelucs.realtimepolls.reactive.data.dto;
+
+import java.time.LocalDateTime;
+
+public record ExceptionDTO(String message, int statusCode, String requestPath, LocalDateTime timestamp) {
+}
@@ -0,0 +1,26 @@
+package com.andrelucs.realtimepolls.reactive.data.dto;
+
+import com.andrelucs.realtimepolls.reactive.data.model.PollStatus;
+import com.andrelucs.realtimepolls.reactive.data.model.PollType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public final class PollDTO {
+    private Long id;
+    private String question;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private PollStatus status;
+    private List<PollOptionDTO> options;
+    private Integer maxSelections = 1;
+    private PollType type = PollType.CHOICE;
+    // Not counted by this module
+    private Long uniqueVoters;
+}
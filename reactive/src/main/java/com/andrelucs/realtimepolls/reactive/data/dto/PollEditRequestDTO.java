@@ -0,0 +1,11 @@
+package com.andrelucs.realtimepolls.reactive.data.dto;
+
+import java.time.LocalDateTime;
+
+public record PollEditRequestDTO(
+        String question,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        Integer maxSelections)
+{
+}
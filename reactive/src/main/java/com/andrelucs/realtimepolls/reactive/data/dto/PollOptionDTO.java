@@ -0,0 +1,14 @@
+package com.andrelucs.realtimepolls.reactive.data.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public final class PollOptionDTO {
+    private Long id;
+    private String description;
+    private int votes;
+}
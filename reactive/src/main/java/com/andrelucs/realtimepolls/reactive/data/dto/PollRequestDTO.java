@@ -0,0 +1,27 @@
+package com.andrelucs.realtimepolls.reactive.data.dto;
+
+import com.andrelucs.realtimepolls.reactive.data.model.PollType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record PollRequestDTO(
+        @NotBlank(message = "Poll question should not be blank")
+        String question,
+        @NotNull(message = "Should specify a startDate for the poll")
+        LocalDateTime startDate,
+        @NotNull(message = "Should specify a endDate for the poll")
+        LocalDateTime endDate,
+        @Size(min = 3, message = "A poll should have at least 3 options.")
+        List<String> options,
+        // Defaults to 1, single choice
+        @Min(value = 1, message = "A poll should allow at least 1 selection.")
+        Integer maxSelections,
+        // Defaults to CHOICE
+        PollType type)
+{
+}
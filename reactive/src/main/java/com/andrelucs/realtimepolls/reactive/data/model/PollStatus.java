@@ -0,0 +1,19 @@
+package com.andrelucs.realtimepolls.reactive.data.model;
+
+import java.time.LocalDateTime;
+
+public enum PollStatus {
+    NOT_STARTED,
+    STARTED,
+    FINISHED;
+
+    /**
+     * Status of a poll with the dates at the given moment, finished from its end date on like the servlet app's
+     * status scheduler does
+     */
+    public static PollStatus at(LocalDateTime now, LocalDateTime startDate, LocalDateTime endDate) {
+        if (now.isBefore(startDate)) return NOT_STARTED;
+        if (!now.isBefore(endDate)) return FINISHED;
+        return STARTED;
+    }
+}
@@ -0,0 +1,6 @@
+package com.andrelucs.realtimepolls.reactive.data.model;
+
+public enum PollType {
+    CHOICE,
+    RANKED
+}
@@ -0,0 +1,59 @@
+package com.andrelucs.realtimepolls.reactive.exceptions;
+
+import com.andrelucs.realtimepolls.reactive.data.dto.ExceptionDTO;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.FailPollOptionsUpdateException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.InvalidPollException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.PollConflictException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.PollNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Same status codes and body of the servlet app's GlobalExceptionHandler
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ExceptionDTO> handleInvalidArgumentException(WebExchangeBindException e, ServerHttpRequest request) {
+        StringBuilder message = new StringBuilder();
+        for (var err : e.getBindingResult().getAllErrors()) {
+            message.append(" ");
+            message.append(err.getDefaultMessage());
+        }
+        return defaultResponseGenerator(HttpStatus.BAD_REQUEST, message.toString(), request);
+    }
+
+    @ExceptionHandler(PollNotFoundException.class)
+    public ResponseEntity<ExceptionDTO> handlePollNotFoundException(PollNotFoundException e, ServerHttpRequest request) {
+        return defaultResponseGenerator(HttpStatus.NOT_FOUND, e.getMessage(), request);
+    }
+
+    @ExceptionHandler({InvalidPollException.class, FailPollOptionsUpdateException.class})
+    public ResponseEntity<ExceptionDTO> handleForbiddenUpdate(RuntimeException e, ServerHttpRequest request) {
+        return defaultResponseGenerator(HttpStatus.FORBIDDEN, e.getMessage(), request);
+    }
+
+    @ExceptionHandler(PollConflictException.class)
+    public ResponseEntity<ExceptionDTO> handlePollConflictException(PollConflictException e, ServerHttpRequest request) {
+        return defaultResponseGenerator(HttpStatus.CONFLICT, e.getMessage(), request);
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ExceptionDTO> handleBadRequestException(BadRequestException e, ServerHttpRequest request) {
+        return defaultResponseGenerator(HttpStatus.BAD_REQUEST, e.getMessage(), request);
+    }
+
+    private ResponseEntity<ExceptionDTO> defaultResponseGenerator(HttpStatus status, String message, ServerHttpRequest request) {
+        return new ResponseEntity<>(
+                new ExceptionDTO(message, status.value(), request.getPath().value(), LocalDateTime.now()),
+                status);
+    }
+}
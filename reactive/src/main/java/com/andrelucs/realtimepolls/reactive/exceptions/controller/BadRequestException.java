@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.controller;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.controller;
+
+public class FailPollOptionsUpdateException extends RuntimeException {
+    public FailPollOptionsUpdateException(String message) {
+        super(message);
+    }
+}
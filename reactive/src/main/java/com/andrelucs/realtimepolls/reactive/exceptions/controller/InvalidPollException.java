@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.controller;
+
+public class InvalidPollException extends RuntimeException {
+    public InvalidPollException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.controller;
+
+public class PollNotFoundException extends RuntimeException {
+    public PollNotFoundException(String message) {
+        super(message);
+    }
+}
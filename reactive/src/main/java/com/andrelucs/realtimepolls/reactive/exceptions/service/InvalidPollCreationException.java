@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.service;
+
+public class InvalidPollCreationException extends RuntimeException {
+    public InvalidPollCreationException(String message) {
+        super(message);
+    }
+}
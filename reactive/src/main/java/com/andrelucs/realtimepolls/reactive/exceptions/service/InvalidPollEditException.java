@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.service;
+
+public class InvalidPollEditException extends RuntimeException {
+    public InvalidPollEditException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.service;
+
+public class InvalidPollUpdateException extends RuntimeException {
+    public InvalidPollUpdateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.service;
+
+public class OptionNotFoundException extends InvalidPollUpdateException {
+    public OptionNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.reactive.exceptions.service;
+
+public class PollNotInProgressException extends InvalidPollUpdateException {
+    public PollNotInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,74 @@
+package com.andrelucs.realtimepolls.reactive.polloptions;
+
+import com.andrelucs.realtimepolls.reactive.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.FailPollOptionsUpdateException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.PollConflictException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.PollNotFoundException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.reactive.polls.PollService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/poll/{poll_id}/options")
+public class OptionController {
+
+    private final OptionService optionService;
+    private final PollService pollService;
+
+    public OptionController(OptionService optionService, PollService pollService) {
+        this.optionService = optionService;
+        this.pollService = pollService;
+    }
+
+    @PostMapping()
+    Mono<List<PollOptionDTO>> addPollOption(@PathVariable Long poll_id,
+                                            @RequestParam(name = "description") String description){
+        if (description.isBlank()) {
+            throw new BadRequestException("The Option description cannot be blank.");
+        }
+        return requireExistingPoll(poll_id)
+                .thenMany(optionService.addPollOption(poll_id, description))
+                .collectList()
+                .onErrorMap(InvalidPollUpdateException.class, e -> new FailPollOptionsUpdateException(
+                        "Failed to update poll options on poll %d. Reason: %s".formatted(poll_id, e.getMessage())));
+    }
+
+    @PatchMapping("/{option_id}")
+    Mono<PollOptionDTO> voteForOption(@PathVariable Long poll_id, @PathVariable Long option_id){
+        if (option_id == null) {
+            throw new BadRequestException("The Option id cannot be blank.");
+        }
+        return optionService.voteForOption(poll_id, option_id)
+                .onErrorMap(InvalidPollUpdateException.class, e -> switch (e) {
+                    case OptionNotFoundException ignored ->
+                            new PollNotFoundException("Option %d was not found on poll %d.".formatted(option_id, poll_id));
+                    case PollNotInProgressException ignored -> new PollConflictException("Poll is not in progress, cannot vote.");
+                    default -> new FailPollOptionsUpdateException(
+                            "Failed to update poll options on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
+                });
+    }
+
+    @DeleteMapping("/{option_id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    Mono<Void> removePollOption(@PathVariable Long poll_id, @PathVariable Long option_id) {
+        if (option_id == null) {
+            throw new BadRequestException("The Option id cannot be blank.");
+        }
+        return requireExistingPoll(poll_id)
+                .then(optionService.removePollOption(option_id))
+                .onErrorMap(InvalidPollUpdateException.class, e -> new FailPollOptionsUpdateException(
+                        "Failed to update poll options on poll %d. Reason: %s".formatted(poll_id, e.getMessage())));
+    }
+
+    private Mono<Void> requireExistingPoll(Long pollId) {
+        return pollService.pollExists(pollId)
+                .flatMap(exists -> exists ? Mono.<Void>empty() : Mono.error(new PollNotFoundException("Poll was not found.")));
+    }
+}
@@ -0,0 +1,146 @@
+package com.andrelucs.realtimepolls.reactive.polloptions;
+
+import com.andrelucs.realtimepolls.reactive.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.reactive.data.model.PollStatus;
+import com.andrelucs.realtimepolls.reactive.data.model.PollType;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.reactive.polls.PollService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Options and votes on R2DBC, with the rules of the servlet app's OptionService.
+ * Votes are added straight to poll_option.votes, like its direct vote mode, and are not broadcast: the STOMP topics
+ * belong to the servlet app.
+ */
+@Service
+@Slf4j
+public class OptionService {
+
+    private final DatabaseClient databaseClient;
+
+    public OptionService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    private record VoteTarget(PollStatus status, PollType type) {}
+
+    private record RemovedOption(Long pollId, PollStatus status, long pollOptions) {}
+
+    /**
+     * @return the new list of options
+     * @throws InvalidPollUpdateException when the poll already started or the option already exists
+     */
+    @Transactional
+    public Flux<PollOptionDTO> addPollOption(Long pollId, String description) {
+        return databaseClient.sql("SELECT " + PollService.STATUS_AT + " AS status FROM poll p WHERE p.id = :id FOR UPDATE")
+                .bind("now", LocalDateTime.now())
+                .bind("id", pollId)
+                .map(row -> PollStatus.valueOf(row.get("status", String.class)))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new InvalidPollUpdateException("Poll not found")))
+                .flatMap(status -> {
+                    if (status != PollStatus.NOT_STARTED) {
+                        return Mono.error(new InvalidPollUpdateException("Cannot add options to a poll that has already started"));
+                    }
+                    return databaseClient.sql("""
+                                    INSERT INTO poll_option (poll_id, description, votes)
+                                    SELECT :pollId, :description, 0
+                                    WHERE NOT EXISTS (SELECT 1 FROM poll_option WHERE poll_id = :pollId AND description = :description)
+                                    """)
+                            .bind("pollId", pollId)
+                            .bind("description", description)
+                            .fetch().rowsUpdated();
+                })
+                .flatMap(inserted -> inserted == 0
+                        ? Mono.error(new InvalidPollUpdateException("Option already exists in this poll"))
+                        : Mono.just(inserted))
+                .doOnNext(inserted -> log.info("Added option '{}' to poll {}", description, pollId))
+                .thenMany(Flux.defer(() -> getPollOptions(pollId)));
+    }
+
+    /**
+     * @throws InvalidPollUpdateException when the poll already started or would be left with less than 3 options
+     */
+    @Transactional
+    public Mono<Void> removePollOption(Long optionId) {
+        return databaseClient.sql("""
+                        SELECT p.id, %s AS status, (SELECT count(*) FROM poll_option c WHERE c.poll_id = p.id) AS options
+                        FROM poll_option o JOIN poll p ON p.id = o.poll_id
+                        WHERE o.id = :id
+                        FOR UPDATE OF p
+                        """.formatted(PollService.STATUS_AT))
+                .bind("now", LocalDateTime.now())
+                .bind("id", optionId)
+                .map(row -> new RemovedOption(row.get("id", Long.class), PollStatus.valueOf(row.get("status", String.class)), row.get("options", Long.class)))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new InvalidPollUpdateException("Option not found")))
+                .flatMap(removed -> {
+                    if (removed.status() != PollStatus.NOT_STARTED) {
+                        return Mono.error(new InvalidPollUpdateException("Cannot remove options from a poll that has already started"));
+                    }
+                    if (removed.pollOptions() <= 3) {
+                        return Mono.error(new InvalidPollUpdateException("Poll must have at least 3 options"));
+                    }
+                    return databaseClient.sql("DELETE FROM poll_option WHERE id = :id")
+                            .bind("id", optionId)
+                            .fetch().rowsUpdated()
+                            .doOnNext(deleted -> log.info("Removed option {} from poll {}", optionId, removed.pollId()));
+                })
+                .then();
+    }
+
+    /**
+     * Adds a vote in a single statement that also checks the option belongs to the poll and the poll is in progress
+     * @throws OptionNotFoundException when the option doesn't exist on the poll
+     * @throws PollNotInProgressException when the poll is not in progress
+     */
+    public Mono<PollOptionDTO> voteForOption(Long pollId, Long optionId) {
+        return databaseClient.sql("""
+                        UPDATE poll_option o
+                        SET votes = o.votes + 1
+                        FROM poll p
+                        WHERE o.id = :optionId AND o.poll_id = :pollId
+                          AND p.id = o.poll_id AND %s = 'STARTED' AND p.type = 'CHOICE'
+                        RETURNING o.id, o.description, o.votes
+                        """.formatted(PollService.STATUS_AT))
+                .bind("now", LocalDateTime.now())
+                .bind("pollId", pollId)
+                .bind("optionId", optionId)
+                .map(row -> new PollOptionDTO(row.get("id", Long.class), row.get("description", String.class), row.get("votes", Integer.class)))
+                .one()
+                .switchIfEmpty(Mono.defer(() -> rejectedVote(pollId, optionId)));
+    }
+
+    public Flux<PollOptionDTO> getPollOptions(Long pollId) {
+        return databaseClient.sql("SELECT id, description, votes FROM poll_option WHERE poll_id = :pollId ORDER BY id")
+                .bind("pollId", pollId)
+                .map(row -> new PollOptionDTO(row.get("id", Long.class), row.get("description", String.class), row.get("votes", Integer.class)))
+                .all();
+    }
+
+    // Only runs when the vote was not counted, to tell why
+    private Mono<PollOptionDTO> rejectedVote(Long pollId, Long optionId) {
+        return databaseClient.sql("""
+                        SELECT %s AS status, p.type FROM poll_option o JOIN poll p ON p.id = o.poll_id
+                        WHERE o.id = :optionId AND o.poll_id = :pollId
+                        """.formatted(PollService.STATUS_AT))
+                .bind("now", LocalDateTime.now())
+                .bind("pollId", pollId)
+                .bind("optionId", optionId)
+                .map(row -> new VoteTarget(PollStatus.valueOf(row.get("status", String.class)), PollType.valueOf(row.get("type", String.class))))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new OptionNotFoundException("Option not found")))
+                .flatMap(target -> Mono.error(target.type() != PollType.CHOICE
+                        ? new InvalidPollUpdateException("Vote could not be registered, ranked polls take ballots")
+                        : new PollNotInProgressException("Poll is not in progress, cannot vote")));
+    }
+}
@@ -0,0 +1,59 @@
+package com.andrelucs.realtimepolls.reactive.polls;
+
+import com.andrelucs.realtimepolls.reactive.data.dto.PollDTO;
+import com.andrelucs.realtimepolls.reactive.data.dto.PollEditRequestDTO;
+import com.andrelucs.realtimepolls.reactive.data.dto.PollRequestDTO;
+import com.andrelucs.realtimepolls.reactive.data.model.PollStatus;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.InvalidPollException;
+import com.andrelucs.realtimepolls.reactive.exceptions.controller.PollNotFoundException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.InvalidPollCreationException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.InvalidPollEditException;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/poll")
+public class PollController {
+
+    private final PollService pollService;
+
+    public PollController(PollService pollService) {
+        this.pollService = pollService;
+    }
+
+    @GetMapping
+    Flux<PollDTO> findAll(@RequestParam(required = false) PollStatus status){
+        if (status == null) {
+            return pollService.findAll();
+        }
+        return pollService.findByStatus(status);
+    }
+
+    @GetMapping("/{poll_id}")
+    Mono<PollDTO> findById(@PathVariable Long poll_id){
+        return pollService.findById(poll_id)
+                .switchIfEmpty(Mono.error(() -> new PollNotFoundException("Poll was not found.")));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    Mono<PollDTO> save(@RequestBody @Valid PollRequestDTO poll){
+        return pollService.save(poll)
+                .onErrorMap(InvalidPollCreationException.class, e -> new InvalidPollException(e.getMessage()));
+    }
+
+    @PutMapping("/{poll_id}")
+    Mono<PollDTO> editPoll(@PathVariable Long poll_id, @RequestBody PollEditRequestDTO newPollObject) {
+        return pollService.editPoll(poll_id, newPollObject)
+                .onErrorMap(InvalidPollEditException.class, e -> new InvalidPollException(e.getMessage()));
+    }
+
+    @DeleteMapping("/{poll_id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    Mono<Void> deletePoll(@PathVariable Long poll_id){
+        return pollService.deletePoll(poll_id);
+    }
+}
@@ -0,0 +1,201 @@
+package com.andrelucs.realtimepolls.reactive.polls;
+
+import com.andrelucs.realtimepolls.reactive.data.dto.PollDTO;
+import com.andrelucs.realtimepolls.reactive.data.dto.PollEditRequestDTO;
+import com.andrelucs.realtimepolls.reactive.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.reactive.data.dto.PollRequestDTO;
+import com.andrelucs.realtimepolls.reactive.data.model.PollStatus;
+import com.andrelucs.realtimepolls.reactive.data.model.PollType;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.InvalidPollCreationException;
+import com.andrelucs.realtimepolls.reactive.exceptions.service.InvalidPollEditException;
+import io.r2dbc.spi.Readable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Polls on R2DBC, with the rules of the servlet app's PollService. Nothing here blocks a thread while waiting on the
+ * database.
+ */
+@Service
+@Slf4j
+public class PollService {
+
+    /**
+     * Status of the poll p at :now, same as {@link PollStatus#at}. Nothing updates the status column as time goes by,
+     * so reads compute it from the dates instead.
+     */
+    public static final String STATUS_AT = """
+            CASE WHEN :now < p.start_date THEN 'NOT_STARTED'
+                 WHEN :now >= p.end_date THEN 'FINISHED'
+                 ELSE 'STARTED' END""";
+    // Options come along in id order, the order ballots use
+    private static final String SELECT_POLLS = """
+            SELECT p.id, p.question, p.start_date, p.end_date, %s AS status, p.max_selections, p.type,
+                   o.id AS option_id, o.description, o.votes
+            FROM poll p
+            LEFT JOIN poll_option o ON o.poll_id = p.id
+            """.formatted(STATUS_AT);
+
+    private final DatabaseClient databaseClient;
+
+    public PollService(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    private record PollRow(PollDTO poll, PollOptionDTO option) {}
+
+    public Flux<PollDTO> findAll() {
+        return collectPolls(databaseClient.sql(SELECT_POLLS + "ORDER BY p.id, o.id"));
+    }
+
+    public Flux<PollDTO> findByStatus(PollStatus status) {
+        return collectPolls(databaseClient.sql(SELECT_POLLS + "WHERE " + STATUS_AT + " = :status ORDER BY p.id, o.id")
+                .bind("status", status.name()));
+    }
+
+    public Mono<PollDTO> findById(Long pollId) {
+        return collectPolls(databaseClient.sql(SELECT_POLLS + "WHERE p.id = :id ORDER BY o.id").bind("id", pollId)).next();
+    }
+
+    public Mono<Boolean> pollExists(Long pollId) {
+        return databaseClient.sql("SELECT 1 FROM poll WHERE id = :id")
+                .bind("id", pollId)
+                .fetch().first()
+                .hasElement();
+    }
+
+    @Transactional
+    public Mono<PollDTO> save(PollRequestDTO poll) {
+        int maxSelections = poll.maxSelections() != null ? poll.maxSelections() : 1;
+        var type = poll.type() != null ? poll.type() : PollType.CHOICE;
+        var violations = violations(poll.startDate(), poll.endDate(), maxSelections, poll.options().size());
+        if (!violations.isEmpty()) return Mono.error(new InvalidPollCreationException(violations));
+
+        var status = PollStatus.at(LocalDateTime.now(), poll.startDate(), poll.endDate());
+        return databaseClient.sql("""
+                        INSERT INTO poll (question, start_date, end_date, status, max_selections, type)
+                        VALUES (:question, :startDate, :endDate, :status, :maxSelections, :type)
+                        RETURNING id
+                        """)
+                .bind("question", poll.question())
+                .bind("startDate", poll.startDate())
+                .bind("endDate", poll.endDate())
+                .bind("status", status.name())
+                .bind("maxSelections", maxSelections)
+                .bind("type", type.name())
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .flatMap(pollId -> Flux.fromIterable(poll.options())
+                        .concatMap(description -> databaseClient.sql("""
+                                        INSERT INTO poll_option (poll_id, description, votes) VALUES (:pollId, :description, 0)
+                                        RETURNING id
+                                        """)
+                                .bind("pollId", pollId)
+                                .bind("description", description)
+                                .map(row -> new PollOptionDTO(row.get("id", Long.class), description, 0))
+                                .one())
+                        .collectList()
+                        .map(options -> new PollDTO(pollId, poll.question(), poll.startDate(), poll.endDate(), status,
+                                options, maxSelections, type, null)))
+                .doOnNext(saved -> log.info("Saved poll is :{}", saved));
+    }
+
+    /**
+     * Changes the given fields of a NOT_STARTED poll
+     */
+    @Transactional
+    public Mono<PollDTO> editPoll(Long pollId, PollEditRequestDTO edit) {
+        return databaseClient.sql("SELECT p.start_date, p.end_date, " + STATUS_AT + " AS status, p.max_selections FROM poll p WHERE p.id = :id FOR UPDATE")
+                .bind("now", LocalDateTime.now())
+                .bind("id", pollId)
+                .map(row -> new PollDTO(pollId, null, row.get("start_date", LocalDateTime.class), row.get("end_date", LocalDateTime.class),
+                        PollStatus.valueOf(row.get("status", String.class)), null, row.get("max_selections", Integer.class), null, null))
+                .one()
+                .switchIfEmpty(Mono.error(() -> new InvalidPollEditException("Poll not found")))
+                .flatMap(current -> {
+                    if (current.getStatus() != PollStatus.NOT_STARTED) {
+                        return Mono.error(new InvalidPollEditException(
+                                "Poll status is %s can only edit NOT_STARTED polls".formatted(current.getStatus())));
+                    }
+                    var startDate = Objects.requireNonNullElse(edit.startDate(), current.getStartDate());
+                    var endDate = Objects.requireNonNullElse(edit.endDate(), current.getEndDate());
+                    int maxSelections = Objects.requireNonNullElse(edit.maxSelections(), current.getMaxSelections());
+                    var violations = violations(startDate, endDate, maxSelections, -1);
+                    if (!violations.isEmpty()) return Mono.error(new InvalidPollEditException(violations));
+
+                    var update = databaseClient.sql("""
+                                    UPDATE poll
+                                    SET question = COALESCE(:question, question), start_date = :startDate, end_date = :endDate,
+                                        max_selections = :maxSelections, status = :status
+                                    WHERE id = :id
+                                    """)
+                            .bind("id", pollId)
+                            .bind("startDate", startDate)
+                            .bind("endDate", endDate)
+                            .bind("maxSelections", maxSelections)
+                            .bind("status", PollStatus.at(LocalDateTime.now(), startDate, endDate).name());
+                    update = edit.question() != null && !edit.question().isBlank()
+                            ? update.bind("question", edit.question())
+                            : update.bindNull("question", String.class);
+                    return update.fetch().rowsUpdated();
+                })
+                .then(Mono.defer(() -> collectPolls(databaseClient.sql(SELECT_POLLS + "WHERE p.id = :id ORDER BY o.id")
+                        .bind("id", pollId)).next()));
+    }
+
+    public Mono<Void> deletePoll(Long pollId) {
+        return databaseClient.sql("DELETE FROM poll WHERE id = :id")
+                .bind("id", pollId)
+                .then();
+    }
+
+    // One row per option, folded back into one poll each
+    private Flux<PollDTO> collectPolls(DatabaseClient.GenericExecuteSpec query) {
+        return query.bind("now", LocalDateTime.now())
+                .map(PollService::toRow)
+                .all()
+                .bufferUntilChanged(row -> row.poll().getId())
+                .map(rows -> {
+                    var poll = rows.getFirst().poll();
+                    List<PollOptionDTO> options = new ArrayList<>(rows.size());
+                    rows.forEach(row -> {
+                        if (row.option() != null) options.add(row.option());
+                    });
+                    poll.setOptions(options);
+                    return poll;
+                });
+    }
+
+    private static PollRow toRow(Readable row) {
+        var poll = new PollDTO(row.get("id", Long.class), row.get("question", String.class),
+                row.get("start_date", LocalDateTime.class), row.get("end_date", LocalDateTime.class),
+                PollStatus.valueOf(row.get("status", String.class)), null,
+                row.get("max_selections", Integer.class), PollType.valueOf(row.get("type", String.class)), null);
+        var optionId = row.get("option_id", Long.class);
+        var option = optionId == null ? null
+                : new PollOptionDTO(optionId, row.get("description", String.class), row.get("votes", Integer.class));
+        return new PollRow(poll, option);
+    }
+
+    // Numbered like the servlet app, options are only compared when their amount is known
+    private static String violations(LocalDateTime startDate, LocalDateTime endDate, int maxSelections, int options) {
+        StringBuilder violationMessage = new StringBuilder();
+        int i = 0;
+        if (startDate.isAfter(endDate)) {
+            violationMessage.append("%d: ".formatted(i++)).append("The poll start date cannot be after the end date");
+        }
+        if (options >= 0 && maxSelections > options) {
+            violationMessage.append("%d: ".formatted(i)).append("A poll cannot allow more selections than it has options");
+        }
+        return violationMessage.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package com.andrelucs.realtimepolls.reactive.integrationtests;
+
+import com.andrelucs.realtimepolls.reactive.data.dto.PollDTO;
+import com.andrelucs.realtimepolls.reactive.data.dto.PollEditRequestDTO;
+import com.andrelucs.realtimepolls.reactive.data.dto.PollRequestDTO;
+import com.andrelucs.realtimepolls.reactive.data.model.PollStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.lifecycle.Startables;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactivePollApiIntegrationTest {
+
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:latest")
+            .withDatabaseName("polldb")
+            .withUsername("postgres")
+            .withPassword("pass")
+            .withReuse(true);
+
+    @DynamicPropertySource
+    static void configure(DynamicPropertyRegistry registry) {
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://%s:%d/%s".formatted(
+                postgres.getHost(), postgres.getFirstMappedPort(), postgres.getDatabaseName()));
+        registry.add("spring.r2dbc.username", postgres::getUsername);
+        registry.add("spring.r2dbc.password", postgres::getPassword);
+        registry.add("spring.flyway.url", postgres::getJdbcUrl);
+        registry.add("spring.flyway.user", postgres::getUsername);
+        registry.add("spring.flyway.password", postgres::getPassword);
+    }
+
+    static {
+        Startables.deepStart(postgres).join();
+    }
+
+    @Autowired
+    WebTestClient webTestClient;
+    @Autowired
+    DatabaseClient databaseClient;
+
+    @BeforeEach
+    void clean() {
+        databaseClient.sql("DELETE FROM poll").then().block();
+    }
+
+    @Test
+    void shouldCreateAndReadPolls() {
+        var created = create(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+
+        Assertions.assertEquals(PollStatus.NOT_STARTED, created.getStatus());
+        Assertions.assertEquals(3, created.getOptions().size());
+
+        webTestClient.get().uri("/api/poll/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.question").isEqualTo("Which database?")
+                .jsonPath("$.options.length()").isEqualTo(3)
+                .jsonPath("$.maxSelections").isEqualTo(1)
+                .jsonPath("$.type").isEqualTo("CHOICE");
+
+        webTestClient.get().uri("/api/poll?status=NOT_STARTED")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(1);
+
+        webTestClient.get().uri("/api/poll/{id}", created.getId() + 1000)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.statusCode").isEqualTo(404);
+    }
+
+    @Test
+    void shouldRejectInvalidPolls() {
+        webTestClient.post().uri("/api/poll")
+                .bodyValue(new PollRequestDTO("", LocalDateTime.now(), LocalDateTime.now().plusDays(1), List.of("a", "b"), null, null))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webTestClient.post().uri("/api/poll")
+                .bodyValue(new PollRequestDTO("Which database?", LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(1),
+                        List.of("a", "b", "c"), null, null))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void shouldVoteOnStartedPolls() {
+        var started = create(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+        var option = started.getOptions().getFirst();
+
+        webTestClient.patch().uri("/api/poll/{poll}/options/{option}", started.getId(), option.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.votes").isEqualTo(1);
+
+        webTestClient.patch().uri("/api/poll/{poll}/options/{option}", started.getId(), -1)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        var notStarted = create(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+        webTestClient.patch().uri("/api/poll/{poll}/options/{option}", notStarted.getId(), notStarted.getOptions().getFirst().getId())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void shouldFinishPollsOnceTheirEndDateIsReached() {
+        var started = create(LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1));
+        // Only the dates change, nothing updates the status column in between
+        databaseClient.sql("UPDATE poll SET end_date = :now WHERE id = :id")
+                .bind("now", LocalDateTime.now())
+                .bind("id", started.getId())
+                .then().block();
+
+        webTestClient.get().uri("/api/poll/{poll}", started.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.status").isEqualTo("FINISHED");
+        webTestClient.get().uri("/api/poll?status=FINISHED")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$[0].id").isEqualTo(started.getId());
+        webTestClient.patch().uri("/api/poll/{poll}/options/{option}", started.getId(), started.getOptions().getFirst().getId())
+                .exchange()
+                .expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void shouldEditOptionsOnlyBeforeThePollStarts() {
+        var notStarted = create(LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2));
+
+        webTestClient.post().uri("/api/poll/{poll}/options?description=Redis", notStarted.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(4);
+        webTestClient.post().uri("/api/poll/{poll}/options?description=Redis", notStarted.getId())
+                .exchange()
+                .expectStatus().isForbidden();
+        webTestClient.delete().uri("/api/poll/{poll}/options/{option}", notStarted.getId(), notStarted.getOptions().getFirst().getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.delete().uri("/api/poll/{poll}/options/{option}", notStarted.getId(), notStarted.getOptions().get(1).getId())
+                .exchange()
+                .expectStatus().isForbidden();
+
+        webTestClient.put().uri("/api/poll/{poll}", notStarted.getId())
+                .bodyValue(new PollEditRequestDTO("Which cache?", null, null, null))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.question").isEqualTo("Which cache?");
+    }
+
+    private PollDTO create(LocalDateTime startDate, LocalDateTime endDate) {
+        return webTestClient.post().uri("/api/poll")
+                .bodyValue(new PollRequestDTO("Which database?", startDate, endDate, List.of("Postgres", "MySQL", "SQLite"), null, null))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(PollDTO.class)
+                .returnResult().getResponseBody();
+    }
+}
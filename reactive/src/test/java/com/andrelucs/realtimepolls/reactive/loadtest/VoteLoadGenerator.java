@@ -0,0 +1,152 @@
+package com.andrelucs.realtimepolls.reactive.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed loop load against either stack: every connection votes or reads a poll, waits for the answer and goes again.
+ * Votes are spread over the options of the STARTED polls found when it starts, reads over the same polls. Works the
+ * same against the servlet app and this module, both answer the same contract. Run with
+ * <pre>
+ * mvn -f reactive/pom.xml test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp reactive/target/test-classes:$(cat reactive/target/cp.txt) \
+ *     com.andrelucs.realtimepolls.reactive.loadtest.VoteLoadGenerator http://localhost:8081 10000 30 10 20
+ * </pre>
+ * Arguments: base url, connections, seconds measured, seconds of warm up, percentage of reads.
+ */
+public class VoteLoadGenerator {
+
+    // Latencies kept for the percentiles, later requests only count
+    private static final int MAX_SAMPLES = 8_000_000;
+
+    private record Target(long pollId, long optionId) {}
+
+    private final long[] latencies = new long[MAX_SAMPLES];
+    private final AtomicInteger samples = new AtomicInteger();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+    private final LongAdder otherStatus = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private volatile boolean measuring;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8081";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int readPercent = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        new VoteLoadGenerator().run(baseUrl, connections, seconds, warmupSeconds, readPercent);
+    }
+
+    private void run(String baseUrl, int connections, int seconds, int warmupSeconds, int readPercent) throws Exception {
+        var provider = ConnectionProvider.builder("load")
+                .maxConnections(connections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        var client = HttpClient.create(provider)
+                .runOn(LoopResources.create("load", Runtime.getRuntime().availableProcessors(), true))
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 30_000)
+                .responseTimeout(Duration.ofSeconds(30))
+                .baseUrl(baseUrl);
+
+        var targets = targets(client);
+        if (targets.isEmpty()) throw new IllegalStateException("No STARTED poll with options at " + baseUrl);
+        System.out.printf("%s: %d connections, %d options of %d polls, %d%% reads%n", baseUrl, connections, targets.size(),
+                targets.stream().map(Target::pollId).distinct().count(), readPercent);
+
+        long warmupEnd = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+        long end = warmupEnd + Duration.ofSeconds(seconds).toNanos();
+
+        var load = Flux.range(0, connections)
+                .flatMap(connection -> Mono.defer(() -> request(client, targets, readPercent))
+                        .repeat(() -> {
+                            long now = System.nanoTime();
+                            if (!measuring && now >= warmupEnd) measuring = true;
+                            return now < end;
+                        })
+                        .then(), connections)
+                .then();
+        load.block();
+
+        report(seconds);
+        provider.disposeLater().block();
+    }
+
+    private Mono<Void> request(HttpClient client, List<Target> targets, int readPercent) {
+        var random = ThreadLocalRandom.current();
+        var target = targets.get(random.nextInt(targets.size()));
+        boolean read = random.nextInt(100) < readPercent;
+        long start = System.nanoTime();
+
+        var sender = read
+                ? client.get().uri("/api/poll/" + target.pollId())
+                : client.patch().uri("/api/poll/%d/options/%d".formatted(target.pollId(), target.optionId()));
+        return sender.responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                .doOnNext(status -> record(status, start))
+                .onErrorResume(e -> {
+                    if (measuring) failures.increment();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void record(int status, long start) {
+        if (!measuring) return;
+        switch (status / 100 == 2 ? 200 : status) {
+            case 200 -> ok.increment();
+            case 409 -> conflicts.increment();
+            case 503 -> busy.increment();
+            default -> otherStatus.increment();
+        }
+        int sample = samples.getAndIncrement();
+        if (sample < MAX_SAMPLES) latencies[sample] = System.nanoTime() - start;
+    }
+
+    private List<Target> targets(HttpClient client) throws Exception {
+        var json = client.get().uri("/api/poll?status=STARTED")
+                .responseSingle((response, body) -> body.asString())
+                .block();
+        List<Target> targets = new ArrayList<>();
+        for (JsonNode poll : new ObjectMapper().readTree(json)) {
+            if (!"CHOICE".equals(poll.path("type").asText("CHOICE"))) continue;
+            for (JsonNode option : poll.path("options")) {
+                targets.add(new Target(poll.get("id").asLong(), option.get("id").asLong()));
+            }
+        }
+        return targets;
+    }
+
+    private void report(int seconds) {
+        int count = Math.min(samples.get(), MAX_SAMPLES);
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        long answered = ok.sum() + conflicts.sum() + busy.sum() + otherStatus.sum();
+        System.out.printf("throughput %.0f req/s, %d ok, %d 409, %d 503, %d other status, %d failed%n",
+                (double) answered / seconds, ok.sum(), conflicts.sum(), busy.sum(), otherStatus.sum(), failures.sum());
+        if (count == 0) return;
+        System.out.printf("latency ms p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), millis(sorted, 0.999),
+                sorted[count - 1] / 1e6);
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
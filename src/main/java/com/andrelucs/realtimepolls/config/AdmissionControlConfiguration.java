@@ -0,0 +1,26 @@
+package com.andrelucs.realtimepolls.config;
+
+import com.andrelucs.realtimepolls.polloptions.admission.VoteAdmissionControl;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class AdmissionControlConfiguration implements WebMvcConfigurer {
+
+    // Only present when votes.admission.enabled is set
+    private final VoteAdmissionControl admissionControl;
+
+    public AdmissionControlConfiguration(ObjectProvider<VoteAdmissionControl> admissionControl) {
+        this.admissionControl = admissionControl.getIfAvailable();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (admissionControl == null) return;
+        // Votes and option updates, the endpoints that write on poll_option
+        registry.addInterceptor(admissionControl.interceptor())
+                .addPathPatterns("/api/poll/*/options", "/api/poll/*/options/*", "/api/poll/*/votes", "/api/poll/*/ballots", "/api/poll/*/ranked-ballots");
+    }
+}
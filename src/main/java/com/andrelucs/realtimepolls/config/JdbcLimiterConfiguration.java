@@ -0,0 +1,42 @@
+package com.andrelucs.realtimepolls.config;
+
+import com.andrelucs.realtimepolls.data.JdbcConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class JdbcLimiterConfiguration {
+
+    @Value("${jdbc.limiter.permits:10}")
+    private int permits;
+    @Value("${jdbc.limiter.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+    @Value("${jdbc.limiter.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Bean
+    @ConditionalOnProperty(name = "jdbc.limiter.enabled", havingValue = "true")
+    public JdbcConcurrencyLimiter jdbcConcurrencyLimiter(MeterRegistry meterRegistry) {
+        return new JdbcConcurrencyLimiter(permits, acquireTimeoutMs, retryAfterSeconds, meterRegistry);
+    }
+
+    // Static so it's registered before the data source is created, it wraps every DataSource bean with the limiter
+    @Bean
+    public static BeanPostProcessor jdbcLimiterPostProcessor(ObjectProvider<JdbcConcurrencyLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) return bean;
+                var jdbcLimiter = limiter.getIfAvailable();
+                return jdbcLimiter != null ? jdbcLimiter.limit(dataSource) : bean;
+            }
+        };
+    }
+}
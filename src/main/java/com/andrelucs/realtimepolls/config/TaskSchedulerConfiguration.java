@@ -13,12 +13,18 @@ public class TaskSchedulerConfiguration {
 
     @Value("${taskscheduler.pollsize:1}")
     private int poolSize;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
 
     @Bean
     public TaskScheduler threadPollTaskScheduler(){
         var scheduler = new ThreadPoolTaskScheduler();
         scheduler.setPoolSize(poolSize);
         scheduler.setThreadNamePrefix("ThreadPoolTaskScheduler");
+        if (virtualThreads) {
+            // Same pool size, so fixed rate tasks still never overlap, but flushes waiting on the database don't pin a carrier
+            scheduler.setThreadFactory(Thread.ofVirtual().name("ThreadPoolTaskScheduler", 1).factory());
+        }
         return scheduler;
     }
 }
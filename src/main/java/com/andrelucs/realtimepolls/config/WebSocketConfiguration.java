@@ -1,6 +1,11 @@
 package com.andrelucs.realtimepolls.config;
 
+import com.andrelucs.realtimepolls.websocket.PollReplayBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -10,14 +15,37 @@ import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    @Value("${votes.replay.capacity:256}")
+    private int replayCapacity;
+    @Value("${votes.replay.max-bytes:262144}")
+    private long replayMaxBytes;
+
+    @Bean
+    public PollReplayBuffer pollReplayBuffer() {
+        return new PollReplayBuffer(replayCapacity, replayMaxBytes);
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
-        registry.enableSimpleBroker("/topic");
+        registry.enableSimpleBroker("/topic", "/queue");
+        // Broadcasts of a poll are numbered, each session gets them in that order
+        registry.setPreservePublishOrder(true);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // STOMP votes hit the database like HTTP ones, so they run on virtual threads too
+        if (virtualThreads) registration.executor(new VirtualThreadTaskExecutor("clientInboundChannel-"));
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Frames of a session are handled in order, so a vote never runs before the SUBSCRIBE to its receipt queue
+        registry.setPreserveReceiveOrder(true);
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*")
                 .setHandshakeHandler(new DefaultHandshakeHandler())
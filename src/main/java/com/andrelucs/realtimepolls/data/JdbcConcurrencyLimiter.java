@@ -0,0 +1,159 @@
+package com.andrelucs.realtimepolls.data;
+
+import com.andrelucs.realtimepolls.exceptions.service.DatabaseBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds how many threads borrow connections at once with a fair semaphore in front of the pool. Request threads used
+ * to be capped by Tomcat's pool, virtual threads aren't, so thousands of them would otherwise queue inside Hikari until
+ * its connection timeout. A thread takes a permit with its first open connection and gives it back once it closed all
+ * of them, so it spans every repository call and transaction on them, and a thread already holding a connection, like
+ * one opening a nested transaction, borrows more without waiting for a permit other threads hold.
+ * Waiting longer than the acquire timeout fails with {@link DatabaseBusyException}, answered with 503.
+ */
+public class JdbcConcurrencyLimiter {
+
+    private final int permits;
+    private final long acquireTimeoutNanos;
+    private final long retryAfterSeconds;
+    private final Semaphore semaphore;
+    // Connections open on each thread, the permit is held while there's any
+    private final ThreadLocal<AtomicInteger> openConnections = ThreadLocal.withInitial(AtomicInteger::new);
+
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public JdbcConcurrencyLimiter(int permits, long acquireTimeoutMs, long retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.permits = Math.max(1, permits);
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+        this.retryAfterSeconds = retryAfterSeconds;
+        // Fair, the longest waiting thread gets the next connection like it would in Hikari
+        this.semaphore = new Semaphore(this.permits, true);
+
+        waitTimer = Timer.builder("jdbc.limiter.wait")
+                .description("Time spent waiting for a database permit")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        rejected = Counter.builder("jdbc.limiter.rejected")
+                .description("Connections refused after waiting the whole acquire timeout")
+                .register(meterRegistry);
+        Gauge.builder("jdbc.limiter.waiting", this, JdbcConcurrencyLimiter::getWaiting).register(meterRegistry);
+        Gauge.builder("jdbc.limiter.in-use", this, JdbcConcurrencyLimiter::getInUse).register(meterRegistry);
+    }
+
+    /**
+     * @return a data source whose connections each hold a permit until they're closed
+     */
+    public DataSource limit(DataSource dataSource) {
+        return new LimitedDataSource(dataSource);
+    }
+
+    public int getWaiting() {
+        return semaphore.getQueueLength();
+    }
+
+    public int getInUse() {
+        return permits - semaphore.availablePermits();
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database permit", e);
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            rejected.increment();
+            throw new DatabaseBusyException("Too many requests waiting for the database, try again later", retryAfterSeconds);
+        }
+    }
+
+    private Connection borrow(ConnectionSource source) throws SQLException {
+        var open = openConnections.get();
+        if (open.getAndIncrement() == 0) {
+            try {
+                acquire();
+            } catch (SQLException e) {
+                open.decrementAndGet();
+                throw e;
+            }
+        }
+        try {
+            return withPermit(source.getConnection(), open);
+        } catch (SQLException | RuntimeException e) {
+            release(open);
+            throw e;
+        }
+    }
+
+    private void release(AtomicInteger open) {
+        if (open.decrementAndGet() == 0) semaphore.release();
+    }
+
+    // The counter of the borrowing thread, the connection may be closed on another one
+    private Connection withPermit(Connection connection, AtomicInteger open) {
+        var released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> {
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            release(open);
+                        }
+                        try {
+                            yield method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    private interface ConnectionSource {
+        Connection getConnection() throws SQLException;
+    }
+
+    private class LimitedDataSource extends DelegatingDataSource {
+
+        LimitedDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return borrow(() -> obtainTargetDataSource().getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return borrow(() -> obtainTargetDataSource().getConnection(username, password));
+        }
+
+        // Unwrapping to a DataSource gives the pool, which Spring Boot derives Flyway's own data source from
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            if (iface == DataSource.class) return (T) obtainTargetDataSource();
+            return super.unwrap(iface);
+        }
+    }
+}
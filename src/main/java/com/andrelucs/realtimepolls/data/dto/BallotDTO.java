@@ -0,0 +1,8 @@
+package com.andrelucs.realtimepolls.data.dto;
+
+/**
+ * Options picked on a multi-select poll, {@code selections} is a base64 bitset where bit n of byte n / 8, counting
+ * from the least significant, picks the n-th option of the poll ordered by id. Options 0 and 2 are "BQ==".
+ */
+public record BallotDTO(String selections) {
+}
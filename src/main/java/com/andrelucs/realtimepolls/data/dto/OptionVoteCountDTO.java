@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.data.dto;
+
+/**
+ * One entry of a batch of votes, {@code count} votes for the option
+ */
+public record OptionVoteCountDTO(Long optionId, Long count) {
+}
@@ -1,6 +1,7 @@
 package com.andrelucs.realtimepolls.data.dto;
 
 import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,4 +19,12 @@ public final class PollDTO {
     private LocalDateTime endDate;
     private PollStatus status;
     private List<PollOptionDTO> options;
+    private Integer maxSelections = 1;
+    private PollType type = PollType.CHOICE;
+    // Approximate, null when unique voters are not counted
+    private Long uniqueVoters;
+
+    public PollDTO(Long id, String question, LocalDateTime startDate, LocalDateTime endDate, PollStatus status, List<PollOptionDTO> options) {
+        this(id, question, startDate, endDate, status, options, 1, PollType.CHOICE, null);
+    }
 }
@@ -8,5 +8,10 @@ import java.time.LocalDateTime;
 public record PollEditRequestDTO(
         String question,
         LocalDateTime startDate,
-        LocalDateTime endDate)
-{ }
+        LocalDateTime endDate,
+        Integer maxSelections)
+{
+    public PollEditRequestDTO(String question, LocalDateTime startDate, LocalDateTime endDate) {
+        this(question, startDate, endDate, null);
+    }
+}
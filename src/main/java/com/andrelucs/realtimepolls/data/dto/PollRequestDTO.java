@@ -1,5 +1,7 @@
 package com.andrelucs.realtimepolls.data.dto;
 
+import com.andrelucs.realtimepolls.data.model.PollType;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -15,5 +17,18 @@ public record PollRequestDTO(
         @NotNull(message = "Should specify a endDate for the poll")
         LocalDateTime endDate,
         @Size(min = 3, message = "A poll should have at least 3 options.")
-        List<String> options)
-{ }
+        List<String> options,
+        // Defaults to 1, single choice
+        @Min(value = 1, message = "A poll should allow at least 1 selection.")
+        Integer maxSelections,
+        // Defaults to CHOICE
+        PollType type)
+{
+    public PollRequestDTO(String question, LocalDateTime startDate, LocalDateTime endDate, List<String> options) {
+        this(question, startDate, endDate, options, null, null);
+    }
+
+    public PollRequestDTO(String question, LocalDateTime startDate, LocalDateTime endDate, List<String> options, Integer maxSelections) {
+        this(question, startDate, endDate, options, maxSelections, null);
+    }
+}
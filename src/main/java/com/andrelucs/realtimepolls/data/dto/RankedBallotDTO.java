@@ -0,0 +1,9 @@
+package com.andrelucs.realtimepolls.data.dto;
+
+import java.util.List;
+
+/**
+ * Ballot of a ranked poll, option ids most preferred first. Options left out are never counted for.
+ */
+public record RankedBallotDTO(List<Long> ranking) {
+}
@@ -0,0 +1,10 @@
+package com.andrelucs.realtimepolls.data.dto;
+
+/**
+ * @param rows ballots read from the file
+ * @param appliedVotes ballots added to an option
+ * @param rejectedRows ballots for options that don't exist, don't belong to the poll or are on a ranked poll
+ * @param polls polls that received votes, each got one vote broadcast
+ */
+public record VoteImportResultDTO(long rows, long appliedVotes, long rejectedRows, int polls) {
+}
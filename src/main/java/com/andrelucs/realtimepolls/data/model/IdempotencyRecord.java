@@ -0,0 +1,36 @@
+package com.andrelucs.realtimepolls.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_key")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String key;
+
+    @Column(name = "poll_id", nullable = false)
+    private Long pollId;
+
+    // Hash of what the request asked for, a key can only be repeated with the same request
+    @Column(name = "fingerprint", nullable = false)
+    private Long fingerprint;
+
+    // false while the first request is running
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+
+    // JSON of the first response
+    private String response;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
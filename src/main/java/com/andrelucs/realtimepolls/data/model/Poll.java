@@ -1,6 +1,7 @@
 package com.andrelucs.realtimepolls.data.model;
 
 import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -37,10 +38,23 @@ public class Poll {
     @Column(nullable = false, length = 20)
     private PollStatus status;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private PollType type = PollType.CHOICE;
+
+    // How many options one ballot can pick, 1 for single choice polls
+    @Min(value = 1, message = "A poll should allow at least 1 selection.")
+    @Column(name = "max_selections", nullable = false)
+    @Builder.Default
+    private Integer maxSelections = 1;
+
     // Lombok exclude to avoid unecessary fetchs
     @ToString.Exclude
     @EqualsAndHashCode.Exclude
     @Size(min = 3, message = "Minimum options count is 3")
+    // Ballots pick options by their index in this order
+    @OrderBy("id")
     @OneToMany(mappedBy = "poll", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<PollOption> options = new ArrayList<>();
 
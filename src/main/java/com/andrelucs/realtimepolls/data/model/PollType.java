@@ -0,0 +1,8 @@
+package com.andrelucs.realtimepolls.data.model;
+
+public enum PollType {
+    // Votes go to options, up to max-selections per ballot
+    CHOICE,
+    // Ballots rank the options, counted by instant runoff
+    RANKED
+}
@@ -0,0 +1,36 @@
+package com.andrelucs.realtimepolls.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "poll_voter")
+@IdClass(PollVoter.PollVoterId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PollVoter {
+
+    @Id
+    @Column(name = "poll_id", nullable = false)
+    private Long pollId;
+
+    @Id
+    @Column(name = "voter_key", nullable = false, length = 128)
+    private String voterKey;
+
+    @Column(name = "voted_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime votedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PollVoterId implements Serializable {
+        private Long pollId;
+        private String voterKey;
+    }
+}
@@ -0,0 +1,29 @@
+package com.andrelucs.realtimepolls.data.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "ranked_ballot")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RankedBallot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "poll_id", nullable = false)
+    private Long pollId;
+
+    // Option ids, most preferred first
+    @Column(nullable = false)
+    private Long[] ranking;
+
+    @Column(name = "cast_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime castAt;
+}
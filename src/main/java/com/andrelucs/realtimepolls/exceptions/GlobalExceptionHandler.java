@@ -4,10 +4,16 @@ import com.andrelucs.realtimepolls.data.dto.ExceptionDTO;
 import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
 import com.andrelucs.realtimepolls.exceptions.controller.FailPollOptionsUpdateException;
 import com.andrelucs.realtimepolls.exceptions.controller.InvalidPollException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollConflictException;
 import com.andrelucs.realtimepolls.exceptions.controller.PollNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.controller.ServiceBusyException;
+import com.andrelucs.realtimepolls.exceptions.controller.UnauthorizedException;
+import com.andrelucs.realtimepolls.exceptions.service.DatabaseBusyException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteOutcomeUnknownException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -46,11 +52,40 @@ public class GlobalExceptionHandler {
         return defaultResponseGenerator(HttpStatus.FORBIDDEN, e.getMessage(), request);
     }
 
+    @ExceptionHandler(PollConflictException.class)
+    public ResponseEntity<ExceptionDTO> handlePollConflictException(PollConflictException e, HttpServletRequest request) {
+        return defaultResponseGenerator(HttpStatus.CONFLICT, e.getMessage(), request);
+    }
+
     @ExceptionHandler(BadRequestException.class)
     public ResponseEntity<ExceptionDTO> handleBadRequestException(BadRequestException e, HttpServletRequest request) {
         return defaultResponseGenerator(HttpStatus.BAD_REQUEST, e.getMessage(), request);
     }
 
+    @ExceptionHandler(UnauthorizedException.class)
+    public ResponseEntity<ExceptionDTO> handleUnauthorizedException(UnauthorizedException e, HttpServletRequest request) {
+        return defaultResponseGenerator(HttpStatus.UNAUTHORIZED, e.getMessage(), request);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ExceptionDTO> handleServiceBusyException(ServiceBusyException e, HttpServletRequest request) {
+        var response = defaultResponseGenerator(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), request);
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    // Also matched as the cause of the JPA and JDBC exceptions it arrives wrapped in
+    @ExceptionHandler(DatabaseBusyException.class)
+    public ResponseEntity<ExceptionDTO> handleDatabaseBusyException(DatabaseBusyException e, HttpServletRequest request) {
+        return handleServiceBusyException(new ServiceBusyException(e.getMessage(), e.getRetryAfterSeconds()), request);
+    }
+
+    @ExceptionHandler(VoteOutcomeUnknownException.class)
+    public ResponseEntity<ExceptionDTO> handleVoteOutcomeUnknownException(VoteOutcomeUnknownException e, HttpServletRequest request) {
+        return defaultResponseGenerator(HttpStatus.GATEWAY_TIMEOUT, e.getMessage(), request);
+    }
+
     private ResponseEntity<ExceptionDTO> defaultResponseGenerator(HttpStatus status, String message, HttpServletRequest request){
         return new ResponseEntity<>(
                 new ExceptionDTO(
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.controller;
+
+public class PollConflictException extends RuntimeException {
+    public PollConflictException(String message) {
+        super(message);
+    }
+}
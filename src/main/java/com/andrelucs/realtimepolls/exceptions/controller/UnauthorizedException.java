@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.controller;
+
+public class UnauthorizedException extends RuntimeException {
+    public UnauthorizedException(String message) {
+        super(message);
+    }
+}
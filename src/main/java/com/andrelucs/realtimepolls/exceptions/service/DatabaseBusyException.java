@@ -0,0 +1,18 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+import lombok.Getter;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Thrown while borrowing a connection, so it reaches the controllers wrapped by the JPA and JDBC exceptions
+ */
+@Getter
+public class DatabaseBusyException extends SQLTransientConnectionException {
+    private final long retryAfterSeconds;
+
+    public DatabaseBusyException(String message, long retryAfterSeconds) {
+        super(message, "08004");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class DuplicateVoteException extends InvalidPollUpdateException {
+    public DuplicateVoteException(String message) {
+        super(message);
+    }
+}
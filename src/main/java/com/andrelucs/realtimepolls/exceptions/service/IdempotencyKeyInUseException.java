@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class IdempotencyKeyInUseException extends RuntimeException {
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
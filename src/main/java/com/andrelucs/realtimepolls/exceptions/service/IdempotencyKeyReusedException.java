@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -4,4 +4,11 @@ public class InvalidPollUpdateException extends RuntimeException {
     public InvalidPollUpdateException(String message) {
         super(message);
     }
+
+    /**
+     * For rejections thrown often enough that filling the stack trace shows up, such instances can be shared
+     */
+    protected InvalidPollUpdateException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class InvalidVoteImportException extends InvalidPollUpdateException {
+    public InvalidVoteImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class MissingVoterException extends InvalidPollUpdateException {
+    public MissingVoterException(String message) {
+        super(message);
+    }
+}
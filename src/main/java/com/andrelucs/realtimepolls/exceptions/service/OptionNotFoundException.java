@@ -0,0 +1,15 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class OptionNotFoundException extends InvalidPollUpdateException {
+    // Stackless and shared, like PollNotInProgressException.VOTE_REJECTED
+    public static final OptionNotFoundException VOTE_REJECTED =
+            new OptionNotFoundException("Option not found on this poll", false);
+
+    public OptionNotFoundException(String message) {
+        super(message);
+    }
+
+    private OptionNotFoundException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
+}
@@ -0,0 +1,15 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class PollNotInProgressException extends InvalidPollUpdateException {
+    // Stackless and shared, finished polls keep receiving votes for a while
+    public static final PollNotInProgressException VOTE_REJECTED =
+            new PollNotInProgressException("Poll is not in progress, cannot vote", false);
+
+    public PollNotInProgressException(String message) {
+        super(message);
+    }
+
+    private PollNotInProgressException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
+}
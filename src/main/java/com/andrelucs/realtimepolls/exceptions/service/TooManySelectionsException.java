@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class TooManySelectionsException extends InvalidPollUpdateException {
+    public TooManySelectionsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+/**
+ * The vote was handed over but its result wasn't known in time, it may still be counted.
+ * The voter and the Idempotency-Key stay taken, so a retry can't count it twice.
+ */
+public class VoteOutcomeUnknownException extends RuntimeException {
+    public VoteOutcomeUnknownException(String message) {
+        super(message);
+    }
+}
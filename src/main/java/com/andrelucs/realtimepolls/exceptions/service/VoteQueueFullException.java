@@ -0,0 +1,7 @@
+package com.andrelucs.realtimepolls.exceptions.service;
+
+public class VoteQueueFullException extends RuntimeException {
+    public VoteQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,89 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.dto.BallotDTO;
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.exceptions.controller.FailPollOptionsUpdateException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollConflictException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.DuplicateVoteException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyInUseException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyReusedException;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.MissingVoterException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.exceptions.service.TooManySelectionsException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Ballots of multi-select polls, every picked option gets one vote in a single request
+ */
+@RestController
+@RequestMapping("/api/poll/{poll_id}/ballots")
+public class BallotController {
+
+    // Far more options than any poll has, keeps a ballot from asking for huge bitsets
+    private static final int MAX_BALLOT_BYTES = 128;
+
+    private final OptionService optionService;
+
+    public BallotController(OptionService optionService) {
+        this.optionService = optionService;
+    }
+
+    @PostMapping
+    ResponseEntity<List<PollOptionDTO>> castBallot(@PathVariable Long poll_id, @RequestBody BallotDTO ballot,
+                                                   @RequestHeader(name = "X-Voter-Key", required = false) String voterKey,
+                                                   @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                   HttpServletRequest request) {
+        var selections = decode(ballot);
+        var voter = VoteRequests.voter(voterKey, idempotencyKey, request);
+        try {
+            return VoteRequests.respond(optionService.voteForBallot(poll_id, selections, voter));
+        } catch (TooManySelectionsException e) {
+            throw new BadRequestException(e.getMessage());
+        } catch (OptionNotFoundException e) {
+            throw new PollNotFoundException("Failed to vote on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
+        } catch (PollNotInProgressException e) {
+            throw new PollConflictException("Poll %d is not in progress, cannot vote.".formatted(poll_id));
+        } catch (IdempotencyKeyInUseException e) {
+            throw new PollConflictException(e.getMessage());
+        } catch (IdempotencyKeyReusedException e) {
+            throw new BadRequestException(e.getMessage());
+        } catch (MissingVoterException e) {
+            throw new BadRequestException("The X-Voter-Key header is required to vote.");
+        } catch (DuplicateVoteException e) {
+            throw new PollConflictException("Voter already voted on poll %d.".formatted(poll_id));
+        } catch (InvalidPollUpdateException e) {
+            throw new FailPollOptionsUpdateException("Failed to update poll options on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
+        }
+    }
+
+    private static BitSet decode(BallotDTO ballot) {
+        if (ballot == null || ballot.selections() == null || ballot.selections().isBlank()) {
+            throw new BadRequestException("The ballot should have selections.");
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(ballot.selections());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("The ballot selections should be a base64 bitset.");
+        }
+        if (bytes.length > MAX_BALLOT_BYTES) {
+            throw new BadRequestException("The ballot selections cannot be longer than %d bytes.".formatted(MAX_BALLOT_BYTES));
+        }
+
+        var selections = BitSet.valueOf(bytes);
+        if (selections.isEmpty()) {
+            throw new BadRequestException("The ballot should pick at least one option.");
+        }
+        return selections;
+    }
+}
@@ -0,0 +1,50 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.model.IdempotencyRecord;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Reserves the key, taking over an expired row
+     * @return 1 when reserved, 0 when another request holds the key
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT INTO idempotency_key (idempotency_key, poll_id, fingerprint, expires_at)
+    VALUES (:key, :pollId, :fingerprint, localtimestamp + cast(:inFlightTimeoutMs AS BIGINT) * interval '1 millisecond')
+    ON CONFLICT (idempotency_key) DO UPDATE
+        SET poll_id = excluded.poll_id, fingerprint = excluded.fingerprint, completed = FALSE,
+            response = NULL, expires_at = excluded.expires_at
+        WHERE idempotency_key.expires_at < localtimestamp
+    """, nativeQuery = true)
+    int reserve(@Param("key") String key, @Param("pollId") Long pollId, @Param("fingerprint") long fingerprint,
+                @Param("inFlightTimeoutMs") long inFlightTimeoutMs);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+    UPDATE idempotency_key
+    SET completed = TRUE, response = :response,
+        expires_at = localtimestamp + cast(:ttlMs AS BIGINT) * interval '1 millisecond'
+    WHERE idempotency_key = :key
+    """, nativeQuery = true)
+    int complete(@Param("key") String key, @Param("response") String response, @Param("ttlMs") long ttlMs);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_key WHERE idempotency_key = :key AND NOT completed", nativeQuery = true)
+    int release(@Param("key") String key);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_key WHERE expires_at < localtimestamp", nativeQuery = true)
+    int deleteExpired();
+}
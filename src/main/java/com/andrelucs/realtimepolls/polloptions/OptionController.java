@@ -1,12 +1,25 @@
 package com.andrelucs.realtimepolls.polloptions;
 
+import com.andrelucs.realtimepolls.polloptions.voting.AsyncVoteAcceptor;
 import com.andrelucs.realtimepolls.polls.PollService;
 import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
 import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
 import com.andrelucs.realtimepolls.exceptions.controller.FailPollOptionsUpdateException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollConflictException;
 import com.andrelucs.realtimepolls.exceptions.controller.PollNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.controller.ServiceBusyException;
+import com.andrelucs.realtimepolls.exceptions.service.DuplicateVoteException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyInUseException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyReusedException;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.MissingVoterException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteQueueFullException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -17,10 +30,14 @@ public class OptionController {
 
     private final OptionService optionService;
     private final PollService pollService;
+    // Only present when votes.async.enabled is set
+    private final AsyncVoteAcceptor asyncVoteAcceptor;
+    private final RejectedVoteResponses rejectedVoteResponses = new RejectedVoteResponses();
 
-    public OptionController(OptionService optionService, PollService pollService) {
+    public OptionController(OptionService optionService, PollService pollService, ObjectProvider<AsyncVoteAcceptor> asyncVoteAcceptor) {
         this.optionService = optionService;
         this.pollService = pollService;
+        this.asyncVoteAcceptor = asyncVoteAcceptor.getIfAvailable();
     }
 
     @PostMapping()
@@ -41,15 +58,31 @@ public class OptionController {
     }
 
     @PatchMapping("/{option_id}")
-    PollOptionDTO voteForOption(@PathVariable Long poll_id, @PathVariable Long option_id){
+    ResponseEntity<?> voteForOption(@PathVariable Long poll_id, @PathVariable Long option_id,
+                                                @RequestHeader(name = "X-Voter-Key", required = false) String voterKey,
+                                                @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                HttpServletRequest request){
         if (option_id == null) {
             throw new BadRequestException("The Option id cannot be blank.");
         }
-        if (!pollService.pollExists(poll_id)){
-            throw new PollNotFoundException("Poll was not found.");
-        }
+        var voter = VoteRequests.voter(voterKey, idempotencyKey, request);
         try{
-            return optionService.voteForOption(option_id);
+            return VoteRequests.respond(optionService.voteForOption(poll_id, option_id, voter));
+        }catch (IdempotencyKeyInUseException e){
+            throw new PollConflictException(e.getMessage());
+        }catch (IdempotencyKeyReusedException e){
+            throw new BadRequestException(e.getMessage());
+        }catch (VoteQueueFullException e){
+            throw new ServiceBusyException(e.getMessage(), asyncVoteAcceptor.getRetryAfterSeconds());
+        }catch (OptionNotFoundException e){
+            throw new PollNotFoundException("Option %d was not found on poll %d.".formatted(option_id, poll_id));
+        }catch (PollNotInProgressException e){
+            // Most common rejection once a poll ends, answered with a cached body
+            return rejectedVoteResponses.pollNotInProgress(poll_id, request.getRequestURI());
+        }catch (MissingVoterException e){
+            throw new BadRequestException("The X-Voter-Key header is required to vote.");
+        }catch (DuplicateVoteException e){
+            throw new PollConflictException("Voter already voted on poll %d.".formatted(poll_id));
         }catch (InvalidPollUpdateException e){
             throw new FailPollOptionsUpdateException("Failed to update poll options on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
         }
@@ -4,37 +4,59 @@ import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
 import com.andrelucs.realtimepolls.data.model.Poll;
 import com.andrelucs.realtimepolls.data.model.PollOption;
 import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.exceptions.service.TooManySelectionsException;
+import com.andrelucs.realtimepolls.polloptions.voting.AsyncVoteAcceptor;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteGate;
+import com.andrelucs.realtimepolls.polloptions.voting.Voter;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteWriter;
 import com.andrelucs.realtimepolls.polls.PollRepository;
-import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
-import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
-import jakarta.persistence.EntityManager;
-import jakarta.transaction.Transactional;
+import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class OptionService {
 
     private static final Logger log = LoggerFactory.getLogger(OptionService.class);
+    private static final int MAX_FINISHED_POLLS = 10_000;
     private final PollOptionRepository optionRepository;
     private final PollRepository pollRepository;
     private final ModelMapper modelMapper;
-    private final ApplicationEventPublisher eventPublisher;
-    private final EntityManager entityManager;
+    private final VoteWriter voteWriter;
+    private final VoteGate voteGate;
+    // Only present when votes.async.enabled is set
+    private final AsyncVoteAcceptor asyncVoteAcceptor;
+    // FINISHED is final and so are the options of a started poll, votes for these polls are answered without a query
+    private final Map<Long, long[]> finishedPolls = new ConcurrentHashMap<>();
 
-    public OptionService(PollOptionRepository optionRepository, PollRepository pollRepository, ModelMapper modelMapper, ApplicationEventPublisher eventPublisher, EntityManager entityManager) {
+    public OptionService(PollOptionRepository optionRepository, PollRepository pollRepository, ModelMapper modelMapper,
+                         VoteWriter voteWriter, VoteGate voteGate, ObjectProvider<AsyncVoteAcceptor> asyncVoteAcceptor) {
         this.optionRepository = optionRepository;
         this.pollRepository = pollRepository;
         this.modelMapper = modelMapper;
-        this.eventPublisher = eventPublisher;
-        this.entityManager = entityManager;
+        this.voteWriter = voteWriter;
+        this.voteGate = voteGate;
+        this.asyncVoteAcceptor = asyncVoteAcceptor.getIfAvailable();
     }
 
     /**
@@ -94,45 +116,187 @@ public class OptionService {
     }
 
     /**
-     * Adds a vote to an option
+     * Adds a vote to an option, the vote is registered by the configured {@link VoteWriter} in a single statement
+     * that also checks the option belongs to the poll and the poll is in progress
+     * @param pollId the poll the option belongs to
      * @param optionId the option id to add a vote
      * @return The updated PollOption
-     * @throws InvalidPollUpdateException when the poll is not in progress
+     * @throws OptionNotFoundException when the option doesn't exist on the poll
+     * @throws PollNotInProgressException when the poll is not in progress
      */
-    @Transactional
-    public PollOptionDTO voteForOption(Long optionId) throws InvalidPollUpdateException {
-        PollOption option = optionRepository.findById(optionId)
-                .orElseThrow(() -> new InvalidPollUpdateException("Option not found"));
+    public PollOptionDTO voteForOption(Long pollId, Long optionId) throws InvalidPollUpdateException {
+        rejectIfFinished(pollId, optionId);
+        return voteWriter.write(pollId, optionId)
+                .orElseThrow(() -> rejectedVote(pollId, optionId));
+    }
 
-        Poll poll = option.getPoll();
-        if (poll.getStatus() != PollStatus.STARTED) {
-            throw new InvalidPollUpdateException("Poll is not in progress, cannot vote");
+    /**
+     * Same as {@link #voteForOption(Long, Long)} through the {@link VoteGate}. With {@code votes.async.enabled} the
+     * vote is queued instead. Votes on polls known to be finished are refused before the gate, no voter or
+     * Idempotency-Key is taken for them.
+     * @return the updated PollOption, null when the vote was queued
+     * @throws com.andrelucs.realtimepolls.exceptions.service.VoteQueueFullException when the vote can't be queued
+     */
+    public VoteGate.Outcome<PollOptionDTO> voteForOption(Long pollId, Long optionId, Voter voter) throws InvalidPollUpdateException {
+        rejectIfFinished(pollId, optionId);
+        return voteGate.vote(pollId, voter, "option:" + optionId, new TypeReference<>() {}, () -> {
+            if (asyncVoteAcceptor == null) return voteForOption(pollId, optionId);
+            asyncVoteAcceptor.accept(pollId, optionId);
+            return null;
+        });
+    }
+
+    /**
+     * Adds a batch of votes to the options of a poll through the configured {@link VoteWriter}, all or nothing
+     * @param pollId the poll receiving the votes
+     * @param countsByOption the amount of votes keyed by option id
+     * @return the updated options
+     * @throws OptionNotFoundException when any option doesn't exist on the poll, no vote is kept
+     * @throws PollNotInProgressException when the poll is not in progress, no vote is kept
+     */
+    public List<PollOptionDTO> voteForOptions(Long pollId, Map<Long, Long> countsByOption) throws InvalidPollUpdateException {
+        var voted = voteWriter.writeAll(pollId, countsByOption);
+        if (voted.isEmpty()) {
+            throw rejectedBatch(pollId, countsByOption.keySet());
         }
+        return voted;
+    }
 
-        int updated = optionRepository.incrementVote(optionId);
-        if (updated == 0) {
-            throw new InvalidPollUpdateException("Vote could not be registered");
+    /**
+     * Same as {@link #voteForOptions(Long, Map)} through the {@link VoteGate}
+     */
+    public VoteGate.Outcome<List<PollOptionDTO>> voteForOptions(Long pollId, Map<Long, Long> countsByOption, String idempotencyKey) throws InvalidPollUpdateException {
+        return voteGate.voteBatch(pollId, idempotencyKey, "votes:" + new TreeMap<>(countsByOption), new TypeReference<>() {},
+                () -> voteForOptions(pollId, countsByOption));
+    }
+
+    /**
+     * Casts a ballot picking up to max-selections options of the poll, one vote each through the configured
+     * {@link VoteWriter}, all or nothing
+     * @param pollId the poll receiving the ballot
+     * @param ballot bit n set picks the n-th option of the poll ordered by id
+     * @return the voted options
+     * @throws TooManySelectionsException when the ballot picks more options than the poll allows
+     * @throws OptionNotFoundException when the ballot picks options the poll doesn't have, no vote is kept
+     * @throws PollNotInProgressException when the poll is not in progress
+     */
+    public List<PollOptionDTO> voteForBallot(Long pollId, BitSet ballot) throws InvalidPollUpdateException {
+        rejectIfFinished(pollId);
+        var picked = optionRepository.findBallotOptionIds(pollId, ballot.toByteArray(), ballot.cardinality());
+        if (picked.size() != ballot.cardinality()) {
+            throw rejectedBallot(pollId, ballot);
         }
 
-        entityManager.refresh(option);
+        Map<Long, Long> votesByOption = new LinkedHashMap<>();
+        picked.forEach(optionId -> votesByOption.put(optionId, 1L));
+        var voted = voteWriter.writeAll(pollId, votesByOption);
+        if (voted.isEmpty()) {
+            throw rejectedBallot(pollId, ballot);
+        }
+        return voted;
+    }
 
-        eventPublisher.publishEvent(new PollVoteEvent(this,
-                PollOptionVoteDTO.builder()
-                        .pollId(poll.getId())
-                        .optionId(optionId)
-                        .delta(1L)
-                        .timestamp(LocalDateTime.now())
-                        .build()
-        ));
+    /**
+     * Same as {@link #voteForBallot(Long, BitSet)} through the {@link VoteGate}, refused before the gate when the
+     * poll is known to be finished
+     */
+    public VoteGate.Outcome<List<PollOptionDTO>> voteForBallot(Long pollId, BitSet ballot, Voter voter) throws InvalidPollUpdateException {
+        rejectIfFinished(pollId);
+        return voteGate.vote(pollId, voter, "ballot:" + ballot, new TypeReference<>() {}, () -> voteForBallot(pollId, ballot));
+    }
 
-        return modelMapper.map(option, PollOptionDTO.class);
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPollStatusEvent(PollStatusEvent statusEvent) {
+        if (statusEvent.getData().getToStatus() == PollStatus.FINISHED) {
+            rememberFinished(statusEvent.getData().getPollId());
+        }
     }
 
+    /**
+     * Looks up why a vote was not accepted, only runs when the vote statement didn't match.
+     * The common rejections are shared stackless instances.
+     */
+    private InvalidPollUpdateException rejectedVote(Long pollId, Long optionId) {
+        var status = optionRepository.findPollStatus(pollId, optionId);
+        if (status.isEmpty()) {
+            return OptionNotFoundException.VOTE_REJECTED;
+        }
+        if (status.get() == PollStatus.STARTED) {
+            // Either a RANKED poll or the vote lost a race with a status change
+            return new InvalidPollUpdateException("Vote could not be registered, ranked polls take ballots");
+        }
+        if (status.get() == PollStatus.FINISHED) {
+            rememberFinished(pollId);
+        }
+        return PollNotInProgressException.VOTE_REJECTED;
+    }
+
+    private void rejectIfFinished(Long pollId, Long optionId) {
+        var finishedOptions = finishedPolls.get(pollId);
+        if (finishedOptions != null) {
+            throw Arrays.binarySearch(finishedOptions, optionId) >= 0
+                    ? PollNotInProgressException.VOTE_REJECTED
+                    : OptionNotFoundException.VOTE_REJECTED;
+        }
+    }
+
+    private void rejectIfFinished(Long pollId) {
+        if (finishedPolls.containsKey(pollId)) {
+            throw PollNotInProgressException.VOTE_REJECTED;
+        }
+    }
+
+    private void rememberFinished(Long pollId) {
+        if (finishedPolls.containsKey(pollId)) return;
+        // Plain reset instead of an eviction policy, the map refills from the next rejected votes
+        if (finishedPolls.size() >= MAX_FINISHED_POLLS) finishedPolls.clear();
+        // Sorted ids, so votes for options the poll doesn't have are still told apart
+        var optionIds = optionRepository.findOptionIds(pollId).stream().mapToLong(Long::longValue).sorted().toArray();
+        finishedPolls.put(pollId, optionIds);
+    }
+
+    private InvalidPollUpdateException rejectedBatch(Long pollId, Set<Long> optionIds) {
+        var poll = pollRepository.findById(pollId);
+        if (poll.isEmpty()) {
+            return new OptionNotFoundException("Poll not found");
+        }
+        if (poll.get().getStatus() != PollStatus.STARTED) {
+            return new PollNotInProgressException("Poll is not in progress, cannot vote");
+        }
+        if (poll.get().getType() != PollType.CHOICE) {
+            return new InvalidPollUpdateException("Ranked polls take ranked ballots, not votes");
+        }
+
+        var missing = new HashSet<>(optionIds);
+        optionRepository.findOptionIds(pollId).forEach(missing::remove);
+        return new OptionNotFoundException("Options %s not found on this poll".formatted(missing));
+    }
+
+    private InvalidPollUpdateException rejectedBallot(Long pollId, BitSet ballot) {
+        var poll = pollRepository.findById(pollId);
+        if (poll.isEmpty()) {
+            return new OptionNotFoundException("Poll not found");
+        }
+        if (poll.get().getStatus() != PollStatus.STARTED) {
+            if (poll.get().getStatus() == PollStatus.FINISHED) rememberFinished(pollId);
+            return new PollNotInProgressException("Poll is not in progress, cannot vote");
+        }
+        if (poll.get().getType() != PollType.CHOICE) {
+            return new InvalidPollUpdateException("Ranked polls take ranked ballots, not votes");
+        }
+        if (ballot.cardinality() > poll.get().getMaxSelections()) {
+            return new TooManySelectionsException("The ballot picks %d options, the poll allows at most %d"
+                    .formatted(ballot.cardinality(), poll.get().getMaxSelections()));
+        }
+        return new OptionNotFoundException("The ballot picks options past the last one of the poll");
+    }
 
     public List<PollOptionDTO> getPollOptionsDTOS(Long pollId) {
+        var unsettled = voteWriter.unsettledVotes(List.of(pollId));
         return getPollOptions(pollId)
                 .stream()
                 .map(o -> modelMapper.map(o, PollOptionDTO.class))
+                .peek(o -> o.setVotes(o.getVotes() + unsettled.getOrDefault(o.getId(), 0L).intValue()))
                 .toList();
     }
 
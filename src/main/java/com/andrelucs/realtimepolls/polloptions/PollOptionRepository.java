@@ -1,19 +1,336 @@
 package com.andrelucs.realtimepolls.polloptions;
 
 import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PollOptionRepository extends JpaRepository<PollOption, Long> {
     List<PollOption> findAllByPollId(Long pollId);
 
+    long countByPollId(Long pollId);
+
     boolean existsByPollIdAndDescription(Long pollId, String description);
 
+    @Query("SELECT o.id FROM PollOption o WHERE o.poll.id = :pollId ORDER BY o.id")
+    List<Long> findOptionIds(@Param("pollId") Long pollId);
+
+    /**
+     * Adds a vote to the option only if it belongs to the poll and the poll is a STARTED CHOICE poll. Should run inside a transaction.
+     * @return the voted option with its new count, empty when nothing was updated
+     */
+    @Query(value = """
+    UPDATE poll_option o
+    SET votes = o.votes + 1
+    FROM poll p
+    WHERE o.id = :optionId AND o.poll_id = :pollId
+      AND p.id = o.poll_id AND p.status = 'STARTED' AND p.type = 'CHOICE'
+    RETURNING o.id AS "id", o.poll_id AS "pollId", o.description AS "description", o.votes AS "votes"
+    """, nativeQuery = true)
+    Optional<PollOptionVote> voteForOption(@Param("pollId") Long pollId, @Param("optionId") Long optionId);
+
+    /**
+     * Same checks of {@link #voteForOption} without voting, for writers that register the vote elsewhere
+     * @return the option with its current count, empty when it can't receive votes
+     */
+    @Query(value = """
+    SELECT o.id AS "id", o.poll_id AS "pollId", o.description AS "description", o.votes AS "votes"
+    FROM poll_option o
+    JOIN poll p ON p.id = o.poll_id
+    WHERE o.id = :optionId AND o.poll_id = :pollId AND p.status = 'STARTED' AND p.type = 'CHOICE'
+    """, nativeQuery = true)
+    Optional<PollOptionVote> findVotableOption(@Param("pollId") Long pollId, @Param("optionId") Long optionId);
+
+    /**
+     * Same as {@link #findVotableOption} for several options of the poll
+     * @return the options that can receive votes, the others are left out
+     */
+    @Query(value = """
+    SELECT o.id AS "id", o.poll_id AS "pollId", o.description AS "description", o.votes AS "votes"
+    FROM poll_option o
+    JOIN poll p ON p.id = o.poll_id
+    WHERE o.id IN (:optionIds) AND o.poll_id = :pollId AND p.status = 'STARTED' AND p.type = 'CHOICE'
+    """, nativeQuery = true)
+    List<PollOptionVote> findVotableOptions(@Param("pollId") Long pollId, @Param("optionIds") Collection<Long> optionIds);
+
+    /**
+     * Used to explain why a vote was not accepted
+     * @return the status of the poll, empty when the option doesn't belong to it
+     */
+    @Query("SELECT o.poll.status FROM PollOption o WHERE o.id = :optionId AND o.poll.id = :pollId")
+    Optional<PollStatus> findPollStatus(@Param("pollId") Long pollId, @Param("optionId") Long optionId);
+
+    /**
+     * Adds the deltas to the respective options in a single statement, both arrays are matched by position.
+     * Should run inside a transaction.
+     * @return the new vote count of every updated option
+     */
+    @Query(value = """
+    UPDATE poll_option o
+    SET votes = o.votes + d.delta
+    FROM unnest(cast(:optionIds AS BIGINT[]), cast(:deltas AS BIGINT[])) AS d(id, delta)
+    WHERE o.id = d.id
+    RETURNING o.id AS "id", o.poll_id AS "pollId", o.votes AS "votes"
+    """, nativeQuery = true)
+    List<PollOptionVoteCount> addVotes(@Param("optionIds") Long[] optionIds, @Param("deltas") Long[] deltas);
+
+    /**
+     * Adds the deltas to options of the poll in a single statement, only if the poll is STARTED. Both arrays are
+     * matched by position. Should run inside a transaction.
+     * @return the updated options, ids that don't belong to the poll are left out
+     */
+    @Query(value = """
+    UPDATE poll_option o
+    SET votes = o.votes + d.delta
+    FROM unnest(cast(:optionIds AS BIGINT[]), cast(:deltas AS BIGINT[])) AS d(id, delta), poll p
+    WHERE o.id = d.id AND o.poll_id = :pollId
+      AND p.id = o.poll_id AND p.status = 'STARTED' AND p.type = 'CHOICE'
+    RETURNING o.id AS "id", o.poll_id AS "pollId", o.description AS "description", o.votes AS "votes"
+    """, nativeQuery = true)
+    List<PollOptionVote> addPollVotes(@Param("pollId") Long pollId, @Param("optionIds") Long[] optionIds, @Param("deltas") Long[] deltas);
+
+    /**
+     * Same as {@link #addPollVotes}, all or nothing: nothing is updated unless every option id belongs to the poll.
+     * The ids should be distinct. Should run inside a transaction.
+     * @return every updated option, or none
+     */
+    @Query(value = """
+    UPDATE poll_option o
+    SET votes = o.votes + d.delta
+    FROM unnest(cast(:optionIds AS BIGINT[]), cast(:deltas AS BIGINT[])) AS d(id, delta), poll p
+    WHERE o.id = d.id AND o.poll_id = :pollId
+      AND p.id = o.poll_id AND p.status = 'STARTED' AND p.type = 'CHOICE'
+      AND cardinality(cast(:optionIds AS BIGINT[])) = (
+          SELECT count(*) FROM poll_option c WHERE c.poll_id = :pollId AND c.id = ANY(cast(:optionIds AS BIGINT[])))
+    RETURNING o.id AS "id", o.poll_id AS "pollId", o.description AS "description", o.votes AS "votes"
+    """, nativeQuery = true)
+    List<PollOptionVote> addAllPollVotes(@Param("pollId") Long pollId, @Param("optionIds") Long[] optionIds, @Param("deltas") Long[] deltas);
+
+    /**
+     * Finds the options a ballot picks. The ballot is a bitset over the options of the poll ordered by id, bit n of
+     * byte n / 8 counting from the least significant, as {@code BitSet.toByteArray}. Nothing is found when the poll
+     * isn't a CHOICE poll or the ballot picks more options than it allows, bits past the last option match nothing.
+     * @param selected amount of bits set on the ballot
+     * @return the ids of the picked options
+     */
+    @Query(value = """
+    SELECT ranked.id
+    FROM (
+        SELECT po.id, row_number() OVER (ORDER BY po.id) - 1 AS idx
+        FROM poll_option po
+        WHERE po.poll_id = :pollId
+    ) ranked, poll p
+    WHERE ranked.idx < length(:ballot) * 8 AND get_bit(:ballot, cast(ranked.idx AS INT)) = 1
+      AND p.id = :pollId AND p.type = 'CHOICE' AND :selected <= p.max_selections
+    ORDER BY ranked.id
+    """, nativeQuery = true)
+    List<Long> findBallotOptionIds(@Param("pollId") Long pollId, @Param("ballot") byte[] ballot, @Param("selected") int selected);
+
+    /**
+     * Adds a vote to one shard of the option, creating the shard row if needed, with the same checks of {@link #voteForOption}.
+     * Should run inside a transaction.
+     * @return the voted option with its total after the vote, the other shards are read without locking them
+     */
+    @Query(value = """
+    WITH target AS (
+        SELECT o.id, o.poll_id, o.description, o.votes
+        FROM poll_option o
+        JOIN poll p ON p.id = o.poll_id
+        WHERE o.id = :optionId AND o.poll_id = :pollId AND p.status = 'STARTED' AND p.type = 'CHOICE'
+    ), shard AS (
+        INSERT INTO poll_option_vote_shard (option_id, shard, votes)
+        SELECT target.id, :shard, 1 FROM target
+        ON CONFLICT (option_id, shard) DO UPDATE SET votes = poll_option_vote_shard.votes + EXCLUDED.votes
+        RETURNING option_id, votes
+    )
+    SELECT t.id AS "id", t.poll_id AS "pollId", t.description AS "description",
+           t.votes + shard.votes + (
+               SELECT coalesce(sum(s.votes), 0)
+               FROM poll_option_vote_shard s
+               WHERE s.option_id = t.id AND s.shard <> :shard) AS "votes"
+    FROM target t
+    JOIN shard ON shard.option_id = t.id
+    """, nativeQuery = true)
+    Optional<PollOptionVote> voteForOptionShard(@Param("pollId") Long pollId, @Param("optionId") Long optionId, @Param("shard") int shard);
+
+    /**
+     * Adds the deltas to one shard of each option, all or nothing like {@link #addAllPollVotes}. Both arrays are
+     * matched by position. Should run inside a transaction.
+     * @return every voted option with its total after the votes, or none
+     */
+    @Query(value = """
+    WITH target AS (
+        SELECT o.id, o.poll_id, o.description, o.votes, d.delta
+        FROM unnest(cast(:optionIds AS BIGINT[]), cast(:deltas AS BIGINT[])) AS d(id, delta)
+        JOIN poll_option o ON o.id = d.id
+        JOIN poll p ON p.id = o.poll_id
+        WHERE o.poll_id = :pollId AND p.status = 'STARTED' AND p.type = 'CHOICE'
+          AND cardinality(cast(:optionIds AS BIGINT[])) = (
+              SELECT count(*) FROM poll_option c WHERE c.poll_id = :pollId AND c.id = ANY(cast(:optionIds AS BIGINT[])))
+    ), shard AS (
+        INSERT INTO poll_option_vote_shard (option_id, shard, votes)
+        SELECT target.id, :shard, target.delta FROM target
+        ON CONFLICT (option_id, shard) DO UPDATE SET votes = poll_option_vote_shard.votes + EXCLUDED.votes
+        RETURNING option_id, votes
+    )
+    SELECT t.id AS "id", t.poll_id AS "pollId", t.description AS "description",
+           t.votes + shard.votes + (
+               SELECT coalesce(sum(s.votes), 0)
+               FROM poll_option_vote_shard s
+               WHERE s.option_id = t.id AND s.shard <> :shard) AS "votes"
+    FROM target t
+    JOIN shard ON shard.option_id = t.id
+    """, nativeQuery = true)
+    List<PollOptionVote> voteForOptionShards(@Param("pollId") Long pollId, @Param("optionIds") Long[] optionIds,
+                                             @Param("deltas") Long[] deltas, @Param("shard") int shard);
+
+    /**
+     * @return the sum of the vote shards of every option of the polls that has any shard
+     */
+    @Query(value = """
+    SELECT o.id AS "id", o.poll_id AS "pollId", cast(sum(s.votes) AS BIGINT) AS "votes"
+    FROM poll_option_vote_shard s
+    JOIN poll_option o ON o.id = s.option_id
+    WHERE o.poll_id IN (:pollIds)
+    GROUP BY o.id, o.poll_id
+    """, nativeQuery = true)
+    List<PollOptionVoteCount> sumVoteShards(@Param("pollIds") Collection<Long> pollIds);
+
+    /**
+     * Appends a vote to vote_ledger with the same checks of {@link #voteForOption}. Should run inside a transaction.
+     * @return the voted option with its total after the vote, counting the ledger votes not rolled up yet
+     */
+    @Query(value = """
+    WITH target AS (
+        SELECT o.id, o.poll_id, o.description, o.votes
+        FROM poll_option o
+        JOIN poll p ON p.id = o.poll_id
+        WHERE o.id = :optionId AND o.poll_id = :pollId AND p.status = 'STARTED' AND p.type = 'CHOICE'
+    ), vote AS (
+        INSERT INTO vote_ledger (option_id, poll_id)
+        SELECT target.id, target.poll_id FROM target
+        RETURNING option_id
+    )
+    SELECT t.id AS "id", t.poll_id AS "pollId", t.description AS "description",
+           t.votes + 1 + (
+               SELECT count(*)
+               FROM vote_ledger l
+               WHERE l.poll_id = t.poll_id AND l.option_id = t.id
+                 AND l.id > (SELECT r.last_id FROM vote_ledger_rollup r WHERE r.id = 1)) AS "votes"
+    FROM target t
+    JOIN vote ON vote.option_id = t.id
+    """, nativeQuery = true)
+    Optional<PollOptionVote> appendLedgerVote(@Param("pollId") Long pollId, @Param("optionId") Long optionId);
+
+    /**
+     * Appends one vote_ledger row per vote of the deltas, all or nothing like {@link #addAllPollVotes}. Both arrays
+     * are matched by position. Should run inside a transaction.
+     * @return every voted option with its total after the votes, or none
+     */
+    @Query(value = """
+    WITH target AS (
+        SELECT o.id, o.poll_id, o.description, o.votes, d.delta
+        FROM unnest(cast(:optionIds AS BIGINT[]), cast(:deltas AS BIGINT[])) AS d(id, delta)
+        JOIN poll_option o ON o.id = d.id
+        JOIN poll p ON p.id = o.poll_id
+        WHERE o.poll_id = :pollId AND p.status = 'STARTED' AND p.type = 'CHOICE'
+          AND cardinality(cast(:optionIds AS BIGINT[])) = (
+              SELECT count(*) FROM poll_option c WHERE c.poll_id = :pollId AND c.id = ANY(cast(:optionIds AS BIGINT[])))
+    ), vote AS (
+        INSERT INTO vote_ledger (option_id, poll_id)
+        SELECT target.id, target.poll_id FROM target, generate_series(1, target.delta)
+        RETURNING option_id
+    )
+    SELECT t.id AS "id", t.poll_id AS "pollId", t.description AS "description",
+           t.votes + (SELECT count(*) FROM vote WHERE vote.option_id = t.id) + (
+               SELECT count(*)
+               FROM vote_ledger l
+               WHERE l.poll_id = t.poll_id AND l.option_id = t.id
+                 AND l.id > (SELECT r.last_id FROM vote_ledger_rollup r WHERE r.id = 1)) AS "votes"
+    FROM target t
+    """, nativeQuery = true)
+    List<PollOptionVote> appendLedgerVotes(@Param("pollId") Long pollId, @Param("optionIds") Long[] optionIds, @Param("deltas") Long[] deltas);
+
+    /**
+     * @return the ledger votes not rolled up yet of every option of the polls that has any
+     */
+    @Query(value = """
+    SELECT l.option_id AS "id", l.poll_id AS "pollId", count(*) AS "votes"
+    FROM vote_ledger l
+    WHERE l.poll_id IN (:pollIds)
+      AND l.id > (SELECT r.last_id FROM vote_ledger_rollup r WHERE r.id = 1)
+    GROUP BY l.option_id, l.poll_id
+    """, nativeQuery = true)
+    List<PollOptionVoteCount> sumUnsettledLedgerVotes(@Param("pollIds") Collection<Long> pollIds);
+
+    /**
+     * Locks the rollup watermark until the end of the transaction
+     * @return the last ledger id already added to poll_option.votes
+     */
+    @Query(value = "SELECT r.last_id FROM vote_ledger_rollup r WHERE r.id = 1 FOR UPDATE", nativeQuery = true)
+    Long lockLedgerWatermark();
+
+    @Modifying
+    @Query(value = "UPDATE vote_ledger_rollup SET last_id = :lastId WHERE id = 1", nativeQuery = true)
+    int moveLedgerWatermark(@Param("lastId") Long lastId);
+
+    /**
+     * Finds the end of the next keyset range to roll up, skipping votes younger than the grace period
+     * @return the highest ledger id of the range, or null if there is nothing to roll up
+     */
+    @Query(value = """
+    SELECT max(batch.id) FROM (
+        SELECT l.id
+        FROM vote_ledger l
+        WHERE l.id > :afterId
+          AND l.voted_at < localtimestamp - cast(:graceMs AS BIGINT) * interval '1 millisecond'
+        ORDER BY l.id
+        LIMIT :batchSize
+    ) batch
+    """, nativeQuery = true)
+    Long findLedgerRollupEnd(@Param("afterId") Long afterId, @Param("graceMs") long graceMs, @Param("batchSize") int batchSize);
+
+    /**
+     * @return the ledger votes with ids in (afterId, upToId] grouped by option
+     */
+    @Query(value = """
+    SELECT l.option_id AS "id", l.poll_id AS "pollId", count(*) AS "votes"
+    FROM vote_ledger l
+    WHERE l.id > :afterId AND l.id <= :upToId
+    GROUP BY l.option_id, l.poll_id
+    """, nativeQuery = true)
+    List<PollOptionVoteCount> countLedgerVotes(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    @Query(value = "SELECT create_vote_ledger_partitions(:daysAhead)", nativeQuery = true)
+    Integer createLedgerPartitions(@Param("daysAhead") int daysAhead);
+
+    /**
+     * @return the names of the detached partitions
+     */
+    @Query(value = "SELECT detach_settled_vote_ledger_partitions()", nativeQuery = true)
+    List<String> detachSettledLedgerPartitions();
+
+    /**
+     * @return the position of the local vote journal up to which its votes are already on poll_option
+     */
+    @Query(value = "SELECT c.position FROM vote_journal_checkpoint c WHERE c.journal_id = :journalId", nativeQuery = true)
+    Optional<Long> findJournalCheckpoint(@Param("journalId") String journalId);
+
+    /**
+     * Moves the checkpoint of the journal forward, never back. Should run in the transaction that added its votes.
+     */
     @Modifying
-    @Query("UPDATE PollOption o SET o.votes = o.votes + 1 WHERE o.id = :optionId")
-    int incrementVote(@Param("optionId") Long optionId);
+    @Query(value = """
+    INSERT INTO vote_journal_checkpoint (journal_id, position)
+    VALUES (:journalId, :position)
+    ON CONFLICT (journal_id) DO UPDATE
+        SET position = greatest(vote_journal_checkpoint.position, excluded.position)
+    """, nativeQuery = true)
+    int moveJournalCheckpoint(@Param("journalId") String journalId, @Param("position") long position);
 }
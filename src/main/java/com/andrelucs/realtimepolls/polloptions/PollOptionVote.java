@@ -0,0 +1,8 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+/**
+ * Projection of an option returned by the validated vote statements
+ */
+public interface PollOptionVote extends PollOptionVoteCount {
+    String getDescription();
+}
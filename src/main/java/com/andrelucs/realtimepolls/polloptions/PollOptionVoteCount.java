@@ -0,0 +1,10 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+/**
+ * Projection of the vote count of an option returned by the native vote statements
+ */
+public interface PollOptionVoteCount {
+    Long getId();
+    Long getPollId();
+    Integer getVotes();
+}
@@ -0,0 +1,59 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.model.PollVoter;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PollVoterRepository extends JpaRepository<PollVoter, PollVoter.PollVoterId> {
+
+    boolean existsByPollIdAndVoterKey(Long pollId, String voterKey);
+
+    long countByPollId(Long pollId);
+
+    @Query("SELECT v.voterKey FROM PollVoter v WHERE v.pollId = :pollId")
+    List<String> findVoterKeys(@Param("pollId") Long pollId);
+
+    /**
+     * Records the voter while the poll is STARTED
+     * @return 1 when recorded, 0 when the voter was already there or the poll can't be voted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+    INSERT INTO poll_voter (poll_id, voter_key)
+    SELECT p.id, :voterKey FROM poll p WHERE p.id = :pollId AND p.status = 'STARTED'
+    ON CONFLICT DO NOTHING
+    """, nativeQuery = true)
+    int insertVoter(@Param("pollId") Long pollId, @Param("voterKey") String voterKey);
+
+    @Query(value = "SELECT registers FROM poll_voter_sketch WHERE poll_id = :pollId", nativeQuery = true)
+    Optional<byte[]> findVoterSketch(@Param("pollId") Long pollId);
+
+    /**
+     * Merges the registers into the stored voter sketch of the poll, keeping the highest value of each
+     * @return the registers after the merge, null when the poll no longer exists
+     */
+    @Transactional
+    @Query(value = """
+    INSERT INTO poll_voter_sketch (poll_id, registers)
+    SELECT p.id, :registers FROM poll p WHERE p.id = :pollId
+    ON CONFLICT (poll_id) DO UPDATE
+        SET registers  = hll_merge(poll_voter_sketch.registers, EXCLUDED.registers),
+            updated_at = now()
+    RETURNING registers
+    """, nativeQuery = true)
+    byte[] mergeVoterSketch(@Param("pollId") Long pollId, @Param("registers") byte[] registers);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM poll_voter WHERE poll_id = :pollId AND voter_key = :voterKey", nativeQuery = true)
+    int deleteVoter(@Param("pollId") Long pollId, @Param("voterKey") String voterKey);
+}
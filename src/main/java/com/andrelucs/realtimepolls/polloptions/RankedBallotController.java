@@ -0,0 +1,70 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.dto.RankedBallotDTO;
+import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.exceptions.controller.FailPollOptionsUpdateException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollConflictException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.DuplicateVoteException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyInUseException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyReusedException;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.MissingVoterException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.polloptions.ranked.RankedVoting;
+import com.andrelucs.realtimepolls.websocket.data.RankedStandingsDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Ballots of ranked-choice polls and their instant-runoff standings
+ */
+@RestController
+@RequestMapping("/api/poll/{poll_id}/ranked-ballots")
+public class RankedBallotController {
+
+    private final RankedVoting rankedVoting;
+
+    public RankedBallotController(RankedVoting rankedVoting) {
+        this.rankedVoting = rankedVoting;
+    }
+
+    @PostMapping
+    ResponseEntity<RankedStandingsDTO> castBallot(@PathVariable Long poll_id, @RequestBody RankedBallotDTO ballot,
+                                                  @RequestHeader(name = "X-Voter-Key", required = false) String voterKey,
+                                                  @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                  HttpServletRequest request) {
+        if (ballot == null || ballot.ranking() == null || ballot.ranking().isEmpty()) {
+            throw new BadRequestException("The ballot should rank at least one option.");
+        }
+        if (ballot.ranking().contains(null)) {
+            throw new BadRequestException("The Option id cannot be blank.");
+        }
+        var voter = VoteRequests.voter(voterKey, idempotencyKey, request);
+        try {
+            return VoteRequests.respond(rankedVoting.cast(poll_id, ballot.ranking(), voter));
+        } catch (OptionNotFoundException e) {
+            throw new PollNotFoundException("Failed to vote on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
+        } catch (PollNotInProgressException e) {
+            throw new PollConflictException("Poll %d is not in progress, cannot vote.".formatted(poll_id));
+        } catch (IdempotencyKeyInUseException e) {
+            throw new PollConflictException(e.getMessage());
+        } catch (IdempotencyKeyReusedException e) {
+            throw new BadRequestException(e.getMessage());
+        } catch (MissingVoterException e) {
+            throw new BadRequestException("The X-Voter-Key header is required to vote.");
+        } catch (DuplicateVoteException e) {
+            throw new PollConflictException("Voter already voted on poll %d.".formatted(poll_id));
+        } catch (InvalidPollUpdateException e) {
+            throw new FailPollOptionsUpdateException("Failed to vote on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/standings")
+    RankedStandingsDTO standings(@PathVariable Long poll_id) {
+        return rankedVoting.standings(poll_id)
+                .orElseThrow(() -> new PollNotFoundException("Ranked poll %d was not found.".formatted(poll_id)));
+    }
+}
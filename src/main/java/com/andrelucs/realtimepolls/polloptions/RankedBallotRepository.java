@@ -0,0 +1,36 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.model.RankedBallot;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RankedBallotRepository extends JpaRepository<RankedBallot, Long> {
+
+    /**
+     * Stores the ballot while the poll is a STARTED RANKED poll and every ranked option belongs to it
+     * @return the id of the stored ballot, empty when it wasn't stored
+     */
+    @Transactional
+    @Query(value = """
+    INSERT INTO ranked_ballot (poll_id, ranking)
+    SELECT p.id, cast(:ranking AS BIGINT[])
+    FROM poll p
+    WHERE p.id = :pollId AND p.status = 'STARTED' AND p.type = 'RANKED'
+      AND (SELECT count(*) FROM poll_option o WHERE o.poll_id = p.id AND o.id = ANY(cast(:ranking AS BIGINT[])))
+          = cardinality(cast(:ranking AS BIGINT[]))
+    RETURNING id
+    """, nativeQuery = true)
+    Optional<Long> insertBallot(@Param("pollId") Long pollId, @Param("ranking") Long[] ranking);
+
+    @Query("SELECT b.ranking FROM RankedBallot b WHERE b.pollId = :pollId ORDER BY b.id")
+    List<Long[]> findRankings(@Param("pollId") Long pollId);
+
+    List<RankedBallot> findAllByPollIdOrderById(Long pollId);
+}
@@ -0,0 +1,44 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.dto.ExceptionDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Error responses for votes on polls that are not in progress, built once per request path and reused for a second,
+ * so the flood of votes that follows the end of a poll doesn't build an exception and an error body each.
+ * The body is the same 409 {@link ExceptionDTO} the exception handler answered with before, except for its timestamp,
+ * which is when the body was built, up to a second before the vote. Other rejections aren't cached.
+ */
+public class RejectedVoteResponses {
+
+    private static final String POLL_NOT_IN_PROGRESS = "Poll %d is not in progress, cannot vote.";
+    private static final long REFRESH_NANOS = 1_000_000_000L;
+    private static final int MAX_PATHS = 10_000;
+
+    private record CachedResponse(ResponseEntity<ExceptionDTO> response, long builtAt) {}
+
+    private final Map<String, CachedResponse> byPath = new ConcurrentHashMap<>();
+
+    /**
+     * @param requestPath the path of the vote, every path holds a single poll
+     */
+    public ResponseEntity<ExceptionDTO> pollNotInProgress(Long pollId, String requestPath) {
+        long now = System.nanoTime();
+        var cached = byPath.get(requestPath);
+        if (cached != null && now - cached.builtAt() < REFRESH_NANOS) {
+            return cached.response();
+        }
+
+        var response = new ResponseEntity<>(
+                new ExceptionDTO(POLL_NOT_IN_PROGRESS.formatted(pollId), HttpStatus.CONFLICT.value(), requestPath, LocalDateTime.now()),
+                HttpStatus.CONFLICT);
+        if (byPath.size() >= MAX_PATHS) byPath.clear();
+        byPath.put(requestPath, new CachedResponse(response, now));
+        return response;
+    }
+}
@@ -0,0 +1,67 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.dto.OptionVoteCountDTO;
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.exceptions.controller.FailPollOptionsUpdateException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollConflictException;
+import com.andrelucs.realtimepolls.exceptions.controller.PollNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyInUseException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyReusedException;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batches of votes collected elsewhere, like kiosks and edge collectors, applied to a poll at once
+ */
+@RestController
+@RequestMapping("/api/poll/{poll_id}/votes")
+public class VoteController {
+
+    private final OptionService optionService;
+
+    public VoteController(OptionService optionService) {
+        this.optionService = optionService;
+    }
+
+    @PostMapping
+    ResponseEntity<List<PollOptionDTO>> voteForOptions(@PathVariable Long poll_id, @RequestBody List<OptionVoteCountDTO> votes,
+                                                       @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (votes == null || votes.isEmpty()) {
+            throw new BadRequestException("The batch should have at least one vote.");
+        }
+
+        // Repeated options are summed, so each option is updated once
+        Map<Long, Long> countsByOption = new LinkedHashMap<>();
+        for (OptionVoteCountDTO vote : votes) {
+            if (vote == null || vote.optionId() == null) {
+                throw new BadRequestException("The Option id cannot be blank.");
+            }
+            if (vote.count() == null || vote.count() <= 0) {
+                throw new BadRequestException("The vote count of option %d should be positive.".formatted(vote.optionId()));
+            }
+            countsByOption.merge(vote.optionId(), vote.count(), Long::sum);
+        }
+
+        try {
+            return VoteRequests.respond(optionService.voteForOptions(poll_id, countsByOption, VoteRequests.idempotencyKey(idempotencyKey)));
+        } catch (OptionNotFoundException e) {
+            throw new PollNotFoundException("Failed to vote on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
+        } catch (PollNotInProgressException e) {
+            throw new PollConflictException("Poll %d is not in progress, cannot vote.".formatted(poll_id));
+        } catch (IdempotencyKeyInUseException e) {
+            throw new PollConflictException(e.getMessage());
+        } catch (IdempotencyKeyReusedException e) {
+            throw new BadRequestException(e.getMessage());
+        } catch (InvalidPollUpdateException e) {
+            throw new FailPollOptionsUpdateException("Failed to update poll options on poll %d. Reason: %s".formatted(poll_id, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.dto.VoteImportResultDTO;
+import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.exceptions.controller.UnauthorizedException;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidVoteImportException;
+import com.andrelucs.realtimepolls.polloptions.voting.BulkVoteImporter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Admin import of ballots collected offline. The request body is the CSV file itself, streamed to the database
+ * without being held in memory. Requests must carry {@code Authorization: Bearer <votes.import.token>}, the
+ * application doesn't start with the import enabled and no token set.
+ */
+@RestController
+@RequestMapping("/api/admin/votes/import")
+@ConditionalOnProperty(name = "votes.import.enabled", havingValue = "true")
+public class VoteImportController {
+
+    private static final String BEARER = "Bearer ";
+
+    private final BulkVoteImporter importer;
+    private final byte[] token;
+
+    public VoteImportController(BulkVoteImporter importer, @Value("${votes.import.token:}") String token) {
+        if (token.isBlank()) {
+            throw new IllegalStateException("votes.import.token must be set when votes.import.enabled is true");
+        }
+        this.importer = importer;
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping(consumes = "text/csv")
+    VoteImportResultDTO importVotes(@RequestParam(name = "header", defaultValue = "true") boolean header,
+                                    @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                    HttpServletRequest request) throws IOException {
+        if (authorization == null || !authorization.startsWith(BEARER)
+                || !MessageDigest.isEqual(token, authorization.substring(BEARER.length()).getBytes(StandardCharsets.UTF_8))) {
+            throw new UnauthorizedException("Importing votes needs the import token.");
+        }
+        try {
+            return importer.importCsv(request.getInputStream(), header);
+        } catch (InvalidVoteImportException e) {
+            throw new BadRequestException("Failed to import votes. Reason: %s".formatted(e.getMessage()));
+        }
+    }
+}
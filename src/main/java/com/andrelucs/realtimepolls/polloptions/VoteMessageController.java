@@ -0,0 +1,102 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.data.dto.ExceptionDTO;
+import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.exceptions.controller.ServiceBusyException;
+import com.andrelucs.realtimepolls.exceptions.service.DatabaseBusyException;
+import com.andrelucs.realtimepolls.exceptions.service.DuplicateVoteException;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.MissingVoterException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteOutcomeUnknownException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteQueueFullException;
+import com.andrelucs.realtimepolls.polloptions.voting.Voter;
+import com.andrelucs.realtimepolls.websocket.data.VoteMessageDTO;
+import com.andrelucs.realtimepolls.websocket.data.VoteReceiptDTO;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lets clients that already hold a STOMP session vote on it, with the same rules of {@link OptionController}.
+ * The vote broadcast still goes to /topic/poll.{pollId}.votes, the sender may ask for a receipt on /user/queue/votes
+ * and always gets failures on /user/queue/errors.
+ * When one vote per voter is enforced the voter is the voter-key header of the SEND frame, or else the STOMP session.
+ */
+@Controller
+public class VoteMessageController {
+
+    private final OptionService optionService;
+
+    public VoteMessageController(OptionService optionService) {
+        this.optionService = optionService;
+    }
+
+    // /app/poll.{pollId}.vote
+    @MessageMapping("/poll.{pollId}.vote")
+    @SendToUser(destinations = "/queue/votes", broadcast = false)
+    public VoteReceiptDTO voteForOption(@DestinationVariable Long pollId, @Payload VoteMessageDTO vote,
+                                        @Header(name = "voter-key", required = false) String voterKey,
+                                        @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        if (vote.getOptionId() == null) {
+            throw new BadRequestException("The Option id cannot be blank.");
+        }
+        if (voterKey != null && voterKey.length() > 128) {
+            throw new BadRequestException("The voter-key header cannot be longer than 128 characters.");
+        }
+
+        var voted = optionService.voteForOption(pollId, vote.getOptionId(), new Voter(voterKey, sessionId, null, null)).result();
+
+        // No reply unless the client asked for it
+        if (vote.getReceiptId() == null) return null;
+        return VoteReceiptDTO.builder()
+                .receiptId(vote.getReceiptId())
+                .pollId(pollId)
+                .optionId(vote.getOptionId())
+                // Unknown while the vote is queued
+                .votes(voted != null ? (long) voted.getVotes() : null)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @MessageExceptionHandler({InvalidPollUpdateException.class, BadRequestException.class, VoteQueueFullException.class,
+            ServiceBusyException.class, VoteOutcomeUnknownException.class})
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public ExceptionDTO handleVoteException(RuntimeException e,
+                                            @Header(SimpMessageHeaderAccessor.DESTINATION_HEADER) String destination) {
+        HttpStatus status = switch (e) {
+            case BadRequestException ignored -> HttpStatus.BAD_REQUEST;
+            case MissingVoterException ignored -> HttpStatus.BAD_REQUEST;
+            case OptionNotFoundException ignored -> HttpStatus.NOT_FOUND;
+            case PollNotInProgressException ignored -> HttpStatus.CONFLICT;
+            case DuplicateVoteException ignored -> HttpStatus.CONFLICT;
+            case VoteQueueFullException ignored -> HttpStatus.SERVICE_UNAVAILABLE;
+            case ServiceBusyException ignored -> HttpStatus.SERVICE_UNAVAILABLE;
+            case VoteOutcomeUnknownException ignored -> HttpStatus.GATEWAY_TIMEOUT;
+            default -> HttpStatus.FORBIDDEN;
+        };
+        return new ExceptionDTO(e.getMessage(), status.value(), destination, LocalDateTime.now());
+    }
+
+    // Arrives wrapped in the JPA and JDBC exceptions, deeper than the causes message handlers are matched by
+    @MessageExceptionHandler({DatabaseBusyException.class, CannotCreateTransactionException.class,
+            DataAccessResourceFailureException.class})
+    @SendToUser(destinations = "/queue/errors", broadcast = false)
+    public ExceptionDTO handleDatabaseBusy(Exception e,
+                                           @Header(SimpMessageHeaderAccessor.DESTINATION_HEADER) String destination) {
+        return new ExceptionDTO(NestedExceptionUtils.getMostSpecificCause(e).getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(), destination, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,43 @@
+package com.andrelucs.realtimepolls.polloptions;
+
+import com.andrelucs.realtimepolls.exceptions.controller.BadRequestException;
+import com.andrelucs.realtimepolls.polloptions.voting.IdempotentVotes;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteGate;
+import com.andrelucs.realtimepolls.polloptions.voting.Voter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Reads the voter of an HTTP vote from its headers and answers with the outcome of the {@link VoteGate}
+ */
+final class VoteRequests {
+
+    private VoteRequests() {}
+
+    /**
+     * The X-Voter-Key header identifies the voter, clients without it fall back to their HTTP session
+     */
+    static Voter voter(String voterKey, String idempotencyKey, HttpServletRequest request) {
+        if (voterKey != null && voterKey.length() > 128) {
+            throw new BadRequestException("The X-Voter-Key header cannot be longer than 128 characters.");
+        }
+        var session = request.getSession(false);
+        return new Voter(voterKey, session != null ? session.getId() : null, request.getRemoteAddr(), idempotencyKey(idempotencyKey));
+    }
+
+    static String idempotencyKey(String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > 255)) {
+            throw new BadRequestException("The Idempotency-Key header should have between 1 and 255 characters.");
+        }
+        return idempotencyKey;
+    }
+
+    /**
+     * 200 with the result, 202 when the vote was queued
+     */
+    static <T> ResponseEntity<T> respond(VoteGate.Outcome<T> outcome) {
+        var response = outcome.result() != null ? ResponseEntity.ok() : ResponseEntity.accepted();
+        if (outcome.replayed()) response.header(IdempotentVotes.REPLAYED_HEADER, "true");
+        return response.body(outcome.result());
+    }
+}
@@ -0,0 +1,90 @@
+package com.andrelucs.realtimepolls.polloptions.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit that grows additively while requests finish under the latency target and shrinks
+ * multiplicatively when they don't, fail or the database reports overload. Decreases happen at most once per latency
+ * target, so one burst of slow requests counts as a single congestion signal.
+ */
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyTargetNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Written under the lock, read without it
+    private volatile double limit;
+    private long lastDecrease;
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyTargetMs) {
+        this(initialLimit, minLimit, maxLimit, backoffRatio, latencyTargetMs, System::nanoTime);
+    }
+
+    public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyTargetMs,
+                                  LongSupplier nanoClock) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyTargetNanos = latencyTargetMs * 1_000_000;
+        this.nanoClock = nanoClock;
+        this.limit = Math.min(Math.max(initialLimit, this.minLimit), this.maxLimit);
+        this.lastDecrease = nanoClock.getAsLong() - latencyTargetNanos;
+    }
+
+    /**
+     * @return true when the request may run, it must call {@link #release} once done
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) return false;
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * @param latencyNanos how long the admitted request took
+     * @param dropped whether it failed in a way that points to overload
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        if (dropped || latencyNanos > latencyTargetNanos) {
+            decrease();
+        } else if (current * 2 >= limit) {
+            // Only grow while at least half of the limit is used, an idle instance shouldn't inflate it
+            increase();
+        }
+    }
+
+    /**
+     * Overload seen before the request was admitted, such as threads piling up for a database connection
+     */
+    public void onOverload() {
+        decrease();
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void decrease() {
+        long now = nanoClock.getAsLong();
+        if (now - lastDecrease < latencyTargetNanos) return;
+        lastDecrease = now;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    private synchronized void increase() {
+        // +1 per limit requests, about one step per round of in-flight requests
+        limit = Math.min(maxLimit, limit + 1.0 / limit);
+    }
+}
@@ -0,0 +1,127 @@
+package com.andrelucs.realtimepolls.polloptions.admission;
+
+import com.andrelucs.realtimepolls.data.JdbcConcurrencyLimiter;
+import com.andrelucs.realtimepolls.exceptions.controller.ServiceBusyException;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * Sheds vote and option updates with 503 and Retry-After before they wait on the database. A request is refused when
+ * more than {@code votes.admission.max-pending-threads} threads already wait for a Hikari connection (or for a
+ * {@link JdbcConcurrencyLimiter} permit, where virtual threads queue instead), or when the
+ * {@link AimdConcurrencyLimiter} has no room. The limit adapts to the latency and failures of the admitted requests,
+ * so they keep finishing under {@code votes.admission.latency-target-ms} during a surge.
+ * Enabled with {@code votes.admission.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.admission.enabled", havingValue = "true")
+@Slf4j
+public class VoteAdmissionControl {
+
+    private static final String STARTED_AT = VoteAdmissionControl.class.getName() + ".startedAt";
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    // Only present when jdbc.limiter.enabled is true
+    private final JdbcConcurrencyLimiter jdbcLimiter;
+
+    @Value("${votes.admission.initial-limit:20}")
+    private int initialLimit;
+    @Value("${votes.admission.min-limit:4}")
+    private int minLimit;
+    @Value("${votes.admission.max-limit:200}")
+    private int maxLimit;
+    @Value("${votes.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+    @Value("${votes.admission.latency-target-ms:250}")
+    private long latencyTargetMs;
+    @Value("${votes.admission.max-pending-threads:5}")
+    private int maxPendingThreads;
+    @Value("${votes.admission.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Getter
+    private AimdConcurrencyLimiter limiter;
+    private HikariDataSource hikariDataSource;
+    private Counter rejected;
+
+    public VoteAdmissionControl(DataSource dataSource, MeterRegistry meterRegistry,
+                                ObjectProvider<JdbcConcurrencyLimiter> jdbcLimiter) {
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.jdbcLimiter = jdbcLimiter.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void start() throws SQLException {
+        limiter = new AimdConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyTargetMs);
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+        } else {
+            log.warn("Data source is not Hikari, vote admission only follows latency");
+        }
+
+        Gauge.builder("votes.admission.limit", limiter, AimdConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("votes.admission.in-flight", limiter, AimdConcurrencyLimiter::getInFlight).register(meterRegistry);
+        rejected = Counter.builder("votes.admission.rejected")
+                .description("Vote and option updates refused with 503")
+                .register(meterRegistry);
+    }
+
+    public HandlerInterceptor interceptor() {
+        return new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                if (READ_METHODS.contains(request.getMethod())) return true;
+
+                if (poolSaturated()) {
+                    limiter.onOverload();
+                    throw reject();
+                }
+                if (!limiter.tryAcquire()) {
+                    throw reject();
+                }
+                request.setAttribute(STARTED_AT, System.nanoTime());
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                if (!(request.getAttribute(STARTED_AT) instanceof Long startedAt)) return;
+                request.removeAttribute(STARTED_AT);
+                limiter.release(System.nanoTime() - startedAt, ex != null || response.getStatus() >= 500);
+            }
+        };
+    }
+
+    private boolean poolSaturated() {
+        if (jdbcLimiter != null && jdbcLimiter.getWaiting() > maxPendingThreads) return true;
+        if (hikariDataSource == null) return false;
+        // Null until the pool starts
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        return pool != null && pool.getThreadsAwaitingConnection() > maxPendingThreads;
+    }
+
+    private ServiceBusyException reject() {
+        rejected.increment();
+        return new ServiceBusyException("Too many votes in progress, try again later", retryAfterSeconds);
+    }
+}
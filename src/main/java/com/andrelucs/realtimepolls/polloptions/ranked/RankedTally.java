@@ -0,0 +1,236 @@
+package com.andrelucs.realtimepolls.polloptions.ranked;
+
+import com.andrelucs.realtimepolls.websocket.data.RankedRoundDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instant-runoff tally of one poll, kept up to date ballot by ballot.
+ * Ballots are grouped in a trie by their ranking prefix, a node counts the ballots whose ranking starts with its path.
+ * In a round every ballot counts for its first option still running, so a round is tallied by walking down from the
+ * root only through eliminated options, visiting each distinct prefix once instead of each ballot.
+ * A new ballot adds one to a single option of each round, only when that changes which option a round eliminates or
+ * elects are the rounds after it tallied again from the trie.
+ * Not thread safe, callers synchronize on the instance.
+ */
+public class RankedTally {
+
+    private final long[] optionIds;
+    private final Map<Long, Integer> indexes = new HashMap<>();
+    private final Node root;
+    private final List<Round> rounds = new ArrayList<>();
+    private long ballots;
+    private long recountedRounds;
+
+    /**
+     * @param optionIds the options of the poll, all running on the first round
+     */
+    public RankedTally(List<Long> optionIds) {
+        this.optionIds = new long[optionIds.size()];
+        for (int i = 0; i < this.optionIds.length; i++) {
+            this.optionIds[i] = optionIds.get(i);
+            indexes.put(optionIds.get(i), i);
+        }
+        this.root = new Node(-1);
+    }
+
+    /**
+     * @param ranking option ids, most preferred first
+     * @throws IllegalArgumentException when the ranking is empty, repeats an option or has one not on the poll
+     */
+    public void add(List<Long> ranking) {
+        int[] path = toIndexes(ranking);
+        insert(path);
+        ballots++;
+
+        if (rounds.isEmpty()) {
+            recountFrom(0);
+            return;
+        }
+        for (Round round : rounds) {
+            int choice = firstRunning(path, round.running);
+            if (choice < 0) round.exhausted++;
+            else round.tallies[choice]++;
+        }
+        for (int r = 0; r < rounds.size(); r++) {
+            if (!rounds.get(r).decide()) {
+                recountFrom(r + 1);
+                return;
+            }
+        }
+    }
+
+    public long ballots() {
+        return ballots;
+    }
+
+    /**
+     * Rounds tallied again from the trie since the tally was created, the first ones included
+     */
+    public long recountedRounds() {
+        return recountedRounds;
+    }
+
+    /**
+     * @return the option that won the last round, null before the first ballot
+     */
+    public Long winner() {
+        if (rounds.isEmpty()) return null;
+        return optionIds[rounds.getLast().winner];
+    }
+
+    public List<RankedRoundDTO> rounds() {
+        List<RankedRoundDTO> result = new ArrayList<>(rounds.size());
+        for (Round round : rounds) {
+            Map<Long, Long> tallies = new LinkedHashMap<>();
+            for (int i = 0; i < optionIds.length; i++) {
+                if (round.running[i]) tallies.put(optionIds[i], round.tallies[i]);
+            }
+            result.add(new RankedRoundDTO(tallies, round.exhausted,
+                    round.eliminated < 0 ? null : optionIds[round.eliminated]));
+        }
+        return result;
+    }
+
+    private int[] toIndexes(List<Long> ranking) {
+        if (ranking.isEmpty()) throw new IllegalArgumentException("A ranking should have at least one option");
+        int[] path = new int[ranking.size()];
+        boolean[] seen = new boolean[optionIds.length];
+        for (int i = 0; i < path.length; i++) {
+            Integer index = indexes.get(ranking.get(i));
+            if (index == null) throw new IllegalArgumentException("Option %d is not on the poll".formatted(ranking.get(i)));
+            if (seen[index]) throw new IllegalArgumentException("Option %d is ranked twice".formatted(ranking.get(i)));
+            seen[index] = true;
+            path[i] = index;
+        }
+        return path;
+    }
+
+    private void insert(int[] path) {
+        Node node = root;
+        for (int option : path) {
+            node = node.child(option, optionIds.length);
+            node.total++;
+        }
+        node.ended++;
+    }
+
+    private static int firstRunning(int[] path, boolean[] running) {
+        for (int option : path) {
+            if (running[option]) return option;
+        }
+        return -1;
+    }
+
+    /**
+     * Drops the rounds from the given one on and tallies them again, following the decision of the round before
+     */
+    private void recountFrom(int from) {
+        while (rounds.size() > from) rounds.removeLast();
+
+        boolean[] running;
+        if (from == 0) {
+            running = new boolean[optionIds.length];
+            Arrays.fill(running, true);
+        } else {
+            var previous = rounds.get(from - 1);
+            if (previous.winner >= 0) return;
+            running = previous.running.clone();
+            running[previous.eliminated] = false;
+        }
+
+        while (true) {
+            var round = new Round(running);
+            tally(root, round);
+            round.decide();
+            rounds.add(round);
+            recountedRounds++;
+            if (round.winner >= 0) return;
+
+            running = running.clone();
+            running[round.eliminated] = false;
+        }
+    }
+
+    private static void tally(Node node, Round round) {
+        if (node.children == null) return;
+        for (Node child : node.children) {
+            if (child == null) continue;
+            if (round.running[child.option]) {
+                round.tallies[child.option] += child.total;
+            } else {
+                // Ballots ranking nothing past an eliminated option are exhausted
+                round.exhausted += child.ended;
+                tally(child, round);
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private final int option;
+        // Ballots whose ranking starts with the path to this node
+        private long total;
+        // Ballots whose ranking is exactly the path to this node
+        private long ended;
+        private Node[] children;
+
+        private Node(int option) {
+            this.option = option;
+        }
+
+        private Node child(int option, int options) {
+            if (children == null) children = new Node[options];
+            if (children[option] == null) children[option] = new Node(option);
+            return children[option];
+        }
+    }
+
+    private static final class Round {
+
+        private final boolean[] running;
+        private final long[] tallies;
+        private long exhausted;
+        private int winner = -1;
+        private int eliminated = -1;
+
+        private Round(boolean[] running) {
+            this.running = running;
+            this.tallies = new long[running.length];
+        }
+
+        /**
+         * Elects the option with more than half of the ballots still counting, or the last one running, otherwise
+         * eliminates the option with the fewest ballots. Ties eliminate the option created last.
+         * @return true when the decision is the same as before
+         */
+        private boolean decide() {
+            int best = -1;
+            int worst = -1;
+            int runningCount = 0;
+            long counting = 0;
+            for (int i = 0; i < running.length; i++) {
+                if (!running[i]) continue;
+                runningCount++;
+                counting += tallies[i];
+                if (best < 0 || tallies[i] > tallies[best]) best = i;
+                if (worst < 0 || tallies[i] <= tallies[worst]) worst = i;
+            }
+
+            int newWinner = -1;
+            int newEliminated = -1;
+            if (runningCount == 1 || tallies[best] * 2 > counting) newWinner = best;
+            else newEliminated = worst;
+
+            boolean same = newWinner == winner && newEliminated == eliminated;
+            winner = newWinner;
+            eliminated = newEliminated;
+            return same;
+        }
+    }
+}
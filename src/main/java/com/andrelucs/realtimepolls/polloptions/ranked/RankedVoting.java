@@ -0,0 +1,223 @@
+package com.andrelucs.realtimepolls.polloptions.ranked;
+
+import com.andrelucs.realtimepolls.data.model.Poll;
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
+import com.andrelucs.realtimepolls.data.model.RankedBallot;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.RankedBallotRepository;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteGate;
+import com.andrelucs.realtimepolls.polloptions.voting.Voter;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.data.RankedStandingsDTO;
+import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
+import com.andrelucs.realtimepolls.websocket.events.RankedStandingsEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ballots of RANKED polls, stored on ranked_ballot and counted by instant runoff. Every STARTED ranked poll keeps a
+ * {@link RankedTally} in memory, rebuilt from the table on startup, and each ballot pushes the new round standings on
+ * the votes topic of the poll. Tallies are dropped when the poll finishes, its standings are then counted on request.
+ */
+@Service
+@Slf4j
+public class RankedVoting {
+
+    private final RankedBallotRepository ballotRepository;
+    private final PollRepository pollRepository;
+    private final PollOptionRepository optionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VoteGate voteGate;
+
+    private final Map<Long, LiveTally> tallies = new ConcurrentHashMap<>();
+    // Taken to keep or drop the tally of a poll, so a tally loaded as the poll finishes isn't kept
+    private final Map<Long, Object> pollLocks = new ConcurrentHashMap<>();
+
+    /**
+     * @param loadedBallots ids of the ballots the tally was loaded with while they were being cast, their casts skip
+     *                      them. Only tallies loaded by a cast have any.
+     */
+    private record LiveTally(RankedTally tally, Set<Long> loadedBallots) {}
+
+    public RankedVoting(RankedBallotRepository ballotRepository, PollRepository pollRepository,
+                        PollOptionRepository optionRepository, ApplicationEventPublisher eventPublisher, VoteGate voteGate) {
+        this.ballotRepository = ballotRepository;
+        this.pollRepository = pollRepository;
+        this.optionRepository = optionRepository;
+        this.eventPublisher = eventPublisher;
+        this.voteGate = voteGate;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        for (Poll poll : pollRepository.findAllByStatusAndType(PollStatus.STARTED, PollType.RANKED)) {
+            tallies.put(poll.getId(), new LiveTally(load(poll.getId()), new HashSet<>()));
+        }
+        log.info("Ranked tallies rebuilt for {} started polls", tallies.size());
+    }
+
+    /**
+     * Stores the ballot and counts it
+     * @param ranking option ids of the poll, most preferred first
+     * @return the standings with the ballot counted
+     * @throws OptionNotFoundException when the poll doesn't exist or the ranking has options that aren't on it
+     * @throws PollNotInProgressException when the poll is not in progress
+     * @throws InvalidPollUpdateException when the poll isn't a ranked poll or the ranking repeats an option
+     */
+    public RankedStandingsDTO cast(Long pollId, List<Long> ranking) throws InvalidPollUpdateException {
+        if (new HashSet<>(ranking).size() != ranking.size()) {
+            throw new InvalidPollUpdateException("The ranking repeats options");
+        }
+        var ballotId = ballotRepository.insertBallot(pollId, ranking.toArray(Long[]::new))
+                .orElseThrow(() -> rejectedBallot(pollId));
+
+        RankedStandingsDTO standings;
+        var live = tallies.get(pollId);
+        LiveTally loaded = null;
+        if (live == null) {
+            // Poll started after the rebuild or finished since the insert, the table already has this ballot
+            loaded = loadWhileCasting(pollId, ballotId);
+            live = keep(pollId, loaded);
+        }
+        if (live == null) {
+            // Not kept, nobody else counts on it
+            standings = standingsOf(pollId, loaded.tally());
+        } else {
+            synchronized (live.tally()) {
+                // A tally this cast loaded already has the ballot
+                if (live != loaded && !live.loadedBallots().remove(ballotId)) live.tally().add(ranking);
+                standings = standingsOf(pollId, live.tally());
+            }
+        }
+        eventPublisher.publishEvent(new RankedStandingsEvent(this, standings));
+        return standings;
+    }
+
+    /**
+     * Same as {@link #cast(Long, List)} through the {@link VoteGate}
+     */
+    public VoteGate.Outcome<RankedStandingsDTO> cast(Long pollId, List<Long> ranking, Voter voter) throws InvalidPollUpdateException {
+        return voteGate.vote(pollId, voter, "ranking:" + ranking, new TypeReference<>() {}, () -> cast(pollId, ranking));
+    }
+
+    /**
+     * @return the current rounds of the poll, empty when it isn't a ranked poll
+     */
+    public Optional<RankedStandingsDTO> standings(Long pollId) {
+        var live = tallies.get(pollId);
+        if (live != null) {
+            synchronized (live.tally()) {
+                return Optional.of(standingsOf(pollId, live.tally()));
+            }
+        }
+        return pollRepository.findById(pollId)
+                .filter(poll -> poll.getType() == PollType.RANKED)
+                .map(poll -> standingsOf(pollId, load(pollId)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPollStatusEvent(PollStatusEvent statusEvent) {
+        if (statusEvent.getData().getToStatus() == PollStatus.FINISHED) {
+            Long pollId = statusEvent.getData().getPollId();
+            var lock = pollLocks.computeIfAbsent(pollId, id -> new Object());
+            synchronized (lock) {
+                tallies.remove(pollId);
+            }
+            pollLocks.remove(pollId, lock);
+        }
+    }
+
+    /**
+     * Keeps the tally a cast loaded, unless another cast kept one first
+     * @return the tally kept for the poll, null when the poll isn't STARTED anymore and nothing is kept
+     */
+    private LiveTally keep(Long pollId, LiveTally loaded) {
+        var lock = pollLocks.computeIfAbsent(pollId, id -> new Object());
+        synchronized (lock) {
+            var live = tallies.get(pollId);
+            if (live != null) return live;
+            if (!isStarted(pollId)) {
+                pollLocks.remove(pollId, lock);
+                return null;
+            }
+            tallies.put(pollId, loaded);
+            return loaded;
+        }
+    }
+
+    private InvalidPollUpdateException rejectedBallot(Long pollId) {
+        var poll = pollRepository.findById(pollId);
+        if (poll.isEmpty()) {
+            return new OptionNotFoundException("Poll not found");
+        }
+        if (poll.get().getType() != PollType.RANKED) {
+            return new InvalidPollUpdateException("Only ranked polls take ranked ballots");
+        }
+        if (poll.get().getStatus() != PollStatus.STARTED) {
+            return new PollNotInProgressException("Poll is not in progress, cannot vote");
+        }
+        return new OptionNotFoundException("The ranking has options that are not on this poll");
+    }
+
+    private boolean isStarted(Long pollId) {
+        return pollRepository.findById(pollId).map(poll -> poll.getStatus() == PollStatus.STARTED).orElse(false);
+    }
+
+    private RankedTally emptyTally(Long pollId) {
+        return new RankedTally(optionRepository.findAllByPollId(pollId).stream()
+                .map(PollOption::getId)
+                .sorted(Comparator.naturalOrder())
+                .toList());
+    }
+
+    private RankedTally load(Long pollId) {
+        var tally = emptyTally(pollId);
+        for (Long[] ranking : ballotRepository.findRankings(pollId)) {
+            tally.add(Arrays.asList(ranking));
+        }
+        return tally;
+    }
+
+    /**
+     * Loads the tally along with the ids of the ballots other casts may still count
+     */
+    private LiveTally loadWhileCasting(Long pollId, Long ballotId) {
+        var tally = emptyTally(pollId);
+        var loadedBallots = new HashSet<Long>();
+        for (RankedBallot ballot : ballotRepository.findAllByPollIdOrderById(pollId)) {
+            tally.add(Arrays.asList(ballot.getRanking()));
+            if (!ballot.getId().equals(ballotId)) loadedBallots.add(ballot.getId());
+        }
+        return new LiveTally(tally, loadedBallots);
+    }
+
+    private static RankedStandingsDTO standingsOf(Long pollId, RankedTally tally) {
+        return RankedStandingsDTO.builder()
+                .pollId(pollId)
+                .ballots(tally.ballots())
+                .rounds(tally.rounds())
+                .leadingOptionId(tally.winner())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
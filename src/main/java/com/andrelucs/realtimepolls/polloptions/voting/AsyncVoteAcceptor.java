@@ -0,0 +1,196 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.exceptions.service.VoteQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks votes against the {@link PollStateCache} and queues them, {@code votes.async.drainers} threads apply them in
+ * batches through the active {@link VoteWriter}. A full queue rejects the vote.
+ * Enabled with {@code votes.async.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.async.enabled", havingValue = "true")
+@Slf4j
+public class AsyncVoteAcceptor {
+
+    private record QueuedVote(Long pollId, Long optionId) {}
+
+    private final PollStateCache pollStateCache;
+    private final VoteWriter voteWriter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${votes.async.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${votes.async.drainers:2}")
+    private int drainers;
+    @Value("${votes.async.batch-size:500}")
+    private int batchSize;
+    @Getter
+    @Value("${votes.async.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private BlockingQueue<QueuedVote> queue;
+    private ExecutorService drainerPool;
+    private volatile boolean running;
+
+    private Counter acceptedVotes;
+    private Counter rejectedVotes;
+    private Counter appliedVotes;
+    private Counter droppedVotes;
+    private Timer drainTimer;
+
+    public AsyncVoteAcceptor(PollStateCache pollStateCache, VoteWriter voteWriter, MeterRegistry meterRegistry) {
+        this.pollStateCache = pollStateCache;
+        this.voteWriter = voteWriter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        Gauge.builder("votes.async.queue.depth", queue, BlockingQueue::size)
+                .description("Votes accepted and waiting to be applied")
+                .register(meterRegistry);
+        Gauge.builder("votes.async.queue.remaining", queue, BlockingQueue::remainingCapacity)
+                .register(meterRegistry);
+        acceptedVotes = Counter.builder("votes.async.accepted").register(meterRegistry);
+        rejectedVotes = Counter.builder("votes.async.rejected")
+                .description("Votes refused because the queue was full")
+                .register(meterRegistry);
+        appliedVotes = Counter.builder("votes.async.applied")
+                .description("Votes written to the database, its rate is the drain rate")
+                .register(meterRegistry);
+        droppedVotes = Counter.builder("votes.async.dropped")
+                .description("Accepted votes refused when applied, the poll ended or the option is gone")
+                .register(meterRegistry);
+        drainTimer = Timer.builder("votes.async.drain").register(meterRegistry);
+
+        running = true;
+        drainerPool = Executors.newFixedThreadPool(Math.max(drainers, 1), Thread.ofPlatform().name("vote-drainer-", 0).factory());
+        for (int i = 0; i < drainers; i++) {
+            drainerPool.submit(this::drain);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        drainerPool.shutdown();
+        if (!drainerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+            drainerPool.shutdownNow();
+        }
+        // Whatever the drainers left behind was already answered with 202
+        List<QueuedVote> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            apply(remaining);
+            log.info("Applied {} queued votes on shutdown", remaining.size());
+        }
+    }
+
+    /**
+     * Checks the vote against the cached poll state and queues it
+     * @throws com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException when the option is not on the poll
+     * @throws com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException when the poll is not STARTED
+     * @throws VoteQueueFullException when there's no room left in the queue
+     */
+    public void accept(Long pollId, Long optionId) {
+        pollStateCache.checkVotable(pollId, optionId);
+
+        if (!queue.offer(new QueuedVote(pollId, optionId))) {
+            rejectedVotes.increment();
+            throw new VoteQueueFullException("Too many votes waiting, try again later");
+        }
+        acceptedVotes.increment();
+    }
+
+    /**
+     * Amount of votes accepted and not applied yet
+     */
+    public int queuedVotes() {
+        return queue.size();
+    }
+
+    private void drain() {
+        List<QueuedVote> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                QueuedVote first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                drainTimer.record(() -> apply(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed applying {} queued votes: {}", batch.size(), e.getMessage());
+                requeue(batch);
+                sleepAfterFailure();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<QueuedVote> batch) {
+        Map<Long, Map<Long, Long>> deltasByPoll = new HashMap<>();
+        for (QueuedVote vote : batch) {
+            deltasByPoll.computeIfAbsent(vote.pollId(), id -> new HashMap<>())
+                    .merge(vote.optionId(), 1L, Long::sum);
+        }
+
+        for (var entry : deltasByPoll.entrySet()) {
+            var deltas = entry.getValue();
+            long total = deltas.values().stream().mapToLong(Long::longValue).sum();
+            // All or nothing, the options of a started poll don't change so only a status change drops them
+            long applied = voteWriter.writeAll(entry.getKey(), deltas).isEmpty() ? 0 : total;
+            // Applied polls are removed so a failure on the next one doesn't requeue them
+            batch.removeIf(vote -> vote.pollId().equals(entry.getKey()));
+
+            appliedVotes.increment(applied);
+            if (applied < total) {
+                droppedVotes.increment(total - applied);
+                log.warn("Dropped {} queued votes of poll {} that is no longer votable", total - applied, entry.getKey());
+            }
+        }
+    }
+
+    private void requeue(List<QueuedVote> votes) {
+        for (QueuedVote vote : votes) {
+            if (!queue.offer(vote)) {
+                droppedVotes.increment();
+            }
+        }
+    }
+
+    private void sleepAfterFailure() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.dto.VoteImportResultDTO;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidVoteImportException;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Imports ballots collected offline, one {@code poll_id,option_id} CSV row per ballot.
+ * The file is streamed into a temporary staging table with COPY, so memory stays flat whatever its size, then counted
+ * per option in the database. A malformed file is rejected before any vote is registered. The counts of each poll go
+ * through the configured {@link VoteWriter} like any batch of votes, all or nothing per poll, so the import follows
+ * {@code votes.mode} and each poll gets the broadcasts of its writer. Rows for options that don't belong to their
+ * poll, or for polls that aren't STARTED CHOICE polls, are left out and reported.
+ * Enabled with {@code votes.import.enabled=true}.
+ */
+@Service
+@ConditionalOnProperty(name = "votes.import.enabled", havingValue = "true")
+@Slf4j
+public class BulkVoteImporter {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VoteWriter voteWriter;
+
+    public BulkVoteImporter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, VoteWriter voteWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.voteWriter = voteWriter;
+    }
+
+    /**
+     * @param rows amount of rows in the file
+     * @param countsByPoll votes of each poll keyed by option id, only options that belong to their poll
+     */
+    private record Staged(long rows, Map<Long, Map<Long, Long>> countsByPoll) {}
+
+    /**
+     * @param csv rows of {@code poll_id,option_id}, read until the end
+     * @param header whether the first line holds column names
+     * @throws InvalidVoteImportException when the file can't be read or a row isn't a pair of ids, nothing is imported
+     */
+    public VoteImportResultDTO importCsv(InputStream csv, boolean header) {
+        Staged staged;
+        try {
+            // The staging table only lives as long as this transaction
+            staged = transactionTemplate.execute(status -> stage(csv, header));
+        } catch (DataAccessException e) {
+            throw new InvalidVoteImportException("The file should only have poll_id,option_id rows. " + e.getMostSpecificCause().getMessage());
+        }
+
+        long applied = 0;
+        int polls = 0;
+        for (var entry : staged.countsByPoll().entrySet()) {
+            var counts = entry.getValue();
+            if (voteWriter.writeAll(entry.getKey(), counts).isEmpty()) continue;
+            polls++;
+            applied += counts.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        log.info("Imported {} of {} ballots into {} polls", applied, staged.rows(), polls);
+        return new VoteImportResultDTO(staged.rows(), applied, staged.rows() - applied, polls);
+    }
+
+    private Staged stage(InputStream csv, boolean header) {
+        jdbcTemplate.execute("CREATE TEMP TABLE vote_import_row (poll_id BIGINT, option_id BIGINT) ON COMMIT DROP");
+        long rows = copy(csv, header);
+
+        Map<Long, Map<Long, Long>> countsByPoll = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                        SELECT r.poll_id, r.option_id, count(*)
+                        FROM vote_import_row r
+                        JOIN poll_option o ON o.id = r.option_id AND o.poll_id = r.poll_id
+                        GROUP BY r.poll_id, r.option_id
+                        ORDER BY r.poll_id
+                        """,
+                (RowCallbackHandler) row -> countsByPoll.computeIfAbsent(row.getLong(1), pollId -> new LinkedHashMap<>())
+                        .put(row.getLong(2), row.getLong(3)));
+        return new Staged(rows, countsByPoll);
+    }
+
+    private long copy(InputStream csv, boolean header) {
+        var sql = "COPY vote_import_row (poll_id, option_id) FROM STDIN WITH (FORMAT csv, HEADER %s)".formatted(header);
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, csv);
+            } catch (IOException e) {
+                throw new InvalidVoteImportException("Failed to read the file: " + e.getMessage());
+            }
+        });
+    }
+}
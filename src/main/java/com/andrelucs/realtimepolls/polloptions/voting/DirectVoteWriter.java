@@ -0,0 +1,58 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
+import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Default writer, every vote is a conditional UPDATE ... RETURNING on the option row.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.mode", havingValue = "direct", matchIfMissing = true)
+public class DirectVoteWriter implements VoteWriter {
+
+    private final PollOptionRepository optionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VoteBatchWriter batchWriter;
+
+    public DirectVoteWriter(PollOptionRepository optionRepository, ApplicationEventPublisher eventPublisher, VoteBatchWriter batchWriter) {
+        this.optionRepository = optionRepository;
+        this.eventPublisher = eventPublisher;
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    @Transactional
+    public Optional<PollOptionDTO> write(Long pollId, Long optionId) {
+        return optionRepository.voteForOption(pollId, optionId)
+                .map(voted -> {
+                    eventPublisher.publishEvent(new PollVoteEvent(this,
+                            PollOptionVoteDTO.builder()
+                                    .pollId(voted.getPollId())
+                                    .optionId(voted.getId())
+                                    .votes(voted.getVotes().longValue())
+                                    .delta(1L)
+                                    .timestamp(LocalDateTime.now())
+                                    .build()
+                    ));
+                    return new PollOptionDTO(voted.getId(), voted.getDescription(), voted.getVotes());
+                });
+    }
+
+    @Override
+    public List<PollOptionDTO> writeAll(Long pollId, Map<Long, Long> votesByOption) {
+        return batchWriter.applyAllToPoll(pollId, votesByOption).stream()
+                .map(voted -> new PollOptionDTO(voted.getId(), voted.getDescription(), voted.getVotes()))
+                .toList();
+    }
+}
@@ -0,0 +1,250 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyInUseException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyReusedException;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded map of recent idempotency keys to the response of their first request, each key bound to the fingerprint
+ * of what that request asked for.
+ * Keys are kept as 64 bit hashes in arrays split in independently locked segments, so a check hashes the key in place,
+ * takes one uncontended lock and scans at most {@value #PROBES} slots without allocating. Segments start small and
+ * double as keys come in, up to the size needed for {@code maxKeys}.
+ * Entries live for the configured ttl, when the probed slots are all taken the one expiring first is evicted.
+ * Two keys with the same 64 bit hash are taken as the same key.
+ */
+public class IdempotencyKeyCache {
+
+    private static final int PROBES = 16;
+    private static final int SEGMENTS = 64;
+    private static final Object IN_FLIGHT = new Object();
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlNanos;
+    private final long inFlightTimeoutNanos;
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param maxKeys amount of keys the cache grows to hold
+     * @param ttlMs how long a response is replayed
+     * @param inFlightTimeoutMs how long a key stays reserved by a request that never completes
+     */
+    public IdempotencyKeyCache(int maxKeys, long ttlMs, long inFlightTimeoutMs) {
+        this(maxKeys, ttlMs, inFlightTimeoutMs, System::nanoTime);
+    }
+
+    public IdempotencyKeyCache(int maxKeys, long ttlMs, long inFlightTimeoutMs, LongSupplier nanoClock) {
+        // Keep the load under 2/3 so probes mostly find their slot right away
+        int maxPerSegment = Integer.highestOneBit(Math.max(PROBES, (int) Math.ceil(maxKeys * 1.5 / SEGMENTS)) - 1) << 1;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(PROBES, maxPerSegment);
+        }
+        this.ttlNanos = ttlMs * 1_000_000;
+        this.inFlightTimeoutNanos = inFlightTimeoutMs * 1_000_000;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Reserves the key for a vote, or finds the response of the request that reserved it before
+     * @return null when the key is now reserved by the caller, who must {@link #complete} or {@link #release} it,
+     * otherwise the response of the first request
+     * @throws IdempotencyKeyInUseException when the first request is still running
+     * @throws IdempotencyKeyReusedException when the key was used for another request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T reserve(String key, long pollId, long fingerprint) {
+        long hash = hash(key);
+        var segment = segmentOf(hash);
+        long now = nanoClock.getAsLong();
+
+        synchronized (segment) {
+            int slot = segment.find(hash, now);
+            if (slot >= 0) {
+                if (segment.pollIds[slot] != pollId || segment.fingerprints[slot] != fingerprint) {
+                    throw new IdempotencyKeyReusedException("Idempotency-Key was already used for another vote");
+                }
+                if (segment.responses[slot] == IN_FLIGHT) {
+                    throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed");
+                }
+                return (T) segment.responses[slot];
+            }
+            segment.put(hash, pollId, fingerprint, IN_FLIGHT, now + inFlightTimeoutNanos, now);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the response of a reserved key, repeats get it back until the ttl runs out
+     */
+    public void complete(String key, long pollId, long fingerprint, Object response) {
+        long hash = hash(key);
+        var segment = segmentOf(hash);
+        long now = nanoClock.getAsLong();
+
+        synchronized (segment) {
+            int slot = segment.find(hash, now);
+            if (slot >= 0) {
+                segment.responses[slot] = response;
+                segment.expiresAt[slot] = now + ttlNanos;
+            } else {
+                // The reservation expired or was evicted meanwhile
+                segment.put(hash, pollId, fingerprint, response, now + ttlNanos, now);
+            }
+        }
+    }
+
+    /**
+     * Forgets a reserved key, used when the request failed and a retry should run again
+     */
+    public void release(String key) {
+        long hash = hash(key);
+        var segment = segmentOf(hash);
+
+        synchronized (segment) {
+            int slot = segment.find(hash, nanoClock.getAsLong());
+            if (slot >= 0) segment.clear(slot);
+        }
+    }
+
+    /**
+     * Amount of keys held, expired ones included until their slot is reused
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+        return size;
+    }
+
+    public long evictions() {
+        long evictions = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                evictions += segment.evictions;
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * Amount of slots allocated over every segment
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                capacity += segment.hashes.length;
+            }
+        }
+        return capacity;
+    }
+
+    private Segment segmentOf(long hash) {
+        return segments[(int) (hash >>> 58) & (SEGMENTS - 1)];
+    }
+
+    // 64 bit FNV-1a over the chars finished with the murmur3 mixer, 0 marks an empty slot so it is never returned
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static final class Segment {
+
+        private final int maxCapacity;
+        private long[] hashes;
+        private long[] pollIds;
+        private long[] fingerprints;
+        private long[] expiresAt;
+        private Object[] responses;
+        private int mask;
+        private int size;
+        private long evictions;
+
+        private Segment(int capacity, int maxCapacity) {
+            this.maxCapacity = Math.max(capacity, maxCapacity);
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            hashes = new long[capacity];
+            pollIds = new long[capacity];
+            fingerprints = new long[capacity];
+            expiresAt = new long[capacity];
+            responses = new Object[capacity];
+            mask = capacity - 1;
+            size = 0;
+        }
+
+        /**
+         * @return the slot holding the live key, or -1
+         */
+        private int find(long hash, long now) {
+            int home = (int) hash & mask;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (home + i) & mask;
+                if (hashes[slot] == hash) {
+                    if (expiresAt[slot] - now > 0) return slot;
+                    clear(slot);
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private void put(long hash, long pollId, long fingerprint, Object response, long expiry, long now) {
+            if ((size + 1) * 3 > hashes.length * 2 && hashes.length < maxCapacity) grow(now);
+            int home = (int) hash & mask;
+            int target = -1;
+            for (int i = 0; i < PROBES; i++) {
+                int slot = (home + i) & mask;
+                if (hashes[slot] == 0 || expiresAt[slot] - now <= 0) {
+                    target = slot;
+                    break;
+                }
+                if (target < 0 || expiresAt[slot] - expiresAt[target] < 0) target = slot;
+            }
+            if (hashes[target] != 0) {
+                if (expiresAt[target] - now > 0) evictions++;
+                size--;
+            }
+            hashes[target] = hash;
+            pollIds[target] = pollId;
+            fingerprints[target] = fingerprint;
+            expiresAt[target] = expiry;
+            responses[target] = response;
+            size++;
+        }
+
+        // Doubles the arrays and moves the live keys over, expired ones are dropped on the way
+        private void grow(long now) {
+            long[] oldHashes = hashes, oldPollIds = pollIds, oldFingerprints = fingerprints, oldExpiresAt = expiresAt;
+            Object[] oldResponses = responses;
+            allocate(hashes.length << 1);
+            for (int slot = 0; slot < oldHashes.length; slot++) {
+                if (oldHashes[slot] != 0 && oldExpiresAt[slot] - now > 0) {
+                    put(oldHashes[slot], oldPollIds[slot], oldFingerprints[slot], oldResponses[slot], oldExpiresAt[slot], now);
+                }
+            }
+        }
+
+        private void clear(int slot) {
+            hashes[slot] = 0;
+            responses[slot] = null;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyInUseException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyReusedException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteOutcomeUnknownException;
+import com.andrelucs.realtimepolls.polloptions.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+/**
+ * Answers repeated vote requests carrying the same Idempotency-Key with the response of the first one, for
+ * {@code votes.idempotency.ttl-ms}. Keys are checked on an {@link IdempotencyKeyCache} first, with
+ * {@code votes.idempotency.store=postgres} they are also reserved on the idempotency_key table so every node sees them,
+ * along with the response as JSON. A failed vote frees its key, so the retry runs again, unless its outcome is unknown.
+ * Enabled with {@code votes.idempotency.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.idempotency.enabled", havingValue = "true")
+@Slf4j
+public class IdempotentVotes {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${votes.idempotency.max-keys:1000000}")
+    private int maxKeys;
+    @Value("${votes.idempotency.ttl-ms:3600000}")
+    private long ttlMs;
+    @Value("${votes.idempotency.in-flight-timeout-ms:30000}")
+    private long inFlightTimeoutMs;
+    // memory | postgres
+    @Value("${votes.idempotency.store:memory}")
+    private String store;
+    @Value("${votes.idempotency.cleanup-interval-ms:60000}")
+    private long cleanupIntervalMs;
+
+    private IdempotencyKeyCache cache;
+    private boolean postgresStore;
+    private Counter replays;
+    private ScheduledFuture<?> scheduledCleanup;
+
+    // The cache takes null for a free key, responses are wrapped so a null response can be kept too
+    private record Stored(Object response) {}
+
+    public IdempotentVotes(IdempotencyRecordRepository recordRepository, TaskScheduler threadPollTaskScheduler,
+                           MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.recordRepository = recordRepository;
+        this.taskScheduler = threadPollTaskScheduler;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        cache = new IdempotencyKeyCache(maxKeys, ttlMs, inFlightTimeoutMs);
+        postgresStore = "postgres".equals(store);
+
+        Gauge.builder("votes.idempotency.keys", cache, IdempotencyKeyCache::size).register(meterRegistry);
+        Gauge.builder("votes.idempotency.evicted", cache, IdempotencyKeyCache::evictions)
+                .description("Live keys dropped to make room, raise votes.idempotency.max-keys if it grows")
+                .register(meterRegistry);
+        replays = Counter.builder("votes.idempotency.replayed").register(meterRegistry);
+
+        if (postgresStore) {
+            scheduledCleanup = taskScheduler.scheduleWithFixedDelay(this::deleteExpired, Duration.ofMillis(cleanupIntervalMs));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduledCleanup != null) scheduledCleanup.cancel(false);
+    }
+
+    /**
+     * @return the fingerprint of a request, see {@link #vote}
+     */
+    public static long fingerprint(String request) {
+        return IdempotencyKeyCache.hash(request);
+    }
+
+    /**
+     * Runs the vote once per key
+     * @param request what the vote asks for, repeats of the key must ask for the same
+     * @param type type of the response, to read it back from another node
+     * @return the response of the vote, or the one of the first request with the key
+     * @throws IdempotencyKeyInUseException when the first request with the key is still running
+     * @throws IdempotencyKeyReusedException when the key was used for another request
+     */
+    public <T> VoteGate.Outcome<T> vote(String key, Long pollId, String request, TypeReference<T> type, Supplier<T> vote) {
+        long fingerprint = fingerprint(request);
+        Stored cached = cache.reserve(key, pollId, fingerprint);
+        if (cached != null) return replay(cached);
+
+        if (postgresStore) {
+            try {
+                if (recordRepository.reserve(key, pollId, fingerprint, inFlightTimeoutMs) == 0) {
+                    cache.release(key);
+                    return replay(fromRecord(key, pollId, fingerprint, type));
+                }
+            } catch (RuntimeException e) {
+                cache.release(key);
+                throw e;
+            }
+        }
+
+        T response;
+        try {
+            response = vote.get();
+        } catch (VoteOutcomeUnknownException e) {
+            // Stays in flight until votes.idempotency.in-flight-timeout-ms, a retry must not count the vote again
+            throw e;
+        } catch (RuntimeException e) {
+            cache.release(key);
+            if (postgresStore) recordRepository.release(key);
+            throw e;
+        }
+
+        cache.complete(key, pollId, fingerprint, new Stored(response));
+        if (postgresStore) recordRepository.complete(key, toJson(response), ttlMs);
+        return new VoteGate.Outcome<>(response, false);
+    }
+
+    /**
+     * Reads the response another node stored for the key and keeps it on the local cache
+     */
+    private Stored fromRecord(String key, Long pollId, long fingerprint, TypeReference<?> type) {
+        var record = recordRepository.findById(key)
+                .orElseThrow(() -> new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed"));
+        if (!record.getPollId().equals(pollId) || record.getFingerprint() != fingerprint) {
+            throw new IdempotencyKeyReusedException("Idempotency-Key was already used for another vote");
+        }
+        if (!record.isCompleted()) {
+            throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed");
+        }
+
+        var stored = new Stored(fromJson(record.getResponse(), type));
+        cache.complete(key, pollId, fingerprint, stored);
+        return stored;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> VoteGate.Outcome<T> replay(Stored stored) {
+        replays.increment();
+        return new VoteGate.Outcome<>((T) stored.response(), true);
+    }
+
+    private String toJson(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Vote response can't be stored as JSON", e);
+        }
+    }
+
+    private Object fromJson(String json, TypeReference<?> type) {
+        try {
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored vote response can't be read", e);
+        }
+    }
+
+    private void deleteExpired() {
+        try {
+            int deleted = recordRepository.deleteExpired();
+            if (deleted > 0) log.debug("Deleted {} expired idempotency keys", deleted);
+        } catch (RuntimeException e) {
+            log.error("Failed deleting expired idempotency keys: {}", e.getMessage());
+        }
+    }
+}
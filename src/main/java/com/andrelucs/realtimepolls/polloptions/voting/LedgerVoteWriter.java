@@ -0,0 +1,107 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVoteCount;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Only appends votes to the time partitioned vote_ledger, so voting never updates a row.
+ * The {@link VoteLedgerRollup} folds the ledger into poll_option.votes every {@code votes.ledger.rollup-interval-ms}
+ * and the vote broadcasts go out from there.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.mode", havingValue = "ledger")
+@Slf4j
+public class LedgerVoteWriter implements VoteWriter {
+
+    private final PollOptionRepository optionRepository;
+    private final VoteLedgerRollup rollup;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${votes.ledger.rollup-interval-ms:1000}")
+    private long rollupIntervalMs;
+    @Value("${votes.ledger.maintenance-interval-ms:3600000}")
+    private long maintenanceIntervalMs;
+
+    private ScheduledFuture<?> scheduledRollup;
+    private ScheduledFuture<?> scheduledMaintenance;
+
+    public LedgerVoteWriter(PollOptionRepository optionRepository, VoteLedgerRollup rollup, TaskScheduler threadPollTaskScheduler) {
+        this.optionRepository = optionRepository;
+        this.rollup = rollup;
+        this.taskScheduler = threadPollTaskScheduler;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduledMaintenance = taskScheduler.scheduleWithFixedDelay(this::maintainPartitions, Duration.ofMillis(maintenanceIntervalMs));
+        scheduledRollup = taskScheduler.scheduleWithFixedDelay(this::rollup, Duration.ofMillis(rollupIntervalMs));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduledRollup != null) scheduledRollup.cancel(false);
+        if (scheduledMaintenance != null) scheduledMaintenance.cancel(false);
+    }
+
+    @Override
+    @Transactional
+    public Optional<PollOptionDTO> write(Long pollId, Long optionId) {
+        return optionRepository.appendLedgerVote(pollId, optionId)
+                .map(voted -> new PollOptionDTO(voted.getId(), voted.getDescription(), voted.getVotes()));
+    }
+
+    @Override
+    @Transactional
+    public List<PollOptionDTO> writeAll(Long pollId, Map<Long, Long> votesByOption) {
+        if (votesByOption.isEmpty()) return List.of();
+
+        return optionRepository.appendLedgerVotes(pollId, VoteBatchWriter.optionIds(votesByOption), VoteBatchWriter.deltas(votesByOption))
+                .stream()
+                .map(voted -> new PollOptionDTO(voted.getId(), voted.getDescription(), voted.getVotes()))
+                .toList();
+    }
+
+    @Override
+    public Map<Long, Long> unsettledVotes(Collection<Long> pollIds) {
+        if (pollIds.isEmpty()) return Map.of();
+        return optionRepository.sumUnsettledLedgerVotes(pollIds)
+                .stream()
+                .collect(Collectors.toMap(PollOptionVoteCount::getId, count -> count.getVotes().longValue()));
+    }
+
+    private void rollup() {
+        try {
+            // Keep going while full batches come back, so a backlog is drained in one run
+            while (rollup.rollup() >= rollup.getBatchSize()) {
+                log.debug("Vote ledger rollup is behind, running again");
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed rolling up the vote ledger: {}", e.getMessage());
+        }
+    }
+
+    private void maintainPartitions() {
+        try {
+            rollup.maintainPartitions();
+        } catch (RuntimeException e) {
+            log.error("Failed maintaining the vote ledger partitions: {}", e.getMessage());
+        }
+    }
+}
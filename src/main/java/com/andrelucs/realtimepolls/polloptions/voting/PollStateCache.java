@@ -0,0 +1,95 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
+import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of the poll status and option ids, used to validate votes without a database connection.
+ * Entries are dropped when the poll changes status and reloaded after {@code votes.async.poll-cache-ttl-ms}
+ * at most, the votes are still checked again by the statement that applies them. Holds up to {@value #MAX_POLLS}
+ * polls, finished ones are kept to reject their votes and dropped with the rest once it's full.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.async.enabled", havingValue = "true")
+public class PollStateCache {
+
+    private static final int MAX_POLLS = 10_000;
+
+    private record PollState(PollStatus status, PollType type, Set<Long> optionIds, long loadedAt) {}
+
+    private final PollRepository pollRepository;
+    private final Map<Long, PollState> polls = new ConcurrentHashMap<>();
+
+    @Value("${votes.async.poll-cache-ttl-ms:5000}")
+    private long ttlMs;
+
+    public PollStateCache(PollRepository pollRepository) {
+        this.pollRepository = pollRepository;
+    }
+
+    /**
+     * @throws OptionNotFoundException when the poll doesn't exist or the option is not part of it
+     * @throws PollNotInProgressException when the poll is not STARTED
+     * @throws InvalidPollUpdateException when the poll is a ranked poll, which takes ballots
+     */
+    public void checkVotable(Long pollId, Long optionId) {
+        var state = polls.get(pollId);
+        if (state == null || System.currentTimeMillis() - state.loadedAt() > ttlMs) {
+            state = load(pollId);
+        }
+        if (state == null || !state.optionIds().contains(optionId)) {
+            throw OptionNotFoundException.VOTE_REJECTED;
+        }
+        if (state.status() != PollStatus.STARTED) {
+            throw PollNotInProgressException.VOTE_REJECTED;
+        }
+        if (state.type() != PollType.CHOICE) {
+            throw new InvalidPollUpdateException("Vote could not be registered, ranked polls take ballots");
+        }
+    }
+
+    /**
+     * Amount of polls held
+     */
+    public int size() {
+        return polls.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPollStatusEvent(PollStatusEvent statusEvent) {
+        polls.remove(statusEvent.getData().getPollId());
+    }
+
+    private PollState load(Long pollId) {
+        var state = pollRepository.findFullPollById(pollId)
+                .map(poll -> new PollState(
+                        poll.getStatus(),
+                        poll.getType(),
+                        poll.getOptions().stream().map(PollOption::getId).collect(Collectors.toUnmodifiableSet()),
+                        System.currentTimeMillis()))
+                .orElse(null);
+        if (state == null) {
+            polls.remove(pollId);
+        } else {
+            if (polls.size() >= MAX_POLLS && !polls.containsKey(pollId)) polls.clear();
+            polls.put(pollId, state);
+        }
+        return state;
+    }
+}
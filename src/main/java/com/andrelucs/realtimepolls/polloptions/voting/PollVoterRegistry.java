@@ -0,0 +1,134 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.model.Poll;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.exceptions.service.DuplicateVoteException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteOutcomeUnknownException;
+import com.andrelucs.realtimepolls.polloptions.PollVoterRepository;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps each voter to one vote per poll, recorded on poll_voter. Every STARTED poll has a {@link VoterBloomFilter},
+ * only voters it might have seen are looked up before the insert.
+ * Enabled with {@code votes.voters.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.voters.enabled", havingValue = "true")
+@Slf4j
+public class PollVoterRegistry {
+
+    private final PollVoterRepository voterRepository;
+    private final PollRepository pollRepository;
+
+    private final Map<Long, VoterBloomFilter> filters = new ConcurrentHashMap<>();
+
+    @Value("${votes.voters.expected-voters:10000}")
+    private long expectedVoters;
+    @Value("${votes.voters.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private final Counter newVoters;
+    private final Counter lookups;
+
+    public PollVoterRegistry(PollVoterRepository voterRepository, PollRepository pollRepository, MeterRegistry meterRegistry) {
+        this.voterRepository = voterRepository;
+        this.pollRepository = pollRepository;
+        this.newVoters = Counter.builder("votes.voters.fast-path")
+                .description("Voters the filter had never seen, recorded without a lookup")
+                .register(meterRegistry);
+        this.lookups = Counter.builder("votes.voters.lookups")
+                .description("Possible repeat voters checked against poll_voter")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        for (Poll poll : pollRepository.findAllByStatus(PollStatus.STARTED)) {
+            filters.put(poll.getId(), load(poll.getId()));
+        }
+        log.info("Voter filters rebuilt for {} started polls", filters.size());
+    }
+
+    /**
+     * Records the voter and runs the vote, the voter is forgotten again if the vote fails. A vote whose outcome is
+     * unknown keeps its voter, it may still be counted.
+     * @throws DuplicateVoteException when the voter already voted on the poll, the vote doesn't run
+     */
+    public <T> T vote(Long pollId, String voterKey, Supplier<T> vote) {
+        boolean registered = register(pollId, voterKey);
+        try {
+            return vote.get();
+        } catch (VoteOutcomeUnknownException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (registered) voterRepository.deleteVoter(pollId, voterKey);
+            throw e;
+        }
+    }
+
+    /**
+     * @return true when the voter was recorded, false when the poll can't be voted and the vote is left to fail
+     * @throws DuplicateVoteException when the voter already voted on the poll
+     */
+    public boolean register(Long pollId, String voterKey) {
+        var filter = filters.get(pollId);
+        if (filter != null && filter.mightContain(voterKey)) {
+            lookups.increment();
+            if (voterRepository.existsByPollIdAndVoterKey(pollId, voterKey)) {
+                throw duplicate();
+            }
+        } else {
+            newVoters.increment();
+        }
+
+        if (voterRepository.insertVoter(pollId, voterKey) == 1) {
+            filters.computeIfAbsent(pollId, this::load).add(voterKey);
+            return true;
+        }
+        // Nothing inserted, either the same voter won a race or the poll is not STARTED
+        if (voterRepository.existsByPollIdAndVoterKey(pollId, voterKey)) {
+            if (filter != null) filter.add(voterKey);
+            throw duplicate();
+        }
+        return false;
+    }
+
+    /**
+     * Amount of polls with a voter filter in memory
+     */
+    public int filteredPolls() {
+        return filters.size();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPollStatusEvent(PollStatusEvent statusEvent) {
+        if (statusEvent.getData().getToStatus() == PollStatus.FINISHED) {
+            filters.remove(statusEvent.getData().getPollId());
+        }
+    }
+
+    private VoterBloomFilter load(Long pollId) {
+        // Room for twice the current voters, so a poll that already outgrew the estimate keeps a low false positive rate
+        var filter = new VoterBloomFilter(Math.max(expectedVoters, voterRepository.countByPollId(pollId) * 2), falsePositiveRate);
+        voterRepository.findVoterKeys(pollId).forEach(filter::add);
+        return filter;
+    }
+
+    private static DuplicateVoteException duplicate() {
+        return new DuplicateVoteException("Voter already voted on this poll");
+    }
+}
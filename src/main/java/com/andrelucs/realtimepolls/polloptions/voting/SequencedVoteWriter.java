@@ -0,0 +1,243 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.exceptions.controller.ServiceBusyException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteOutcomeUnknownException;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVote;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queues the votes of each poll on its own lane, drained by one of the {@code votes.sequenced.workers} threads at a
+ * time into one {@link VoteBatchWriter#applyToPoll} call, so the counts of a poll are broadcast in order.
+ * Lanes only exist while they have votes.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.mode", havingValue = "sequenced")
+@Slf4j
+public class SequencedVoteWriter implements VoteWriter {
+
+    private record PendingVote(Map<Long, Long> votesByOption, CompletableFuture<List<PollOptionDTO>> result) {}
+
+    private final VoteBatchWriter batchWriter;
+    private final PollOptionRepository optionRepository;
+
+    private final Map<Long, PollLane> lanes = new ConcurrentHashMap<>();
+
+    @Value("${votes.sequenced.workers:2}")
+    private int workers;
+    @Value("${votes.sequenced.batch-size:500}")
+    private int batchSize;
+    @Value("${votes.sequenced.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ExecutorService workerPool;
+
+    public SequencedVoteWriter(VoteBatchWriter batchWriter, PollOptionRepository optionRepository) {
+        this.batchWriter = batchWriter;
+        this.optionRepository = optionRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        workerPool = Executors.newFixedThreadPool(Math.max(workers, 1), Thread.ofPlatform().name("vote-sequencer-", 0).factory());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Lanes already queued on the pool still run, the ones they reschedule finish on the calling thread
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(5, TimeUnit.SECONDS)) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Hands the vote to the writer of its poll and waits for it to be applied
+     * @throws ServiceBusyException when the vote isn't applied within {@code votes.sequenced.timeout-ms} and was
+     * taken back before its writer got to it
+     * @throws VoteOutcomeUnknownException when the vote isn't applied in time but its writer already has it,
+     * it may still be counted afterwards
+     */
+    @Override
+    public Optional<PollOptionDTO> write(Long pollId, Long optionId) {
+        return await(pollId, Map.of(optionId, 1L)).stream().findFirst();
+    }
+
+    /**
+     * Same as {@link #write}, an option not on the poll rejects the votes before they reach the lane
+     */
+    @Override
+    public List<PollOptionDTO> writeAll(Long pollId, Map<Long, Long> votesByOption) {
+        if (votesByOption.isEmpty()) return List.of();
+        if (votesByOption.size() > 1 && optionRepository.findVotableOptions(pollId, votesByOption.keySet()).size() != votesByOption.size()) {
+            return List.of();
+        }
+        return await(pollId, votesByOption);
+    }
+
+    private List<PollOptionDTO> await(Long pollId, Map<Long, Long> votesByOption) {
+        var vote = new PendingVote(votesByOption, new CompletableFuture<>());
+        PollLane lane = enqueue(pollId, vote);
+
+        try {
+            return vote.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw abandon(lane, vote, "Vote could not be registered in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abandon(lane, vote, "Vote was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Takes the vote back while it is still queued, so it is never counted and can be retried. Once a worker
+     * polled it the vote is part of a write and its outcome is left unknown.
+     */
+    private RuntimeException abandon(PollLane lane, PendingVote vote, String reason) {
+        if (lane.votes.remove(vote)) {
+            return new ServiceBusyException(reason + ", try again later", Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs)));
+        }
+        return new VoteOutcomeUnknownException(reason + ", it may still be counted");
+    }
+
+    /**
+     * Amount of polls with votes waiting or being applied
+     */
+    public int activeLanes() {
+        return lanes.size();
+    }
+
+    /**
+     * Amount of votes waiting for their poll writer
+     */
+    public int queuedVotes() {
+        return lanes.values().stream().mapToInt(lane -> lane.votes.size()).sum();
+    }
+
+    private PollLane enqueue(Long pollId, PendingVote vote) {
+        while (true) {
+            PollLane lane = lanes.computeIfAbsent(pollId, PollLane::new);
+            lane.votes.offer(vote);
+
+            // The worker marks the lane retired before its last emptiness check, so either it sees this vote
+            // or this check sees the flag. A retired lane is never drained again, take the vote back and retry.
+            if (lane.retired && lane.votes.remove(vote)) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (lane.scheduled.compareAndSet(false, true)) {
+                schedule(lane);
+            }
+            return lane;
+        }
+    }
+
+    private void schedule(PollLane lane) {
+        try {
+            workerPool.execute(lane);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, finish the lane here instead of dropping its votes
+            lane.run();
+        }
+    }
+
+    /**
+     * Votes of one poll. Once scheduled a lane keeps its scheduled flag until it is retired, so no second worker
+     * can pick it up, and producers only have to schedule a lane they just created.
+     */
+    private final class PollLane implements Runnable {
+
+        private final Long pollId;
+        private final Queue<PendingVote> votes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean retired;
+
+        private PollLane(Long pollId) {
+            this.pollId = pollId;
+        }
+
+        @Override
+        public void run() {
+            List<PendingVote> batch = new ArrayList<>();
+            PendingVote vote;
+            while (batch.size() < batchSize && (vote = votes.poll()) != null) {
+                batch.add(vote);
+            }
+
+            try {
+                if (!batch.isEmpty()) apply(batch);
+            } finally {
+                release();
+            }
+        }
+
+        private void apply(List<PendingVote> batch) {
+            Map<Long, Long> deltas = new HashMap<>();
+            batch.forEach(vote -> vote.votesByOption().forEach((optionId, votes) -> deltas.merge(optionId, votes, Long::sum)));
+
+            Map<Long, PollOptionVote> updated = new HashMap<>();
+            try {
+                for (PollOptionVote voted : batchWriter.applyToPoll(pollId, deltas)) {
+                    updated.put(voted.getId(), voted);
+                }
+            } catch (RuntimeException e) {
+                log.error("Failed applying {} votes of poll {}: {}", batch.size(), pollId, e.getMessage());
+                batch.forEach(vote -> vote.result().completeExceptionally(e));
+                return;
+            }
+
+            // Votes on options left out were rejected, the poll isn't STARTED or the option isn't on it
+            for (PendingVote vote : batch) {
+                if (!updated.keySet().containsAll(vote.votesByOption().keySet())) {
+                    vote.result().complete(List.of());
+                    continue;
+                }
+                vote.result().complete(vote.votesByOption().keySet().stream()
+                        .map(updated::get)
+                        .map(voted -> new PollOptionDTO(voted.getId(), voted.getDescription(), voted.getVotes()))
+                        .toList());
+            }
+        }
+
+        private void release() {
+            if (!votes.isEmpty()) {
+                // Back of the pool queue, so a busy poll doesn't starve the others
+                schedule(this);
+                return;
+            }
+            retired = true;
+            if (!votes.isEmpty()) {
+                retired = false;
+                schedule(this);
+                return;
+            }
+            lanes.remove(pollId, this);
+        }
+    }
+}
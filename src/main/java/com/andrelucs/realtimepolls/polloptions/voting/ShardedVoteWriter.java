@@ -0,0 +1,83 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVoteCount;
+import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
+import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads the votes of each option over {@code votes.sharded.shards} rows of poll_option_vote_shard,
+ * so concurrent voters of the same option rarely wait on the same row lock.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.mode", havingValue = "sharded")
+public class ShardedVoteWriter implements VoteWriter {
+
+    private final PollOptionRepository optionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VoteBatchWriter batchWriter;
+
+    @Value("${votes.sharded.shards:16}")
+    private int shards;
+
+    public ShardedVoteWriter(PollOptionRepository optionRepository, ApplicationEventPublisher eventPublisher, VoteBatchWriter batchWriter) {
+        this.optionRepository = optionRepository;
+        this.eventPublisher = eventPublisher;
+        this.batchWriter = batchWriter;
+    }
+
+    @Override
+    @Transactional
+    public Optional<PollOptionDTO> write(Long pollId, Long optionId) {
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        return optionRepository.voteForOptionShard(pollId, optionId, shard)
+                .map(voted -> {
+                    eventPublisher.publishEvent(new PollVoteEvent(this,
+                            PollOptionVoteDTO.builder()
+                                    .pollId(voted.getPollId())
+                                    .optionId(voted.getId())
+                                    .votes(voted.getVotes().longValue())
+                                    .delta(1L)
+                                    .timestamp(LocalDateTime.now())
+                                    .build()
+                    ));
+                    return new PollOptionDTO(voted.getId(), voted.getDescription(), voted.getVotes());
+                });
+    }
+
+    @Override
+    @Transactional
+    public List<PollOptionDTO> writeAll(Long pollId, Map<Long, Long> votesByOption) {
+        if (votesByOption.isEmpty()) return List.of();
+
+        int shard = ThreadLocalRandom.current().nextInt(shards);
+        var voted = optionRepository.voteForOptionShards(pollId, VoteBatchWriter.optionIds(votesByOption),
+                VoteBatchWriter.deltas(votesByOption), shard);
+        batchWriter.publish(voted, votesByOption);
+        return voted.stream()
+                .map(option -> new PollOptionDTO(option.getId(), option.getDescription(), option.getVotes()))
+                .toList();
+    }
+
+    @Override
+    public Map<Long, Long> unsettledVotes(Collection<Long> pollIds) {
+        if (pollIds.isEmpty()) return Map.of();
+        return optionRepository.sumVoteShards(pollIds)
+                .stream()
+                .collect(Collectors.toMap(PollOptionVoteCount::getId, count -> count.getVotes().longValue()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polloptions.PollVoterRepository;
+import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Approximate amount of distinct voters of each poll, counted with a {@link VoterSketch} per poll.
+ * Votes only touch the sketch in memory, sketches that changed are merged into poll_voter_sketch every
+ * {@code votes.unique-voters.flush-interval-ms} on a thread of its own, and take back what the other nodes merged in.
+ * Voters are recorded by the {@link VoteGate}, batches and imports carry no voter and aren't counted.
+ * Enabled with {@code votes.unique-voters.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.unique-voters.enabled", havingValue = "true")
+@Slf4j
+public class UniqueVoterCounter {
+
+    private final PollVoterRepository voterRepository;
+
+    private final Map<Long, TrackedSketch> sketches = new ConcurrentHashMap<>();
+
+    @Value("${votes.unique-voters.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private ScheduledExecutorService flushExecutor;
+
+    private record TrackedSketch(VoterSketch sketch, AtomicBoolean dirty) {
+        private TrackedSketch() {
+            // Dirty from the start, the first flush brings in the voters counted before this node saw the poll
+            this(new VoterSketch(), new AtomicBoolean(true));
+        }
+    }
+
+    public UniqueVoterCounter(PollVoterRepository voterRepository) {
+        this.voterRepository = voterRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Flushes wait on the database, they'd hold back the other tasks of the shared scheduler
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("voter-sketch-flush").daemon().factory());
+        flushExecutor.scheduleAtFixedRate(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        flushExecutor.shutdown();
+        if (!flushExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            flushExecutor.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * Counts the voter on the poll, call it once the vote was accepted, see {@link Voter#countedKey}
+     */
+    public void record(Long pollId, String voterKey) {
+        var tracked = sketches.computeIfAbsent(pollId, id -> new TrackedSketch());
+        if (tracked.sketch().add(voterKey)) tracked.dirty().set(true);
+    }
+
+    /**
+     * @return the approximate amount of distinct voters of the poll, 0 when nobody voted on it yet
+     */
+    public long estimate(Long pollId) {
+        var tracked = sketches.get(pollId);
+        if (tracked != null) return tracked.sketch().estimate();
+        return voterRepository.findVoterSketch(pollId)
+                .map(registers -> VoterSketch.fromBytes(registers).estimate())
+                .orElse(0L);
+    }
+
+    /**
+     * Like {@link #estimate} but never reads the database
+     * @return the estimate of the sketch held by this node, null when it doesn't track the poll
+     */
+    public Long trackedEstimate(Long pollId) {
+        var tracked = sketches.get(pollId);
+        return tracked != null ? tracked.sketch().estimate() : null;
+    }
+
+    /**
+     * Merges the sketches that changed since the last flush into the database
+     */
+    public void flush() {
+        sketches.forEach(this::flush);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPollStatusEvent(PollStatusEvent statusEvent) {
+        if (statusEvent.getData().getToStatus() != PollStatus.FINISHED) return;
+        var pollId = statusEvent.getData().getPollId();
+        var tracked = sketches.get(pollId);
+        if (tracked == null) return;
+        flush(pollId, tracked);
+        // Votes are no longer taken, the stored sketch answers from now on
+        if (!tracked.dirty().get()) sketches.remove(pollId, tracked);
+    }
+
+    private void flush(Long pollId, TrackedSketch tracked) {
+        if (!tracked.dirty().getAndSet(false)) return;
+        try {
+            var merged = voterRepository.mergeVoterSketch(pollId, tracked.sketch().toBytes());
+            if (merged == null) {
+                sketches.remove(pollId, tracked);
+                return;
+            }
+            tracked.sketch().merge(merged);
+        } catch (RuntimeException e) {
+            tracked.dirty().set(true);
+            log.warn("Failed to store the voter sketch of poll {}, retrying on the next flush", pollId, e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVote;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVoteCount;
+import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
+import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies aggregated vote deltas to poll_option in one statement and broadcasts one event per updated poll.
+ */
+@Service
+public class VoteBatchWriter {
+
+    private final PollOptionRepository optionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public VoteBatchWriter(PollOptionRepository optionRepository, ApplicationEventPublisher eventPublisher) {
+        this.optionRepository = optionRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * @param deltasByOption the votes to add, keyed by option id
+     * @return the updated counts, options that no longer exist are left out
+     */
+    @Transactional
+    public List<PollOptionVoteCount> apply(Map<Long, Long> deltasByOption) {
+        if (deltasByOption.isEmpty()) return List.of();
+
+        var updated = optionRepository.addVotes(optionIds(deltasByOption), deltas(deltasByOption));
+        publish(updated, deltasByOption);
+        return updated;
+    }
+
+    /**
+     * Same as {@link #apply}, also moving the checkpoint of the {@link VoteJournal} the votes came from in the same
+     * transaction, so they are never replayed on top of themselves
+     * @param position journal position covering every vote in the deltas
+     */
+    @Transactional
+    public List<PollOptionVoteCount> applyJournaled(Map<Long, Long> deltasByOption, String journalId, long position) {
+        var updated = apply(deltasByOption);
+        optionRepository.moveJournalCheckpoint(journalId, position);
+        return updated;
+    }
+
+    /**
+     * Same as {@link #apply} restricted to the options of one poll, and only while that poll is STARTED
+     * @return the updated options, the caller decides what to do with the ones left out
+     */
+    @Transactional
+    public List<PollOptionVote> applyToPoll(Long pollId, Map<Long, Long> deltasByOption) {
+        if (deltasByOption.isEmpty()) return List.of();
+
+        var updated = optionRepository.addPollVotes(pollId, optionIds(deltasByOption), deltas(deltasByOption));
+        publish(updated, deltasByOption);
+        return updated;
+    }
+
+    /**
+     * Same as {@link #applyToPoll}, all or nothing
+     * @return every option of the deltas, or none when any of them can't be voted
+     */
+    @Transactional
+    public List<PollOptionVote> applyAllToPoll(Long pollId, Map<Long, Long> deltasByOption) {
+        if (deltasByOption.isEmpty()) return List.of();
+
+        var updated = optionRepository.addAllPollVotes(pollId, optionIds(deltasByOption), deltas(deltasByOption));
+        publish(updated, deltasByOption);
+        return updated;
+    }
+
+    /**
+     * Publishes one event per poll, holding every option of it the write touched
+     * @param updated the options with their counts after the write
+     */
+    public void publish(List<? extends PollOptionVoteCount> updated, Map<Long, Long> deltasByOption) {
+        var now = LocalDateTime.now();
+        Map<Long, List<PollOptionVoteDTO>> votesByPoll = new LinkedHashMap<>();
+        for (PollOptionVoteCount count : updated) {
+            votesByPoll.computeIfAbsent(count.getPollId(), pollId -> new ArrayList<>())
+                    .add(PollOptionVoteDTO.builder()
+                            .pollId(count.getPollId())
+                            .optionId(count.getId())
+                            .votes(count.getVotes().longValue())
+                            .delta(deltasByOption.get(count.getId()))
+                            .timestamp(now)
+                            .build());
+        }
+        votesByPoll.values().forEach(votes -> eventPublisher.publishEvent(new PollVoteEvent(this, votes)));
+    }
+
+    // Both arrays keep the iteration order of the map, so they are matched by position
+    static Long[] optionIds(Map<Long, Long> deltasByOption) {
+        return deltasByOption.keySet().toArray(Long[]::new);
+    }
+
+    static Long[] deltas(Map<Long, Long> deltasByOption) {
+        return deltasByOption.values().toArray(Long[]::new);
+    }
+}
@@ -0,0 +1,80 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.MissingVoterException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Rules every vote goes through before it reaches the {@link VoteWriter}, whatever the request it came on: one vote
+ * per voter with the {@link PollVoterRegistry}, repeats answered once with {@link IdempotentVotes}, and the voter
+ * counted by the {@link UniqueVoterCounter}. Each is skipped when its feature is disabled.
+ * Batches carry the votes of many voters, they only go through the idempotency check, are refused while one vote per
+ * voter is enforced and aren't counted as voters.
+ */
+@Component
+public class VoteGate {
+
+    // Only present when votes.voters.enabled is set
+    private final PollVoterRegistry voterRegistry;
+    // Only present when votes.idempotency.enabled is set
+    private final IdempotentVotes idempotentVotes;
+    // Only present when votes.unique-voters.enabled is set
+    private final UniqueVoterCounter uniqueVoterCounter;
+
+    /**
+     * @param result what the vote returned
+     * @param replayed true when the result is the one of an earlier request with the same Idempotency-Key
+     */
+    public record Outcome<T>(T result, boolean replayed) {}
+
+    public VoteGate(ObjectProvider<PollVoterRegistry> voterRegistry, ObjectProvider<IdempotentVotes> idempotentVotes,
+                    ObjectProvider<UniqueVoterCounter> uniqueVoterCounter) {
+        this.voterRegistry = voterRegistry.getIfAvailable();
+        this.idempotentVotes = idempotentVotes.getIfAvailable();
+        this.uniqueVoterCounter = uniqueVoterCounter.getIfAvailable();
+    }
+
+    /**
+     * Runs the vote of one voter
+     * @param request what the vote asks for, a repeated Idempotency-Key must ask for the same
+     * @param type type of the result, to read back a result stored by another node
+     * @throws MissingVoterException when one vote per voter is enforced and the voter can't be told
+     * @throws com.andrelucs.realtimepolls.exceptions.service.DuplicateVoteException when the voter already voted
+     */
+    public <T> Outcome<T> vote(Long pollId, Voter voter, String request, TypeReference<T> type, Supplier<T> vote) {
+        Supplier<T> gated = () -> {
+            T result = voterRegistry != null ? voterRegistry.vote(pollId, registryKey(voter), vote) : vote.get();
+            if (uniqueVoterCounter != null) uniqueVoterCounter.record(pollId, voter.countedKey());
+            return result;
+        };
+        return idempotent(pollId, voter.idempotencyKey(), request, type, gated);
+    }
+
+    /**
+     * Runs a batch of votes from many voters
+     * @throws InvalidPollUpdateException when one vote per voter is enforced
+     */
+    public <T> Outcome<T> voteBatch(Long pollId, String idempotencyKey, String request, TypeReference<T> type, Supplier<T> vote) {
+        if (voterRegistry != null) {
+            throw new InvalidPollUpdateException("Batches of votes can't be kept to one vote per voter");
+        }
+        return idempotent(pollId, idempotencyKey, request, type, vote);
+    }
+
+    private <T> Outcome<T> idempotent(Long pollId, String idempotencyKey, String request, TypeReference<T> type, Supplier<T> vote) {
+        if (idempotentVotes != null && idempotencyKey != null) {
+            return idempotentVotes.vote(idempotencyKey, pollId, request, type, vote);
+        }
+        return new Outcome<>(vote.get(), false);
+    }
+
+    private static String registryKey(Voter voter) {
+        var key = voter.registryKey();
+        if (key == null) throw new MissingVoterException("The voter key is required to vote");
+        return key;
+    }
+}
@@ -0,0 +1,267 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of buffered votes on local disk, so votes acknowledged before they reach the database survive a
+ * crash of the JVM. Records are {@value #RECORD_SIZE} bytes written into memory mapped segment files: poll id, option
+ * id, epoch millis, delta and a CRC32C that also covers the segment number, so a torn record or one left from the
+ * previous life of a recycled segment ends the replay.
+ * Bytes written to the mapping belong to the OS page cache and outlive the process right away, {@link #force} makes
+ * them outlive the machine too.
+ * Positions count records since the journal was created, segments fully below a confirmed position are recycled.
+ */
+public class VoteJournal implements Closeable {
+
+    public static final int RECORD_SIZE = 32;
+    private static final String ID_FILE = "journal.id";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SPARE_PREFIX = "spare-";
+    private static final String SUFFIX = ".journal";
+    private static final int MAX_SPARE_SEGMENTS = 2;
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void accept(long pollId, long optionId, int delta, long epochMillis);
+    }
+
+    private final Path dir;
+    private final int recordsPerSegment;
+    private final String id;
+
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private final Deque<Path> spares = new ArrayDeque<>();
+    private final ByteBuffer checksumInput = ByteBuffer.allocate(Long.BYTES + RECORD_SIZE - Integer.BYTES);
+    private final CRC32C crc = new CRC32C();
+    private final Object forceLock = new Object();
+
+    private MappedByteBuffer active;
+    private long activeSegment;
+    private int slot;
+    // Every record below was forced when its segment was sealed
+    private volatile long sealedPosition;
+    // Guarded by forceLock
+    private long forcedPosition;
+
+    /**
+     * Opens the journal in the directory, creating it when missing. Nothing is appended before {@link #start}.
+     * @param recordsPerSegment capacity of each segment file
+     */
+    public VoteJournal(Path dir, int recordsPerSegment) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.recordsPerSegment = recordsPerSegment;
+
+        var idFile = dir.resolve(ID_FILE);
+        if (!Files.exists(idFile)) {
+            Files.writeString(idFile, UUID.randomUUID().toString(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        }
+        this.id = Files.readString(idFile, StandardCharsets.UTF_8).trim();
+
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(SUFFIX)) return;
+                if (name.startsWith(SEGMENT_PREFIX)) {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SUFFIX.length())), file);
+                } else if (name.startsWith(SPARE_PREFIX)) {
+                    spares.add(file);
+                }
+            });
+        }
+    }
+
+    /**
+     * Identifies the journal on vote_journal_checkpoint, kept in the directory so it survives restarts
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Reads the records at or after the position, up to the first one that doesn't check out
+     * @return the position after the last record read, or fromPosition when there is none
+     */
+    public synchronized long replay(long fromPosition, RecordHandler handler) throws IOException {
+        long end = fromPosition;
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            long segmentStart = segment.getKey() * recordsPerSegment;
+            if (segmentStart + recordsPerSegment <= fromPosition) continue;
+
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment.getValue(), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), segmentBytes()));
+            }
+            int records = buffer.capacity() / RECORD_SIZE;
+            for (int i = 0; i < records; i++) {
+                int offset = i * RECORD_SIZE;
+                long pollId = buffer.getLong(offset);
+                long optionId = buffer.getLong(offset + 8);
+                long epochMillis = buffer.getLong(offset + 16);
+                int delta = buffer.getInt(offset + 24);
+                if (pollId == 0 || buffer.getInt(offset + 28) != checksum(segment.getKey(), pollId, optionId, epochMillis, delta)) {
+                    return end;
+                }
+
+                long position = segmentStart + i + 1;
+                if (position > fromPosition) {
+                    handler.accept(pollId, optionId, delta, epochMillis);
+                    end = position;
+                }
+            }
+            if (records < recordsPerSegment) return end;
+        }
+        return end;
+    }
+
+    /**
+     * Starts appending on a new segment, past the position and every segment already on disk
+     */
+    public synchronized void start(long position) {
+        long next = Math.ceilDiv(position, recordsPerSegment);
+        if (!segments.isEmpty()) next = Math.max(next, segments.lastKey() + 1);
+        open(next);
+        sealedPosition = position();
+    }
+
+    /**
+     * Writes the record to the page cache, it survives the JVM once this returns
+     * @return the position after the record, to {@link #force} it
+     */
+    public synchronized long append(long pollId, long optionId, int delta) {
+        if (active == null) throw new IllegalStateException("Vote journal is not started");
+        if (slot == recordsPerSegment) {
+            active.force();
+            sealedPosition = position();
+            open(activeSegment + 1);
+        }
+
+        long epochMillis = System.currentTimeMillis();
+        int offset = slot * RECORD_SIZE;
+        active.putLong(offset, pollId);
+        active.putLong(offset + 8, optionId);
+        active.putLong(offset + 16, epochMillis);
+        active.putInt(offset + 24, delta);
+        active.putInt(offset + 28, checksum(activeSegment, pollId, optionId, epochMillis, delta));
+        slot++;
+        return position();
+    }
+
+    /**
+     * Position after the last appended record
+     */
+    public synchronized long position() {
+        return activeSegment * recordsPerSegment + slot;
+    }
+
+    /**
+     * Flushes the records up to the position to the disk. Concurrent callers share a single fsync, the first one
+     * forces everything appended so far and the ones it covered return right away.
+     */
+    public void force(long upTo) {
+        if (upTo <= sealedPosition) return;
+        synchronized (forceLock) {
+            if (upTo <= forcedPosition) return;
+            MappedByteBuffer buffer;
+            long target;
+            synchronized (this) {
+                if (active == null) return;
+                buffer = active;
+                target = position();
+            }
+            buffer.force();
+            forcedPosition = target;
+        }
+    }
+
+    public void force() {
+        force(position());
+    }
+
+    /**
+     * Recycles the segments whose records are all below the position, once they are confirmed on the database
+     */
+    public synchronized void release(long upTo) {
+        var iterator = segments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var segment = iterator.next();
+            if (segment.getKey() == activeSegment && active != null) break;
+            if ((segment.getKey() + 1) * recordsPerSegment > upTo) break;
+
+            iterator.remove();
+            try {
+                if (spares.size() < MAX_SPARE_SEGMENTS) {
+                    spares.add(Files.move(segment.getValue(), dir.resolve(SPARE_PREFIX + segment.getKey() + SUFFIX)));
+                } else {
+                    Files.delete(segment.getValue());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Amount of segment files holding records, the active one included
+     */
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (active == null) return;
+        active.force();
+        active = null;
+    }
+
+    private void open(long segment) {
+        Path path = dir.resolve(SEGMENT_PREFIX + segment + SUFFIX);
+        try {
+            // A spare keeps its old records, the checksums tell them apart from the new ones
+            Path spare = spares.poll();
+            if (spare != null) Files.move(spare, path);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.put(segment, path);
+        activeSegment = segment;
+        slot = 0;
+    }
+
+    private long segmentBytes() {
+        return (long) recordsPerSegment * RECORD_SIZE;
+    }
+
+    private int checksum(long segment, long pollId, long optionId, long epochMillis, int delta) {
+        checksumInput.clear()
+                .putLong(segment)
+                .putLong(pollId)
+                .putLong(optionId)
+                .putLong(epochMillis)
+                .putInt(delta)
+                .flip();
+        crc.reset();
+        crc.update(checksumInput);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,79 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVoteCount;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Folds vote_ledger rows into poll_option.votes and keeps the ledger partitions.
+ * <p>
+ * The ledger is walked by keyset ranges of ids above the watermark kept in vote_ledger_rollup.
+ * Votes younger than {@code votes.ledger.grace-ms} are left for the next run, so transactions that got
+ * a lower id but commit later than their neighbours are not skipped.
+ */
+@Service
+@ConditionalOnProperty(name = "votes.mode", havingValue = "ledger")
+@Slf4j
+public class VoteLedgerRollup {
+
+    private final PollOptionRepository optionRepository;
+    private final VoteBatchWriter batchWriter;
+
+    @Value("${votes.ledger.grace-ms:2000}")
+    private long graceMs;
+    @Value("${votes.ledger.rollup-batch-size:10000}")
+    private int batchSize;
+    @Value("${votes.ledger.partition-days-ahead:2}")
+    private int partitionDaysAhead;
+
+    public VoteLedgerRollup(PollOptionRepository optionRepository, VoteBatchWriter batchWriter) {
+        this.optionRepository = optionRepository;
+        this.batchWriter = batchWriter;
+    }
+
+    /**
+     * Rolls up the next keyset range of the ledger
+     * @return the amount of ledger rows rolled up, less than the batch size once the ledger is caught up
+     */
+    @Transactional
+    public long rollup() {
+        Long lastId = optionRepository.lockLedgerWatermark();
+        Long upToId = optionRepository.findLedgerRollupEnd(lastId, graceMs, batchSize);
+        if (upToId == null) return 0;
+
+        List<PollOptionVoteCount> counts = optionRepository.countLedgerVotes(lastId, upToId);
+        Map<Long, Long> deltas = counts.stream()
+                .collect(Collectors.toMap(PollOptionVoteCount::getId, count -> count.getVotes().longValue()));
+        batchWriter.apply(deltas);
+        optionRepository.moveLedgerWatermark(upToId);
+
+        long rolledUp = deltas.values().stream().mapToLong(Long::longValue).sum();
+        log.debug("Rolled up {} ledger votes up to id {}", rolledUp, upToId);
+        return rolledUp;
+    }
+
+    /**
+     * Creates the upcoming daily partitions and detaches the settled ones
+     * @return the names of the detached partitions
+     */
+    @Transactional
+    public List<String> maintainPartitions() {
+        Integer created = optionRepository.createLedgerPartitions(partitionDaysAhead);
+        List<String> detached = optionRepository.detachSettledLedgerPartitions();
+        if (created != null && created > 0) log.info("Created {} vote ledger partitions", created);
+        if (!detached.isEmpty()) log.info("Detached settled vote ledger partitions {}", detached);
+        return detached;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -0,0 +1,40 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Strategy used by {@link com.andrelucs.realtimepolls.polloptions.OptionService} to register votes.
+ * The active implementation is selected with the {@code votes.mode} property.
+ */
+public interface VoteWriter {
+
+    /**
+     * Registers a vote, checking in the same statement that the option belongs to the poll and the poll is STARTED.
+     * Implementations open their own transaction when they need one, callers shouldn't hold one while waiting.
+     * @param pollId the poll the voter is looking at
+     * @param optionId the option receiving the vote
+     * @return the voted option with its count as known by this writer, empty when the vote was not accepted
+     */
+    Optional<PollOptionDTO> write(Long pollId, Long optionId);
+
+    /**
+     * Registers several votes on the options of one poll, all or nothing, with the same checks as {@link #write}
+     * @param votesByOption the amount of votes keyed by option id, every amount positive
+     * @return the voted options with their counts as known by this writer, empty when no vote was accepted
+     */
+    List<PollOptionDTO> writeAll(Long pollId, Map<Long, Long> votesByOption);
+
+    /**
+     * Votes registered by this writer that are not reflected on poll_option.votes yet
+     * @param pollIds the polls to look for
+     * @return the extra votes keyed by option id, options without extra votes are left out
+     */
+    default Map<Long, Long> unsettledVotes(Collection<Long> pollIds) {
+        return Map.of();
+    }
+}
@@ -0,0 +1,28 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+/**
+ * Who is voting, as far as the request tells
+ * @param key voter key the client sent, may be null
+ * @param session HTTP or STOMP session of the request, may be null
+ * @param address remote address of the request, may be null
+ * @param idempotencyKey Idempotency-Key of the request, may be null
+ */
+public record Voter(String key, String session, String address, String idempotencyKey) {
+
+    /**
+     * @return the voter key, or else the session, null when the request has neither
+     */
+    public String registryKey() {
+        if (key != null && !key.isBlank()) return key;
+        return session != null ? "session:" + session : null;
+    }
+
+    /**
+     * Unlike the one vote per voter rule, counting needs some key for every vote
+     * @return the {@link #registryKey}, or else the address
+     */
+    public String countedKey() {
+        var registryKey = registryKey();
+        return registryKey != null ? registryKey : "address:" + address;
+    }
+}
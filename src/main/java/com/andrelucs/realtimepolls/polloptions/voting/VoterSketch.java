@@ -0,0 +1,105 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HyperLogLog sketch of the distinct voters of a poll. {@value #REGISTERS} one byte registers keep the highest rank
+ * seen among the hashes routed to each of them, {@link #estimate} answers within about 1.6% of the real amount of
+ * distinct keys whatever that amount is. Sketches of the same poll merge by keeping the highest value of each register,
+ * so nodes can share one through the database.
+ * Adding a key the sketch already saw only reads one register, the few adds that raise it use a compare and set.
+ * Safe to use from many threads.
+ */
+public class VoterSketch {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    private static final VarHandle REGISTER = MethodHandles.arrayElementVarHandle(byte[].class);
+    // Bias correction of the raw estimate for 2^12 registers
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers = new byte[REGISTERS];
+    // Moves on every raised register, an estimate taken at an older version is computed again
+    private final AtomicLong version = new AtomicLong();
+    private volatile Estimate cachedEstimate = new Estimate(-1, 0);
+
+    private record Estimate(long version, long value) {}
+
+    /**
+     * @return true when a register was raised, false when the sketch already accounted for the key
+     */
+    public boolean add(String key) {
+        return add(VoterBloomFilter.hash(key));
+    }
+
+    public boolean add(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        // Position of the first set bit in the remaining bits, the sentinel caps it when they are all zero
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        return raise(index, rank);
+    }
+
+    /**
+     * Keeps the highest value of each register between the two sketches
+     * @param other registers of a sketch, as given by {@link #toBytes}
+     * @return true when a register was raised
+     */
+    public boolean merge(byte[] other) {
+        if (other.length != REGISTERS) {
+            throw new IllegalArgumentException("Expected %d registers, got %d".formatted(REGISTERS, other.length));
+        }
+        boolean raised = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other[i] > (byte) REGISTER.getVolatile(registers, i)) raised |= raise(i, other[i]);
+        }
+        return raised;
+    }
+
+    public byte[] toBytes() {
+        byte[] copy = new byte[REGISTERS];
+        for (int i = 0; i < REGISTERS; i++) copy[i] = (byte) REGISTER.getVolatile(registers, i);
+        return copy;
+    }
+
+    public static VoterSketch fromBytes(byte[] registers) {
+        var sketch = new VoterSketch();
+        sketch.merge(registers);
+        return sketch;
+    }
+
+    /**
+     * Approximate amount of distinct keys added, computed again only after a register changes
+     */
+    public long estimate() {
+        long current = version.get();
+        var cached = cachedEstimate;
+        if (cached.version() == current) return cached.value();
+
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            byte rank = (byte) REGISTER.getVolatile(registers, i);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) zeros++;
+        }
+        double raw = ALPHA * REGISTERS * REGISTERS / sum;
+        // Linear counting is more accurate while many registers are still empty
+        if (raw <= 2.5 * REGISTERS && zeros > 0) raw = REGISTERS * Math.log((double) REGISTERS / zeros);
+
+        long estimate = Math.round(raw);
+        cachedEstimate = new Estimate(current, estimate);
+        return estimate;
+    }
+
+    private boolean raise(int index, byte rank) {
+        byte current;
+        do {
+            current = (byte) REGISTER.getVolatile(registers, index);
+            if (rank <= current) return false;
+        } while (!REGISTER.compareAndSet(registers, index, current, rank));
+        version.incrementAndGet();
+        return true;
+    }
+}
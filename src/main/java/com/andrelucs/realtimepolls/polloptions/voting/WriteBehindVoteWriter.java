@@ -0,0 +1,258 @@
+package com.andrelucs.realtimepolls.polloptions.voting;
+
+import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVote;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Buffers votes in memory and flushes them to poll_option in one statement every
+ * {@code votes.write-behind.flush-interval-ms} or {@code votes.write-behind.max-pending} votes.
+ * With {@code votes.write-behind.journal.enabled=true} votes are journaled first and replayed on startup.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.mode", havingValue = "write-behind")
+@Slf4j
+public class WriteBehindVoteWriter implements VoteWriter {
+
+    private record PendingVotes(Long pollId, LongAdder delta) {}
+
+    private final PollOptionRepository optionRepository;
+    private final VoteBatchWriter batchWriter;
+    private final TaskScheduler taskScheduler;
+
+    private final Map<Long, PendingVotes> pendingByOption = new ConcurrentHashMap<>();
+    private final LongAdder pendingTotal = new LongAdder();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Keeps a flush from taking the journal position between the append and the increment of a vote
+    private final ReentrantReadWriteLock journalLock = new ReentrantReadWriteLock();
+
+    @Value("${votes.write-behind.flush-interval-ms:250}")
+    private long flushIntervalMs;
+    @Value("${votes.write-behind.max-pending:1000}")
+    private long maxPending;
+    @Value("${votes.write-behind.journal.enabled:false}")
+    private boolean journalEnabled;
+    @Value("${votes.write-behind.journal.dir:vote-journal}")
+    private String journalDir;
+    @Value("${votes.write-behind.journal.segment-records:131072}")
+    private int journalSegmentRecords;
+    // batch | interval
+    @Value("${votes.write-behind.journal.fsync:interval}")
+    private String journalFsync;
+    @Value("${votes.write-behind.journal.fsync-interval-ms:100}")
+    private long journalFsyncIntervalMs;
+
+    private ScheduledFuture<?> scheduledFlush;
+    private ScheduledFuture<?> scheduledFsync;
+    private VoteJournal journal;
+    private boolean fsyncPerVote;
+
+    public WriteBehindVoteWriter(PollOptionRepository optionRepository, VoteBatchWriter batchWriter, TaskScheduler threadPollTaskScheduler) {
+        this.optionRepository = optionRepository;
+        this.batchWriter = batchWriter;
+        this.taskScheduler = threadPollTaskScheduler;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (journalEnabled) openJournal();
+        scheduledFlush = taskScheduler.scheduleAtFixedRate(this::flush, Duration.ofMillis(flushIntervalMs));
+    }
+
+    /**
+     * Replays the votes the journal holds past its checkpoint, then starts appending to it
+     */
+    private void openJournal() throws IOException {
+        journal = new VoteJournal(Path.of(journalDir), journalSegmentRecords);
+        long checkpoint = optionRepository.findJournalCheckpoint(journal.getId()).orElse(0L);
+
+        Map<Long, Long> deltas = new HashMap<>();
+        long end = journal.replay(checkpoint, (pollId, optionId, delta, epochMillis) -> deltas.merge(optionId, (long) delta, Long::sum));
+        if (!deltas.isEmpty()) {
+            batchWriter.applyJournaled(deltas, journal.getId(), end);
+            log.info("Replayed {} journaled votes up to position {}", end - checkpoint, end);
+        }
+
+        journal.start(end);
+        journal.release(journal.position());
+
+        // batch fsyncs before acknowledging each vote, concurrent votes share the fsync
+        fsyncPerVote = "batch".equals(journalFsync);
+        if (!fsyncPerVote) {
+            scheduledFsync = taskScheduler.scheduleWithFixedDelay(journal::force, Duration.ofMillis(journalFsyncIntervalMs));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (scheduledFsync != null) {
+            scheduledFsync.cancel(false);
+            scheduledFsync = null;
+        }
+        flush();
+        if (journal != null) journal.close();
+        log.info("Write-behind votes flushed on shutdown");
+    }
+
+    @Override
+    public Optional<PollOptionDTO> write(Long pollId, Long optionId) {
+        return optionRepository.findVotableOption(pollId, optionId)
+                .map(option -> register(List.of(option), Map.of(optionId, 1L)).getFirst());
+    }
+
+    /**
+     * Checks all the options with a single read before buffering any vote. Like with {@link #write}, votes buffered
+     * before the poll finished were already answered and are still applied by the flush.
+     */
+    @Override
+    public List<PollOptionDTO> writeAll(Long pollId, Map<Long, Long> votesByOption) {
+        if (votesByOption.isEmpty()) return List.of();
+
+        var options = optionRepository.findVotableOptions(pollId, votesByOption.keySet());
+        if (options.size() != votesByOption.size()) return List.of();
+        return register(options, votesByOption);
+    }
+
+    private List<PollOptionDTO> register(List<PollOptionVote> options, Map<Long, Long> votesByOption) {
+        var pending = journal == null ? buffer(options, votesByOption) : journalAndBuffer(options, votesByOption);
+
+        if (pendingTotal.sum() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+        return options.stream()
+                .map(option -> new PollOptionDTO(option.getId(), option.getDescription(),
+                        (int) (option.getVotes() + pending.get(option.getId()).delta().sum())))
+                .toList();
+    }
+
+    private Map<Long, PendingVotes> buffer(List<PollOptionVote> options, Map<Long, Long> votesByOption) {
+        Map<Long, PendingVotes> buffered = new HashMap<>();
+        for (PollOptionVote option : options) {
+            var pending = pendingByOption.computeIfAbsent(option.getId(),
+                    id -> new PendingVotes(option.getPollId(), new LongAdder()));
+            long votes = votesByOption.get(option.getId());
+            pending.delta().add(votes);
+            pendingTotal.add(votes);
+            buffered.put(option.getId(), pending);
+        }
+        return buffered;
+    }
+
+    private Map<Long, PendingVotes> journalAndBuffer(List<PollOptionVote> options, Map<Long, Long> votesByOption) {
+        Map<Long, PendingVotes> pending;
+        long position = 0;
+        journalLock.readLock().lock();
+        try {
+            for (PollOptionVote option : options) {
+                // Journal records hold an int delta
+                for (long left = votesByOption.get(option.getId()); left > 0; left -= Integer.MAX_VALUE) {
+                    position = journal.append(option.getPollId(), option.getId(), (int) Math.min(left, Integer.MAX_VALUE));
+                }
+            }
+            pending = buffer(options, votesByOption);
+        } finally {
+            journalLock.readLock().unlock();
+        }
+        if (fsyncPerVote) journal.force(position);
+        return pending;
+    }
+
+    /**
+     * Amount of votes registered for the option that are not yet on the database
+     */
+    public long pendingVotes(Long optionId) {
+        var pending = pendingByOption.get(optionId);
+        return pending == null ? 0 : pending.delta().sum();
+    }
+
+    @Override
+    public Map<Long, Long> unsettledVotes(Collection<Long> pollIds) {
+        Map<Long, Long> unsettled = new HashMap<>();
+        pendingByOption.forEach((optionId, pending) -> {
+            if (!pollIds.contains(pending.pollId())) return;
+            long delta = pending.delta().sum();
+            if (delta != 0) unsettled.put(optionId, delta);
+        });
+        return unsettled;
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+
+            Map<Long, Long> deltas = new HashMap<>();
+            long total = 0;
+            long journalPosition = 0;
+            if (journal != null) journalLock.writeLock().lock();
+            try {
+                for (var entry : pendingByOption.entrySet()) {
+                    long delta = entry.getValue().delta().sumThenReset();
+                    if (delta != 0) {
+                        deltas.put(entry.getKey(), delta);
+                        total += delta;
+                    }
+                }
+                if (journal != null) journalPosition = journal.position();
+            } finally {
+                if (journal != null) journalLock.writeLock().unlock();
+            }
+            if (deltas.isEmpty()) return;
+            pendingTotal.add(-total);
+
+            try {
+                if (journal == null) {
+                    batchWriter.apply(deltas);
+                } else {
+                    batchWriter.applyJournaled(deltas, journal.getId(), journalPosition);
+                }
+            } catch (RuntimeException e) {
+                // Put the votes back so the next flush retries them
+                log.error("Failed flushing {} buffered votes: {}", total, e.getMessage());
+                deltas.forEach((optionId, delta) -> pendingByOption.get(optionId).delta().add(delta));
+                pendingTotal.add(total);
+                return;
+            }
+
+            if (journal != null) {
+                try {
+                    journal.release(journalPosition);
+                } catch (UncheckedIOException e) {
+                    // The votes are committed, the segments are recycled on a later flush
+                    log.warn("Failed recycling vote journal segments: {}", e.getMessage());
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.andrelucs.realtimepolls.polls;
 
 import com.andrelucs.realtimepolls.data.model.Poll;
 import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,6 +14,8 @@ import java.util.Optional;
 public interface PollRepository extends JpaRepository<Poll, Long> {
     List<Poll> findAllByStatus(PollStatus status);
 
+    List<Poll> findAllByStatusAndType(PollStatus status, PollType type);
+
     @Query("""
     SELECT p
     FROM Poll p
@@ -6,10 +6,14 @@ import com.andrelucs.realtimepolls.data.dto.PollRequestDTO;
 import com.andrelucs.realtimepolls.data.model.Poll;
 import com.andrelucs.realtimepolls.data.model.PollOption;
 import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
 import com.andrelucs.realtimepolls.data.model.StatusToUpdate;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollCreationException;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollEditException;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollEntityException;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.voting.UniqueVoterCounter;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteWriter;
 import com.andrelucs.realtimepolls.polls.scheduler.StatusToUpdateRepository;
 import com.andrelucs.realtimepolls.websocket.data.PollStatusUpdateDTO;
 import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
@@ -18,6 +22,7 @@ import jakarta.validation.*;
 import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
@@ -31,42 +36,64 @@ public class PollService{
 
     private static final Logger log = LoggerFactory.getLogger(PollService.class);
     private final PollRepository repository;
+    private final PollOptionRepository optionRepository;
     private final StatusToUpdateRepository statusToUpdateRepository;
     private final ModelMapper modelMapper;
     private final ApplicationEventPublisher eventPublisher;
+    private final VoteWriter voteWriter;
+    // Only present when votes.unique-voters.enabled is set
+    private final UniqueVoterCounter uniqueVoterCounter;
 
 
     private final Validator validator;
     private final PollRepository pollRepository;
 
-    public PollService(PollRepository repository, StatusToUpdateRepository statusToUpdateRepository, ModelMapper modelMapper, ApplicationEventPublisher eventPublisher, PollRepository pollRepository) {
+    public PollService(PollRepository repository, PollOptionRepository optionRepository, StatusToUpdateRepository statusToUpdateRepository, ModelMapper modelMapper, ApplicationEventPublisher eventPublisher, PollRepository pollRepository, VoteWriter voteWriter,
+                       ObjectProvider<UniqueVoterCounter> uniqueVoterCounter) {
         this.repository = repository;
+        this.optionRepository = optionRepository;
         this.statusToUpdateRepository = statusToUpdateRepository;
         this.modelMapper = modelMapper;
         this.eventPublisher = eventPublisher;
         var validatorFactory = Validation.buildDefaultValidatorFactory();
         this.validator = validatorFactory.getValidator();
         this.pollRepository = pollRepository;
+        this.voteWriter = voteWriter;
+        this.uniqueVoterCounter = uniqueVoterCounter.getIfAvailable();
     }
 
     public List<PollDTO> findAll(){
-        return repository.findAll()
+        return withUnsettledVotes(repository.findAll()
                 .stream()
                 .map(this::convertToDTO)
-                .toList();
+                .toList());
     }
 
     public List<PollDTO> findByStatus(PollStatus status) {
-        return repository.findAllByStatus(status)
+        return withUnsettledVotes(repository.findAllByStatus(status)
                 .stream()
                 .map(this::convertToDTO)
-                .toList();
+                .toList());
     }
 
     @Transactional
     public Optional<PollDTO> findById(Long pollId) {
         return findPollEntity(pollId)
-                .map(this::convertToDTO);
+                .map(this::convertToDTO)
+                .map(poll -> withUnsettledVotes(List.of(poll)).getFirst())
+                .map(this::withUniqueVoters);
+    }
+
+    /**
+     * Read only {@link #findById} for the snapshots pushed to subscribers. The status is left as stored, its changes
+     * are broadcast on their own.
+     */
+    @Transactional
+    public Optional<PollDTO> findSnapshot(Long pollId) {
+        return repository.findById(pollId)
+                .map(this::convertToDTO)
+                .map(poll -> withUnsettledVotes(List.of(poll)).getFirst())
+                .map(this::withUniqueVoters);
     }
 
     @Transactional
@@ -82,6 +109,8 @@ public class PollService{
                 .question(poll.question())
                 .startDate(poll.startDate())
                 .endDate(poll.endDate())
+                .maxSelections(poll.maxSelections() != null ? poll.maxSelections() : 1)
+                .type(poll.type() != null ? poll.type() : PollType.CHOICE)
                 .build();
 
         for (var option : poll.options()) {
@@ -89,7 +118,7 @@ public class PollService{
         }
 
         try {
-            validatePollEntity(pollEntity);
+            validatePollEntity(pollEntity, pollEntity.getOptions().size());
         } catch (InvalidPollEntityException e) {
             throw new InvalidPollCreationException(e.getMessage());
         }
@@ -110,6 +139,8 @@ public class PollService{
     }
 
     public PollDTO editPoll(Long poll_id, PollEditRequestDTO newPollObject) throws InvalidPollEditException {
+        // Counted instead of loading the options, before the poll so the count doesn't flush it
+        long optionCount = optionRepository.countByPollId(poll_id);
         var poll = repository.findById(poll_id);
         // Validate poll existence
         if (poll.isEmpty()){
@@ -125,10 +156,11 @@ public class PollService{
         pollEntity.setQuestion((newPollObject.question() != null && !newPollObject.question().isBlank()) ? newPollObject.question() : pollEntity.getQuestion() );
         pollEntity.setStartDate((newPollObject.startDate() != null) ? newPollObject.startDate() : pollEntity.getStartDate());
         pollEntity.setEndDate((newPollObject.endDate() != null) ? newPollObject.endDate() : pollEntity.getEndDate());
+        pollEntity.setMaxSelections((newPollObject.maxSelections() != null) ? newPollObject.maxSelections() : pollEntity.getMaxSelections());
 
         // Validate entity
         try {
-            validatePollEntity(pollEntity);
+            validatePollEntity(pollEntity, optionCount);
         } catch (InvalidPollEntityException e) {
             throw new InvalidPollEditException(e.getMessage());
         }
@@ -141,6 +173,28 @@ public class PollService{
         return modelMapper.map(poll, PollDTO.class);
     }
 
+    /**
+     * Adds the votes the active {@link VoteWriter} holds outside poll_option.votes
+     */
+    private List<PollDTO> withUnsettledVotes(List<PollDTO> polls) {
+        if (polls.isEmpty()) return polls;
+
+        var unsettled = voteWriter.unsettledVotes(polls.stream().map(PollDTO::getId).toList());
+        if (unsettled.isEmpty()) return polls;
+
+        for (PollDTO poll : polls) {
+            if (poll.getOptions() == null) continue;
+            poll.getOptions().forEach(option ->
+                    option.setVotes(option.getVotes() + unsettled.getOrDefault(option.getId(), 0L).intValue()));
+        }
+        return polls;
+    }
+
+    private PollDTO withUniqueVoters(PollDTO poll) {
+        if (uniqueVoterCounter != null) poll.setUniqueVoters(uniqueVoterCounter.estimate(poll.getId()));
+        return poll;
+    }
+
     private Poll convertToPoll(PollDTO pollDTO) {
         return modelMapper.map(pollDTO, Poll.class);
     }
@@ -151,7 +205,7 @@ public class PollService{
 //        repository.recalculateAllStatuses();
 //    }
 
-    private void validatePollEntity(Poll pollEntity) throws InvalidPollEntityException {
+    private void validatePollEntity(Poll pollEntity, long optionCount) throws InvalidPollEntityException {
 
         StringBuilder violationMessage = new StringBuilder();
         AtomicInteger i = new AtomicInteger();
@@ -161,6 +215,11 @@ public class PollService{
             violationMessage.append("The poll start date cannot be after the end date");
         }
 
+        if (pollEntity.getMaxSelections() != null && pollEntity.getMaxSelections() > optionCount) {
+            violationMessage.append("%d: ".formatted(i.getAndIncrement()));
+            violationMessage.append("A poll cannot allow more selections than it has options");
+        }
+
         var violations = validator.validate(pollEntity);
 
         if (!violations.isEmpty()){
@@ -0,0 +1,181 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent counts keyed by poll id, kept in open addressing arrays of primitive longs and ints instead of boxed map
+ * entries. Keys are spread over stripes that each have their own lock, writers take it while readers don't: they read
+ * optimistically and only lock when a writer changed the stripe meanwhile. Counts dropping to 0 are removed and the
+ * arrays shrink back, so the memory follows the polls that currently have a count.
+ */
+public class PollCounterMap {
+
+    private static final int STRIPES = 16;
+    private static final int MIN_CAPACITY = 8;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public PollCounterMap() {
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    /**
+     * @return the count of the poll, 0 when it has none
+     */
+    public int get(long pollId) {
+        long hash = hash(pollId);
+        return stripes[stripeOf(hash)].get(pollId, hash);
+    }
+
+    /**
+     * Adds the delta to the count of the poll, a count reaching 0 or less is removed
+     * @return the new count
+     */
+    public int add(long pollId, int delta) {
+        long hash = hash(pollId);
+        return stripes[stripeOf(hash)].add(pollId, hash, delta);
+    }
+
+    /**
+     * @return the amount of polls with a count
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) size += stripe.size();
+        return size;
+    }
+
+    private static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static int stripeOf(long hash) {
+        return (int) (hash >>> 60) & (STRIPES - 1);
+    }
+
+    private static int slotOf(long hash, int mask) {
+        return (int) hash & mask;
+    }
+
+    // Keys and counts are swapped together on resize, so a reader never pairs arrays of different sizes
+    private record Table(long[] keys, int[] counts) {
+        Table(int capacity) {
+            this(new long[capacity], new int[capacity]);
+        }
+    }
+
+    /**
+     * Linear probing table, a slot is free when its count is 0
+     */
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(MIN_CAPACITY);
+        private int size;
+
+        int get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            int count = find(table, key, hash);
+            if (lock.validate(stamp)) return count;
+
+            stamp = lock.readLock();
+            try {
+                return find(table, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.tryOptimisticRead();
+            int current = size;
+            if (lock.validate(stamp)) return current;
+
+            stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // An optimistic reader may see a table a writer is changing, the probes are bounded so it still returns
+        private static int find(Table table, long key, long hash) {
+            long[] keys = table.keys();
+            int[] counts = table.counts();
+            int mask = keys.length - 1;
+            int slot = slotOf(hash, mask);
+            for (int probes = 0; probes < keys.length; probes++) {
+                if (counts[slot] == 0) return 0;
+                if (keys[slot] == key) return counts[slot];
+                slot = (slot + 1) & mask;
+            }
+            return 0;
+        }
+
+        int add(long key, long hash, int delta) {
+            long stamp = lock.writeLock();
+            try {
+                long[] keys = table.keys();
+                int[] counts = table.counts();
+                int mask = keys.length - 1;
+                int slot = slotOf(hash, mask);
+                while (counts[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+
+                if (counts[slot] == 0) {
+                    if (delta <= 0) return 0;
+                    keys[slot] = key;
+                    counts[slot] = delta;
+                    // At most half full, so probes stay short and a free slot always ends them
+                    if (++size * 2 > keys.length) resize(keys.length * 2);
+                    return delta;
+                }
+
+                int count = counts[slot] + delta;
+                if (count > 0) {
+                    counts[slot] = count;
+                    return count;
+                }
+                remove(keys, counts, slot);
+                if (--size * 8 < keys.length && keys.length > MIN_CAPACITY) resize(keys.length / 2);
+                return 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        // Shifts back the entries probing past the slot, so lookups never stop early at the hole
+        private static void remove(long[] keys, int[] counts, int slot) {
+            int mask = keys.length - 1;
+            int hole = slot;
+            int next = slot;
+            while (true) {
+                next = (next + 1) & mask;
+                if (counts[next] == 0) break;
+                int home = slotOf(hash(keys[next]), mask);
+                boolean reachable = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+                if (reachable) continue;
+                keys[hole] = keys[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            keys[hole] = 0;
+            counts[hole] = 0;
+        }
+
+        private void resize(int capacity) {
+            var resized = new Table(capacity);
+            int mask = capacity - 1;
+            long[] keys = table.keys();
+            int[] counts = table.counts();
+            for (int i = 0; i < keys.length; i++) {
+                if (counts[i] == 0) continue;
+                int slot = slotOf(hash(keys[i]), mask);
+                while (resized.counts()[slot] != 0) slot = (slot + 1) & mask;
+                resized.keys()[slot] = keys[i];
+                resized.counts()[slot] = counts[i];
+            }
+            table = resized;
+        }
+    }
+}
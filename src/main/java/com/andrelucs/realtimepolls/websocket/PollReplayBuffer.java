@@ -0,0 +1,202 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Sequence numbers and the latest frames of each poll, so a client coming back can get only the frames it missed.
+ * Every frame of a poll, on any of its topics, takes the next number of the poll. Each poll keeps at most
+ * {@code capacity} frames and {@code maxBytes} of their JSON, the oldest frames are dropped first, and everything of
+ * a poll is dropped once it's {@link #forget forgotten}.
+ */
+public class PollReplayBuffer {
+
+    public record Frame(long sequence, String destination, byte[] json) {}
+
+    private final int capacity;
+    private final long maxBytes;
+    private final Map<Long, PollFrames> polls = new ConcurrentHashMap<>();
+
+    public PollReplayBuffer(int capacity, long maxBytes) {
+        this.capacity = Math.max(1, capacity);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Numbers the frame and keeps it. The poll is locked until send returns, so frames reach the broker in order and
+     * never while the poll is being replayed.
+     * @param send sends the frame with the given sequence
+     * @return the sequence of the frame
+     */
+    public long append(long pollId, String destination, byte[] json, LongConsumer send) {
+        var frames = polls.computeIfAbsent(pollId, id -> new PollFrames());
+        frames.lock.lock();
+        try {
+            var frame = new Frame(++frames.lastSequence, destination, json);
+            frames.add(frame, capacity, maxBytes);
+            send.accept(frame.sequence());
+            return frame.sequence();
+        } finally {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * Records that a frame of the poll wasn't sent, nobody was subscribed to it. Its number is taken and the kept
+     * frames dropped, clients asking for anything before it can only get a snapshot.
+     */
+    public void skip(long pollId) {
+        var frames = polls.get(pollId);
+        if (frames == null) return;
+        frames.lock.lock();
+        try {
+            frames.lastSequence++;
+            frames.clear();
+        } finally {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the frames to the destination numbered after the given sequence up to the other one, oldest first, with
+     * the poll locked
+     * @return false when some of those frames are gone or the sequence is unknown, nothing is sent then
+     */
+    public boolean replay(long pollId, String destination, long afterSequence, long upToSequence, Consumer<Frame> send) {
+        var frames = polls.get(pollId);
+        if (frames == null) return false;
+        frames.lock.lock();
+        try {
+            if (afterSequence > upToSequence || upToSequence > frames.lastSequence) return false;
+            if (afterSequence < upToSequence && !frames.holdsAfter(afterSequence)) return false;
+            for (Frame frame : frames.frames) {
+                if (frame.sequence() > upToSequence) break;
+                if (frame.sequence() > afterSequence && frame.destination().equals(destination)) send.accept(frame);
+            }
+            return true;
+        } finally {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * Locks the poll until the hold is released, frames appended meanwhile wait for it. Lets a subscription be
+     * registered and then replayed up to the sequence of the hold without a frame slipping in between.
+     * @return null when the poll has no frames, there's nothing to replay. Only {@link #append} keeps a poll.
+     */
+    public Hold hold(long pollId) {
+        var frames = polls.get(pollId);
+        if (frames == null) return null;
+        frames.lock.lock();
+        return new Hold(frames, frames.lastSequence);
+    }
+
+    public static final class Hold {
+        private final PollFrames frames;
+        private final long sequence;
+
+        private Hold(PollFrames frames, long sequence) {
+            this.frames = frames;
+            this.sequence = sequence;
+        }
+
+        /**
+         * @return the sequence of the last frame of the poll when it was locked
+         */
+        public long sequence() {
+            return sequence;
+        }
+
+        // Must run on the thread that took the hold
+        public void release() {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the sequence of the last frame of the poll, 0 when it has none
+     */
+    public long lastSequence(long pollId) {
+        var frames = polls.get(pollId);
+        if (frames == null) return 0;
+        frames.lock.lock();
+        try {
+            return frames.lastSequence;
+        } finally {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of frames kept for the poll
+     */
+    public int size(long pollId) {
+        var frames = polls.get(pollId);
+        if (frames == null) return 0;
+        frames.lock.lock();
+        try {
+            return frames.frames.size();
+        } finally {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the bytes of JSON kept for the poll
+     */
+    public long bytes(long pollId) {
+        var frames = polls.get(pollId);
+        if (frames == null) return 0;
+        frames.lock.lock();
+        try {
+            return frames.bytes;
+        } finally {
+            frames.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the amount of polls with frames kept
+     */
+    public int polls() {
+        return polls.size();
+    }
+
+    public void forget(long pollId) {
+        polls.remove(pollId);
+    }
+
+    /**
+     * Frames of a poll, guarded by its own lock
+     */
+    private static class PollFrames {
+        // Not a monitor, holds span the handling of a SUBSCRIBE frame
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        private long lastSequence;
+        private long bytes;
+
+        void add(Frame frame, int capacity, long maxBytes) {
+            frames.addLast(frame);
+            bytes += frame.json().length;
+            // The newest frame stays even when it's bigger than maxBytes alone
+            while (frames.size() > capacity || (bytes > maxBytes && frames.size() > 1)) {
+                bytes -= frames.removeFirst().json().length;
+            }
+        }
+
+        void clear() {
+            frames.clear();
+            bytes = 0;
+        }
+
+        // Sequences are consecutive, the frame right after the given one must still be kept
+        boolean holdsAfter(long sequence) {
+            return !frames.isEmpty() && frames.peekFirst().sequence() <= sequence + 1;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.InterceptableChannel;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets a client that lost its connection subscribe again to a poll topic with the last sequence it got in the
+ * {@value #LAST_SEQUENCE_HEADER} header, and get only the broadcasts it missed. When some of them aren't kept anymore
+ * it gets a snapshot of the poll instead. The poll is locked from before the broker registers the subscription until
+ * the replay is sent, so every broadcast either comes after the lock and reaches the subscription, or before it and is
+ * replayed, never both.
+ */
+@Component
+public class PollResume implements ExecutorChannelInterceptor {
+
+    public static final String LAST_SEQUENCE_HEADER = "last-seq";
+
+    private final TopicPublisher publisher;
+    // Present unless votes.snapshot.enabled is false
+    private final PollSnapshots snapshots;
+    private final InterceptableChannel clientInboundChannel;
+
+    // Taken in beforeHandle and released in afterMessageHandled, both run on the thread handling the frame
+    private final ThreadLocal<PollReplayBuffer.Hold> hold = new ThreadLocal<>();
+
+    public PollResume(TopicPublisher publisher, ObjectProvider<PollSnapshots> snapshots,
+                      @Qualifier("clientInboundChannel") InterceptableChannel clientInboundChannel) {
+        this.publisher = publisher;
+        this.snapshots = snapshots.getIfAvailable();
+        this.clientInboundChannel = clientInboundChannel;
+    }
+
+    @PostConstruct
+    public void start() {
+        clientInboundChannel.addInterceptor(this);
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (!(handler instanceof SimpleBrokerMessageHandler)) return message;
+        var resume = Resume.of(message);
+        // No hold for a poll that broadcast nothing yet, the client gets a snapshot
+        if (resume != null && resume.afterSequence() >= 0) hold.set(publisher.hold(resume.pollId()));
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (!(handler instanceof SimpleBrokerMessageHandler)) return;
+        var held = hold.get();
+        hold.remove();
+        try {
+            var resume = Resume.of(message);
+            if (ex != null || resume == null) return;
+            if (held != null && publisher.replay(resume.pollId(), resume.sessionId(), resume.subscriptionId(),
+                    resume.destination(), resume.afterSequence(), held.sequence())) {
+                return;
+            }
+            if (snapshots != null) snapshots.send(resume.pollId(), resume.sessionId(), resume.subscriptionId(), resume.destination());
+        } finally {
+            if (held != null) held.release();
+        }
+    }
+
+    /**
+     * @param afterSequence -1 when the header isn't a sequence we ever sent
+     */
+    private record Resume(long pollId, long afterSequence, String sessionId, String subscriptionId, String destination) {
+
+        // Null unless it's a subscription to a poll topic asking to resume
+        static Resume of(Message<?> message) {
+            var headers = SimpMessageHeaderAccessor.wrap(message);
+            if (headers.getMessageType() != SimpMessageType.SUBSCRIBE) return null;
+
+            String lastSequence = headers.getFirstNativeHeader(LAST_SEQUENCE_HEADER);
+            var subscription = PollSubscriptionRegistry.parse(headers.getDestination());
+            String sessionId = headers.getSessionId();
+            String subscriptionId = headers.getSubscriptionId();
+            if (lastSequence == null || subscription == null || sessionId == null || subscriptionId == null) return null;
+
+            long afterSequence;
+            try {
+                afterSequence = Long.parseLong(lastSequence.trim());
+            } catch (NumberFormatException e) {
+                // Not a sequence we ever sent, same as one that's too old
+                afterSequence = -1;
+            }
+            return new Resume(subscription.pollId(), afterSequence, sessionId, subscriptionId, headers.getDestination());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import com.andrelucs.realtimepolls.polls.PollService;
+import com.andrelucs.realtimepolls.websocket.PollSubscriptionRegistry.PollTopic;
+import com.andrelucs.realtimepolls.websocket.data.PollSnapshotDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes a {@link PollSnapshotDTO} to every session right after it subscribes to the votes topic of a poll, so clients
+ * don't have to GET the poll before following its votes. A poll is read at most once every
+ * {@code votes.snapshot.refresh-ms} and encoded once, every subscriber in that window gets the same bytes, so a crowd
+ * subscribing at once costs a single read. Reads run on their own threads, never on the thread handling the frame.
+ * Each snapshot carries the sequence of the poll from before its read, so the client can resume from it. Subscriptions
+ * asking to resume are left to {@link PollResume}, which only falls back to a snapshot when the gap can't be replayed.
+ */
+@Component
+@ConditionalOnProperty(name = "votes.snapshot.enabled", havingValue = "true", matchIfMissing = true)
+public class PollSnapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(PollSnapshots.class);
+    private final PollService pollService;
+    private final TopicPublisher publisher;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${votes.snapshot.refresh-ms:250}")
+    private long refreshMs;
+    @Value("${votes.snapshot.read-threads:4}")
+    private int readThreads;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Only polls subscribed to within the last refresh, older snapshots would be read again anyway
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> scheduledEviction;
+    private ExecutorService readExecutor;
+
+    public PollSnapshots(PollService pollService, TopicPublisher publisher, TaskScheduler threadPollTaskScheduler) {
+        this.pollService = pollService;
+        this.publisher = publisher;
+        this.taskScheduler = threadPollTaskScheduler;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Reads wait on the database, they'd hold back the other tasks of the shared scheduler
+        readExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("poll-snapshot-read-", 1).factory())
+                : Executors.newFixedThreadPool(readThreads, Thread.ofPlatform().name("poll-snapshot-read-", 1).daemon().factory());
+        scheduledEviction = taskScheduler.scheduleAtFixedRate(this::evictStale, Duration.ofMillis(Math.max(refreshMs, 1000)));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduledEviction != null) {
+            scheduledEviction.cancel(false);
+            scheduledEviction = null;
+        }
+        readExecutor.shutdown();
+        if (!readExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            readExecutor.shutdownNow();
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        var headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        var subscription = PollSubscriptionRegistry.parse(headers.getDestination());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (subscription == null || subscription.topic() != PollTopic.VOTES || sessionId == null || subscriptionId == null) return;
+        if (headers.getFirstNativeHeader(PollResume.LAST_SEQUENCE_HEADER) != null) return;
+
+        send(subscription.pollId(), sessionId, subscriptionId, headers.getDestination());
+    }
+
+    /**
+     * Sends the snapshot of the poll to one subscription once it's read, nothing when the poll doesn't exist
+     */
+    public void send(long pollId, String sessionId, String subscriptionId, String destination) {
+        snapshot(pollId).thenAccept(result -> result.ifPresent(read ->
+                publisher.sendToSubscription(sessionId, subscriptionId, destination, read.json(), read.sequence())));
+    }
+
+    /**
+     * @return the encoded snapshot of the poll with its sequence, empty when the poll doesn't exist. Completes at once
+     * when the last read is recent enough, otherwise along with the read, which concurrent callers share.
+     */
+    public CompletableFuture<Optional<Read>> snapshot(long pollId) {
+        long now = System.nanoTime();
+        var current = snapshots.get(pollId);
+        if (current != null && current.isFresh(now, refreshMs)) return current.result();
+
+        var reading = new Snapshot(new CompletableFuture<>(), now);
+        var snapshot = snapshots.compute(pollId, (id, existing) -> existing != null && existing.isFresh(now, refreshMs) ? existing : reading);
+        if (snapshot == reading) readExecutor.execute(() -> read(pollId, reading.result()));
+        return snapshot.result();
+    }
+
+    /**
+     * @param sequence last sequence of the poll before the read, broadcasts after it may or may not be counted
+     */
+    public record Read(byte[] json, long sequence) {}
+
+    private void read(long pollId, CompletableFuture<Optional<Read>> result) {
+        try {
+            long sequence = publisher.lastSequence(pollId);
+            var snapshot = pollService.findSnapshot(pollId).map(poll -> PollSnapshotDTO.builder()
+                    .pollId(pollId)
+                    .snapshot(poll)
+                    .timestamp(LocalDateTime.now())
+                    .build());
+            result.complete(snapshot.map(payload -> new Read(publisher.toJson(publisher.votesTopic(pollId), payload), sequence)));
+        } catch (RuntimeException e) {
+            // Subscribers still get the vote messages, the next subscriber after the refresh reads it again
+            log.warn("Could not read the snapshot of poll {}", pollId, e);
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void evictStale() {
+        long now = System.nanoTime();
+        snapshots.values().removeIf(snapshot -> !snapshot.isFresh(now, refreshMs));
+    }
+
+    /**
+     * @param result completed once the read finishes
+     * @param readAt {@link System#nanoTime} when the read started
+     */
+    private record Snapshot(CompletableFuture<Optional<Read>> result, long readAt) {
+
+        // A read still running counts as fresh, so a slow database doesn't get more reads piled on it
+        boolean isFresh(long now, long refreshMs) {
+            return !result.isDone() || now - readAt < TimeUnit.MILLISECONDS.toNanos(refreshMs);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live STOMP subscriptions to the topics of each poll, kept from the subscribe, unsubscribe and disconnect events of
+ * the sessions. Publishers ask it before building a message, most polls have nobody watching at any moment.
+ */
+@Component
+public class PollSubscriptionRegistry {
+
+    private static final String TOPIC_PREFIX = "/topic/poll.";
+
+    public enum PollTopic {
+        VOTES(".votes"), STATUS(".status");
+
+        private final String suffix;
+
+        PollTopic(String suffix) {
+            this.suffix = suffix;
+        }
+    }
+
+    record Subscription(long pollId, PollTopic topic) {}
+
+    // Subscriptions of each session by subscription id, unsubscribe frames only carry the id
+    private final Map<String, Map<String, Subscription>> sessions = new ConcurrentHashMap<>();
+    private final PollCounterMap votesSubscribers = new PollCounterMap();
+    private final PollCounterMap statusSubscribers = new PollCounterMap();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        var headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        var subscription = parse(headers.getDestination());
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (subscription == null || sessionId == null || subscriptionId == null) return;
+
+        var previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, subscription);
+        // A subscription id reused without unsubscribing replaces the old subscription
+        if (previous != null) count(previous, -1);
+        count(subscription, 1);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        remove(event.getMessage());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        var subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) subscriptions.values().forEach(subscription -> count(subscription, -1));
+    }
+
+    public int subscribers(long pollId, PollTopic topic) {
+        return countsOf(topic).get(pollId);
+    }
+
+    public boolean hasSubscribers(long pollId, PollTopic topic) {
+        return subscribers(pollId, topic) > 0;
+    }
+
+    /**
+     * @return how many polls have at least one subscriber on the topic
+     */
+    public int watchedPolls(PollTopic topic) {
+        return countsOf(topic).size();
+    }
+
+    private void remove(Message<byte[]> message) {
+        var headers = SimpMessageHeaderAccessor.wrap(message);
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        if (sessionId == null || subscriptionId == null) return;
+
+        var subscriptions = sessions.get(sessionId);
+        var removed = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (removed != null) count(removed, -1);
+    }
+
+    private void count(Subscription subscription, int delta) {
+        countsOf(subscription.topic()).add(subscription.pollId(), delta);
+    }
+
+    private PollCounterMap countsOf(PollTopic topic) {
+        return topic == PollTopic.VOTES ? votesSubscribers : statusSubscribers;
+    }
+
+    // /topic/poll.{pollId}.votes or /topic/poll.{pollId}.status, null for any other destination
+    static Subscription parse(String destination) {
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) return null;
+        for (PollTopic topic : PollTopic.values()) {
+            if (!destination.endsWith(topic.suffix)) continue;
+            try {
+                long pollId = Long.parseLong(destination, TOPIC_PREFIX.length(), destination.length() - topic.suffix.length(), 10);
+                return new Subscription(pollId, topic);
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
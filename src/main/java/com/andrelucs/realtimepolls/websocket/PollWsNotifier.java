@@ -1,42 +1,120 @@
 package com.andrelucs.realtimepolls.websocket;
 
-import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polloptions.voting.UniqueVoterCounter;
+import com.andrelucs.realtimepolls.websocket.PollSubscriptionRegistry.PollTopic;
 import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
+import com.andrelucs.realtimepolls.websocket.data.PollVotesTickDTO;
 import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
 import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import com.andrelucs.realtimepolls.websocket.events.RankedStandingsEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes poll changes on the STOMP topics. With {@code votes.broadcast.mode=coalesced} votes aren't sent one by one:
+ * they're summed per poll and each poll that got votes gets one {@link PollVotesTickDTO} every
+ * {@code votes.broadcast.tick-ms}, so the broker load follows the amount of active polls instead of the vote rate.
+ * Everything sent comes from the events and memory, broadcasting never touches the database, and each message is
+ * encoded once by the {@link TopicPublisher} whatever the amount of subscribers. Polls nobody subscribed to, according
+ * to the {@link PollSubscriptionRegistry}, are skipped before any message is built, and their replay buffer dropped.
+ */
 @Component
 public class PollWsNotifier {
 
     private static final Logger log = LoggerFactory.getLogger(PollWsNotifier.class);
-    private final SimpMessagingTemplate template;
-    private final PollOptionRepository optionRepository;
+    private final TopicPublisher publisher;
+    private final PollSubscriptionRegistry subscriptions;
+    // Only present when votes.unique-voters.enabled is set
+    private final UniqueVoterCounter uniqueVoterCounter;
+
+    // immediate | coalesced
+    @Value("${votes.broadcast.mode:immediate}")
+    private String broadcastMode;
+    @Value("${votes.broadcast.tick-ms:100}")
+    private long tickMs;
+
+    // Only polls voted since the last tick, an idle poll costs nothing to the tick
+    private final Map<Long, PendingVotes> pendingVotes = new ConcurrentHashMap<>();
+    private ScheduledExecutorService tickExecutor;
+
+    public PollWsNotifier(TopicPublisher publisher, PollSubscriptionRegistry subscriptions,
+                          ObjectProvider<UniqueVoterCounter> uniqueVoterCounter) {
+        this.publisher = publisher;
+        this.subscriptions = subscriptions;
+        this.uniqueVoterCounter = uniqueVoterCounter.getIfAvailable();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!coalesced()) return;
+        // Never queued behind the flushes and reads of the shared scheduler, a late tick delays every poll
+        tickExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("votes-broadcast-tick").daemon().factory());
+        tickExecutor.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
 
-    public PollWsNotifier(SimpMessagingTemplate template, PollOptionRepository optionRepository) {
-        this.template = template;
-        this.optionRepository = optionRepository;
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (tickExecutor == null) return;
+        tickExecutor.shutdown();
+        if (!tickExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            tickExecutor.shutdownNow();
+        }
+        tick();
     }
 
-    // /topic/poll.{pollId}.votes
+    // /topic/poll.{pollId}.votes, one message per option, or one per poll and tick when coalesced
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
     public void onPollOptionVote(PollVoteEvent voteEvent){
-        var optionId = voteEvent.getData().getOptionId();
-        var option = optionRepository.getReferenceById(optionId);
-        var data = voteEvent.getData();
-        PollOptionVoteDTO dto = PollOptionVoteDTO.builder()
-                .pollId(data.getPollId())
-                .optionId(optionId)
-                .votes((long) option.getVotes())
-                .delta(data.getDelta())
-                .timestamp(data.getTimestamp())
-                .build();
-        template.convertAndSend("/topic/poll.%d.votes".formatted(data.getPollId()), dto);
+        if (coalesced()) {
+            for (PollOptionVoteDTO data : voteEvent.getData()) {
+                if (!watched(data.getPollId(), PollTopic.VOTES)) continue;
+                // Merged under the map's lock, so a tick takes either all of a vote or none of it
+                pendingVotes.compute(data.getPollId(), (pollId, pending) -> {
+                    if (pending == null) pending = new PendingVotes();
+                    pending.add(data);
+                    return pending;
+                });
+            }
+            return;
+        }
+
+        for (PollOptionVoteDTO data : voteEvent.getData()) {
+            if (!watched(data.getPollId(), PollTopic.VOTES)) continue;
+            PollOptionVoteDTO dto = PollOptionVoteDTO.builder()
+                    .pollId(data.getPollId())
+                    .optionId(data.getOptionId())
+                    .votes(data.getVotes())
+                    .delta(data.getDelta())
+                    .timestamp(data.getTimestamp())
+                    .uniqueVoters(uniqueVotersOf(data.getPollId()))
+                    .build();
+            publisher.publish(data.getPollId(), publisher.votesTopic(data.getPollId()), dto);
+        }
+    }
+
+    // /topic/poll.{pollId}.votes, ranked polls send their round standings instead of option counts
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRankedStandings(RankedStandingsEvent standingsEvent){
+        var standings = standingsEvent.getData();
+        if (!watched(standings.getPollId(), PollTopic.VOTES)) return;
+        publisher.publish(standings.getPollId(), publisher.votesTopic(standings.getPollId()), standings);
     }
 
     // /topic/poll.{pollId}.status
@@ -44,8 +122,88 @@ public class PollWsNotifier {
     public void onPollStatusEvent(PollStatusEvent statusEvent){
 
         var payload = statusEvent.getData();
-        String topicUrl = "/topic/poll.%d.status".formatted(payload.getPollId());
-        template.convertAndSend(topicUrl, payload);
+        if (watched(payload.getPollId(), PollTopic.STATUS)) {
+            publisher.publish(payload.getPollId(), publisher.statusTopic(payload.getPollId()), payload);
+        }
+        if (payload.getToStatus() == PollStatus.FINISHED) publisher.forget(payload.getPollId());
     }
 
+    /**
+     * Sends one message for each poll voted since the last tick
+     */
+    public void tick() {
+        for (Long pollId : pendingVotes.keySet()) {
+            var pending = pendingVotes.remove(pollId);
+            // Subscribers may all have left since the votes came in
+            if (pending == null || !watched(pollId, PollTopic.VOTES)) continue;
+            try {
+                publisher.publish(pollId, publisher.votesTopic(pollId), toMessage(pollId, pending));
+            } catch (RuntimeException e) {
+                // Counts are absolute, the next message for the poll makes up for the lost one
+                log.warn("Could not broadcast the votes of poll {}", pollId, e);
+            }
+        }
+    }
+
+    // A poll skipped for lack of subscribers still takes a sequence, resuming past it needs a snapshot
+    private boolean watched(long pollId, PollTopic topic) {
+        if (subscriptions.hasSubscribers(pollId, topic)) return true;
+        publisher.skip(pollId);
+        return false;
+    }
+
+    private PollVotesTickDTO toMessage(Long pollId, PendingVotes pending) {
+        var options = new ArrayList<PollOptionVoteDTO>(pending.options.size());
+        long delta = 0;
+        for (PollOptionVoteDTO option : pending.options.values()) {
+            options.add(option);
+            delta += option.getDelta();
+        }
+        return PollVotesTickDTO.builder()
+                .pollId(pollId)
+                .options(options)
+                .delta(delta)
+                .timestamp(pending.timestamp)
+                .uniqueVoters(uniqueVotersOf(pollId))
+                .build();
+    }
+
+    // Null when this node doesn't count the voters of the poll, rather than reading its sketch back
+    private Long uniqueVotersOf(Long pollId) {
+        return uniqueVoterCounter != null ? uniqueVoterCounter.trackedEstimate(pollId) : null;
+    }
+
+    private boolean coalesced() {
+        return "coalesced".equalsIgnoreCase(broadcastMode);
+    }
+
+    /**
+     * Votes of a poll since the last tick, guarded by the lock of its entry in {@link #pendingVotes}
+     */
+    private static class PendingVotes {
+        private final Map<Long, PollOptionVoteDTO> options = new LinkedHashMap<>();
+        private LocalDateTime timestamp;
+
+        void add(PollOptionVoteDTO vote) {
+            options.merge(vote.getOptionId(), copyOf(vote), (current, added) -> PollOptionVoteDTO.builder()
+                    .pollId(current.getPollId())
+                    .optionId(current.getOptionId())
+                    // Commits may land out of order, counts only grow so the highest one is the latest
+                    .votes(Math.max(current.getVotes(), added.getVotes()))
+                    .delta(current.getDelta() + added.getDelta())
+                    .timestamp(added.getTimestamp())
+                    .build());
+            timestamp = vote.getTimestamp();
+        }
+    }
+
+    private static PollOptionVoteDTO copyOf(PollOptionVoteDTO vote) {
+        return PollOptionVoteDTO.builder()
+                .pollId(vote.getPollId())
+                .optionId(vote.getOptionId())
+                .votes(vote.getVotes())
+                .delta(vote.getDelta())
+                .timestamp(vote.getTimestamp())
+                .build();
+    }
 }
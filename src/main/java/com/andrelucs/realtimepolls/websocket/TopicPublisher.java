@@ -0,0 +1,144 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends poll broadcasts as JSON encoded once into a byte array, which the broker hands as is to every subscribed
+ * session. Unlike {@link SimpMessagingTemplate#convertAndSend} it skips the message converter lookup and the copy of
+ * the headers, and the topic names of a poll are only formatted once, until the poll finishes. Frames meant for a single
+ * subscription go to the client outbound channel directly, the broker would send them to every subscriber.
+ * <p>
+ * Every broadcast of a poll carries the next sequence number of the poll in the {@value #SEQUENCE_HEADER} header and
+ * is kept in the {@link PollReplayBuffer}, so a subscription can ask for what it missed since a sequence.
+ */
+@Component
+public class TopicPublisher {
+
+    public static final String SEQUENCE_HEADER = "seq";
+
+    private final SimpMessagingTemplate template;
+    // Same mapper the STOMP message converter uses, so the JSON doesn't change
+    private final ObjectMapper objectMapper;
+    private final MessageChannel clientOutboundChannel;
+    private final PollReplayBuffer replayBuffer;
+
+    private final Map<Long, String> votesTopics = new ConcurrentHashMap<>();
+    private final Map<Long, String> statusTopics = new ConcurrentHashMap<>();
+
+    public TopicPublisher(SimpMessagingTemplate template, ObjectMapper objectMapper,
+                          @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel, PollReplayBuffer replayBuffer) {
+        this.template = template;
+        this.objectMapper = objectMapper;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.replayBuffer = replayBuffer;
+    }
+
+    // /topic/poll.{pollId}.votes
+    public String votesTopic(long pollId) {
+        return votesTopics.computeIfAbsent(pollId, id -> "/topic/poll.%d.votes".formatted(id));
+    }
+
+    // /topic/poll.{pollId}.status
+    public String statusTopic(long pollId) {
+        return statusTopics.computeIfAbsent(pollId, id -> "/topic/poll.%d.status".formatted(id));
+    }
+
+    /**
+     * Drops the cached topic names and the kept frames of a poll that won't be broadcast anymore
+     */
+    public void forget(long pollId) {
+        votesTopics.remove(pollId);
+        statusTopics.remove(pollId);
+        replayBuffer.forget(pollId);
+    }
+
+    /**
+     * @return the sequence of the broadcast
+     */
+    public long publish(long pollId, String destination, Object payload) {
+        byte[] json = toJson(destination, payload);
+        return replayBuffer.append(pollId, destination, json, sequence -> template.send(destination, encode(destination, json, sequence)));
+    }
+
+    /**
+     * Takes the sequence of a broadcast of the poll that nobody was subscribed to, see {@link PollReplayBuffer#skip}
+     */
+    public void skip(long pollId) {
+        replayBuffer.skip(pollId);
+    }
+
+    /**
+     * @return the sequence of the last broadcast of the poll, 0 when there was none
+     */
+    public long lastSequence(long pollId) {
+        return replayBuffer.lastSequence(pollId);
+    }
+
+    /**
+     * Locks the broadcasts of the poll until the hold is released
+     * @return null when nothing was broadcast to the poll yet
+     */
+    public PollReplayBuffer.Hold hold(long pollId) {
+        return replayBuffer.hold(pollId);
+    }
+
+    /**
+     * Sends one subscription the broadcasts to its destination after the given sequence up to the other one
+     * @return false when they can't all be sent anymore, nothing is sent then
+     */
+    public boolean replay(long pollId, String sessionId, String subscriptionId, String destination, long afterSequence,
+                          long upToSequence) {
+        return replayBuffer.replay(pollId, destination, afterSequence, upToSequence, frame ->
+                sendToSubscription(sessionId, subscriptionId, destination, frame.json(), frame.sequence()));
+    }
+
+    /**
+     * Sends JSON to one subscription of a session, the bytes can be shared by many of these sends
+     * @param sequence sequence of the poll the JSON is up to date with
+     */
+    public void sendToSubscription(String sessionId, String subscriptionId, String destination, byte[] json, long sequence) {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setNativeHeader(SEQUENCE_HEADER, Long.toString(sequence));
+        clientOutboundChannel.send(MessageBuilder.createMessage(json, headers.getMessageHeaders()));
+    }
+
+    /**
+     * @return a broker message for the destination holding the payload as JSON bytes
+     */
+    public Message<byte[]> encode(String destination, byte[] json, long sequence) {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        // Native headers are copied to the message of every subscriber and written on the STOMP frame
+        headers.setNativeHeader(SEQUENCE_HEADER, Long.toString(sequence));
+        // Left mutable so the template sends it without copying the headers again
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(json, headers.getMessageHeaders());
+    }
+
+    public byte[] toJson(String destination, Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new MessageConversionException("Could not encode the message to " + destination, e);
+        }
+    }
+}
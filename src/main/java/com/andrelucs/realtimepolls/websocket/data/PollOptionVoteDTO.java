@@ -12,7 +12,10 @@ import java.time.LocalDateTime;
 public final class PollOptionVoteDTO {
     private final Long pollId;
     private final Long optionId;
-    private Long votes;
+    // Count of the option once the write committed, as returned by the write itself
+    private final Long votes;
     private final Long delta;
     private final LocalDateTime timestamp;
+    // Approximate distinct voters of the poll, null when they are not counted
+    private Long uniqueVoters;
 }
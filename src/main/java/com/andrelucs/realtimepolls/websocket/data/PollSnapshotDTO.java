@@ -0,0 +1,22 @@
+package com.andrelucs.realtimepolls.websocket.data;
+
+import com.andrelucs.realtimepolls.data.dto.PollDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Full tally of a poll sent to a session right after it subscribes to the votes topic of the poll
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class PollSnapshotDTO {
+    private Long pollId;
+    // Same as GET /api/poll/{poll_id}, the counts can be older than vote messages already received, the highest wins
+    private PollDTO snapshot;
+    // When the snapshot was read
+    private LocalDateTime timestamp;
+}
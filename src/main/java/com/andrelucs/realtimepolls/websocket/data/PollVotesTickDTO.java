@@ -0,0 +1,24 @@
+package com.andrelucs.realtimepolls.websocket.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Votes of one poll over a broadcast tick, sent instead of one {@link PollOptionVoteDTO} per vote
+ */
+@Data
+@Builder
+@AllArgsConstructor
+public class PollVotesTickDTO {
+    private Long pollId;
+    // Options voted during the tick, each with its latest count and the votes it got in the tick
+    private List<PollOptionVoteDTO> options;
+    private long delta;
+    private LocalDateTime timestamp;
+    // Approximate distinct voters of the poll, null when they are not counted
+    private Long uniqueVoters;
+}
@@ -0,0 +1,11 @@
+package com.andrelucs.realtimepolls.websocket.data;
+
+import java.util.Map;
+
+/**
+ * One instant-runoff round, the ballots counting for each option still running
+ * @param exhausted ballots that rank no option still running
+ * @param eliminatedOptionId the option dropped after this round, null on the final round
+ */
+public record RankedRoundDTO(Map<Long, Long> tallies, long exhausted, Long eliminatedOptionId) {
+}
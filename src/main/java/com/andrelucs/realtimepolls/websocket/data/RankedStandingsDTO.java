@@ -0,0 +1,20 @@
+package com.andrelucs.realtimepolls.websocket.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class RankedStandingsDTO {
+    private Long pollId;
+    private long ballots;
+    private List<RankedRoundDTO> rounds;
+    // Winner of the last round, null until the first ballot
+    private Long leadingOptionId;
+    private LocalDateTime timestamp;
+}
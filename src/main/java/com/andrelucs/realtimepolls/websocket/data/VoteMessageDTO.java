@@ -0,0 +1,19 @@
+package com.andrelucs.realtimepolls.websocket.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Vote sent over STOMP to /app/poll.{pollId}.vote
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoteMessageDTO {
+    private Long optionId;
+    /**
+     * When present, the result of the vote is sent back to /user/queue/votes with this id
+     */
+    private String receiptId;
+}
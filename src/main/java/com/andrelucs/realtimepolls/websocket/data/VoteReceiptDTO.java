@@ -0,0 +1,18 @@
+package com.andrelucs.realtimepolls.websocket.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+public class VoteReceiptDTO {
+    private String receiptId;
+    private Long pollId;
+    private Long optionId;
+    private Long votes;
+    private LocalDateTime timestamp;
+}
@@ -2,8 +2,18 @@ package com.andrelucs.realtimepolls.websocket.events;
 
 import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
 
-public class PollVoteEvent extends WebSocketEvent<PollOptionVoteDTO> {
-    public PollVoteEvent(Object source, PollOptionVoteDTO data) {
+import java.util.List;
+
+/**
+ * Votes applied to the options of one poll in the same write, a ballot or batch touching several options is one event.
+ * Each option carries its committed count, so listeners never have to read it back from the database.
+ */
+public class PollVoteEvent extends WebSocketEvent<List<PollOptionVoteDTO>> {
+    public PollVoteEvent(Object source, List<PollOptionVoteDTO> data) {
         super(source, data);
     }
+
+    public PollVoteEvent(Object source, PollOptionVoteDTO data) {
+        this(source, List.of(data));
+    }
 }
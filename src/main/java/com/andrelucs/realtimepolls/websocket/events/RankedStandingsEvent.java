@@ -0,0 +1,9 @@
+package com.andrelucs.realtimepolls.websocket.events;
+
+import com.andrelucs.realtimepolls.websocket.data.RankedStandingsDTO;
+
+public class RankedStandingsEvent extends WebSocketEvent<RankedStandingsDTO> {
+    public RankedStandingsEvent(Object source, RankedStandingsDTO data) {
+        super(source, data);
+    }
+}
@@ -0,0 +1,21 @@
+------------------------------------------------------------
+-- HyperLogLog sketch of the distinct voters of each poll, one byte per register
+-- Every node merges its own sketch in with hll_merge, which keeps the highest value of each register
+------------------------------------------------------------
+CREATE TABLE poll_voter_sketch
+(
+    poll_id    BIGINT PRIMARY KEY REFERENCES poll (id) ON DELETE CASCADE,
+    registers  BYTEA     NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE FUNCTION hll_merge(a BYTEA, b BYTEA) RETURNS BYTEA
+    LANGUAGE sql
+    IMMUTABLE STRICT AS
+$$
+SELECT CASE
+           WHEN length(a) <> length(b) THEN b
+           ELSE (SELECT decode(string_agg(lpad(to_hex(greatest(get_byte(a, i), get_byte(b, i))), 2, '0'), '' ORDER BY i), 'hex')
+                 FROM generate_series(0, length(a) - 1) AS i)
+           END
+$$;
@@ -0,0 +1,11 @@
+------------------------------------------------------------
+-- Vote counters split in shards, used by votes.mode=sharded
+-- The total of an option is poll_option.votes + SUM(shard votes)
+------------------------------------------------------------
+CREATE TABLE poll_option_vote_shard
+(
+    option_id BIGINT   NOT NULL REFERENCES poll_option (id) ON DELETE CASCADE,
+    shard     SMALLINT NOT NULL,
+    votes     BIGINT   NOT NULL DEFAULT 0,
+    PRIMARY KEY (option_id, shard)
+);
@@ -0,0 +1,108 @@
+------------------------------------------------------------
+-- Append-only vote ledger used by votes.mode=ledger, partitioned by day
+------------------------------------------------------------
+CREATE TABLE vote_ledger (
+  id BIGSERIAL,
+  option_id BIGINT NOT NULL,
+  poll_id BIGINT NOT NULL,
+  voted_at TIMESTAMP NOT NULL DEFAULT now(),
+  PRIMARY KEY (id, voted_at)
+) PARTITION BY RANGE (voted_at);
+
+-- Catches votes outside of the created daily partitions
+CREATE TABLE vote_ledger_default PARTITION OF vote_ledger DEFAULT;
+
+-- To sum the votes of a poll that were not rolled up yet
+CREATE INDEX idx_vote_ledger_poll_id
+    ON vote_ledger (poll_id, id);
+
+------------------------------------------------------------
+-- Rollup watermark: last ledger id already added to poll_option.votes
+------------------------------------------------------------
+CREATE TABLE vote_ledger_rollup (
+  id SMALLINT PRIMARY KEY CHECK (id = 1),
+  last_id BIGINT NOT NULL
+);
+
+INSERT INTO vote_ledger_rollup (id, last_id) VALUES (1, 0);
+
+------------------------------------------------------------
+-- Creates the partition of a day if it doesn't exist yet
+------------------------------------------------------------
+CREATE OR REPLACE FUNCTION create_vote_ledger_partition(p_day DATE)
+    RETURNS BOOLEAN AS $$
+DECLARE
+    v_partition TEXT := 'vote_ledger_p' || to_char(p_day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(v_partition) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format(
+            'CREATE TABLE %I PARTITION OF vote_ledger FOR VALUES FROM (%L) TO (%L)',
+            v_partition, p_day::timestamp, (p_day + 1)::timestamp
+            );
+    RETURN TRUE;
+
+EXCEPTION
+    -- The default partition already holds votes of that day
+    WHEN check_violation THEN
+        RAISE WARNING 'Could not create partition %: %', v_partition, SQLERRM;
+        RETURN FALSE;
+END;
+$$ LANGUAGE plpgsql;
+
+------------------------------------------------------------
+-- Makes sure today and the next days have partitions
+------------------------------------------------------------
+CREATE OR REPLACE FUNCTION create_vote_ledger_partitions(p_days_ahead INTEGER)
+    RETURNS INTEGER AS $$
+DECLARE
+    v_created INTEGER := 0;
+BEGIN
+    FOR i IN 0..p_days_ahead LOOP
+        IF create_vote_ledger_partition(current_date + i) THEN
+            v_created := v_created + 1;
+        END IF;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+------------------------------------------------------------
+-- Detaches partitions of past days that were fully rolled up and
+-- whose polls are all FINISHED. The tables are kept as audit trail.
+------------------------------------------------------------
+CREATE OR REPLACE FUNCTION detach_settled_vote_ledger_partitions()
+    RETURNS SETOF TEXT AS $$
+DECLARE
+    v_partition TEXT;
+    v_last_id BIGINT;
+    v_pending BOOLEAN;
+BEGIN
+    SELECT last_id INTO v_last_id FROM vote_ledger_rollup WHERE id = 1;
+
+    FOR v_partition IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'vote_ledger'::regclass
+          AND c.relname <> 'vote_ledger_default'
+          AND c.relname < 'vote_ledger_p' || to_char(current_date, 'YYYYMMDD')
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format(
+                'SELECT EXISTS (SELECT 1 FROM %I l WHERE l.id > $1)
+                     OR EXISTS (SELECT 1 FROM %I l JOIN poll p ON p.id = l.poll_id WHERE p.status <> ''FINISHED'')',
+                v_partition, v_partition
+                ) INTO v_pending USING v_last_id;
+
+        IF NOT v_pending THEN
+            EXECUTE format('ALTER TABLE vote_ledger DETACH PARTITION %I', v_partition);
+            RETURN NEXT v_partition;
+        END IF;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_vote_ledger_partitions(1);
@@ -0,0 +1,11 @@
+------------------------------------------------------------
+-- Voters that already voted on a poll, used when votes.voters.enabled=true
+-- The voter key is the X-Voter-Key header or the client session
+------------------------------------------------------------
+CREATE TABLE poll_voter
+(
+    poll_id   BIGINT       NOT NULL REFERENCES poll (id) ON DELETE CASCADE,
+    voter_key VARCHAR(128) NOT NULL,
+    voted_at  TIMESTAMP    NOT NULL DEFAULT now(),
+    PRIMARY KEY (poll_id, voter_key)
+);
@@ -0,0 +1,18 @@
+------------------------------------------------------------
+-- Responses of vote requests sent with an Idempotency-Key,
+-- shared by every node when votes.idempotency.store=postgres
+-- The key is bound to a fingerprint of the request and the
+-- first response is kept as JSON.
+-- completed is false while the first request is running
+------------------------------------------------------------
+CREATE TABLE idempotency_key
+(
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    poll_id         BIGINT    NOT NULL,
+    fingerprint     BIGINT    NOT NULL,
+    completed       BOOLEAN   NOT NULL DEFAULT FALSE,
+    response        TEXT,
+    expires_at      TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_key_expires_at ON idempotency_key (expires_at);
@@ -0,0 +1,10 @@
+------------------------------------------------------------
+-- Position of each local vote journal (votes.write-behind.journal)
+-- up to which its votes were added to poll_option.votes.
+-- Moved in the same transaction as the votes it covers.
+------------------------------------------------------------
+CREATE TABLE vote_journal_checkpoint
+(
+    journal_id VARCHAR(64) PRIMARY KEY,
+    position   BIGINT NOT NULL
+);
@@ -0,0 +1,6 @@
+------------------------------------------------------------
+-- Multi-select polls: how many options a ballot may pick
+-- 1 keeps the poll single choice
+------------------------------------------------------------
+ALTER TABLE poll
+    ADD COLUMN max_selections INT NOT NULL DEFAULT 1 CHECK (max_selections >= 1);
@@ -0,0 +1,20 @@
+------------------------------------------------------------
+-- Ranked-choice polls: CHOICE polls take votes per option,
+-- RANKED polls take ballots ranking their options
+------------------------------------------------------------
+ALTER TABLE poll
+    ADD COLUMN type VARCHAR(20) NOT NULL DEFAULT 'CHOICE';
+
+------------------------------------------------------------
+-- Ballots of RANKED polls, option ids most preferred first
+------------------------------------------------------------
+CREATE TABLE ranked_ballot
+(
+    id      BIGSERIAL PRIMARY KEY,
+    poll_id BIGINT    NOT NULL REFERENCES poll (id) ON DELETE CASCADE,
+    ranking BIGINT[]  NOT NULL,
+    cast_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- To rebuild the tally of a poll in casting order
+CREATE INDEX idx_ranked_ballot_poll_id ON ranked_ballot (poll_id, id);
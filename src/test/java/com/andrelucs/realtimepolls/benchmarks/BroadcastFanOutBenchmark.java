@@ -0,0 +1,114 @@
+package com.andrelucs.realtimepolls.benchmarks;
+
+import com.andrelucs.realtimepolls.websocket.PollReplayBuffer;
+import com.andrelucs.realtimepolls.websocket.TopicPublisher;
+import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One vote broadcast through the simple broker to every subscriber of the poll, sent with
+ * {@link SimpMessagingTemplate#convertAndSend} as before and through the {@link TopicPublisher}. The outbound channel
+ * drops the messages, so this is the cost up to the sessions: encoding, the broker and its per subscriber messages.
+ * Look at gc.alloc.rate.norm for the bytes allocated per broadcast. Run with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.andrelucs.realtimepolls.benchmarks.BroadcastFanOutBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastFanOutBenchmark {
+
+    private static final long POLL_ID = 1L;
+
+    @Param({"1", "1000", "10000", "50000"})
+    private int subscribers;
+
+    private SimpleBrokerMessageHandler broker;
+    private SimpMessagingTemplate convertingTemplate;
+    private TopicPublisher publisher;
+    private PollOptionVoteDTO vote;
+    private long delivered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        var clientOutbound = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(message -> delivered++);
+        var brokerChannel = new ExecutorSubscribableChannel();
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+
+        var converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        convertingTemplate = new SimpMessagingTemplate(brokerChannel);
+        convertingTemplate.setMessageConverter(converter);
+        publisher = new TopicPublisher(new SimpMessagingTemplate(brokerChannel), objectMapper, clientOutbound, new PollReplayBuffer(256, 262144));
+
+        for (int i = 0; i < subscribers; i++) {
+            var sessionId = "session-" + i;
+            var connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            connect.setSessionId(sessionId);
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+            var subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            subscribe.setSessionId(sessionId);
+            subscribe.setSubscriptionId("sub-0");
+            subscribe.setDestination("/topic/poll.%d.votes".formatted(POLL_ID));
+            broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+        }
+
+        vote = PollOptionVoteDTO.builder()
+                .pollId(POLL_ID)
+                .optionId(3L)
+                .votes(12_345L)
+                .delta(1L)
+                .timestamp(LocalDateTime.now())
+                .uniqueVoters(9_876L)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        broker.stop();
+    }
+
+    @Benchmark
+    public long convertAndSend() {
+        convertingTemplate.convertAndSend("/topic/poll.%d.votes".formatted(POLL_ID), vote);
+        return delivered;
+    }
+
+    @Benchmark
+    public long preEncoded() {
+        publisher.publish(POLL_ID, publisher.votesTopic(POLL_ID), vote);
+        return delivered;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BroadcastFanOutBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
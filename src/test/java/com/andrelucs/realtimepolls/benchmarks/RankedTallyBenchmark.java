@@ -0,0 +1,118 @@
+package com.andrelucs.realtimepolls.benchmarks;
+
+import com.andrelucs.realtimepolls.polloptions.ranked.RankedTally;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Cost of getting the round standings of a ranked poll with 1M ballots over 10 options up to date after one more
+ * ballot, counting the ballot on the {@link RankedTally} against running the instant runoff again over every ballot.
+ * Rankings are skewed towards a few favourites and truncated at random lengths, like real ones. Run with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.andrelucs.realtimepolls.benchmarks.RankedTallyBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class RankedTallyBenchmark {
+
+    private static final int BALLOTS = 1_000_000;
+    private static final int OPTIONS = 10;
+    // Ballots cast during the measurement, cycled over
+    private static final int NEW_BALLOTS = 4096;
+
+    private final List<Long> optionIds = LongStream.rangeClosed(1, OPTIONS).boxed().toList();
+    private int[][] ballots;
+    private List<List<Long>> newBallots;
+    private RankedTally tally;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new Random(7);
+        ballots = new int[BALLOTS][];
+        tally = new RankedTally(optionIds);
+        for (int i = 0; i < BALLOTS; i++) {
+            var ranking = ranking(random);
+            ballots[i] = ranking.stream().mapToInt(id -> (int) (id - 1)).toArray();
+            tally.add(ranking);
+        }
+        newBallots = new ArrayList<>(NEW_BALLOTS);
+        for (int i = 0; i < NEW_BALLOTS; i++) newBallots.add(ranking(random));
+    }
+
+    /**
+     * One more ballot on the tally already holding the others
+     */
+    @Benchmark
+    public Long incrementalBallot() {
+        tally.add(newBallots.get(next++ & (NEW_BALLOTS - 1)));
+        return tally.winner();
+    }
+
+    /**
+     * Every ballot read again on every round until one option has the majority
+     */
+    @Benchmark
+    public int fullRecount() {
+        boolean[] running = new boolean[OPTIONS];
+        Arrays.fill(running, true);
+        long[] tallies = new long[OPTIONS];
+        while (true) {
+            Arrays.fill(tallies, 0);
+            long counting = 0;
+            for (int[] ballot : ballots) {
+                for (int option : ballot) {
+                    if (running[option]) {
+                        tallies[option]++;
+                        counting++;
+                        break;
+                    }
+                }
+            }
+            int best = -1;
+            int worst = -1;
+            int runningCount = 0;
+            for (int i = 0; i < OPTIONS; i++) {
+                if (!running[i]) continue;
+                runningCount++;
+                if (best < 0 || tallies[i] > tallies[best]) best = i;
+                if (worst < 0 || tallies[i] <= tallies[worst]) worst = i;
+            }
+            if (runningCount == 1 || tallies[best] * 2 > counting) return best;
+            running[worst] = false;
+        }
+    }
+
+    // Favourites first most of the time, truncated anywhere from 1 to every option
+    private List<Long> ranking(Random random) {
+        List<Long> ranking = new ArrayList<>(optionIds);
+        Collections.shuffle(ranking, random);
+        int favourite = (int) Math.min(OPTIONS - 1, Math.abs(random.nextGaussian()) * 3);
+        Collections.swap(ranking, 0, ranking.indexOf(optionIds.get(favourite)));
+        return ranking.subList(0, 1 + random.nextInt(OPTIONS));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RankedTallyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
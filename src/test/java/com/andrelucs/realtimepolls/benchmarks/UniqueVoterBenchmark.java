@@ -0,0 +1,73 @@
+package com.andrelucs.realtimepolls.benchmarks;
+
+import com.andrelucs.realtimepolls.polloptions.voting.UniqueVoterCounter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the unique voter count adds to each vote, counting voters on a sketch that already saw 1M of them while
+ * 4 threads vote on the same poll. Flushes are left out, they run off the vote path. Run with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.andrelucs.realtimepolls.benchmarks.UniqueVoterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class UniqueVoterBenchmark {
+
+    private static final long POLL_ID = 1L;
+    private static final int VOTERS = 1_000_000;
+
+    private UniqueVoterCounter counter;
+    private String[] voterKeys;
+
+    @State(Scope.Thread)
+    public static class Voter {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Never started, so nothing is flushed and no repository is needed
+        counter = new UniqueVoterCounter(null);
+        voterKeys = new String[VOTERS];
+        for (int i = 0; i < VOTERS; i++) {
+            voterKeys[i] = "voter-" + i;
+            counter.record(POLL_ID, voterKeys[i]);
+        }
+    }
+
+    /**
+     * A voter already counted, the common case once a poll has many voters
+     */
+    @Benchmark
+    public void recordVoter(Voter voter) {
+        counter.record(POLL_ID, voterKeys[voter.next++ % VOTERS]);
+    }
+
+    /**
+     * Estimate sent along with every vote broadcast
+     */
+    @Benchmark
+    public long estimate() {
+        return counter.estimate(POLL_ID);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UniqueVoterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.andrelucs.realtimepolls.benchmarks;
+
+import com.andrelucs.realtimepolls.exceptions.GlobalExceptionHandler;
+import com.andrelucs.realtimepolls.exceptions.controller.PollConflictException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.polloptions.RejectedVoteResponses;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cost of answering a vote on a finished poll, before and after the rejection path went stackless and cached.
+ * Only the rejection is measured, the database round trips the finished poll set now saves are not part of it.
+ * Look at gc.alloc.rate.norm for the bytes allocated per rejected vote. Run with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.andrelucs.realtimepolls.benchmarks.VoteRejectionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoteRejectionBenchmark {
+
+    // Roughly the frames between Tomcat and the controller, then between the controller and the vote writer
+    private static final int CONTROLLER_DEPTH = 80;
+    private static final int SERVICE_DEPTH = 10;
+    private static final long POLL_ID = 7L;
+
+    private final GlobalExceptionHandler exceptionHandler = new GlobalExceptionHandler();
+    private final RejectedVoteResponses rejectedVoteResponses = new RejectedVoteResponses();
+    private final MockHttpServletRequest request = new MockHttpServletRequest("PATCH", "/api/poll/7/options/21");
+
+    /**
+     * A new PollNotInProgressException, wrapped in a PollConflictException with a formatted message,
+     * turned into an ExceptionDTO by the exception handler
+     */
+    @Benchmark
+    public Object previousRejection() {
+        return atDepth(CONTROLLER_DEPTH, () -> {
+            try {
+                return atDepth(SERVICE_DEPTH, () -> {
+                    throw new PollNotInProgressException("Poll is not in progress, cannot vote");
+                });
+            } catch (PollNotInProgressException e) {
+                var conflict = new PollConflictException("Poll %d is not in progress, cannot vote.".formatted(POLL_ID));
+                return exceptionHandler.handlePollConflictException(conflict, request);
+            }
+        });
+    }
+
+    /**
+     * The shared stackless PollNotInProgressException, answered with the cached response of the path
+     */
+    @Benchmark
+    public Object currentRejection() {
+        return atDepth(CONTROLLER_DEPTH, () -> {
+            try {
+                return atDepth(SERVICE_DEPTH, () -> {
+                    throw PollNotInProgressException.VOTE_REJECTED;
+                });
+            } catch (PollNotInProgressException e) {
+                return rejectedVoteResponses.pollNotInProgress(POLL_ID, request.getRequestURI());
+            }
+        });
+    }
+
+    private static Object atDepth(int depth, Supplier<Object> body) {
+        return depth == 0 ? body.get() : atDepth(depth - 1, body);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VoteRejectionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
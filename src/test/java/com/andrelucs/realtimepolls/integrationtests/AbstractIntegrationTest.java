@@ -2,10 +2,12 @@ package com.andrelucs.realtimepolls.integrationtests;
 
 import com.andrelucs.realtimepolls.data.model.Poll;
 import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
 import com.andrelucs.realtimepolls.polls.PollRepository;
 import jakarta.annotation.PreDestroy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -14,9 +16,15 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.lifecycle.Startables;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Testcontainers
 @SpringBootTest
@@ -48,6 +56,8 @@ public abstract class AbstractIntegrationTest {
     }
 
     public final PollRepository pollRepository;
+    @Autowired
+    protected PollOptionRepository optionRepository;
 
     public AbstractIntegrationTest(PollRepository pollRepository) {
         this.pollRepository = pollRepository;
@@ -119,4 +129,32 @@ public abstract class AbstractIntegrationTest {
         pollRepository.saveAll(polls);
 
     }
+
+    /**
+     * @return the options of the poll in id order, the order ballots use
+     */
+    protected List<PollOption> optionsOf(Poll poll) {
+        return optionRepository.findAllByPollId(poll.getId()).stream()
+                .sorted(Comparator.comparing(PollOption::getId))
+                .toList();
+    }
+
+    protected int votesOf(PollOption option) {
+        return optionRepository.findById(option.getId()).orElseThrow().getVotes();
+    }
+
+    /**
+     * Borrows a connection on a thread of its own, which the test closes when done
+     */
+    protected static Connection connectionOnAnotherThread(DataSource dataSource) throws Exception {
+        var connection = new CompletableFuture<Connection>();
+        Thread.ofPlatform().start(() -> {
+            try {
+                connection.complete(dataSource.getConnection());
+            } catch (SQLException e) {
+                connection.completeExceptionally(e);
+            }
+        });
+        return connection.get(1, TimeUnit.SECONDS);
+    }
 }
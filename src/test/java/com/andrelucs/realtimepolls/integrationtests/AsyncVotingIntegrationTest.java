@@ -0,0 +1,77 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "votes.async.enabled=true",
+        "votes.async.drainers=1"
+})
+@AutoConfigureMockMvc
+public class AsyncVotingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    public AsyncVotingIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldAcceptVotesAndApplyThemInBackground() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), option.getId())))
+                    .andExpect(status().isAccepted());
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (votesOf(option) < option.getVotes() + 5) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "Queued votes were not applied");
+            Thread.sleep(50);
+        }
+        Assertions.assertEquals(option.getVotes() + 5, votesOf(option));
+        Assertions.assertTrue(meterRegistry.get("votes.async.applied").counter().count() >= 5);
+    }
+
+    @Test
+    void shouldRejectVotesUsingTheCachedPollState() throws Exception {
+        var finished = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var started = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var finishedOption = optionRepository.findAllByPollId(finished.getId()).getFirst();
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(finished.getId(), finishedOption.getId())))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(started.getId(), finishedOption.getId())))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldRejectVotesOnRankedPollsBeforeQueueingThem() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        poll.setType(PollType.RANKED);
+        pollRepository.save(poll);
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), option.getId())))
+                .andExpect(status().isForbidden());
+
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+    }
+}
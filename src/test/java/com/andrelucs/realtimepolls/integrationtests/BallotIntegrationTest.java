@@ -0,0 +1,122 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.dto.BallotDTO;
+import com.andrelucs.realtimepolls.data.model.Poll;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+public class BallotIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    ApplicationEvents events;
+
+    @Autowired
+    public BallotIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldVoteEveryPickedOptionInOneEvent() throws Exception {
+        var poll = multiSelectPoll(PollStatus.STARTED, 2);
+        var options = optionsOf(poll);
+
+        castBallot(poll, 0, 2)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        Assertions.assertEquals(options.get(0).getVotes() + 1, votesOf(options.get(0)));
+        Assertions.assertEquals(options.get(1).getVotes(), votesOf(options.get(1)));
+        Assertions.assertEquals(options.get(2).getVotes() + 1, votesOf(options.get(2)));
+
+        var voteEvents = events.stream(PollVoteEvent.class).toList();
+        Assertions.assertEquals(1, voteEvents.size());
+        Assertions.assertEquals(2, voteEvents.getFirst().getData().size());
+        voteEvents.getFirst().getData().forEach(vote -> Assertions.assertEquals(1L, vote.getDelta()));
+    }
+
+    @Test
+    void shouldRejectBallotsPickingMoreThanAllowed() throws Exception {
+        var poll = multiSelectPoll(PollStatus.STARTED, 2);
+        var options = optionsOf(poll);
+
+        castBallot(poll, 0, 1, 2).andExpect(status().isBadRequest());
+
+        options.forEach(option -> Assertions.assertEquals(option.getVotes(), votesOf(option)));
+        Assertions.assertEquals(0, events.stream(PollVoteEvent.class).count());
+    }
+
+    @Test
+    void shouldRejectTheWholeBallotWhenItPicksMissingOptions() throws Exception {
+        var poll = multiSelectPoll(PollStatus.STARTED, 2);
+        var options = optionsOf(poll);
+
+        castBallot(poll, 0, 9).andExpect(status().isNotFound());
+
+        // The valid pick is rolled back too
+        Assertions.assertEquals(options.get(0).getVotes(), votesOf(options.get(0)));
+    }
+
+    @Test
+    void shouldRejectBallotsOnPollsNotInProgress() throws Exception {
+        var poll = multiSelectPoll(PollStatus.FINISHED, 2);
+
+        castBallot(poll, 0).andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldRejectMalformedBallots() throws Exception {
+        var poll = multiSelectPoll(PollStatus.STARTED, 2);
+
+        for (var selections : List.of("", "not base64!", "AAA=")) {
+            mockMvc.perform(post("/api/poll/%d/ballots".formatted(poll.getId()))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(new BallotDTO(selections))))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    private Poll multiSelectPoll(PollStatus status, int maxSelections) {
+        var poll = pollRepository.findAllByStatus(status).getFirst();
+        poll.setMaxSelections(maxSelections);
+        return pollRepository.save(poll);
+    }
+
+
+    private ResultActions castBallot(Poll poll, int... optionIndexes) throws Exception {
+        var selections = new BitSet();
+        for (int index : optionIndexes) selections.set(index);
+
+        return mockMvc.perform(post("/api/poll/%d/ballots".formatted(poll.getId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new BallotDTO(Base64.getEncoder().encodeToString(selections.toByteArray())))));
+    }
+
+}
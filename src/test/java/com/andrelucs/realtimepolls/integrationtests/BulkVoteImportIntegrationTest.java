@@ -0,0 +1,158 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polloptions.voting.BulkVoteImporter;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "votes.import.enabled=true",
+        "votes.import.token=" + BulkVoteImportIntegrationTest.TOKEN
+})
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+public class BulkVoteImportIntegrationTest extends AbstractIntegrationTest {
+
+    static final String TOKEN = "import-token";
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    BulkVoteImporter importer;
+    @Autowired
+    ApplicationEvents events;
+
+    @Autowired
+    public BulkVoteImportIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldApplyTheFileWithOneBroadcastPerPoll() throws Exception {
+        var started = pollRepository.findAllByStatus(PollStatus.STARTED);
+        var first = optionsOf(started.get(0));
+        var second = optionsOf(started.get(1));
+
+        var csv = new StringBuilder("poll_id,option_id\n");
+        for (int i = 0; i < 3; i++) csv.append(row(first.get(0)));
+        csv.append(row(first.get(1)));
+        csv.append(row(second.get(2)));
+        // Option of another poll
+        csv.append("%d,%d\n".formatted(started.get(0).getId(), second.get(0).getId()));
+
+        mockMvc.perform(post("/api/admin/votes/import")
+                        .header("Authorization", "Bearer " + TOKEN)
+                        .contentType("text/csv")
+                        .content(csv.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(6))
+                .andExpect(jsonPath("$.appliedVotes").value(5))
+                .andExpect(jsonPath("$.rejectedRows").value(1))
+                .andExpect(jsonPath("$.polls").value(2));
+
+        Assertions.assertEquals(first.get(0).getVotes() + 3, votesOf(first.get(0)));
+        Assertions.assertEquals(first.get(1).getVotes() + 1, votesOf(first.get(1)));
+        Assertions.assertEquals(second.get(2).getVotes() + 1, votesOf(second.get(2)));
+        Assertions.assertEquals(second.get(0).getVotes(), votesOf(second.get(0)));
+
+        var voteEvents = events.stream(PollVoteEvent.class).toList();
+        Assertions.assertEquals(2, voteEvents.size());
+        Assertions.assertEquals(2, voteEvents.getFirst().getData().size());
+    }
+
+    @Test
+    void shouldImportNothingFromAMalformedFile() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionsOf(poll).getFirst();
+
+        mockMvc.perform(post("/api/admin/votes/import")
+                        .param("header", "false")
+                        .header("Authorization", "Bearer " + TOKEN)
+                        .contentType("text/csv")
+                        .content(row(option) + "not,ids\n"))
+                .andExpect(status().isBadRequest());
+
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+        Assertions.assertEquals(0, events.stream(PollVoteEvent.class).count());
+    }
+
+    @Test
+    void shouldRefuseImportsWithoutTheToken() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionsOf(poll).getFirst();
+
+        mockMvc.perform(post("/api/admin/votes/import")
+                        .param("header", "false")
+                        .contentType("text/csv")
+                        .content(row(option)))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/admin/votes/import")
+                        .param("header", "false")
+                        .header("Authorization", "Bearer not-" + TOKEN)
+                        .contentType("text/csv")
+                        .content(row(option)))
+                .andExpect(status().isUnauthorized());
+
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+    }
+
+    @Test
+    void shouldLeaveOutBallotsOfPollsNotInProgress() {
+        var poll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var option = optionsOf(poll).getFirst();
+
+        var result = importer.importCsv(generated(row(option), 3), false);
+
+        Assertions.assertEquals(3, result.rejectedRows());
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+    }
+
+    @Test
+    void shouldStreamLargeFiles() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionsOf(poll).getFirst();
+        int ballots = 1_000_000;
+
+        var result = importer.importCsv(generated(row(option), ballots), false);
+
+        Assertions.assertEquals(ballots, result.rows());
+        Assertions.assertEquals(ballots, result.appliedVotes());
+        Assertions.assertEquals(option.getVotes() + ballots, votesOf(option));
+    }
+
+    // The same row over and over, produced as it is read so the file is never in memory
+    private static InputStream generated(String row, int rows) {
+        byte[] bytes = row.getBytes(StandardCharsets.UTF_8);
+        return new InputStream() {
+            private long position;
+            private final long end = (long) bytes.length * rows;
+
+            @Override
+            public int read() {
+                return position < end ? bytes[(int) (position++ % bytes.length)] : -1;
+            }
+        };
+    }
+
+
+    private static String row(PollOption option) {
+        return "%d,%d\n".formatted(option.getPoll().getId(), option.getId());
+    }
+
+}
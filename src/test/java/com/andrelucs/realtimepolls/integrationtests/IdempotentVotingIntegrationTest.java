@@ -0,0 +1,130 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.IdempotencyRecord;
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polloptions.IdempotencyRecordRepository;
+import com.andrelucs.realtimepolls.polloptions.voting.IdempotentVotes;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"votes.idempotency.enabled=true", "votes.idempotency.store=postgres"})
+@AutoConfigureMockMvc
+public class IdempotentVotingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    IdempotencyRecordRepository recordRepository;
+
+    @Autowired
+    public IdempotentVotingIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldCountRetriedVotesOnce() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var url = "/api/poll/%d/options/%d".formatted(poll.getId(), option.getId());
+        var key = UUID.randomUUID().toString();
+
+        mockMvc.perform(patch(url).header("Idempotency-Key", key))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andExpect(jsonPath("$.votes").value(option.getVotes() + 1));
+        mockMvc.perform(patch(url).header("Idempotency-Key", key))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.votes").value(option.getVotes() + 1));
+
+        Assertions.assertEquals(option.getVotes() + 1, votesOf(option));
+        Assertions.assertTrue(recordRepository.findById(key).orElseThrow().isCompleted());
+    }
+
+    @Test
+    void shouldRejectAKeyReusedForAnotherOption() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var key = UUID.randomUUID().toString();
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), options.get(0).getId())).header("Idempotency-Key", key))
+                .andExpect(status().isOk());
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), options.get(1).getId())).header("Idempotency-Key", key))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldFreeTheKeyOfAFailedVote() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var key = UUID.randomUUID().toString();
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), option.getId())).header("Idempotency-Key", key))
+                .andExpect(status().isConflict());
+
+        Assertions.assertTrue(recordRepository.findById(key).isEmpty());
+    }
+
+    @Test
+    void shouldReplayResponsesStoredByAnotherNode() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var key = UUID.randomUUID().toString();
+        recordRepository.save(IdempotencyRecord.builder()
+                .key(key).pollId(poll.getId()).fingerprint(IdempotentVotes.fingerprint("option:" + option.getId()))
+                .completed(true)
+                .response("{\"id\":%d,\"description\":\"%s\",\"votes\":42}".formatted(option.getId(), option.getDescription()))
+                .expiresAt(LocalDateTime.now().plusMinutes(5))
+                .build());
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), option.getId())).header("Idempotency-Key", key))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.votes").value(42));
+
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+    }
+
+    @Test
+    void shouldCountRetriedBallotsAndBatchesOnce() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        poll.setMaxSelections(2);
+        pollRepository.save(poll);
+        var option = optionRepository.findAllByPollId(poll.getId()).stream()
+                .min(Comparator.comparing(PollOption::getId)).orElseThrow();
+        var ballotKey = UUID.randomUUID().toString();
+        var batchKey = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/poll/%d/ballots".formatted(poll.getId())).header("Idempotency-Key", ballotKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            // First option only
+                            .content("{\"selections\":\"%s\"}".formatted(Base64.getEncoder().encodeToString(new byte[]{1}))))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].votes").value(option.getVotes() + 1));
+            mockMvc.perform(post("/api/poll/%d/votes".formatted(poll.getId())).header("Idempotency-Key", batchKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[{\"optionId\":%d,\"count\":5}]".formatted(option.getId())))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].votes").value(option.getVotes() + 6));
+        }
+
+        Assertions.assertEquals(option.getVotes() + 6, votesOf(option));
+    }
+}
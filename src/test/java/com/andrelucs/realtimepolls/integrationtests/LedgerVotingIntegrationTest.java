@@ -0,0 +1,108 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteLedgerRollup;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+@SpringBootTest(properties = {
+        "votes.mode=ledger",
+        "votes.ledger.grace-ms=0",
+        "votes.ledger.rollup-interval-ms=60000" // rolled up manually by the tests
+})
+public class LedgerVotingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    OptionService optionService;
+    @Autowired
+    VoteLedgerRollup rollup;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LedgerVotingIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldOnlyAppendVotesUntilRollup() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        for (int i = 1; i <= 3; i++) {
+            var voted = optionService.voteForOption(poll.getId(), option.getId());
+            Assertions.assertEquals(option.getVotes() + i, voted.getVotes());
+        }
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+        Assertions.assertEquals(option.getVotes() + 3, votesFromService(poll.getId(), option.getId()));
+
+        rollup.rollup();
+
+        Assertions.assertEquals(option.getVotes() + 3, votesOf(option));
+        Assertions.assertEquals(option.getVotes() + 3, votesFromService(poll.getId(), option.getId()));
+        Assertions.assertEquals(0, rollup.rollup());
+    }
+
+    @Test
+    void shouldAppendBatchesToTheLedgerAllOrNothing() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+        var otherPoll = optionRepository.findAllByPollId(pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst().getId()).getFirst();
+
+        Assertions.assertThrows(OptionNotFoundException.class,
+                () -> optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, otherPoll.getId(), 1L)));
+        var voted = optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, optionB.getId(), 3L));
+
+        Assertions.assertTrue(voted.stream().anyMatch(o -> o.getId().equals(optionB.getId()) && o.getVotes() == optionB.getVotes() + 3));
+        Assertions.assertEquals(optionA.getVotes(), votesOf(optionA));
+        Assertions.assertEquals(optionA.getVotes() + 2, votesFromService(poll.getId(), optionA.getId()));
+
+        rollup.rollup();
+
+        Assertions.assertEquals(optionA.getVotes() + 2, votesOf(optionA));
+        Assertions.assertEquals(optionB.getVotes() + 3, votesOf(optionB));
+    }
+
+    @Test
+    void shouldDetachPartitionsOfFinishedAndRolledUpPolls() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var yesterday = LocalDate.now().minusDays(1);
+        var partition = "vote_ledger_p" + yesterday.format(DateTimeFormatter.BASIC_ISO_DATE);
+
+        jdbcTemplate.queryForObject("SELECT create_vote_ledger_partition(?)", Boolean.class, yesterday);
+        jdbcTemplate.update("INSERT INTO vote_ledger (option_id, poll_id, voted_at) VALUES (?, ?, ?)",
+                option.getId(), poll.getId(), yesterday.atTime(12, 0));
+        try {
+            Assertions.assertFalse(rollup.maintainPartitions().contains(partition), "Not rolled up yet");
+
+            rollup.rollup();
+            Assertions.assertFalse(rollup.maintainPartitions().contains(partition), "Poll is still running");
+
+            jdbcTemplate.update("UPDATE poll SET status = 'FINISHED' WHERE id = ?", poll.getId());
+            Assertions.assertTrue(rollup.maintainPartitions().contains(partition));
+            Assertions.assertEquals(option.getVotes() + 1, votesOf(option));
+        } finally {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+        }
+    }
+
+    private long votesFromService(Long pollId, Long optionId) {
+        return optionService.getPollOptionsDTOS(pollId).stream()
+                .filter(o -> o.getId().equals(optionId))
+                .findFirst().orElseThrow()
+                .getVotes();
+    }
+}
@@ -3,7 +3,6 @@ package com.andrelucs.realtimepolls.integrationtests;
 import com.andrelucs.realtimepolls.data.model.Poll;
 import com.andrelucs.realtimepolls.data.model.PollOption;
 import com.andrelucs.realtimepolls.data.model.PollStatus;
-import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
 import com.andrelucs.realtimepolls.polls.PollRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.EntityManager;
@@ -35,8 +34,6 @@ public class PollOptionsIntegrationTest extends AbstractIntegrationTest{
     ObjectMapper objectMapper;
     @Autowired
     EntityManager entityManager;
-    @Autowired
-    PollOptionRepository optionRepository;
 
     private Poll poll;
 
@@ -154,18 +151,33 @@ public class PollOptionsIntegrationTest extends AbstractIntegrationTest{
     }
 
     @Test
-    void shouldFailAtVotingInAFinishedOrStartedPoll() throws Exception {
+    void shouldFailAtVotingInAFinishedOrNotStartedPoll() throws Exception {
+        super.saveTestData();
         var nonStartedPoll = pollRepository.findAllByStatus(PollStatus.NOT_STARTED).getFirst();
+        var finishedPoll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+
+        for (var closedPoll : List.of(nonStartedPoll, finishedPoll)) {
+            var optionToVote = optionRepository.findAllByPollId(closedPoll.getId()).getFirst();
+
+            mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(closedPoll.getId(), optionToVote.getId())))
+                    .andExpect(status().isConflict());
+
+            PollOption repoPoll = optionRepository.findById(optionToVote.getId()).orElseThrow();
+            Assertions.assertEquals(optionToVote.getVotes(), repoPoll.getVotes());
+        }
+    }
 
-        var optionToVote = optionRepository.findAllByPollId(nonStartedPoll.getId()).getFirst();
+    @Test
+    void shouldFailAtVotingForAnOptionOfAnotherPoll() throws Exception {
+        super.saveTestData();
+        var startedPoll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var optionToVote = optionRepository.findAllByPollId(startedPoll.getId()).getFirst();
 
         mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(this.poll.getId(), optionToVote.getId())))
-                .andExpect(status().isForbidden());
+                .andExpect(status().isNotFound());
 
         PollOption repoPoll = optionRepository.findById(optionToVote.getId()).orElseThrow();
-
         Assertions.assertEquals(optionToVote.getVotes(), repoPoll.getVotes());
-
     }
 
 }
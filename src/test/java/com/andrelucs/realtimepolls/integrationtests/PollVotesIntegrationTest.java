@@ -0,0 +1,121 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.dto.OptionVoteCountDTO;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+public class PollVotesIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    ApplicationEvents events;
+
+    @Autowired
+    public PollVotesIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldApplyTheBatchInOneEvent() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+
+        var batch = List.of(
+                new OptionVoteCountDTO(optionA.getId(), 5L),
+                new OptionVoteCountDTO(optionB.getId(), 2L),
+                new OptionVoteCountDTO(optionA.getId(), 1L));
+
+        mockMvc.perform(post("/api/poll/%d/votes".formatted(poll.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        Assertions.assertEquals(optionA.getVotes() + 6, votesOf(optionA));
+        Assertions.assertEquals(optionB.getVotes() + 2, votesOf(optionB));
+
+        // One event for the whole batch
+        var voteEvents = events.stream(PollVoteEvent.class).toList();
+        Assertions.assertEquals(1, voteEvents.size());
+        Assertions.assertEquals(2, voteEvents.getFirst().getData().size());
+        var voteA = voteEvents.getFirst().getData().stream().filter(vote -> vote.getOptionId().equals(optionA.getId())).findFirst().orElseThrow();
+        Assertions.assertEquals(6L, voteA.getDelta());
+    }
+
+    @Test
+    void shouldRejectTheWholeBatchWhenThePollIsNotRunning() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        mockMvc.perform(post("/api/poll/%d/votes".formatted(poll.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(new OptionVoteCountDTO(option.getId(), 3L)))))
+                .andExpect(status().isConflict());
+
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+    }
+
+    @Test
+    void shouldRejectTheWholeBatchWhenAnOptionIsFromAnotherPoll() throws Exception {
+        var started = pollRepository.findAllByStatus(PollStatus.STARTED);
+        var option = optionRepository.findAllByPollId(started.get(0).getId()).getFirst();
+        var foreignOption = optionRepository.findAllByPollId(started.get(1).getId()).getFirst();
+
+        var batch = List.of(
+                new OptionVoteCountDTO(option.getId(), 3L),
+                new OptionVoteCountDTO(foreignOption.getId(), 1L));
+
+        mockMvc.perform(post("/api/poll/%d/votes".formatted(started.get(0).getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isNotFound());
+
+        // Nothing of the batch is kept
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+        Assertions.assertEquals(foreignOption.getVotes(), votesOf(foreignOption));
+    }
+
+    @Test
+    void shouldRejectInvalidBatches() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        for (var batch : List.of(
+                List.of(),
+                List.of(new OptionVoteCountDTO(null, 1L)),
+                List.of(new OptionVoteCountDTO(option.getId(), 0L)))) {
+            mockMvc.perform(post("/api/poll/%d/votes".formatted(poll.getId()))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batch)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+    }
+
+}
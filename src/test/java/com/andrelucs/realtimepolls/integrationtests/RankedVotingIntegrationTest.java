@@ -0,0 +1,167 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.dto.RankedBallotDTO;
+import com.andrelucs.realtimepolls.data.model.Poll;
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
+import com.andrelucs.realtimepolls.polloptions.RankedBallotRepository;
+import com.andrelucs.realtimepolls.polloptions.ranked.RankedVoting;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.data.PollStatusUpdateDTO;
+import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
+import com.andrelucs.realtimepolls.websocket.events.PollVoteEvent;
+import com.andrelucs.realtimepolls.websocket.events.RankedStandingsEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RecordApplicationEvents
+public class RankedVotingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    RankedBallotRepository ballotRepository;
+    @Autowired
+    RankedVoting rankedVoting;
+    @Autowired
+    ApplicationEvents events;
+
+    @Autowired
+    public RankedVotingIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldPushTheRoundsOfEveryBallot() throws Exception {
+        var poll = rankedPoll(PollStatus.STARTED);
+        var options = optionIds(poll);
+
+        castBallot(poll, options.get(0)).andExpect(status().isOk());
+        castBallot(poll, options.get(1)).andExpect(status().isOk());
+        castBallot(poll, options.get(2), options.get(1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ballots").value(3))
+                .andExpect(jsonPath("$.rounds.length()").value(2))
+                .andExpect(jsonPath("$.rounds[0].eliminatedOptionId").value(options.get(2)))
+                .andExpect(jsonPath("$.leadingOptionId").value(options.get(1)));
+
+        Assertions.assertEquals(3, ballotRepository.findRankings(poll.getId()).size());
+        var standingsEvents = events.stream(RankedStandingsEvent.class).toList();
+        Assertions.assertEquals(3, standingsEvents.size());
+        Assertions.assertEquals(3, standingsEvents.getLast().getData().getBallots());
+        // Option counts of ranked polls are left alone
+        Assertions.assertEquals(0, events.stream(PollVoteEvent.class).count());
+    }
+
+    @Test
+    void shouldCountStoredBallotsWithoutTheLiveTally() throws Exception {
+        var poll = rankedPoll(PollStatus.STARTED);
+        var options = optionIds(poll);
+        castBallot(poll, options.get(1), options.get(0)).andExpect(status().isOk());
+
+        var live = rankedVoting.standings(poll.getId()).orElseThrow();
+        poll.setStatus(PollStatus.FINISHED);
+        pollRepository.save(poll);
+        rankedVoting.onPollStatusEvent(new PollStatusEvent(this, new PollStatusUpdateDTO(
+                poll.getId(), PollStatus.STARTED, PollStatus.FINISHED, LocalDateTime.now())));
+
+        mockMvc.perform(get("/api/poll/%d/ranked-ballots/standings".formatted(poll.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ballots").value(1))
+                .andExpect(jsonPath("$.leadingOptionId").value(live.getLeadingOptionId()));
+    }
+
+    @Test
+    void shouldRebuildADroppedTallyFromTheStoredBallots() throws Exception {
+        var poll = rankedPoll(PollStatus.STARTED);
+        var options = optionIds(poll);
+        castBallot(poll, options.get(0)).andExpect(status().isOk());
+
+        // The tally is dropped while a ballot is being stored
+        rankedVoting.onPollStatusEvent(new PollStatusEvent(this, new PollStatusUpdateDTO(
+                poll.getId(), PollStatus.STARTED, PollStatus.FINISHED, LocalDateTime.now())));
+        castBallot(poll, options.get(1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ballots").value(2));
+
+        Assertions.assertEquals(2, rankedVoting.standings(poll.getId()).orElseThrow().getBallots());
+    }
+
+    @Test
+    void shouldRejectInvalidRankedBallots() throws Exception {
+        var poll = rankedPoll(PollStatus.STARTED);
+        var options = optionIds(poll);
+
+        castBallot(poll).andExpect(status().isBadRequest());
+        castBallot(poll, options.get(0), options.get(0)).andExpect(status().isForbidden());
+        castBallot(poll, options.get(0), -1L).andExpect(status().isNotFound());
+
+        var notStarted = pollRepository.findAllByStatus(PollStatus.NOT_STARTED).getFirst();
+        notStarted.setType(PollType.RANKED);
+        pollRepository.save(notStarted);
+        castBallot(notStarted, optionIds(notStarted).getFirst()).andExpect(status().isConflict());
+
+        Assertions.assertTrue(ballotRepository.findRankings(poll.getId()).isEmpty());
+        Assertions.assertEquals(0, events.stream(RankedStandingsEvent.class).count());
+    }
+
+    @Test
+    void shouldKeepChoiceAndRankedPollsApart() throws Exception {
+        var rankedPoll = rankedPoll(PollStatus.STARTED);
+        var choicePoll = pollRepository.findAllByStatus(PollStatus.STARTED).stream()
+                .filter(candidate -> candidate.getType() == PollType.CHOICE)
+                .findFirst().orElseThrow();
+        var choiceOptions = optionIds(choicePoll);
+
+        castBallot(choicePoll, choiceOptions.getFirst()).andExpect(status().isForbidden());
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(rankedPoll.getId(), optionIds(rankedPoll).getFirst())))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/poll/%d/ranked-ballots/standings".formatted(choicePoll.getId())))
+                .andExpect(status().isNotFound());
+    }
+
+    private Poll rankedPoll(PollStatus status) {
+        var poll = pollRepository.findAllByStatus(status).stream()
+                .filter(candidate -> candidate.getType() == PollType.CHOICE)
+                .findFirst().orElseThrow();
+        poll.setType(PollType.RANKED);
+        return pollRepository.save(poll);
+    }
+
+    private List<Long> optionIds(Poll poll) {
+        return optionRepository.findAllByPollId(poll.getId()).stream()
+                .map(PollOption::getId)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+
+    private ResultActions castBallot(Poll poll, Long... ranking) throws Exception {
+        return mockMvc.perform(post("/api/poll/%d/ranked-ballots".formatted(poll.getId()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RankedBallotDTO(List.of(ranking)))));
+    }
+}
@@ -0,0 +1,93 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polloptions.voting.SequencedVoteWriter;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest(properties = {
+        "votes.mode=sequenced",
+        "votes.sequenced.workers=2"
+})
+public class SequencedVotingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    OptionService optionService;
+    @Autowired
+    SequencedVoteWriter writer;
+
+    @Autowired
+    public SequencedVotingIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldCountConcurrentVotesThroughThePollWriter() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+
+        ExecutorService voters = Executors.newFixedThreadPool(8);
+        List<Future<?>> voting = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                var option = i % 2 == 0 ? optionA : optionB;
+                voting.add(voters.submit(() -> {
+                    for (int v = 0; v < 25; v++) {
+                        var voted = optionService.voteForOption(poll.getId(), option.getId());
+                        Assertions.assertTrue(voted.getVotes() > option.getVotes());
+                    }
+                }));
+            }
+            for (Future<?> vote : voting) vote.get(30, TimeUnit.SECONDS);
+        } finally {
+            voters.shutdownNow();
+        }
+
+        Assertions.assertEquals(optionA.getVotes() + 100, votesOf(optionA));
+        Assertions.assertEquals(optionB.getVotes() + 100, votesOf(optionB));
+    }
+
+    @Test
+    void shouldApplyBatchesThroughThePollWriterAllOrNothing() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+        var otherPoll = optionRepository.findAllByPollId(pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst().getId()).getFirst();
+
+        Assertions.assertThrows(OptionNotFoundException.class,
+                () -> optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, otherPoll.getId(), 1L)));
+        var voted = optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, optionB.getId(), 3L));
+
+        Assertions.assertEquals(2, voted.size());
+        Assertions.assertEquals(optionA.getVotes() + 2, votesOf(optionA));
+        Assertions.assertEquals(optionB.getVotes() + 3, votesOf(optionB));
+    }
+
+    @Test
+    void shouldRejectVotesOnFinishedPolls() {
+        var poll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        Assertions.assertThrows(PollNotInProgressException.class,
+                () -> optionService.voteForOption(poll.getId(), option.getId()));
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+        Assertions.assertEquals(0, writer.queuedVotes());
+    }
+}
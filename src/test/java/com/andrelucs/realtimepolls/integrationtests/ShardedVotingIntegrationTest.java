@@ -0,0 +1,104 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polloptions.voting.BulkVoteImporter;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.polls.PollService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+@SpringBootTest(properties = {
+        "votes.mode=sharded",
+        "votes.sharded.shards=4",
+        "votes.import.enabled=true",
+        "votes.import.token=import-token"
+})
+public class ShardedVotingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    OptionService optionService;
+    @Autowired
+    PollService pollService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    BulkVoteImporter importer;
+
+    @Autowired
+    public ShardedVotingIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldCountVotesOnShardsAndSumThemOnReads() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        for (int i = 1; i <= 10; i++) {
+            var voted = optionService.voteForOption(poll.getId(), option.getId());
+            Assertions.assertEquals(option.getVotes() + i, voted.getVotes());
+        }
+
+        // poll_option.votes is left untouched
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+        Long shardTotal = jdbcTemplate.queryForObject(
+                "SELECT sum(votes) FROM poll_option_vote_shard WHERE option_id = ?", Long.class, option.getId());
+        Assertions.assertEquals(10L, shardTotal);
+
+        var fromOptions = optionService.getPollOptionsDTOS(poll.getId()).stream()
+                .filter(o -> o.getId().equals(option.getId()))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(option.getVotes() + 10, fromOptions.getVotes());
+
+        var fromPoll = pollService.findById(poll.getId()).orElseThrow().getOptions().stream()
+                .filter(o -> o.getId().equals(option.getId()))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals(option.getVotes() + 10, fromPoll.getVotes());
+    }
+
+    @Test
+    void shouldCountBatchesOnShardsAllOrNothing() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+        var otherPoll = optionRepository.findAllByPollId(pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst().getId()).getFirst();
+
+        Assertions.assertThrows(OptionNotFoundException.class,
+                () -> optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, otherPoll.getId(), 1L)));
+        var voted = optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, optionB.getId(), 3L));
+
+        Assertions.assertEquals(2, voted.size());
+        Assertions.assertEquals(optionA.getVotes(), votesOf(optionA));
+        Long shardTotal = jdbcTemplate.queryForObject(
+                "SELECT sum(votes) FROM poll_option_vote_shard WHERE option_id IN (?, ?)", Long.class, optionA.getId(), optionB.getId());
+        Assertions.assertEquals(5L, shardTotal);
+        var counts = optionService.getPollOptionsDTOS(poll.getId());
+        Assertions.assertTrue(counts.stream().anyMatch(o -> o.getId().equals(optionA.getId()) && o.getVotes() == optionA.getVotes() + 2));
+        Assertions.assertTrue(counts.stream().anyMatch(o -> o.getId().equals(optionB.getId()) && o.getVotes() == optionB.getVotes() + 3));
+    }
+
+    @Test
+    void shouldImportBallotsOnShards() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var csv = "%d,%d\n".formatted(poll.getId(), option.getId()).repeat(4);
+
+        var result = importer.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), false);
+
+        Assertions.assertEquals(4, result.appliedVotes());
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+        Long shardTotal = jdbcTemplate.queryForObject(
+                "SELECT sum(votes) FROM poll_option_vote_shard WHERE option_id = ?", Long.class, option.getId());
+        Assertions.assertEquals(4L, shardTotal);
+    }
+}
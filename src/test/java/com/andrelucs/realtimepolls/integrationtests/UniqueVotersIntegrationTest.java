@@ -0,0 +1,98 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polloptions.PollVoterRepository;
+import com.andrelucs.realtimepolls.polloptions.voting.UniqueVoterCounter;
+import com.andrelucs.realtimepolls.polloptions.voting.VoterSketch;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "votes.unique-voters.enabled=true")
+@AutoConfigureMockMvc
+public class UniqueVotersIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    PollVoterRepository voterRepository;
+    @Autowired
+    UniqueVoterCounter uniqueVoterCounter;
+
+    @Autowired
+    public UniqueVotersIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldCountEachVoterOnce() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        for (String voter : new String[]{"ana", "bruno", "carla", "ana", "bruno"}) {
+            vote(poll.getId(), option, voter);
+        }
+
+        mockMvc.perform(get("/api/poll/%d".formatted(poll.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uniqueVoters").value(3));
+    }
+
+    @Test
+    void shouldStoreTheSketchOnFlush() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        vote(poll.getId(), option, "ana");
+        vote(poll.getId(), option, "bruno");
+
+        uniqueVoterCounter.flush();
+
+        var stored = voterRepository.findVoterSketch(poll.getId()).orElseThrow();
+        Assertions.assertEquals(VoterSketch.REGISTERS, stored.length);
+        Assertions.assertEquals(2, VoterSketch.fromBytes(stored).estimate());
+    }
+
+    @Test
+    void shouldMergeTheSketchesOfEveryNode() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var thisNode = new VoterSketch();
+        var otherNode = new VoterSketch();
+        for (int i = 0; i < 3_000; i++) thisNode.add("voter-" + i);
+        for (int i = 2_000; i < 5_000; i++) otherNode.add("voter-" + i);
+
+        voterRepository.mergeVoterSketch(poll.getId(), otherNode.toBytes());
+        var merged = voterRepository.mergeVoterSketch(poll.getId(), thisNode.toBytes());
+
+        var expected = VoterSketch.fromBytes(thisNode.toBytes());
+        expected.merge(otherNode.toBytes());
+        Assertions.assertArrayEquals(expected.toBytes(), merged);
+        Assertions.assertNull(voterRepository.mergeVoterSketch(-1L, thisNode.toBytes()));
+    }
+
+    @Test
+    void shouldAnswerFinishedPollsFromTheStoredSketch() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var sketch = new VoterSketch();
+        sketch.add("ana");
+        voterRepository.mergeVoterSketch(poll.getId(), sketch.toBytes());
+
+        mockMvc.perform(get("/api/poll/%d".formatted(poll.getId())))
+                .andExpect(jsonPath("$.uniqueVoters").value(1));
+    }
+
+    private void vote(Long pollId, PollOption option, String voter) throws Exception {
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(pollId, option.getId()))
+                        .header("X-Voter-Key", voter))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,74 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.JdbcConcurrencyLimiter;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "jdbc.limiter.enabled=true",
+        "jdbc.limiter.permits=2",
+        "jdbc.limiter.acquire-timeout-ms=100",
+        "jdbc.limiter.retry-after-seconds=2"
+})
+@AutoConfigureMockMvc
+public class VirtualThreadsIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    JdbcConcurrencyLimiter jdbcLimiter;
+    @Autowired
+    TaskScheduler threadPollTaskScheduler;
+
+    @Autowired
+    public VirtualThreadsIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldRunScheduledTasksOnVirtualThreads() throws Exception {
+        var virtual = new CompletableFuture<Boolean>();
+        threadPollTaskScheduler.schedule(() -> virtual.complete(Thread.currentThread().isVirtual()), Instant.now());
+
+        Assertions.assertTrue(virtual.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldAnswer503WhenNoDatabasePermitFreesUp() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var voteUrl = "/api/poll/%d/options/%d".formatted(poll.getId(), option.getId());
+
+        // MockMvc runs the request on this thread, which would be lent more connections on top of its own permit
+        try (var first = connectionOnAnotherThread(dataSource); var second = connectionOnAnotherThread(dataSource)) {
+            Assertions.assertEquals(2, jdbcLimiter.getInUse());
+
+            mockMvc.perform(patch(voteUrl))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "2"));
+        }
+
+        mockMvc.perform(patch(voteUrl)).andExpect(status().isOk());
+        Assertions.assertEquals(0, jdbcLimiter.getInUse());
+        Assertions.assertEquals(option.getVotes() + 1, votesOf(option));
+    }
+}
@@ -0,0 +1,116 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteWriter;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.PollSubscriptionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.andrelucs.realtimepolls.integrationtests.VoteBroadcastSqlIntegrationTest$StatementCounter")
+public class VoteBroadcastSqlIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    VoteWriter voteWriter;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    PollSubscriptionRegistry subscriptions;
+    @MockitoSpyBean
+    SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    public VoteBroadcastSqlIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    /**
+     * Counts the statements Hibernate prepares on the current thread while counting is on
+     */
+    public static class StatementCounter implements StatementInspector {
+        private static final ThreadLocal<AtomicInteger> COUNT = new ThreadLocal<>();
+
+        static void start() {
+            COUNT.set(new AtomicInteger());
+        }
+
+        static int stop() {
+            var count = COUNT.get();
+            COUNT.remove();
+            return count.get();
+        }
+
+        @Override
+        public String inspect(String sql) {
+            var count = COUNT.get();
+            if (count != null) count.incrementAndGet();
+            return sql;
+        }
+    }
+
+    @Test
+    void shouldBroadcastVotesWithoutQueryingTheDatabase() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var votesTopic = "/topic/poll.%d.votes".formatted(poll.getId());
+        subscriptions.onSubscribe(new SessionSubscribeEvent(this, subscribeFrame("session-0", votesTopic)));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            voteWriter.write(poll.getId(), option.getId()).orElseThrow();
+            // Everything after this runs on commit, the broadcast included
+            StatementCounter.start();
+        });
+        int statements = StatementCounter.stop();
+
+        var message = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq(votesTopic), message.capture());
+        var sent = objectMapper.readTree((byte[]) message.getValue().getPayload());
+        Assertions.assertEquals(option.getVotes() + 1L, sent.get("votes").asLong());
+        Assertions.assertEquals(0, statements, "Broadcasting a vote should not run any SQL");
+        subscriptions.onDisconnect(new SessionDisconnectEvent(this, subscribeFrame("session-0", votesTopic), "session-0", CloseStatus.NORMAL));
+    }
+
+    @Test
+    void shouldSkipPollsNobodySubscribedTo() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getLast();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        transactionTemplate.executeWithoutResult(status -> voteWriter.write(poll.getId(), option.getId()).orElseThrow());
+
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+    }
+
+    private static Message<byte[]> subscribeFrame(String sessionId, String destination) {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId("sub-0");
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,85 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * Compares the single row UPDATE on poll_option against the sharded counter, all voters hitting the same option.
+ * Run with {@code mvn test -Dtest=VoteContentionBenchmarkTest -Dbenchmarks=true [-Dbenchmarks.seconds=5]}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=70")
+public class VoteContentionBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VoteContentionBenchmarkTest.class);
+    private static final int[] VOTERS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int SHARDS = 16;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public VoteContentionBenchmarkTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void compareSingleRowWithShardedCounter() throws Exception {
+        long seconds = Long.getLong("benchmarks.seconds", 3);
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        long pollId = poll.getId();
+        long optionId = optionRepository.findAllByPollId(pollId).getFirst().getId();
+
+        LongConsumer singleRow = id -> optionRepository.voteForOption(pollId, id);
+        LongConsumer sharded = id -> optionRepository.voteForOptionShard(pollId, id, ThreadLocalRandom.current().nextInt(SHARDS));
+
+        // warm up connections and plans
+        run(singleRow, optionId, 8, 1);
+        run(sharded, optionId, 8, 1);
+
+        var report = new StringBuilder(String.format("%n%8s %16s %16s%n", "voters", "single row/s", "sharded/s"));
+        for (int voters : VOTERS) {
+            double single = run(singleRow, optionId, voters, seconds);
+            double shard = run(sharded, optionId, voters, seconds);
+            report.append(String.format("%8d %16.0f %16.0f%n", voters, single, shard));
+        }
+        log.info("Vote throughput on a single option, {}s per run:{}", seconds, report);
+    }
+
+    private double run(LongConsumer vote, long optionId, int voters, long seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        List<Future<Long>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(voters)) {
+            for (int i = 0; i < voters; i++) {
+                results.add(executor.submit(() -> {
+                    long count = 0;
+                    while (System.nanoTime() < deadline) {
+                        transactionTemplate.executeWithoutResult(status -> vote.accept(optionId));
+                        count++;
+                    }
+                    return count;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> result : results) total += result.get();
+            Assertions.assertTrue(total > 0);
+            return (double) total / seconds;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteJournal;
+import com.andrelucs.realtimepolls.polloptions.voting.WriteBehindVoteWriter;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest(properties = {
+        "votes.mode=write-behind",
+        "votes.write-behind.flush-interval-ms=60000", // flushed manually by the tests
+        "votes.write-behind.journal.enabled=true",
+        "votes.write-behind.journal.fsync=batch",
+        "votes.write-behind.journal.segment-records=" + VoteJournalIntegrationTest.SEGMENT_RECORDS
+})
+public class VoteJournalIntegrationTest extends AbstractIntegrationTest {
+
+    static final int SEGMENT_RECORDS = 64;
+    private static final Path JOURNAL_DIR = createJournalDir();
+
+    @Autowired
+    OptionService optionService;
+    @Autowired
+    WriteBehindVoteWriter writer;
+
+    @Autowired
+    public VoteJournalIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @DynamicPropertySource
+    static void journalDir(DynamicPropertyRegistry registry) {
+        registry.add("votes.write-behind.journal.dir", JOURNAL_DIR::toString);
+    }
+
+    @Test
+    void shouldJournalVotesBeforeAcknowledgingThem() throws IOException {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var journal = new VoteJournal(JOURNAL_DIR, SEGMENT_RECORDS);
+        long checkpoint = optionRepository.findJournalCheckpoint(journal.getId()).orElse(0L);
+
+        optionService.voteForOption(poll.getId(), option.getId());
+        optionService.voteForOption(poll.getId(), option.getId());
+
+        // Read back from the files, as a node restarting after a crash would
+        List<Long> journaled = new ArrayList<>();
+        long end = journal.replay(checkpoint, (pollId, optionId, delta, epochMillis) -> journaled.add(optionId));
+        Assertions.assertEquals(List.of(option.getId(), option.getId()), journaled);
+
+        writer.flush();
+
+        Assertions.assertEquals(option.getVotes() + 2, votesOf(option));
+        Assertions.assertEquals(end, optionRepository.findJournalCheckpoint(journal.getId()).orElseThrow());
+    }
+
+    private static Path createJournalDir() {
+        try {
+            return Files.createTempDirectory("vote-journal");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
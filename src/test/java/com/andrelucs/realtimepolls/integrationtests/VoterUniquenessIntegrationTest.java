@@ -0,0 +1,174 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.dto.RankedBallotDTO;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.data.model.PollType;
+import com.andrelucs.realtimepolls.data.model.PollVoter;
+import com.andrelucs.realtimepolls.exceptions.service.DuplicateVoteException;
+import com.andrelucs.realtimepolls.polloptions.PollVoterRepository;
+import com.andrelucs.realtimepolls.polloptions.voting.PollVoterRegistry;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.data.PollStatusUpdateDTO;
+import com.andrelucs.realtimepolls.websocket.events.PollStatusEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "votes.voters.enabled=true")
+@AutoConfigureMockMvc
+public class VoterUniquenessIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    PollVoterRepository voterRepository;
+    @Autowired
+    PollVoterRegistry voterRegistry;
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    public VoterUniquenessIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldAcceptOneVotePerVoter() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var url = "/api/poll/%d/options/%d".formatted(poll.getId(), option.getId());
+
+        mockMvc.perform(patch(url).header("X-Voter-Key", "voter-a"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.votes").value(option.getVotes() + 1));
+        mockMvc.perform(patch(url).header("X-Voter-Key", "voter-a"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch(url).header("X-Voter-Key", "voter-b"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.votes").value(option.getVotes() + 2));
+
+        Assertions.assertEquals(2, voterRepository.countByPollId(poll.getId()));
+        Assertions.assertEquals(option.getVotes() + 2, votesOf(option));
+    }
+
+    @Test
+    void shouldAcceptOneVotePerVoterOnEveryKindOfBallot() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        poll.setMaxSelections(2);
+        pollRepository.save(poll);
+        var ballot = "{\"selections\":\"Aw==\"}";
+
+        castBallot(poll.getId(), "ballots", ballot, "voter-a").andExpect(status().isOk());
+        castBallot(poll.getId(), "ballots", ballot, "voter-a").andExpect(status().isConflict());
+
+        poll.setType(PollType.RANKED);
+        pollRepository.save(poll);
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var ranked = objectMapper.writeValueAsString(new RankedBallotDTO(List.of(option.getId())));
+
+        castBallot(poll.getId(), "ranked-ballots", ranked, "voter-a").andExpect(status().isConflict());
+        castBallot(poll.getId(), "ranked-ballots", ranked, "voter-b").andExpect(status().isOk());
+
+        Assertions.assertEquals(2, voterRepository.countByPollId(poll.getId()));
+    }
+
+    @Test
+    void shouldRefuseBatchesOfVotes() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        mockMvc.perform(post("/api/poll/%d/votes".formatted(poll.getId()))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"optionId\":%d,\"count\":5}]".formatted(option.getId())))
+                .andExpect(status().isForbidden());
+
+        Assertions.assertEquals(option.getVotes(), votesOf(option));
+    }
+
+    @Test
+    void shouldRequireAVoterKey() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), option.getId())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldNotRecordVotersOfRejectedVotes() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(poll.getId(), option.getId())).header("X-Voter-Key", "voter-a"))
+                .andExpect(status().isConflict());
+
+        Assertions.assertEquals(0, voterRepository.countByPollId(poll.getId()));
+    }
+
+    @Test
+    void shouldRefuseVotesOnFinishedPollsBeforeRegisteringTheVoter() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var url = "/api/poll/%d/options/%d".formatted(poll.getId(), option.getId());
+
+        // The first rejection remembers the poll as finished
+        mockMvc.perform(patch(url).header("X-Voter-Key", "voter-a")).andExpect(status().isConflict());
+        double registered = meterRegistry.get("votes.voters.fast-path").counter().count();
+
+        mockMvc.perform(patch(url).header("X-Voter-Key", "voter-b")).andExpect(status().isConflict());
+        castBallot(poll.getId(), "ballots", "{\"selections\":\"AQ==\"}", "voter-c").andExpect(status().isConflict());
+
+        Assertions.assertEquals(registered, meterRegistry.get("votes.voters.fast-path").counter().count());
+        Assertions.assertEquals(0, voterRepository.countByPollId(poll.getId()));
+    }
+
+    @Test
+    void shouldRebuildFiltersFromRecordedVoters() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        voterRepository.save(PollVoter.builder().pollId(poll.getId()).voterKey("voter-from-before").build());
+
+        voterRegistry.rebuild();
+
+        Assertions.assertThrows(DuplicateVoteException.class, () -> voterRegistry.register(poll.getId(), "voter-from-before"));
+        Assertions.assertTrue(voterRegistry.register(poll.getId(), "new-voter"));
+    }
+
+    @Test
+    void shouldDropTheFilterWhenThePollFinishes() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        voterRegistry.rebuild();
+        int filtered = voterRegistry.filteredPolls();
+
+        eventPublisher.publishEvent(new PollStatusEvent(this, new PollStatusUpdateDTO(
+                poll.getId(), PollStatus.STARTED, PollStatus.FINISHED, LocalDateTime.now())));
+
+        Assertions.assertEquals(filtered - 1, voterRegistry.filteredPolls());
+    }
+
+    private ResultActions castBallot(Long pollId, String kind, String ballot, String voterKey) throws Exception {
+        return mockMvc.perform(post("/api/poll/%d/%s".formatted(pollId, kind))
+                .header("X-Voter-Key", voterKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(ballot));
+    }
+}
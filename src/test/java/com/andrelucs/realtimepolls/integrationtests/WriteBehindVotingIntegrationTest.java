@@ -0,0 +1,90 @@
+package com.andrelucs.realtimepolls.integrationtests;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polloptions.voting.WriteBehindVoteWriter;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+
+@SpringBootTest(properties = {
+        "votes.mode=write-behind",
+        "votes.write-behind.flush-interval-ms=60000" // flushed manually by the tests
+})
+public class WriteBehindVotingIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    OptionService optionService;
+    @Autowired
+    WriteBehindVoteWriter writer;
+
+    @Autowired
+    public WriteBehindVotingIntegrationTest(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @Test
+    void shouldOnlyPersistVotesOnFlush() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+
+        optionService.voteForOption(poll.getId(), optionA.getId());
+        optionService.voteForOption(poll.getId(), optionA.getId());
+        var lastVote = optionService.voteForOption(poll.getId(), optionB.getId());
+
+        Assertions.assertEquals(optionB.getVotes() + 1, lastVote.getVotes());
+        Assertions.assertEquals(optionA.getVotes(), votesOf(optionA));
+
+        writer.flush();
+
+        Assertions.assertEquals(optionA.getVotes() + 2, votesOf(optionA));
+        Assertions.assertEquals(optionB.getVotes() + 1, votesOf(optionB));
+    }
+
+    @Test
+    void shouldBufferBatchesAllOrNothing() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+        var otherPoll = optionRepository.findAllByPollId(pollRepository.findAllByStatus(PollStatus.FINISHED).getFirst().getId()).getFirst();
+
+        Assertions.assertThrows(OptionNotFoundException.class,
+                () -> optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, otherPoll.getId(), 1L)));
+        Assertions.assertEquals(0, writer.pendingVotes(optionA.getId()));
+
+        optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, optionB.getId(), 3L));
+        Assertions.assertEquals(2, writer.pendingVotes(optionA.getId()));
+        Assertions.assertEquals(optionA.getVotes(), votesOf(optionA));
+
+        writer.flush();
+
+        Assertions.assertEquals(optionA.getVotes() + 2, votesOf(optionA));
+        Assertions.assertEquals(optionB.getVotes() + 3, votesOf(optionB));
+    }
+
+    @Test
+    void shouldFlushVotesBufferedBeforeThePollFinished() {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+
+        optionService.voteForOption(poll.getId(), optionA.getId());
+        optionService.voteForOptions(poll.getId(), Map.of(optionA.getId(), 2L, optionB.getId(), 1L));
+        poll.setStatus(PollStatus.FINISHED);
+        pollRepository.save(poll);
+
+        writer.flush();
+
+        Assertions.assertEquals(optionA.getVotes() + 3, votesOf(optionA));
+        Assertions.assertEquals(optionB.getVotes() + 1, votesOf(optionB));
+    }
+}
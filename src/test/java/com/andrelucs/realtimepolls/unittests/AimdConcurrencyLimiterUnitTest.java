@@ -0,0 +1,81 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.polloptions.admission.AimdConcurrencyLimiter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AimdConcurrencyLimiterUnitTest {
+
+    private static final long FAST = 10_000_000L;  // 10ms
+    private static final long SLOW = 500_000_000L; // 500ms
+
+    private final AtomicLong nanoTime = new AtomicLong(0);
+
+    private AimdConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setup() {
+        // latency target of 100ms
+        limiter = new AimdConcurrencyLimiter(10, 2, 20, 0.5, 100, nanoTime::get);
+    }
+
+    @Test
+    void shouldRefuseRequestsOverTheLimit() {
+        for (int i = 0; i < 10; i++) Assertions.assertTrue(limiter.tryAcquire());
+
+        Assertions.assertFalse(limiter.tryAcquire());
+        Assertions.assertEquals(10, limiter.getInFlight());
+
+        limiter.release(FAST, false);
+        Assertions.assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void shouldBackOffOnSlowRequestsOncePerLatencyTarget() {
+        for (int i = 0; i < 5; i++) limiter.tryAcquire();
+
+        for (int i = 0; i < 5; i++) limiter.release(SLOW, false);
+        Assertions.assertEquals(5, limiter.getLimit());
+
+        nanoTime.addAndGet(SLOW);
+        limiter.onOverload();
+        Assertions.assertEquals(2, limiter.getLimit());
+
+        // Never below the minimum
+        nanoTime.addAndGet(SLOW);
+        limiter.onOverload();
+        Assertions.assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void shouldGrowWhileTheLimitIsUsedAndRequestsAreFast() {
+        for (int round = 0; round < 200; round++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) acquired++;
+            for (int i = 0; i < acquired; i++) limiter.release(FAST, false);
+        }
+
+        Assertions.assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void shouldNotGrowWhenIdle() {
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire();
+            limiter.release(FAST, false);
+        }
+
+        Assertions.assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void shouldBackOffOnFailures() {
+        limiter.tryAcquire();
+        limiter.release(FAST, true);
+
+        Assertions.assertEquals(5, limiter.getLimit());
+    }
+}
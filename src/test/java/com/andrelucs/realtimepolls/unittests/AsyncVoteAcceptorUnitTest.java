@@ -0,0 +1,95 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteQueueFullException;
+import com.andrelucs.realtimepolls.polloptions.voting.AsyncVoteAcceptor;
+import com.andrelucs.realtimepolls.polloptions.voting.PollStateCache;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AsyncVoteAcceptorUnitTest {
+
+    @Mock
+    private PollStateCache pollStateCache;
+
+    @Mock
+    private VoteWriter voteWriter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AsyncVoteAcceptor acceptor;
+
+    @BeforeEach
+    void setup() {
+        acceptor = new AsyncVoteAcceptor(pollStateCache, voteWriter, meterRegistry);
+        ReflectionTestUtils.setField(acceptor, "queueCapacity", 3);
+        ReflectionTestUtils.setField(acceptor, "drainers", 0); // only drained by stop()
+        ReflectionTestUtils.setField(acceptor, "batchSize", 10);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        acceptor.stop();
+    }
+
+    @Test
+    void shouldQueueVotesWithoutTouchingTheDatabase() {
+        acceptor.accept(1L, 10L);
+        acceptor.accept(1L, 10L);
+
+        Assertions.assertEquals(2, acceptor.queuedVotes());
+        Assertions.assertEquals(2, meterRegistry.get("votes.async.queue.depth").gauge().value());
+        Assertions.assertEquals(2, meterRegistry.get("votes.async.accepted").counter().count());
+        verifyNoInteractions(voteWriter);
+    }
+
+    @Test
+    void shouldRejectVotesWhenTheQueueIsFull() {
+        for (int i = 0; i < 3; i++) acceptor.accept(1L, 10L);
+
+        Assertions.assertThrows(VoteQueueFullException.class, () -> acceptor.accept(1L, 10L));
+        Assertions.assertEquals(1, meterRegistry.get("votes.async.rejected").counter().count());
+        Assertions.assertEquals(3, acceptor.queuedVotes());
+    }
+
+    @Test
+    void shouldNotQueueVotesTheCacheRejects() {
+        doThrow(new PollNotInProgressException("Poll is not in progress, cannot vote"))
+                .when(pollStateCache).checkVotable(2L, 20L);
+
+        Assertions.assertThrows(PollNotInProgressException.class, () -> acceptor.accept(2L, 20L));
+        Assertions.assertEquals(0, acceptor.queuedVotes());
+    }
+
+    @Test
+    void shouldApplyQueuedVotesGroupedByPoll() throws InterruptedException {
+        when(voteWriter.writeAll(any(), any())).thenReturn(List.of());
+
+        acceptor.accept(1L, 10L);
+        acceptor.accept(1L, 10L);
+        acceptor.accept(2L, 20L);
+
+        // stop applies whatever is left in the queue
+        acceptor.stop();
+
+        verify(voteWriter).writeAll(1L, Map.of(10L, 2L));
+        verify(voteWriter).writeAll(2L, Map.of(20L, 1L));
+        Assertions.assertEquals(3, meterRegistry.get("votes.async.dropped").counter().count());
+    }
+}
@@ -0,0 +1,106 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyInUseException;
+import com.andrelucs.realtimepolls.exceptions.service.IdempotencyKeyReusedException;
+import com.andrelucs.realtimepolls.polloptions.voting.IdempotencyKeyCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class IdempotencyKeyCacheUnitTest {
+
+    private final AtomicLong nanoTime = new AtomicLong(1_000_000_000L);
+
+    private IdempotencyKeyCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new IdempotencyKeyCache(1000, 60_000, 5_000, nanoTime::get);
+    }
+
+    @Test
+    void shouldReplayTheFirstResponse() {
+        Assertions.assertNull(cache.reserve("key-1", 1L, 10L));
+        cache.complete("key-1", 1L, 10L, "first response");
+
+        Assertions.assertEquals("first response", cache.reserve("key-1", 1L, 10L));
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    @Test
+    void shouldRejectRepeatsWhileTheFirstRequestRuns() {
+        cache.reserve("key-1", 1L, 10L);
+
+        Assertions.assertThrows(IdempotencyKeyInUseException.class, () -> cache.reserve("key-1", 1L, 10L));
+    }
+
+    @Test
+    void shouldRejectKeysReusedForAnotherVote() {
+        cache.reserve("key-1", 1L, 10L);
+        cache.complete("key-1", 1L, 10L, "first response");
+
+        Assertions.assertThrows(IdempotencyKeyReusedException.class, () -> cache.reserve("key-1", 1L, 11L));
+    }
+
+    @Test
+    void shouldRunAgainAfterARelease() {
+        cache.reserve("key-1", 1L, 10L);
+        cache.release("key-1");
+
+        Assertions.assertNull(cache.reserve("key-1", 1L, 10L));
+    }
+
+    @Test
+    void shouldForgetKeysAfterTheirTtl() {
+        cache.reserve("key-1", 1L, 10L);
+        cache.complete("key-1", 1L, 10L, "first response");
+
+        nanoTime.addAndGet(61_000_000_000L);
+
+        Assertions.assertNull(cache.reserve("key-1", 1L, 10L));
+    }
+
+    @Test
+    void shouldFreeReservationsOfRequestsThatNeverComplete() {
+        cache.reserve("key-1", 1L, 10L);
+
+        nanoTime.addAndGet(6_000_000_000L);
+
+        Assertions.assertNull(cache.reserve("key-1", 1L, 10L));
+    }
+
+    @Test
+    void shouldOnlyAllocateForTheKeysItHolds() {
+        var large = new IdempotencyKeyCache(1_000_000, 60_000, 5_000, nanoTime::get);
+        long initial = large.capacity();
+
+        for (int i = 0; i < 1000; i++) {
+            large.reserve("key-" + i, 1L, 10L);
+            large.complete("key-" + i, 1L, 10L, "response " + i);
+        }
+
+        // 64 segments of 16 slots until keys come in, far from the 2M slots of a million keys
+        Assertions.assertEquals(64 * 16, initial);
+        Assertions.assertTrue(large.capacity() > initial && large.capacity() <= 64 * 128);
+        Assertions.assertEquals(0, large.evictions());
+        Assertions.assertEquals("response 0", large.reserve("key-0", 1L, 10L));
+    }
+
+    @Test
+    void shouldStayBoundedWhenFull() {
+        for (int i = 0; i < 100_000; i++) {
+            nanoTime.incrementAndGet();
+            cache.reserve("key-" + i, 1L, 10L);
+            cache.complete("key-" + i, 1L, 10L, "response");
+        }
+
+        // 1000 keys grow to at most 64 segments of 32 slots
+        Assertions.assertEquals(64 * 32, cache.capacity());
+        Assertions.assertTrue(cache.size() <= 64 * 32);
+        Assertions.assertTrue(cache.evictions() > 0);
+        // The newest key is always kept
+        Assertions.assertEquals("response", cache.reserve("key-99999", 1L, 10L));
+    }
+}
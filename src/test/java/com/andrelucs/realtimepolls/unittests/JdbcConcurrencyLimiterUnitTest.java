@@ -0,0 +1,139 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.data.JdbcConcurrencyLimiter;
+import com.andrelucs.realtimepolls.exceptions.service.DatabaseBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JdbcConcurrencyLimiterUnitTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DataSource target = mock(DataSource.class);
+
+    private JdbcConcurrencyLimiter limiter;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        limiter = new JdbcConcurrencyLimiter(2, 50, 3, meterRegistry);
+        dataSource = limiter.limit(target);
+    }
+
+    @Test
+    void shouldHoldAPermitUntilTheConnectionIsClosed() throws Exception {
+        var first = connectionOnAnotherThread();
+        var second = connectionOnAnotherThread();
+        Assertions.assertEquals(2, limiter.getInUse());
+
+        first.close();
+        // Closing twice gives the permit back only once
+        first.close();
+        Assertions.assertEquals(1, limiter.getInUse());
+
+        second.close();
+        Assertions.assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldLendMoreConnectionsToAThreadHoldingAPermit() throws Exception {
+        var other = connectionOnAnotherThread();
+        var outer = dataSource.getConnection();
+
+        // Every permit is taken, a nested transaction still gets its connection
+        var nested = dataSource.getConnection();
+        Assertions.assertEquals(2, limiter.getInUse());
+
+        outer.close();
+        Assertions.assertEquals(2, limiter.getInUse());
+        nested.close();
+        Assertions.assertEquals(1, limiter.getInUse());
+        other.close();
+        Assertions.assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldRefuseConnectionsAfterTheAcquireTimeout() throws Exception {
+        var first = connectionOnAnotherThread();
+        var second = connectionOnAnotherThread();
+
+        var e = Assertions.assertThrows(DatabaseBusyException.class, dataSource::getConnection);
+        Assertions.assertEquals(3, e.getRetryAfterSeconds());
+        Assertions.assertEquals(1, meterRegistry.get("jdbc.limiter.rejected").counter().count());
+        Assertions.assertEquals(3, meterRegistry.get("jdbc.limiter.wait").timer().count());
+        verify(target, times(2)).getConnection();
+
+        first.close();
+        dataSource.getConnection().close();
+        second.close();
+        Assertions.assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldGiveThePermitBackWhenThePoolFails() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("pool down"));
+
+        Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+        Assertions.assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldForwardCallsToTheConnection() throws SQLException {
+        var pooled = mock(Connection.class);
+        when(target.getConnection()).thenReturn(pooled);
+        when(pooled.unwrap(Connection.class)).thenReturn(pooled);
+
+        try (var connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.commit();
+            Assertions.assertSame(pooled, connection.unwrap(Connection.class));
+        }
+
+        verify(pooled).setAutoCommit(false);
+        verify(pooled).commit();
+        verify(pooled).close();
+    }
+
+    @Test
+    void shouldGiveThePermitBackWhenANestedConnectionFails() throws SQLException {
+        var outer = dataSource.getConnection();
+        when(target.getConnection()).thenThrow(new SQLException("pool down"));
+
+        Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+        Assertions.assertEquals(1, limiter.getInUse());
+        outer.close();
+        Assertions.assertEquals(0, limiter.getInUse());
+    }
+
+    @Test
+    void shouldUnwrapToThePool() throws SQLException {
+        // Spring Boot derives Flyway's data source from it
+        Assertions.assertSame(target, dataSource.unwrap(DataSource.class));
+    }
+
+    // Permits are per thread, each connection held apart needs a thread of its own
+    private Connection connectionOnAnotherThread() throws Exception {
+        var connection = new CompletableFuture<Connection>();
+        Thread.ofPlatform().start(() -> {
+            try {
+                connection.complete(dataSource.getConnection());
+            } catch (SQLException e) {
+                connection.completeExceptionally(e);
+            }
+        });
+        return connection.get(1, TimeUnit.SECONDS);
+    }
+}
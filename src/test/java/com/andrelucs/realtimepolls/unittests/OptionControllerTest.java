@@ -3,11 +3,15 @@ package com.andrelucs.realtimepolls.unittests;
 import com.andrelucs.realtimepolls.polloptions.OptionController;
 import com.andrelucs.realtimepolls.polloptions.OptionService;
 import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteGate;
+import com.andrelucs.realtimepolls.polloptions.voting.Voter;
 import com.andrelucs.realtimepolls.polls.PollService;
 import com.andrelucs.realtimepolls.data.dto.PollDTO;
 import com.andrelucs.realtimepolls.data.dto.PollOptionDTO;
 import com.andrelucs.realtimepolls.data.model.PollStatus;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
@@ -28,6 +32,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Slf4j
@@ -152,21 +157,22 @@ public class OptionControllerTest {
 
         PollOptionDTO optionToVote = validPoll.getOptions().get(1);
 
-        when(pollService.pollExists(any())).thenReturn(true);
-        when(optionService.voteForOption(optionToVote.getId())).thenReturn(optionToVote);
+        when(optionService.voteForOption(eq(validPoll.getId()), eq(optionToVote.getId()), any(Voter.class)))
+                .thenReturn(new VoteGate.Outcome<>(optionToVote, false));
 
-        // Should receive the remaining pollOptions
-        var result = mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(validPoll.getId(), validPoll.getOptions().getLast().getId())))
+        var result = mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(validPoll.getId(), optionToVote.getId())))
                 .andExpect(status().isOk())
                 .andReturn();
 
         logResult(result);
+        // The vote statement already checks the poll
+        verify(pollService, never()).pollExists(any());
     }
 
     @Test
     void shouldFailToVoteInAInvalidOption() throws Exception {
 
-        when(pollService.pollExists(any())).thenReturn(false);
+        when(optionService.voteForOption(eq(99L), eq(222L), any(Voter.class))).thenThrow(new OptionNotFoundException("Option not found on this poll"));
 
         mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(99L, 222L)))
                 .andExpect(status().isNotFound());
@@ -176,6 +182,17 @@ public class OptionControllerTest {
 
     }
 
+    @Test
+    void shouldConflictWhenVotingOnAPollNotInProgress() throws Exception {
+
+        when(optionService.voteForOption(eq(5L), eq(20L), any(Voter.class))).thenThrow(new PollNotInProgressException("Poll is not in progress, cannot vote"));
+
+        mockMvc.perform(patch("/api/poll/%d/options/%d".formatted(5L, 20L)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Poll 5 is not in progress, cannot vote."))
+                .andExpect(jsonPath("$.statusCode").value(409));
+    }
+
     private void logResult(MvcResult result) throws UnsupportedEncodingException, JsonProcessingException {
         log.info("REQUEST: {}", result.getRequest().getRequestURI());
         log.info("BODY: {}", result.getRequest().getContentAsString());
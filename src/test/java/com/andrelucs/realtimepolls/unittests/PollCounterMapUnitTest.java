@@ -0,0 +1,75 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.websocket.PollCounterMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class PollCounterMapUnitTest {
+
+    private final PollCounterMap counts = new PollCounterMap();
+
+    @Test
+    void shouldCountAndRemoveAtZero() {
+        Assertions.assertEquals(0, counts.get(7L));
+        Assertions.assertEquals(1, counts.add(7L, 1));
+        Assertions.assertEquals(2, counts.add(7L, 1));
+        Assertions.assertEquals(1, counts.size());
+
+        Assertions.assertEquals(1, counts.add(7L, -1));
+        Assertions.assertEquals(0, counts.add(7L, -1));
+        Assertions.assertEquals(0, counts.get(7L));
+        Assertions.assertEquals(0, counts.size());
+        // Nothing to remove and nothing created by a decrement
+        Assertions.assertEquals(0, counts.add(7L, -1));
+        Assertions.assertEquals(0, counts.size());
+    }
+
+    @Test
+    void shouldMatchAHashMapThroughGrowthAndRemovals() {
+        Map<Long, Integer> expected = new HashMap<>();
+        var random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Few distinct keys, so entries keep being added and removed while the stripes grow and shrink
+            long pollId = random.nextInt(5_000) - 100;
+            int delta = random.nextBoolean() ? 1 : -1;
+            int count = Math.max(0, expected.getOrDefault(pollId, 0) + delta);
+            if (count == 0) expected.remove(pollId);
+            else expected.put(pollId, count);
+
+            Assertions.assertEquals(count, counts.add(pollId, delta));
+        }
+
+        Assertions.assertEquals(expected.size(), counts.size());
+        for (long pollId = -100; pollId < 4_900; pollId++) {
+            Assertions.assertEquals(expected.getOrDefault(pollId, 0), counts.get(pollId), "poll " + pollId);
+        }
+    }
+
+    @Test
+    void shouldKeepCountsUnderConcurrentUpdates() throws InterruptedException {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                for (int round = 0; round < 50; round++) {
+                    for (long pollId = 0; pollId < 1_000; pollId++) counts.add(pollId, 1);
+                    for (long pollId = 0; pollId < 1_000; pollId++) counts.get(pollId);
+                    for (long pollId = 0; pollId < 1_000; pollId++) counts.add(pollId, -1);
+                }
+                for (long pollId = 0; pollId < 1_000; pollId++) counts.add(pollId, 1);
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(1_000, counts.size());
+        for (long pollId = 0; pollId < 1_000; pollId++) Assertions.assertEquals(threads, counts.get(pollId));
+    }
+}
@@ -7,10 +7,15 @@ import com.andrelucs.realtimepolls.data.model.Poll;
 import com.andrelucs.realtimepolls.data.model.PollOption;
 import com.andrelucs.realtimepolls.data.model.PollStatus;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollUpdateException;
+import com.andrelucs.realtimepolls.exceptions.service.OptionNotFoundException;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
 import com.andrelucs.realtimepolls.polloptions.OptionService;
 import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVote;
+import com.andrelucs.realtimepolls.polloptions.voting.DirectVoteWriter;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteBatchWriter;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteGate;
 import com.andrelucs.realtimepolls.polls.PollRepository;
-import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,6 +28,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,7 +36,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
-@ContextConfiguration(classes = {OptionService.class, ModelMapperConfiguration.class})
+@ContextConfiguration(classes = {OptionService.class, DirectVoteWriter.class, VoteGate.class, ModelMapperConfiguration.class})
 @Slf4j
 class PollOptionServiceTest {
 
@@ -41,7 +47,7 @@ class PollOptionServiceTest {
     PollRepository pollRepository;
 
     @MockitoBean
-    EntityManager entityManager;
+    VoteBatchWriter batchWriter;
 
     @Autowired
     OptionService optionService;
@@ -138,72 +144,136 @@ class PollOptionServiceTest {
 
     @Test
     void shouldAddVoteWhenPollIsInProgress() {
+        Long pollId = 100L;
         Long optionId = 1L;
-        Poll poll = Poll.builder()
-                .id(100L)
-                .status(PollStatus.STARTED)
-                .startDate(LocalDateTime.now().minusDays(1))
-                .endDate(LocalDateTime.now().plusDays(1))
-                .build();
 
-        PollOption option = PollOption.builder()
-                .id(optionId)
-                .description("Opção A")
-                .votes(5)
-                .poll(poll)
-                .build();
+        PollOptionVote voted = mock(PollOptionVote.class);
+        when(voted.getId()).thenReturn(optionId);
+        when(voted.getPollId()).thenReturn(pollId);
+        when(voted.getDescription()).thenReturn("Opção A");
+        when(voted.getVotes()).thenReturn(6);
 
-        // Mocka o repositório para retornar a opção existente
-        when(pollOptionRepository.findById(optionId)).thenReturn(Optional.of(option));
-        // Mocka o save para retornar a opção com votos incrementados
-        when(pollOptionRepository.saveAndFlush(any(PollOption.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
-        when(pollOptionRepository.incrementVote(any())).thenReturn(1);
+        // O voto e as validações acontecem em um único statement
+        when(pollOptionRepository.voteForOption(pollId, optionId)).thenReturn(Optional.of(voted));
 
-        PollOptionDTO result = optionService.voteForOption(optionId);
+        PollOptionDTO result = optionService.voteForOption(pollId, optionId);
 
         assertNotNull(result);
-        //update happens on the repository so don't check it here
-//        assertEquals(6, result.votes()); // voto incrementado
+        assertEquals(6, result.getVotes());
         assertEquals("Opção A", result.getDescription());
-        verify(pollOptionRepository, times(1)).incrementVote(any());
+        verify(pollOptionRepository, times(1)).voteForOption(pollId, optionId);
+        verify(pollOptionRepository, never()).findPollStatus(any(), any());
+        verify(pollOptionRepository, never()).findById(any());
     }
 
     @Test
     void shouldThrowExceptionWhenPollIsNotInProgress() {
+        Long pollId = 200L;
         Long optionId = 2L;
-        Poll poll = Poll.builder()
-                .id(200L)
-                .status(PollStatus.NOT_STARTED) // ❌ não está em andamento
-                .startDate(LocalDateTime.now().plusDays(1))
-                .endDate(LocalDateTime.now().plusDays(2))
-                .build();
 
-        PollOption option = PollOption.builder()
-                .id(optionId)
-                .description("Opção B")
-                .votes(0)
-                .poll(poll)
-                .build();
+        when(pollOptionRepository.voteForOption(pollId, optionId)).thenReturn(Optional.empty());
+        when(pollOptionRepository.findPollStatus(pollId, optionId)).thenReturn(Optional.of(PollStatus.NOT_STARTED));
 
-        when(pollOptionRepository.findById(optionId)).thenReturn(Optional.of(option));
-
-        assertThrows(InvalidPollUpdateException.class,
-                () -> optionService.voteForOption(optionId));
+        assertThrows(PollNotInProgressException.class,
+                () -> optionService.voteForOption(pollId, optionId));
 
         verify(pollOptionRepository, never()).saveAndFlush(any(PollOption.class));
     }
 
+    @Test
+    void shouldRefuseVotesOnFinishedPollsWithoutQuerying() {
+        Long pollId = 400L;
+        Long optionId = 4L;
+
+        when(pollOptionRepository.voteForOption(pollId, optionId)).thenReturn(Optional.empty());
+        when(pollOptionRepository.findPollStatus(pollId, optionId)).thenReturn(Optional.of(PollStatus.FINISHED));
+        when(pollOptionRepository.findOptionIds(pollId)).thenReturn(List.of(5L, optionId));
+
+        var first = assertThrows(PollNotInProgressException.class, () -> optionService.voteForOption(pollId, optionId));
+        var second = assertThrows(PollNotInProgressException.class, () -> optionService.voteForOption(pollId, optionId));
+
+        // The poll is remembered as finished, the same stackless instance answers both
+        assertSame(first, second);
+        assertEquals(0, second.getStackTrace().length);
+        verify(pollOptionRepository, times(1)).voteForOption(pollId, optionId);
+        verify(pollOptionRepository, times(1)).findPollStatus(pollId, optionId);
+    }
+
+    @Test
+    void shouldStillRefuseMissingOptionsOfFinishedPollsAsNotFound() {
+        Long pollId = 401L;
+        Long optionId = 4L;
+
+        when(pollOptionRepository.voteForOption(pollId, optionId)).thenReturn(Optional.empty());
+        when(pollOptionRepository.findPollStatus(pollId, optionId)).thenReturn(Optional.of(PollStatus.FINISHED));
+        when(pollOptionRepository.findOptionIds(pollId)).thenReturn(List.of(optionId));
+        assertThrows(PollNotInProgressException.class, () -> optionService.voteForOption(pollId, optionId));
+
+        assertThrows(OptionNotFoundException.class, () -> optionService.voteForOption(pollId, 999L));
+        verify(pollOptionRepository, never()).voteForOption(pollId, 999L);
+    }
+
     @Test
     void shouldThrowExceptionWhenOptionNotFound() {
+        Long pollId = 300L;
         Long optionId = 999L;
 
-        when(pollOptionRepository.findById(optionId)).thenReturn(Optional.empty());
+        when(pollOptionRepository.voteForOption(pollId, optionId)).thenReturn(Optional.empty());
+        when(pollOptionRepository.findPollStatus(pollId, optionId)).thenReturn(Optional.empty());
 
-        assertThrows(InvalidPollUpdateException.class,
-                () -> optionService.voteForOption(optionId));
+        assertThrows(OptionNotFoundException.class,
+                () -> optionService.voteForOption(pollId, optionId));
 
         verify(pollOptionRepository, never()).saveAndFlush(any(PollOption.class));
     }
 
+    @Test
+    void shouldApplyABatchOfVotesAtOnce() {
+        Long pollId = 400L;
+        PollOptionVote optionA = mock(PollOptionVote.class);
+        when(optionA.getId()).thenReturn(1L);
+        when(optionA.getVotes()).thenReturn(5);
+        PollOptionVote optionB = mock(PollOptionVote.class);
+        when(optionB.getId()).thenReturn(2L);
+        when(optionB.getVotes()).thenReturn(3);
+
+        Map<Long, Long> counts = Map.of(1L, 5L, 2L, 3L);
+        when(batchWriter.applyAllToPoll(pollId, counts)).thenReturn(List.of(optionA, optionB));
+
+        var result = optionService.voteForOptions(pollId, counts);
+
+        assertEquals(2, result.size());
+        assertEquals(5, result.get(0).getVotes());
+        verify(batchWriter, times(1)).applyAllToPoll(pollId, counts);
+        verify(pollRepository, never()).findById(any());
+    }
+
+    @Test
+    void shouldRejectTheWholeBatchWhenThePollIsNotInProgress() {
+        Long pollId = 500L;
+        Poll poll = Poll.builder().id(pollId).status(PollStatus.FINISHED).build();
+        Map<Long, Long> counts = Map.of(1L, 5L, 2L, 3L);
+
+        when(batchWriter.applyAllToPoll(pollId, counts)).thenReturn(List.of());
+        when(pollRepository.findById(pollId)).thenReturn(Optional.of(poll));
+
+        assertThrows(PollNotInProgressException.class,
+                () -> optionService.voteForOptions(pollId, counts));
+    }
+
+    @Test
+    void shouldRejectTheWholeBatchWhenAnOptionIsNotOnThePoll() {
+        Long pollId = 600L;
+        Poll poll = Poll.builder().id(pollId).status(PollStatus.STARTED).build();
+        Map<Long, Long> counts = Map.of(1L, 5L, 99L, 3L);
+
+        when(batchWriter.applyAllToPoll(pollId, counts)).thenReturn(List.of());
+        when(pollOptionRepository.findOptionIds(pollId)).thenReturn(List.of(1L, 2L));
+        when(pollRepository.findById(pollId)).thenReturn(Optional.of(poll));
+
+        var e = assertThrows(OptionNotFoundException.class,
+                () -> optionService.voteForOptions(pollId, counts));
+        assertTrue(e.getMessage().contains("99"));
+    }
+
 }
@@ -0,0 +1,143 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.websocket.PollReplayBuffer;
+import com.andrelucs.realtimepolls.websocket.PollReplayBuffer.Frame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class PollReplayBufferUnitTest {
+
+    private static final String VOTES = "/topic/poll.7.votes";
+    private static final String STATUS = "/topic/poll.7.status";
+
+    private final PollReplayBuffer buffer = new PollReplayBuffer(4, 1024);
+    private final List<Long> sent = new ArrayList<>();
+
+    @Test
+    void shouldNumberEachPollOnItsOwn() {
+        Assertions.assertEquals(1, append(7L, VOTES, 10));
+        Assertions.assertEquals(2, append(7L, STATUS, 10));
+        Assertions.assertEquals(1, append(8L, "/topic/poll.8.votes", 10));
+        Assertions.assertEquals(3, append(7L, VOTES, 10));
+
+        Assertions.assertEquals(List.of(1L, 2L, 1L, 3L), sent);
+        Assertions.assertEquals(3, buffer.lastSequence(7L));
+        Assertions.assertEquals(0, buffer.lastSequence(9L));
+    }
+
+    @Test
+    void shouldReplayTheFramesOfTheDestinationAfterTheSequence() {
+        append(7L, VOTES, 10);
+        append(7L, STATUS, 10);
+        append(7L, VOTES, 10);
+        append(7L, VOTES, 10);
+
+        Assertions.assertEquals(List.of(3L, 4L), replay(7L, VOTES, 1));
+        Assertions.assertEquals(List.of(2L), replay(7L, STATUS, 1));
+        // Nothing missed
+        Assertions.assertEquals(List.of(), replay(7L, VOTES, 4));
+    }
+
+    @Test
+    void shouldRefuseGapsItNoLongerHolds() {
+        for (int i = 0; i < 6; i++) append(7L, VOTES, 10);
+
+        // Frames 1 and 2 were dropped to keep 4
+        Assertions.assertEquals(4, buffer.size(7L));
+        Assertions.assertNull(replay(7L, VOTES, 1));
+        Assertions.assertEquals(List.of(3L, 4L, 5L, 6L), replay(7L, VOTES, 2));
+        // Sequences never sent, e.g. from before a restart
+        Assertions.assertNull(replay(7L, VOTES, 7));
+        Assertions.assertNull(replay(8L, VOTES, 0));
+    }
+
+    @Test
+    void shouldCapTheBytesOfEachPoll() {
+        for (int i = 0; i < 3; i++) append(7L, VOTES, 400);
+
+        Assertions.assertEquals(2, buffer.size(7L));
+        Assertions.assertEquals(800, buffer.bytes(7L));
+
+        // A frame bigger than the cap is still kept alone
+        append(7L, VOTES, 2000);
+        Assertions.assertEquals(1, buffer.size(7L));
+        Assertions.assertEquals(List.of(4L), replay(7L, VOTES, 3));
+    }
+
+    @Test
+    void shouldRequireASnapshotPastASkippedFrame() {
+        append(7L, VOTES, 10);
+        append(7L, VOTES, 10);
+
+        buffer.skip(7L);
+
+        Assertions.assertEquals(3, buffer.lastSequence(7L));
+        Assertions.assertEquals(0, buffer.size(7L));
+        Assertions.assertNull(replay(7L, VOTES, 1));
+        Assertions.assertNull(replay(7L, VOTES, 2));
+        Assertions.assertEquals(List.of(), replay(7L, VOTES, 3));
+        Assertions.assertEquals(4, append(7L, VOTES, 10));
+    }
+
+    @Test
+    void shouldFreeForgottenPolls() {
+        append(7L, VOTES, 10);
+
+        buffer.forget(7L);
+
+        Assertions.assertEquals(0, buffer.size(7L));
+        Assertions.assertEquals(0, buffer.bytes(7L));
+        Assertions.assertNull(replay(7L, VOTES, 1));
+    }
+
+    @Test
+    void shouldHoldAppendsUntilReleased() throws Exception {
+        append(7L, VOTES, 10);
+        append(7L, VOTES, 10);
+
+        var hold = buffer.hold(7L);
+        var appending = CompletableFuture.supplyAsync(() -> buffer.append(7L, VOTES, new byte[10], sequence -> {}));
+        Assertions.assertThrows(TimeoutException.class, () -> appending.get(200, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(2, hold.sequence());
+        Assertions.assertEquals(List.of(2L), replay(7L, VOTES, 1, hold.sequence()));
+        hold.release();
+
+        Assertions.assertEquals(3, appending.get(5, TimeUnit.SECONDS));
+        // Frames after the given sequence are left to the broker
+        Assertions.assertEquals(List.of(2L), replay(7L, VOTES, 1, 2));
+        Assertions.assertNull(replay(7L, VOTES, 1, 4));
+    }
+
+    @Test
+    void shouldNotKeepPollsThatAreOnlyHeld() {
+        Assertions.assertNull(buffer.hold(9L));
+        Assertions.assertEquals(0, buffer.polls());
+
+        append(9L, "/topic/poll.9.votes", 10);
+        var hold = buffer.hold(9L);
+        Assertions.assertEquals(1, hold.sequence());
+        hold.release();
+        Assertions.assertEquals(1, buffer.polls());
+    }
+
+    private long append(long pollId, String destination, int bytes) {
+        return buffer.append(pollId, destination, new byte[bytes], sent::add);
+    }
+
+    private List<Long> replay(long pollId, String destination, long afterSequence) {
+        return replay(pollId, destination, afterSequence, buffer.lastSequence(pollId));
+    }
+
+    // Sequences replayed, null when the gap can't be replayed
+    private List<Long> replay(long pollId, String destination, long afterSequence, long upToSequence) {
+        var replayed = new ArrayList<Long>();
+        boolean replayable = buffer.replay(pollId, destination, afterSequence, upToSequence, (Frame frame) -> replayed.add(frame.sequence()));
+        return replayable ? replayed : null;
+    }
+}
@@ -8,6 +8,8 @@ import com.andrelucs.realtimepolls.data.model.PollOption;
 import com.andrelucs.realtimepolls.data.model.StatusToUpdate;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollCreationException;
 import com.andrelucs.realtimepolls.exceptions.service.InvalidPollEditException;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteWriter;
 import com.andrelucs.realtimepolls.polls.PollRepository;
 import com.andrelucs.realtimepolls.polls.PollService;
 import com.andrelucs.realtimepolls.data.model.Poll;
@@ -43,6 +45,12 @@ public class PollServiceTest {
     @MockitoBean
     PollRepository pollRepository;
 
+    @MockitoBean
+    PollOptionRepository optionRepository;
+
+    @MockitoBean
+    VoteWriter voteWriter;
+
     @Autowired
     PollService service;
 
@@ -51,6 +59,8 @@ public class PollServiceTest {
     @BeforeEach
     void setUp() {
         reset();
+        // Stored polls have at least the 3 options they were created with
+        when(optionRepository.countByPollId(any())).thenReturn(3L);
 
         testPolls = List.of(
                 Poll.builder()
@@ -176,6 +186,18 @@ public class PollServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void shouldReadSnapshotWithoutRecalculatingTheStatus() {
+        Poll poll = testPolls.getFirst();
+        when(pollRepository.findById(1L)).thenReturn(Optional.of(poll));
+
+        Optional<PollDTO> result = service.findSnapshot(1L);
+
+        assertTrue(result.isPresent());
+        assertEquals(poll.getId(), result.get().getId());
+        verify(pollRepository, never()).recalculateStatusById(any());
+    }
+
     @Test
     void shouldSaveValidPoll() throws InvalidPollCreationException {
         var request = new PollRequestDTO(
@@ -231,6 +253,19 @@ public class PollServiceTest {
         assertThrows(InvalidPollCreationException.class, () -> service.save(request));
     }
 
+    @Test
+    void shouldNotAllowMoreSelectionsThanOptions() {
+        PollRequestDTO request = new PollRequestDTO(
+                "Quais linguagens você usa?",
+                LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2),
+                List.of("Java", "Go", "Rust"),
+                4
+        );
+
+        assertThrows(InvalidPollCreationException.class, () -> service.save(request));
+    }
+
     @Test
     void shouldReturnTrueWhenPollExists() {
         when(pollRepository.existsById(1L)).thenReturn(true);
@@ -272,6 +307,17 @@ public class PollServiceTest {
 
         assertEquals("Pergunta editada", result.getQuestion());
     }
+
+    @Test
+    void shouldNotEditMoreSelectionsThanOptions() {
+        Poll existingPoll = testPolls.getFirst(); // NOT_STARTED
+        when(pollRepository.findById(existingPoll.getId())).thenReturn(Optional.of(existingPoll));
+
+        var newData = new PollEditRequestDTO(null, null, null, 4);
+
+        assertThrows(InvalidPollEditException.class, () -> service.editPoll(existingPoll.getId(), newData));
+        verify(pollRepository, never()).save(any(Poll.class));
+    }
     @Test
     void shouldThrowExceptionWhenEditingStartedOrFurtherPoll() {
         Poll startedPoll = testPolls.get(1); // STARTED
@@ -0,0 +1,69 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.data.model.Poll;
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.exceptions.service.PollNotInProgressException;
+import com.andrelucs.realtimepolls.polloptions.voting.PollStateCache;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PollStateCacheUnitTest {
+
+    private static final long OPTION_ID = 10L;
+
+    @Mock
+    private PollRepository pollRepository;
+
+    private PollStateCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new PollStateCache(pollRepository);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+    }
+
+    @Test
+    void shouldRejectVotesOnFinishedPollsFromMemory() {
+        when(pollRepository.findFullPollById(1L)).thenReturn(Optional.of(poll(1L, PollStatus.FINISHED)));
+
+        Assertions.assertThrows(PollNotInProgressException.class, () -> cache.checkVotable(1L, OPTION_ID));
+        Assertions.assertThrows(PollNotInProgressException.class, () -> cache.checkVotable(1L, OPTION_ID));
+
+        verify(pollRepository, times(1)).findFullPollById(1L);
+    }
+
+    @Test
+    void shouldNotHoldMorePollsThanItsBound() {
+        when(pollRepository.findFullPollById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(poll(invocation.getArgument(0), PollStatus.FINISHED)));
+
+        for (long pollId = 1; pollId <= 10_001; pollId++) {
+            long id = pollId;
+            Assertions.assertThrows(PollNotInProgressException.class, () -> cache.checkVotable(id, OPTION_ID));
+        }
+
+        Assertions.assertTrue(cache.size() <= 10_000);
+    }
+
+    private static Poll poll(Long pollId, PollStatus status) {
+        return Poll.builder()
+                .id(pollId)
+                .status(status)
+                .options(List.of(PollOption.builder().id(OPTION_ID).build()))
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.websocket.PollSubscriptionRegistry;
+import com.andrelucs.realtimepolls.websocket.PollSubscriptionRegistry.PollTopic;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+public class PollSubscriptionRegistryUnitTest {
+
+    private final PollSubscriptionRegistry registry = new PollSubscriptionRegistry();
+
+    @Test
+    void shouldCountSubscriptionsPerPollAndTopic() {
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/poll.7.votes"));
+        registry.onSubscribe(subscribe("s2", "sub-0", "/topic/poll.7.votes"));
+        registry.onSubscribe(subscribe("s2", "sub-1", "/topic/poll.7.status"));
+        registry.onSubscribe(subscribe("s2", "sub-2", "/topic/poll.8.votes"));
+
+        Assertions.assertEquals(2, registry.subscribers(7L, PollTopic.VOTES));
+        Assertions.assertEquals(1, registry.subscribers(7L, PollTopic.STATUS));
+        Assertions.assertEquals(1, registry.subscribers(8L, PollTopic.VOTES));
+        Assertions.assertFalse(registry.hasSubscribers(8L, PollTopic.STATUS));
+        Assertions.assertEquals(2, registry.watchedPolls(PollTopic.VOTES));
+    }
+
+    @Test
+    void shouldForgetUnsubscribedAndDisconnectedSessions() {
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/poll.7.votes"));
+        registry.onSubscribe(subscribe("s2", "sub-0", "/topic/poll.7.votes"));
+        registry.onSubscribe(subscribe("s2", "sub-1", "/topic/poll.7.status"));
+
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(SimpMessageType.UNSUBSCRIBE, "s1", "sub-0", null)));
+        Assertions.assertEquals(1, registry.subscribers(7L, PollTopic.VOTES));
+
+        registry.onDisconnect(new SessionDisconnectEvent(this, frame(SimpMessageType.DISCONNECT, "s2", null, null), "s2", CloseStatus.NORMAL));
+        Assertions.assertFalse(registry.hasSubscribers(7L, PollTopic.VOTES));
+        Assertions.assertFalse(registry.hasSubscribers(7L, PollTopic.STATUS));
+        Assertions.assertEquals(0, registry.watchedPolls(PollTopic.VOTES));
+    }
+
+    @Test
+    void shouldReplaceAReusedSubscriptionId() {
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/poll.7.votes"));
+        registry.onSubscribe(subscribe("s1", "sub-0", "/topic/poll.8.votes"));
+
+        Assertions.assertFalse(registry.hasSubscribers(7L, PollTopic.VOTES));
+        Assertions.assertEquals(1, registry.subscribers(8L, PollTopic.VOTES));
+    }
+
+    @Test
+    void shouldIgnoreOtherDestinations() {
+        registry.onSubscribe(subscribe("s1", "sub-0", "/user/queue/receipts"));
+        registry.onSubscribe(subscribe("s1", "sub-1", "/topic/poll.abc.votes"));
+        registry.onSubscribe(subscribe("s1", "sub-2", "/topic/poll.7.results"));
+        registry.onUnsubscribe(new SessionUnsubscribeEvent(this, frame(SimpMessageType.UNSUBSCRIBE, "s1", "sub-0", null)));
+
+        Assertions.assertEquals(0, registry.watchedPolls(PollTopic.VOTES));
+        Assertions.assertEquals(0, registry.watchedPolls(PollTopic.STATUS));
+    }
+
+    private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        return new SessionSubscribeEvent(this, frame(SimpMessageType.SUBSCRIBE, sessionId, subscriptionId, destination));
+    }
+
+    private static Message<byte[]> frame(SimpMessageType type, String sessionId, String subscriptionId, String destination) {
+        var headers = SimpMessageHeaderAccessor.create(type);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,127 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.polloptions.ranked.RankedTally;
+import com.andrelucs.realtimepolls.websocket.data.RankedRoundDTO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class RankedTallyUnitTest {
+
+    private static final List<Long> OPTIONS = List.of(10L, 20L, 30L, 40L);
+
+    @Test
+    void shouldElectAMajorityOnTheFirstRound() {
+        var tally = new RankedTally(OPTIONS);
+        tally.add(List.of(10L, 20L));
+        tally.add(List.of(10L));
+        tally.add(List.of(20L, 10L));
+
+        Assertions.assertEquals(10L, tally.winner());
+        Assertions.assertEquals(1, tally.rounds().size());
+        Assertions.assertEquals(Map.of(10L, 2L, 20L, 1L, 30L, 0L, 40L, 0L), tally.rounds().getFirst().tallies());
+    }
+
+    @Test
+    void shouldTransferBallotsOfEliminatedOptions() {
+        var tally = new RankedTally(List.of(10L, 20L, 30L));
+        tally.add(List.of(10L));
+        tally.add(List.of(10L));
+        tally.add(List.of(20L));
+        tally.add(List.of(20L));
+        tally.add(List.of(30L, 20L));
+
+        var rounds = tally.rounds();
+        Assertions.assertEquals(2, rounds.size());
+        Assertions.assertEquals(30L, rounds.get(0).eliminatedOptionId());
+        Assertions.assertEquals(Map.of(10L, 2L, 20L, 3L), rounds.get(1).tallies());
+        Assertions.assertEquals(20L, tally.winner());
+    }
+
+    @Test
+    void shouldExhaustBallotsWithNothingLeftRunning() {
+        var tally = new RankedTally(List.of(10L, 20L, 30L));
+        tally.add(List.of(10L));
+        tally.add(List.of(10L));
+        tally.add(List.of(20L));
+        tally.add(List.of(20L));
+        tally.add(List.of(30L));
+
+        var rounds = tally.rounds();
+        Assertions.assertEquals(1L, rounds.get(1).exhausted());
+        // 2 against 2 with the exhausted ballot left out, the tie eliminates the option created last
+        Assertions.assertEquals(20L, rounds.get(1).eliminatedOptionId());
+        Assertions.assertEquals(10L, tally.winner());
+    }
+
+    @Test
+    void shouldRejectInvalidRankings() {
+        var tally = new RankedTally(OPTIONS);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tally.add(List.of()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tally.add(List.of(10L, 10L)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> tally.add(List.of(10L, 99L)));
+        Assertions.assertEquals(0, tally.ballots());
+    }
+
+    @Test
+    void shouldMatchAFullRecountAfterEveryBallot() {
+        var random = new Random(42);
+        List<Long> options = List.of(1L, 2L, 3L, 4L, 5L, 6L);
+        var tally = new RankedTally(options);
+        List<List<Long>> ballots = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            List<Long> ranking = new ArrayList<>(options);
+            // Skewed towards the first options so that rounds keep changing their decision
+            Collections.shuffle(ranking, random);
+            if (random.nextInt(3) == 0) ranking.sort(Long::compare);
+            ranking = ranking.subList(0, 1 + random.nextInt(options.size()));
+
+            tally.add(ranking);
+            ballots.add(ranking);
+            Assertions.assertEquals(recount(options, ballots), tally.rounds(), "after ballot " + i);
+        }
+        // Most ballots only touch one tally per round
+        Assertions.assertTrue(tally.recountedRounds() < ballots.size());
+    }
+
+    // Instant runoff the plain way, every ballot read again on every round
+    private static List<RankedRoundDTO> recount(List<Long> options, List<List<Long>> ballots) {
+        List<RankedRoundDTO> rounds = new ArrayList<>();
+        Set<Long> running = new HashSet<>(options);
+        while (true) {
+            Map<Long, Long> tallies = new LinkedHashMap<>();
+            options.stream().filter(running::contains).forEach(option -> tallies.put(option, 0L));
+            long exhausted = 0;
+            for (List<Long> ballot : ballots) {
+                var choice = ballot.stream().filter(running::contains).findFirst();
+                if (choice.isPresent()) tallies.merge(choice.get(), 1L, Long::sum);
+                else exhausted++;
+            }
+
+            long counting = tallies.values().stream().mapToLong(Long::longValue).sum();
+            long best = Collections.max(tallies.values());
+            if (running.size() == 1 || best * 2 > counting) {
+                rounds.add(new RankedRoundDTO(tallies, exhausted, null));
+                return rounds;
+            }
+            long worst = Collections.min(tallies.values());
+            Long eliminated = tallies.entrySet().stream()
+                    .filter(entry -> entry.getValue() == worst)
+                    .map(Map.Entry::getKey)
+                    .reduce((first, second) -> second)
+                    .orElseThrow();
+            rounds.add(new RankedRoundDTO(tallies, exhausted, eliminated));
+            running.remove(eliminated);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.exceptions.controller.ServiceBusyException;
+import com.andrelucs.realtimepolls.exceptions.service.VoteOutcomeUnknownException;
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVote;
+import com.andrelucs.realtimepolls.polloptions.voting.SequencedVoteWriter;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteBatchWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SequencedVoteWriterUnitTest {
+
+    @Mock
+    private VoteBatchWriter batchWriter;
+    @Mock
+    private PollOptionRepository optionRepository;
+
+    private SequencedVoteWriter writer;
+
+    private final ExecutorService voters = Executors.newFixedThreadPool(8);
+
+    private static final long POLL_ID = 1L;
+    private static final long OPTION_A = 10L;
+    private static final long OPTION_B = 11L;
+
+    private record Voted(Long getId, Long getPollId, String getDescription, Integer getVotes) implements PollOptionVote {}
+
+    @BeforeEach
+    void setup() {
+        writer = new SequencedVoteWriter(batchWriter, optionRepository);
+        ReflectionTestUtils.setField(writer, "workers", 1);
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+        ReflectionTestUtils.setField(writer, "timeoutMs", 5000L);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        voters.shutdownNow();
+        writer.stop();
+    }
+
+    @Test
+    void shouldMergeVotesQueuedWhileThePollIsBeingWritten() throws Exception {
+        var firstWriteStarted = new CountDownLatch(1);
+        var releaseFirstWrite = new CountDownLatch(1);
+        when(batchWriter.applyToPoll(eq(POLL_ID), any())).thenAnswer(invocation -> {
+            firstWriteStarted.countDown();
+            releaseFirstWrite.await(5, TimeUnit.SECONDS);
+            Map<Long, Long> deltas = invocation.getArgument(1);
+            return deltas.entrySet().stream()
+                    .map(e -> (PollOptionVote) new Voted(e.getKey(), POLL_ID, "option", e.getValue().intValue()))
+                    .toList();
+        });
+
+        var first = CompletableFuture.supplyAsync(() -> writer.write(POLL_ID, OPTION_A), voters);
+        Assertions.assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        var queued = List.of(
+                CompletableFuture.supplyAsync(() -> writer.write(POLL_ID, OPTION_A), voters),
+                CompletableFuture.supplyAsync(() -> writer.write(POLL_ID, OPTION_A), voters),
+                CompletableFuture.supplyAsync(() -> writer.write(POLL_ID, OPTION_B), voters)
+        );
+        awaitUntil(() -> writer.queuedVotes() == 3);
+        releaseFirstWrite.countDown();
+
+        Assertions.assertEquals(1, first.get(5, TimeUnit.SECONDS).orElseThrow().getVotes());
+        Assertions.assertEquals(2, queued.get(0).get(5, TimeUnit.SECONDS).orElseThrow().getVotes());
+        Assertions.assertEquals(1, queued.get(2).get(5, TimeUnit.SECONDS).orElseThrow().getVotes());
+
+        var ordered = inOrder(batchWriter);
+        ordered.verify(batchWriter).applyToPoll(POLL_ID, Map.of(OPTION_A, 1L));
+        ordered.verify(batchWriter).applyToPoll(POLL_ID, Map.of(OPTION_A, 2L, OPTION_B, 1L));
+    }
+
+    @Test
+    void shouldAnswerEmptyForVotesLeftOutOfTheWrite() {
+        when(batchWriter.applyToPoll(POLL_ID, Map.of(OPTION_B, 1L))).thenReturn(List.of());
+
+        Assertions.assertTrue(writer.write(POLL_ID, OPTION_B).isEmpty());
+    }
+
+    @Test
+    void shouldRejectVotesOnSeveralOptionsBeforeQueuingWhenOneIsNotVotable() {
+        when(optionRepository.findVotableOptions(POLL_ID, Set.of(OPTION_A, OPTION_B)))
+                .thenReturn(List.of(new Voted(OPTION_A, POLL_ID, "option", 0)));
+
+        Assertions.assertTrue(writer.writeAll(POLL_ID, Map.of(OPTION_A, 2L, OPTION_B, 1L)).isEmpty());
+        verifyNoInteractions(batchWriter);
+    }
+
+    @Test
+    void shouldRethrowWriteFailuresToTheVoter() {
+        when(batchWriter.applyToPoll(anyLong(), any())).thenThrow(new IllegalStateException("database is down"));
+
+        var thrown = Assertions.assertThrows(IllegalStateException.class, () -> writer.write(POLL_ID, OPTION_A));
+        Assertions.assertEquals("database is down", thrown.getMessage());
+    }
+
+    @Test
+    void shouldTakeBackVotesStillQueuedWhenTheyTimeOut() throws Exception {
+        ReflectionTestUtils.setField(writer, "timeoutMs", 200L);
+        var firstWriteStarted = new CountDownLatch(1);
+        var releaseFirstWrite = new CountDownLatch(1);
+        when(batchWriter.applyToPoll(eq(POLL_ID), any())).thenAnswer(invocation -> {
+            firstWriteStarted.countDown();
+            releaseFirstWrite.await(5, TimeUnit.SECONDS);
+            Map<Long, Long> deltas = invocation.getArgument(1);
+            return deltas.keySet().stream()
+                    .map(optionId -> (PollOptionVote) new Voted(optionId, POLL_ID, "option", 1))
+                    .toList();
+        });
+
+        var first = CompletableFuture.supplyAsync(() -> writer.write(POLL_ID, OPTION_A), voters);
+        Assertions.assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        // Queued behind the write, never picked up before its timeout
+        Assertions.assertThrows(ServiceBusyException.class, () -> writer.write(POLL_ID, OPTION_B));
+        Assertions.assertEquals(0, writer.queuedVotes());
+
+        // The write it was waiting on outlived the timeout too, its vote may still be counted
+        var thrown = Assertions.assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(VoteOutcomeUnknownException.class, thrown.getCause());
+
+        releaseFirstWrite.countDown();
+        awaitUntil(() -> writer.activeLanes() == 0);
+        verify(batchWriter).applyToPoll(POLL_ID, Map.of(OPTION_A, 1L));
+        verify(batchWriter, never()).applyToPoll(POLL_ID, Map.of(OPTION_B, 1L));
+    }
+
+    @Test
+    void shouldWriteEachPollFromOneWorkerAtATime() throws Exception {
+        ReflectionTestUtils.setField(writer, "workers", 4);
+        writer.stop();
+        writer.start();
+
+        Map<Long, AtomicInteger> writing = new ConcurrentHashMap<>();
+        var overlaps = new AtomicInteger();
+        var applied = new AtomicLong();
+        when(batchWriter.applyToPoll(anyLong(), any())).thenAnswer(invocation -> {
+            Long pollId = invocation.getArgument(0);
+            Map<Long, Long> deltas = invocation.getArgument(1);
+            var inFlight = writing.computeIfAbsent(pollId, id -> new AtomicInteger());
+            if (inFlight.incrementAndGet() > 1) overlaps.incrementAndGet();
+            Thread.sleep(1);
+            inFlight.decrementAndGet();
+
+            applied.addAndGet(deltas.values().stream().mapToLong(Long::longValue).sum());
+            return deltas.entrySet().stream()
+                    .map(e -> (PollOptionVote) new Voted(e.getKey(), pollId, "option", 0))
+                    .toList();
+        });
+
+        List<CompletableFuture<Void>> voting = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            long pollId = i % 2 == 0 ? POLL_ID : 2L;
+            voting.add(CompletableFuture.runAsync(() -> {
+                for (int v = 0; v < 50; v++) {
+                    Assertions.assertTrue(writer.write(pollId, OPTION_A).isPresent());
+                }
+            }, voters));
+        }
+        CompletableFuture.allOf(voting.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(0, overlaps.get());
+        Assertions.assertEquals(400, applied.get());
+        // Drained lanes are dropped, idle polls keep nothing around
+        awaitUntil(() -> writer.activeLanes() == 0);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) Assertions.fail("Condition not met in time");
+            Thread.sleep(5);
+        }
+    }
+}
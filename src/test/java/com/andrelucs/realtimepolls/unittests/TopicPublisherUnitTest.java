@@ -0,0 +1,186 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.websocket.PollReplayBuffer;
+import com.andrelucs.realtimepolls.websocket.PollResume;
+import com.andrelucs.realtimepolls.websocket.TopicPublisher;
+import com.andrelucs.realtimepolls.websocket.data.PollOptionVoteDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class TopicPublisherUnitTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final List<Message<?>> delivered = new ArrayList<>();
+
+    private SimpleBrokerMessageHandler broker;
+    private TopicPublisher publisher;
+
+    @BeforeEach
+    void setup() {
+        // Channels without executors deliver on the calling thread
+        var clientOutbound = new ExecutorSubscribableChannel();
+        clientOutbound.subscribe(delivered::add);
+        var brokerChannel = new ExecutorSubscribableChannel();
+        broker = new SimpleBrokerMessageHandler(new ExecutorSubscribableChannel(), clientOutbound, brokerChannel, List.of("/topic"));
+        broker.start();
+        publisher = new TopicPublisher(new SimpMessagingTemplate(brokerChannel), objectMapper, clientOutbound, new PollReplayBuffer(256, 262144));
+    }
+
+    @AfterEach
+    void tearDown() {
+        broker.stop();
+    }
+
+    @Test
+    void shouldEncodeOnceForEverySubscriber() throws Exception {
+        var topic = publisher.votesTopic(7L);
+        for (int i = 0; i < 3; i++) subscribe("session-" + i, topic);
+        delivered.clear();
+        var vote = PollOptionVoteDTO.builder()
+                .pollId(7L)
+                .optionId(3L)
+                .votes(42L)
+                .delta(1L)
+                .timestamp(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build();
+
+        Assertions.assertEquals(1, publisher.publish(7L, topic, vote));
+
+        Assertions.assertEquals(3, delivered.size());
+        var payload = delivered.getFirst().getPayload();
+        Assertions.assertArrayEquals(objectMapper.writeValueAsBytes(vote), (byte[]) payload);
+        for (Message<?> message : delivered) {
+            Assertions.assertSame(payload, message.getPayload());
+            var headers = SimpMessageHeaderAccessor.wrap(message);
+            Assertions.assertEquals(topic, headers.getDestination());
+            Assertions.assertEquals(MimeTypeUtils.APPLICATION_JSON, headers.getContentType());
+            Assertions.assertEquals("1", headers.getFirstNativeHeader(TopicPublisher.SEQUENCE_HEADER));
+        }
+        Assertions.assertEquals(3, delivered.stream().map(message -> SimpMessageHeaderAccessor.getSessionId(message.getHeaders())).distinct().count());
+    }
+
+    @Test
+    void shouldSendToOneSubscriptionOnly() {
+        var topic = publisher.votesTopic(7L);
+        for (int i = 0; i < 3; i++) subscribe("session-" + i, topic);
+        delivered.clear();
+        byte[] json = "{\"pollId\":7}".getBytes();
+
+        publisher.sendToSubscription("session-1", "sub-0", topic, json, 3L);
+
+        Assertions.assertEquals(1, delivered.size());
+        var headers = SimpMessageHeaderAccessor.wrap(delivered.getFirst());
+        Assertions.assertEquals("session-1", headers.getSessionId());
+        Assertions.assertEquals("sub-0", headers.getSubscriptionId());
+        Assertions.assertEquals(topic, headers.getDestination());
+        Assertions.assertEquals(MimeTypeUtils.APPLICATION_JSON, headers.getContentType());
+        Assertions.assertSame(json, delivered.getFirst().getPayload());
+        Assertions.assertEquals("3", headers.getFirstNativeHeader(TopicPublisher.SEQUENCE_HEADER));
+    }
+
+    @Test
+    void shouldReplayTheBroadcastsAfterASequence() {
+        var votesTopic = publisher.votesTopic(7L);
+        subscribe("session-0", votesTopic);
+        publisher.publish(7L, votesTopic, Map.of("votes", 1));
+        publisher.publish(7L, publisher.statusTopic(7L), Map.of("toStatus", "FINISHED"));
+        publisher.publish(7L, votesTopic, Map.of("votes", 2));
+        delivered.clear();
+
+        Assertions.assertTrue(publisher.replay(7L, "session-1", "sub-3", votesTopic, 1, 3));
+
+        // Only the frames of the subscribed topic, with their own sequences
+        Assertions.assertEquals(1, delivered.size());
+        var headers = SimpMessageHeaderAccessor.wrap(delivered.getFirst());
+        Assertions.assertEquals("session-1", headers.getSessionId());
+        Assertions.assertEquals("sub-3", headers.getSubscriptionId());
+        Assertions.assertEquals("3", headers.getFirstNativeHeader(TopicPublisher.SEQUENCE_HEADER));
+
+        publisher.forget(7L);
+        Assertions.assertFalse(publisher.replay(7L, "session-1", "sub-3", votesTopic, 1, 3));
+        Assertions.assertEquals(0, publisher.lastSequence(7L));
+    }
+
+    @Test
+    void shouldCacheTopicsUntilThePollIsForgotten() {
+        var votesTopic = publisher.votesTopic(7L);
+        Assertions.assertEquals("/topic/poll.7.votes", votesTopic);
+        Assertions.assertEquals("/topic/poll.7.status", publisher.statusTopic(7L));
+        Assertions.assertSame(votesTopic, publisher.votesTopic(7L));
+
+        publisher.forget(7L);
+        Assertions.assertNotSame(votesTopic, publisher.votesTopic(7L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldNotRepeatOrMissABroadcastPublishedWhileResuming() throws Exception {
+        var votesTopic = publisher.votesTopic(7L);
+        subscribe("session-0", votesTopic);
+        publisher.publish(7L, votesTopic, Map.of("votes", 1));
+        publisher.publish(7L, votesTopic, Map.of("votes", 2));
+        connect("session-1");
+        delivered.clear();
+        var resume = new PollResume(publisher, Mockito.mock(ObjectProvider.class), new ExecutorSubscribableChannel());
+        var channel = new ExecutorSubscribableChannel();
+        var resubscribe = subscription("session-1", votesTopic, "1");
+
+        // The broadcast comes in while the broker registers the resuming subscription
+        resume.beforeHandle(resubscribe, channel, broker);
+        var publishing = CompletableFuture.runAsync(() -> publisher.publish(7L, votesTopic, Map.of("votes", 3)));
+        Assertions.assertThrows(TimeoutException.class, () -> publishing.get(200, TimeUnit.MILLISECONDS));
+        broker.handleMessage(resubscribe);
+        resume.afterMessageHandled(resubscribe, channel, broker, null);
+        publishing.get(5, TimeUnit.SECONDS);
+
+        // Sequence 2 replayed and 3 broadcast, once each
+        var resumed = delivered.stream()
+                .filter(message -> "session-1".equals(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())))
+                .map(message -> SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(TopicPublisher.SEQUENCE_HEADER))
+                .toList();
+        Assertions.assertEquals(List.of("2", "3"), resumed);
+    }
+
+    private void subscribe(String sessionId, String destination) {
+        connect(sessionId);
+        broker.handleMessage(subscription(sessionId, destination, null));
+    }
+
+    // The broker only delivers to sessions it saw connect, which answers with a CONNECT_ACK
+    private void connect(String sessionId) {
+        var connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        connect.setSessionId(sessionId);
+        broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+    }
+
+    private Message<byte[]> subscription(String sessionId, String destination, String lastSequence) {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId("sub-0");
+        headers.setDestination(destination);
+        if (lastSequence != null) headers.setNativeHeader(PollResume.LAST_SEQUENCE_HEADER, lastSequence);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
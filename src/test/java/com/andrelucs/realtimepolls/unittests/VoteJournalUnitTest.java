@@ -0,0 +1,115 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.polloptions.voting.VoteJournal;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VoteJournalUnitTest {
+
+    private static final int SEGMENT_RECORDS = 4;
+
+    @TempDir
+    Path dir;
+
+    private record Vote(long pollId, long optionId, int delta) {}
+
+    @Test
+    void shouldReplayAppendedVotesAfterReopening() throws IOException {
+        var journal = new VoteJournal(dir, SEGMENT_RECORDS);
+        journal.start(0);
+        for (int i = 0; i < 6; i++) journal.append(1, 10 + i % 2, 1);
+        // Not closed, as after a crash
+
+        var reopened = new VoteJournal(dir, SEGMENT_RECORDS);
+        List<Vote> votes = new ArrayList<>();
+        long end = reopened.replay(0, (pollId, optionId, delta, epochMillis) -> votes.add(new Vote(pollId, optionId, delta)));
+
+        Assertions.assertEquals(journal.getId(), reopened.getId());
+        Assertions.assertEquals(6, votes.size());
+        Assertions.assertEquals(new Vote(1, 11, 1), votes.get(5));
+        Assertions.assertEquals(journal.position(), end);
+    }
+
+    @Test
+    void shouldOnlyReplayVotesPastTheCheckpoint() throws IOException {
+        var journal = new VoteJournal(dir, SEGMENT_RECORDS);
+        journal.start(0);
+        long checkpoint = 0;
+        for (int i = 0; i < 7; i++) {
+            long position = journal.append(1, 10 + i, 1);
+            if (i == 4) checkpoint = position;
+        }
+        journal.close();
+
+        List<Long> optionIds = new ArrayList<>();
+        new VoteJournal(dir, SEGMENT_RECORDS).replay(checkpoint, (pollId, optionId, delta, epochMillis) -> optionIds.add(optionId));
+
+        Assertions.assertEquals(List.of(15L, 16L), optionIds);
+    }
+
+    @Test
+    void shouldRecycleReleasedSegmentsWithoutReplayingTheirOldVotes() throws IOException {
+        var journal = new VoteJournal(dir, SEGMENT_RECORDS);
+        journal.start(0);
+        for (int i = 0; i < 9; i++) journal.append(1, 10, 1);
+        Assertions.assertEquals(3, journal.segmentCount());
+
+        long confirmed = journal.position();
+        journal.release(confirmed);
+        Assertions.assertEquals(1, journal.segmentCount());
+
+        // The next segment reuses a released file that still holds old records
+        for (int i = 0; i < 4; i++) journal.append(2, 20, 1);
+        Assertions.assertEquals(2, journal.segmentCount());
+
+        List<Vote> votes = new ArrayList<>();
+        long end = new VoteJournal(dir, SEGMENT_RECORDS)
+                .replay(confirmed, (pollId, optionId, delta, epochMillis) -> votes.add(new Vote(pollId, optionId, delta)));
+
+        Assertions.assertEquals(List.of(new Vote(2, 20, 1), new Vote(2, 20, 1), new Vote(2, 20, 1), new Vote(2, 20, 1)), votes);
+        Assertions.assertEquals(journal.position(), end);
+    }
+
+    @Test
+    void shouldStopReplayingAtATornRecord() throws IOException {
+        var journal = new VoteJournal(dir, SEGMENT_RECORDS);
+        journal.start(0);
+        for (int i = 0; i < 3; i++) journal.append(1, 10, 1);
+        journal.close();
+
+        // Corrupt the option id of the second record
+        try (FileChannel channel = FileChannel.open(dir.resolve("segment-0.journal"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 99), VoteJournal.RECORD_SIZE + 8);
+        }
+
+        List<Long> optionIds = new ArrayList<>();
+        long end = new VoteJournal(dir, SEGMENT_RECORDS).replay(0, (pollId, optionId, delta, epochMillis) -> optionIds.add(optionId));
+
+        Assertions.assertEquals(List.of(10L), optionIds);
+        Assertions.assertEquals(1, end);
+    }
+
+    @Test
+    void shouldStartPastTheExistingSegments() throws IOException {
+        var journal = new VoteJournal(dir, SEGMENT_RECORDS);
+        journal.start(0);
+        journal.append(1, 10, 1);
+        journal.close();
+
+        var restarted = new VoteJournal(dir, SEGMENT_RECORDS);
+        restarted.start(restarted.replay(0, (pollId, optionId, delta, epochMillis) -> {}));
+
+        Assertions.assertEquals(SEGMENT_RECORDS, restarted.position());
+        Assertions.assertTrue(Files.exists(dir.resolve("segment-1.journal")));
+    }
+}
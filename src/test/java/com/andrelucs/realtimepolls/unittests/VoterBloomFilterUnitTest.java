@@ -0,0 +1,40 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.polloptions.voting.VoterBloomFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class VoterBloomFilterUnitTest {
+
+    @Test
+    void shouldNeverMissAnAddedKey() {
+        var filter = new VoterBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) filter.add("voter-" + i);
+
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertTrue(filter.mightContain("voter-" + i));
+        }
+    }
+
+    @Test
+    void shouldKeepFalsePositivesNearTheConfiguredRate() {
+        var filter = new VoterBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.add("voter-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("stranger-" + i)) falsePositives++;
+        }
+        // 1% expected, leave room for the hash not being perfect
+        Assertions.assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void shouldBeSizedFromTheExpectedKeys() {
+        var filter = new VoterBloomFilter(10_000, 0.01);
+
+        // ~9.6 bits and 7 hashes per key for 1%
+        Assertions.assertTrue(filter.sizeInBits() >= 95_000 && filter.sizeInBits() < 100_000);
+        Assertions.assertEquals(7, filter.hashCount());
+    }
+}
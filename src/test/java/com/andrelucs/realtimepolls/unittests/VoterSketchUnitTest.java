@@ -0,0 +1,52 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.polloptions.voting.VoterSketch;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class VoterSketchUnitTest {
+
+    // Three times the standard error of 2^12 registers
+    private static final double TOLERANCE = 3 * 1.04 / Math.sqrt(VoterSketch.REGISTERS);
+
+    @Test
+    void shouldCountSmallAmountsOfVotersExactlyEnough() {
+        var sketch = new VoterSketch();
+        for (int i = 0; i < 10; i++) sketch.add("voter-" + i);
+
+        Assertions.assertEquals(10, sketch.estimate());
+    }
+
+    @Test
+    void shouldEstimateLargeAmountsOfVoters() {
+        var sketch = new VoterSketch();
+        for (int voters : new int[]{1_000, 50_000, 1_000_000}) {
+            for (int i = 0; i < voters; i++) sketch.add("voter-" + i);
+            Assertions.assertEquals(voters, sketch.estimate(), voters * TOLERANCE, "for " + voters + " voters");
+        }
+    }
+
+    @Test
+    void shouldIgnoreRepeatedVoters() {
+        var sketch = new VoterSketch();
+        for (int i = 0; i < 5_000; i++) sketch.add("voter-" + i);
+        long estimate = sketch.estimate();
+
+        for (int i = 0; i < 5_000; i++) Assertions.assertFalse(sketch.add("voter-" + i));
+        Assertions.assertEquals(estimate, sketch.estimate());
+    }
+
+    @Test
+    void shouldMergeIntoTheUnionOfBothSketches() {
+        var first = new VoterSketch();
+        var second = new VoterSketch();
+        for (int i = 0; i < 60_000; i++) first.add("voter-" + i);
+        for (int i = 40_000; i < 100_000; i++) second.add("voter-" + i);
+
+        var merged = VoterSketch.fromBytes(first.toBytes());
+        merged.merge(second.toBytes());
+
+        Assertions.assertEquals(100_000, merged.estimate(), 100_000 * TOLERANCE);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> merged.merge(new byte[16]));
+    }
+}
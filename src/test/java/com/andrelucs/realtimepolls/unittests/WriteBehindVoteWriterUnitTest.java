@@ -0,0 +1,179 @@
+package com.andrelucs.realtimepolls.unittests;
+
+import com.andrelucs.realtimepolls.polloptions.PollOptionRepository;
+import com.andrelucs.realtimepolls.polloptions.PollOptionVote;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteBatchWriter;
+import com.andrelucs.realtimepolls.polloptions.voting.VoteJournal;
+import com.andrelucs.realtimepolls.polloptions.voting.WriteBehindVoteWriter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WriteBehindVoteWriterUnitTest {
+
+    @Mock
+    private PollOptionRepository optionRepository;
+
+    @Mock
+    private VoteBatchWriter batchWriter;
+
+    @Mock
+    private TaskScheduler scheduler;
+
+    @Captor
+    private ArgumentCaptor<Map<Long, Long>> deltasCaptor;
+
+    private WriteBehindVoteWriter writer;
+
+    private static final long POLL_ID = 1L;
+    private static final long OPTION_A = 10L;
+    private static final long OPTION_B = 11L;
+
+    @BeforeEach
+    void setup() {
+        var optionA = votable(OPTION_A, 3);
+        var optionB = votable(OPTION_B, 0);
+        lenient().when(optionRepository.findVotableOption(POLL_ID, OPTION_A)).thenReturn(Optional.of(optionA));
+        lenient().when(optionRepository.findVotableOption(POLL_ID, OPTION_B)).thenReturn(Optional.of(optionB));
+
+        writer = new WriteBehindVoteWriter(optionRepository, batchWriter, scheduler);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 250L);
+        ReflectionTestUtils.setField(writer, "maxPending", 5L);
+    }
+
+    @Test
+    void shouldBufferVotesWithoutTouchingTheDatabase() {
+        int votes = 0;
+        for (int i = 0; i < 3; i++) votes = writer.write(POLL_ID, OPTION_A).orElseThrow().getVotes();
+
+        Assertions.assertEquals(6, votes); // 3 persisted + 3 pending
+        Assertions.assertEquals(3, writer.pendingVotes(OPTION_A));
+        verifyNoInteractions(batchWriter);
+    }
+
+    @Test
+    void shouldFlushAggregatedDeltasInOneBatch() {
+        writer.write(POLL_ID, OPTION_A);
+        writer.write(POLL_ID, OPTION_A);
+        writer.write(POLL_ID, OPTION_B);
+
+        writer.flush();
+
+        verify(batchWriter, times(1)).apply(deltasCaptor.capture());
+        Assertions.assertEquals(Map.of(10L, 2L, 11L, 1L), deltasCaptor.getValue());
+        Assertions.assertEquals(0, writer.pendingVotes(OPTION_A));
+
+        // Nothing left to flush
+        writer.flush();
+        verify(batchWriter, times(1)).apply(any());
+    }
+
+    @Test
+    void shouldRequestAFlushWhenMaxPendingIsReached() {
+        for (int i = 0; i < 4; i++) writer.write(POLL_ID, OPTION_A);
+        verify(scheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+
+        writer.write(POLL_ID, OPTION_B);
+        writer.write(POLL_ID, OPTION_B);
+
+        // Only one flush is requested until it runs
+        verify(scheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void shouldKeepVotesWhenTheFlushFails() {
+        when(batchWriter.apply(any())).thenThrow(new RuntimeException("db down")).thenReturn(List.of());
+
+        writer.write(POLL_ID, OPTION_A);
+        writer.flush();
+
+        Assertions.assertEquals(1, writer.pendingVotes(OPTION_A));
+
+        writer.flush();
+        verify(batchWriter, times(2)).apply(deltasCaptor.capture());
+        Assertions.assertEquals(Map.of(10L, 1L), deltasCaptor.getValue());
+        Assertions.assertEquals(0, writer.pendingVotes(OPTION_A));
+    }
+
+    @Test
+    void shouldNotBufferRejectedVotes() {
+        when(optionRepository.findVotableOption(POLL_ID, 99L)).thenReturn(Optional.empty());
+
+        Assertions.assertTrue(writer.write(POLL_ID, 99L).isEmpty());
+        Assertions.assertEquals(0, writer.pendingVotes(99L));
+    }
+
+    @Test
+    void shouldFlushRemainingVotesOnShutdown() {
+        writer.write(POLL_ID, OPTION_B);
+
+        writer.stop();
+
+        verify(batchWriter).apply(Map.of(11L, 1L));
+    }
+
+    @Test
+    void shouldReplayJournaledVotesPastTheCheckpointOnStartup(@TempDir Path dir) throws IOException {
+        var crashed = new VoteJournal(dir, 16);
+        crashed.start(0);
+        crashed.append(POLL_ID, OPTION_A, 1);
+        long checkpoint = crashed.append(POLL_ID, OPTION_A, 1);
+        crashed.append(POLL_ID, OPTION_A, 1);
+        crashed.append(POLL_ID, OPTION_B, 1);
+        when(optionRepository.findJournalCheckpoint(crashed.getId())).thenReturn(Optional.of(checkpoint));
+
+        enableJournal(dir);
+        writer.start();
+
+        verify(batchWriter).applyJournaled(Map.of(OPTION_A, 1L, OPTION_B, 1L), crashed.getId(), 4);
+        writer.stop();
+    }
+
+    @Test
+    void shouldMoveTheJournalCheckpointWithTheFlush(@TempDir Path dir) throws IOException {
+        enableJournal(dir);
+        writer.start();
+
+        writer.write(POLL_ID, OPTION_A);
+        writer.write(POLL_ID, OPTION_B);
+        writer.flush();
+
+        verify(batchWriter, never()).apply(any());
+        verify(batchWriter).applyJournaled(eq(Map.of(OPTION_A, 1L, OPTION_B, 1L)), anyString(), eq(2L));
+        writer.stop();
+    }
+
+    private void enableJournal(Path dir) {
+        ReflectionTestUtils.setField(writer, "journalEnabled", true);
+        ReflectionTestUtils.setField(writer, "journalDir", dir.toString());
+        ReflectionTestUtils.setField(writer, "journalSegmentRecords", 16);
+        ReflectionTestUtils.setField(writer, "journalFsync", "batch");
+    }
+
+    private static PollOptionVote votable(Long optionId, int votes) {
+        PollOptionVote option = mock(PollOptionVote.class);
+        lenient().when(option.getId()).thenReturn(optionId);
+        lenient().when(option.getPollId()).thenReturn(POLL_ID);
+        lenient().when(option.getVotes()).thenReturn(votes);
+        return option;
+    }
+}
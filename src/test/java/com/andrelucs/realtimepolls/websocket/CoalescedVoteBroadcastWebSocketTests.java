@@ -0,0 +1,155 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.integrationtests.AbstractIntegrationTest;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "votes.broadcast.mode=coalesced",
+        "votes.broadcast.tick-ms=3600000" // ticks are driven by the test
+})
+public class CoalescedVoteBroadcastWebSocketTests extends AbstractIntegrationTest {
+    private WebSocketStompClient stompClient;
+    private StompSession stompSession;
+    private final OptionService optionService;
+    private final PollWsNotifier notifier;
+    private final SimpleBrokerMessageHandler brokerHandler;
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    public CoalescedVoteBroadcastWebSocketTests(PollRepository pollRepository, OptionService optionService,
+                                                PollWsNotifier notifier, SimpleBrokerMessageHandler brokerHandler) {
+        super(pollRepository);
+        this.optionService = optionService;
+        this.notifier = notifier;
+        this.brokerHandler = brokerHandler;
+    }
+
+    @BeforeEach
+    void connectWebSocket() throws Exception {
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        stompSession = stompClient
+                .connectAsync("ws://localhost:%d/ws/websocket".formatted(port), new WebSocketHttpHeaders(), new StompSessionHandlerAdapter() {})
+                .get(2, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void disconnect() {
+        if (stompSession != null) stompSession.disconnect();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSendOneMessagePerPollAndTick() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var options = optionRepository.findAllByPollId(poll.getId());
+        var optionA = options.get(0);
+        var optionB = options.get(1);
+        var messages = subscribe("/topic/poll." + poll.getId() + ".votes");
+
+        optionService.voteForOption(poll.getId(), optionA.getId());
+        optionService.voteForOption(poll.getId(), optionA.getId());
+        optionService.voteForOption(poll.getId(), optionA.getId());
+        optionService.voteForOption(poll.getId(), optionB.getId());
+        optionService.voteForOption(poll.getId(), optionB.getId());
+        assertNull(messages.poll(300, TimeUnit.MILLISECONDS), "Votes should wait for the tick");
+
+        notifier.tick();
+
+        var message = messages.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message, "The tick should broadcast the votes");
+        assertEquals(poll.getId().intValue(), message.get("pollId"));
+        assertEquals(5, message.get("delta"));
+
+        var byOption = ((List<Map<String, Object>>) message.get("options")).stream()
+                .collect(Collectors.toMap(option -> ((Number) option.get("optionId")).longValue(), option -> option));
+        assertEquals(2, byOption.size());
+        assertEquals(optionA.getVotes() + 3, byOption.get(optionA.getId()).get("votes"));
+        assertEquals(3, byOption.get(optionA.getId()).get("delta"));
+        assertEquals(optionB.getVotes() + 2, byOption.get(optionB.getId()).get("votes"));
+        assertEquals(2, byOption.get(optionB.getId()).get("delta"));
+
+        assertNull(messages.poll(300, TimeUnit.MILLISECONDS), "Only one message per tick");
+    }
+
+    @Test
+    void shouldSendNothingForIdlePolls() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var messages = subscribe("/topic/poll." + poll.getId() + ".votes");
+
+        optionService.voteForOption(poll.getId(), option.getId());
+        notifier.tick();
+        assertNotNull(messages.poll(5, TimeUnit.SECONDS));
+
+        notifier.tick();
+        assertNull(messages.poll(300, TimeUnit.MILLISECONDS), "A poll without new votes gets no message");
+    }
+
+    private BlockingQueue<Map<String, Object>> subscribe(String topic) throws InterruptedException {
+        BlockingQueue<Map<String, Object>> messages = new ArrayBlockingQueue<>(10);
+        stompSession.subscribe(topic, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                // Snapshot sent on subscribe, these tests follow the vote messages
+                if (((Map<?, ?>) payload).containsKey("snapshot")) return;
+                messages.add((Map<String, Object>) payload);
+            }
+        });
+        awaitSubscription(topic);
+        return messages;
+    }
+
+    /**
+     * Votes are broadcast faster than the SUBSCRIBE frame may be handled, wait for the broker to know it
+     */
+    private void awaitSubscription(String destination) throws InterruptedException {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        var message = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (brokerHandler.getSubscriptionRegistry().findSubscriptions(message).isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Subscription to %s was not registered".formatted(destination));
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.integrationtests.AbstractIntegrationTest;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class PollResumeWebSocketTests extends AbstractIntegrationTest {
+    private WebSocketStompClient stompClient;
+    private StompSession stompSession;
+    private final OptionService optionService;
+    private final SimpleBrokerMessageHandler brokerHandler;
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    public PollResumeWebSocketTests(PollRepository pollRepository, OptionService optionService, SimpleBrokerMessageHandler brokerHandler) {
+        super(pollRepository);
+        this.optionService = optionService;
+        this.brokerHandler = brokerHandler;
+    }
+
+    @BeforeEach
+    void connectWebSocket() throws Exception {
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        stompSession = stompClient
+                .connectAsync("ws://localhost:%d/ws/websocket".formatted(port), new WebSocketHttpHeaders(), new StompSessionHandlerAdapter() {})
+                .get(2, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void disconnect() {
+        if (stompSession != null) stompSession.disconnect();
+    }
+
+    @Test
+    void shouldNumberTheBroadcastsOfAPoll() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var topic = "/topic/poll." + poll.getId() + ".votes";
+        var frames = subscribe(topic, null);
+        awaitSubscription(topic);
+
+        for (int i = 0; i < 3; i++) optionService.voteForOption(poll.getId(), option.getId());
+
+        var sequences = votes(frames, 3);
+        assertEquals(sequences.get(0) + 1, sequences.get(1));
+        assertEquals(sequences.get(1) + 1, sequences.get(2));
+    }
+
+    @Test
+    void shouldReplayOnlyTheMissedBroadcasts() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        var topic = "/topic/poll." + poll.getId() + ".votes";
+        // Keeps the poll watched while the other subscription is away
+        var watcher = subscribe(topic, null);
+        awaitSubscription(topic);
+        for (int i = 0; i < 3; i++) optionService.voteForOption(poll.getId(), option.getId());
+        var sequences = votes(watcher, 3);
+
+        var resumed = subscribe(topic, sequences.getFirst());
+
+        var first = resumed.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first, "The missed broadcasts should be replayed");
+        assertFalse(first.payload().containsKey("snapshot"), "A gap that can be replayed needs no snapshot");
+        assertEquals(sequences.get(1), first.sequence());
+        assertEquals(List.of(sequences.get(2)), votes(resumed, 1));
+
+        // Later broadcasts follow the replay without a gap
+        optionService.voteForOption(poll.getId(), option.getId());
+        assertEquals(List.of(sequences.get(2) + 1), votes(resumed, 1));
+        assertNull(resumed.poll(300, TimeUnit.MILLISECONDS), "Nothing should be sent twice");
+    }
+
+    @Test
+    void shouldSendASnapshotWhenTheGapCannotBeReplayed() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var topic = "/topic/poll." + poll.getId() + ".votes";
+
+        var resumed = subscribe(topic, 999_999L);
+
+        var frame = resumed.poll(5, TimeUnit.SECONDS);
+        assertNotNull(frame, "A snapshot should replace the missing broadcasts");
+        assertTrue(frame.payload().containsKey("snapshot"));
+        assertNotNull(frame.sequence());
+    }
+
+    private record Frame(Long sequence, Map<String, Object> payload) {}
+
+    private BlockingQueue<Frame> subscribe(String topic, Long lastSequence) {
+        var headers = new StompHeaders();
+        headers.setDestination(topic);
+        if (lastSequence != null) headers.add(PollResume.LAST_SEQUENCE_HEADER, lastSequence.toString());
+
+        BlockingQueue<Frame> frames = new LinkedBlockingQueue<>();
+        stompSession.subscribe(headers, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                String sequence = headers.getFirst(TopicPublisher.SEQUENCE_HEADER);
+                frames.add(new Frame(sequence != null ? Long.valueOf(sequence) : null, (Map<String, Object>) payload));
+            }
+        });
+        return frames;
+    }
+
+    // Sequences of the next vote messages, skipping the snapshot sent on subscribe
+    private List<Long> votes(BlockingQueue<Frame> frames, int count) throws InterruptedException {
+        var sequences = new ArrayList<Long>();
+        while (sequences.size() < count) {
+            var frame = frames.poll(5, TimeUnit.SECONDS);
+            assertNotNull(frame, "Missing vote message " + (sequences.size() + 1));
+            if (frame.payload().containsKey("snapshot")) continue;
+            assertNotNull(frame.sequence(), "Every broadcast should carry its sequence");
+            sequences.add(frame.sequence());
+        }
+        return sequences;
+    }
+
+    /**
+     * Votes are broadcast faster than the SUBSCRIBE frame may be handled, wait for the broker to know it
+     */
+    private void awaitSubscription(String destination) throws InterruptedException {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        var message = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (brokerHandler.getSubscriptionRegistry().findSubscriptions(message).isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Subscription to %s was not registered".formatted(destination));
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.data.model.PollStatus;
+import com.andrelucs.realtimepolls.integrationtests.AbstractIntegrationTest;
+import com.andrelucs.realtimepolls.polloptions.OptionService;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.polls.PollService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "votes.snapshot.refresh-ms=60000" // every snapshot of a test comes from the same read
+})
+public class PollSnapshotWebSocketTests extends AbstractIntegrationTest {
+    private WebSocketStompClient stompClient;
+    private StompSession stompSession;
+    private final OptionService optionService;
+    @MockitoSpyBean
+    private PollService pollService;
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    public PollSnapshotWebSocketTests(PollRepository pollRepository, OptionService optionService) {
+        super(pollRepository);
+        this.optionService = optionService;
+    }
+
+    @BeforeEach
+    void connectWebSocket() throws Exception {
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        stompSession = stompClient
+                .connectAsync("ws://localhost:%d/ws/websocket".formatted(port), new WebSocketHttpHeaders(), new StompSessionHandlerAdapter() {})
+                .get(2, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void disconnect() {
+        if (stompSession != null) stompSession.disconnect();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldSendTheCurrentTallyOnSubscribe() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getFirst();
+        var option = optionRepository.findAllByPollId(poll.getId()).getFirst();
+        optionService.voteForOption(poll.getId(), option.getId());
+
+        var messages = subscribe("/topic/poll." + poll.getId() + ".votes");
+
+        var message = messages.poll(5, TimeUnit.SECONDS);
+        assertNotNull(message, "The snapshot should be sent right after subscribing");
+        assertEquals(poll.getId().intValue(), message.get("pollId"));
+        var snapshot = (Map<String, Object>) message.get("snapshot");
+        assertEquals(poll.getQuestion(), snapshot.get("question"));
+
+        var votesByOption = ((List<Map<String, Object>>) snapshot.get("options")).stream()
+                .collect(Collectors.toMap(o -> ((Number) o.get("id")).longValue(), o -> ((Number) o.get("votes")).longValue()));
+        var expected = optionRepository.findAllByPollId(poll.getId()).stream()
+                .collect(Collectors.toMap(PollOption::getId, o -> (long) o.getVotes()));
+        assertEquals(expected, votesByOption);
+        assertEquals(option.getVotes() + 1L, votesByOption.get(option.getId()));
+
+        assertNull(messages.poll(300, TimeUnit.MILLISECONDS), "Only one snapshot per subscription");
+    }
+
+    @Test
+    void shouldReadThePollOnceForManySubscribers() throws Exception {
+        var poll = pollRepository.findAllByStatus(PollStatus.STARTED).getLast();
+        var topic = "/topic/poll." + poll.getId() + ".votes";
+        int subscribers = 20;
+
+        BlockingQueue<Map<String, Object>> messages = new LinkedBlockingQueue<>();
+        for (int i = 0; i < subscribers; i++) subscribe(topic, messages);
+
+        for (int i = 0; i < subscribers; i++) {
+            assertNotNull(messages.poll(5, TimeUnit.SECONDS), "Missing snapshot for subscriber " + (i + 1));
+        }
+        verify(pollService, times(1)).findSnapshot(poll.getId());
+    }
+
+    @Test
+    void shouldSendNothingForUnknownPolls() throws Exception {
+        var messages = subscribe("/topic/poll.999999.votes");
+
+        assertNull(messages.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    private BlockingQueue<Map<String, Object>> subscribe(String topic) {
+        return subscribe(topic, new LinkedBlockingQueue<>());
+    }
+
+    private BlockingQueue<Map<String, Object>> subscribe(String topic, BlockingQueue<Map<String, Object>> messages) {
+        stompSession.subscribe(topic, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                messages.add((Map<String, Object>) payload);
+            }
+        });
+        return messages;
+    }
+}
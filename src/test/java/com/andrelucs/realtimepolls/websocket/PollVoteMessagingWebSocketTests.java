@@ -0,0 +1,186 @@
+package com.andrelucs.realtimepolls.websocket;
+
+import com.andrelucs.realtimepolls.data.model.Poll;
+import com.andrelucs.realtimepolls.data.model.PollOption;
+import com.andrelucs.realtimepolls.integrationtests.AbstractIntegrationTest;
+import com.andrelucs.realtimepolls.polls.PollRepository;
+import com.andrelucs.realtimepolls.websocket.data.VoteMessageDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "jdbc.limiter.enabled=true",
+        "jdbc.limiter.permits=4",
+        "jdbc.limiter.acquire-timeout-ms=500"
+})
+@Slf4j
+public class PollVoteMessagingWebSocketTests extends AbstractIntegrationTest {
+    private WebSocketStompClient stompClient;
+    private StompSession stompSession;
+    @Autowired
+    private DataSource dataSource;
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    public PollVoteMessagingWebSocketTests(PollRepository pollRepository) {
+        super(pollRepository);
+    }
+
+    @BeforeEach
+    void connectWebSocket() throws Exception {
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        stompSession = stompClient
+                .connectAsync("ws://localhost:%d/ws/websocket".formatted(port), new WebSocketHttpHeaders(), new StompSessionHandlerAdapter() {})
+                .get(2, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void disconnect() {
+        if (stompSession != null) stompSession.disconnect();
+    }
+
+    @Test
+    void shouldVoteOverStompAndReceiveTheReceipt() throws Exception {
+        var poll = savePoll(LocalDateTime.now().minusMinutes(3));
+        var option = poll.getOptions().getFirst();
+
+        var receipts = subscribe("/user/queue/votes");
+        var errors = subscribe("/user/queue/errors");
+
+        stompSession.send("/app/poll.%d.vote".formatted(poll.getId()), new VoteMessageDTO(option.getId(), "vote-1"));
+
+        Map<String, Object> receipt = receipts.poll(5, TimeUnit.SECONDS);
+        assertNotNull(receipt, "Receipt should be sent to the user queue");
+        log.info("The received receipt was: {}", receipt);
+        assertEquals("vote-1", receipt.get("receiptId"));
+        assertEquals(option.getId().intValue(), receipt.get("optionId"));
+        assertEquals(1, receipt.get("votes"));
+        assertNull(errors.poll());
+
+        assertEquals(1, votesOf(option));
+    }
+
+    @Test
+    void shouldOnlyReplyWhenAReceiptIsRequested() throws Exception {
+        var poll = savePoll(LocalDateTime.now().minusMinutes(3));
+        var option = poll.getOptions().getFirst();
+
+        var receipts = subscribe("/user/queue/votes");
+
+        stompSession.send("/app/poll.%d.vote".formatted(poll.getId()), new VoteMessageDTO(option.getId(), null));
+        stompSession.send("/app/poll.%d.vote".formatted(poll.getId()), new VoteMessageDTO(option.getId(), "vote-2"));
+
+        // Frames of the session are handled in order, so the only receipt is the one of the second vote
+        Map<String, Object> receipt = receipts.poll(5, TimeUnit.SECONDS);
+        assertNotNull(receipt);
+        assertEquals("vote-2", receipt.get("receiptId"));
+        assertEquals(2, receipt.get("votes"));
+        assertNull(receipts.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldSendErrorsToTheUserQueue() throws Exception {
+        var notStarted = savePoll(LocalDateTime.now().plusDays(1));
+        var started = savePoll(LocalDateTime.now().minusMinutes(3));
+
+        var errors = subscribe("/user/queue/errors");
+
+        stompSession.send("/app/poll.%d.vote".formatted(notStarted.getId()),
+                new VoteMessageDTO(notStarted.getOptions().getFirst().getId(), "vote-3"));
+        Map<String, Object> conflict = errors.poll(5, TimeUnit.SECONDS);
+        assertNotNull(conflict);
+        assertEquals(409, conflict.get("statusCode"));
+
+        stompSession.send("/app/poll.%d.vote".formatted(started.getId()),
+                new VoteMessageDTO(notStarted.getOptions().getFirst().getId(), null));
+        Map<String, Object> notFound = errors.poll(5, TimeUnit.SECONDS);
+        assertNotNull(notFound);
+        assertEquals(404, notFound.get("statusCode"));
+
+        stompSession.send("/app/poll.%d.vote".formatted(started.getId()), new VoteMessageDTO(null, null));
+        Map<String, Object> badRequest = errors.poll(5, TimeUnit.SECONDS);
+        assertNotNull(badRequest);
+        assertEquals(400, badRequest.get("statusCode"));
+    }
+
+    @Test
+    void shouldSendBusyDatabaseErrorsToTheUserQueue() throws Exception {
+        var started = savePoll(LocalDateTime.now().minusMinutes(3));
+        var errors = subscribe("/user/queue/errors");
+
+        var held = new ArrayList<Connection>();
+        try {
+            for (int i = 0; i < 4; i++) held.add(connectionOnAnotherThread(dataSource));
+
+            stompSession.send("/app/poll.%d.vote".formatted(started.getId()),
+                    new VoteMessageDTO(started.getOptions().getFirst().getId(), "vote-4"));
+            Map<String, Object> busy = errors.poll(5, TimeUnit.SECONDS);
+            assertNotNull(busy);
+            assertEquals(503, busy.get("statusCode"));
+        } finally {
+            for (Connection connection : held) connection.close();
+        }
+    }
+
+    private Poll savePoll(LocalDateTime start) {
+        var poll = Poll.builder()
+                .question("STOMP vote poll")
+                .startDate(start)
+                .endDate(start.plusHours(1))
+                .options(new ArrayList<>())
+                .build();
+
+        poll.getOptions().addAll(List.of(
+                new PollOption(null, "A", 0, poll),
+                new PollOption(null, "B", 0, poll),
+                new PollOption(null, "C", 0, poll)
+        ));
+        return pollRepository.saveAndFlush(poll);
+    }
+
+    private BlockingQueue<Map<String, Object>> subscribe(String destination) {
+        BlockingQueue<Map<String, Object>> messages = new LinkedBlockingQueue<>();
+        stompSession.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                messages.add((Map<String, Object>) payload);
+            }
+        });
+        return messages;
+    }
+}
@@ -13,10 +13,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
 import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSession;
 import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
@@ -36,13 +40,15 @@ public class PollVotingWebSocketTests extends AbstractIntegrationTest {
     private WebSocketStompClient stompClient;
     private StompSession stompSession;
     private final OptionService optionService;
+    private final SimpleBrokerMessageHandler brokerHandler;
     @LocalServerPort
     private int port;
 
     @Autowired
-    public PollVotingWebSocketTests(PollRepository pollRepository, OptionService optionService) {
+    public PollVotingWebSocketTests(PollRepository pollRepository, OptionService optionService, SimpleBrokerMessageHandler brokerHandler) {
         super(pollRepository);
         this.optionService = optionService;
+        this.brokerHandler = brokerHandler;
     }
 
     @BeforeEach
@@ -90,12 +96,15 @@ public class PollVotingWebSocketTests extends AbstractIntegrationTest {
 
             @Override
             public void handleFrame(StompHeaders headers, Object payload) {
+                // Snapshot sent on subscribe, these tests follow the vote messages
+                if (((Map<?, ?>) payload).containsKey("snapshot")) return;
                 messages.add(payload.toString());
             }
         });
+        awaitSubscription(topic);
 
         // Act: vote for a option
-        optionService.voteForOption(poll.getOptions().getFirst().getId());
+        optionService.voteForOption(poll.getId(), poll.getOptions().getFirst().getId());
 
         // Assert — wait for WS notification
         String msg = messages.poll(6, TimeUnit.SECONDS);
@@ -137,14 +146,17 @@ public class PollVotingWebSocketTests extends AbstractIntegrationTest {
             @Override
             @SuppressWarnings("unchecked")
             public void handleFrame(StompHeaders headers, Object payload) {
+                // Snapshot sent on subscribe, these tests follow the vote messages
+                if (((Map<?, ?>) payload).containsKey("snapshot")) return;
                 messages.add((Map<String, Object>) payload);
             }
         });
+        awaitSubscription(topic);
 
         // Act — multiple votes
-        optionService.voteForOption(optionA.getId()); // vote 1
-        optionService.voteForOption(optionA.getId()); // vote 2
-        optionService.voteForOption(optionA.getId()); // vote 3
+        optionService.voteForOption(poll.getId(), optionA.getId()); // vote 1
+        optionService.voteForOption(poll.getId(), optionA.getId()); // vote 2
+        optionService.voteForOption(poll.getId(), optionA.getId()); // vote 3
 
         // Assert
         Map<String, Object> msg1 = messages.poll(5, TimeUnit.SECONDS);
@@ -185,6 +197,7 @@ public class PollVotingWebSocketTests extends AbstractIntegrationTest {
 
         poll = pollRepository.saveAndFlush(poll);
 
+        var pollId = poll.getId();
         var optionA = poll.getOptions().getFirst();
 
         String topic = "/topic/poll." + poll.getId() + ".votes";
@@ -202,15 +215,18 @@ public class PollVotingWebSocketTests extends AbstractIntegrationTest {
             @Override
             @SuppressWarnings("unchecked")
             public void handleFrame(StompHeaders headers, Object payload) {
+                // Snapshot sent on subscribe, these tests follow the vote messages
+                if (((Map<?, ?>) payload).containsKey("snapshot")) return;
                 messages.add((Map<String, Object>) payload);
             }
         });
+        awaitSubscription(topic);
 
         // Act — concurrent voting
         ExecutorService executor = Executors.newFixedThreadPool(3);
 
         for (int i = 0; i < concurrentVotes; i++) {
-            executor.submit(() -> optionService.voteForOption(optionA.getId()));
+            executor.submit(() -> optionService.voteForOption(pollId, optionA.getId()));
         }
 
         executor.shutdown();
@@ -246,4 +262,19 @@ public class PollVotingWebSocketTests extends AbstractIntegrationTest {
         log.info("Received concurrent WS vote updates: {}", receivedVotes);
     }
 
+
+    /**
+     * Votes are broadcast faster than the SUBSCRIBE frame may be handled, wait for the broker to know it
+     */
+    private void awaitSubscription(String destination) throws InterruptedException {
+        var headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        var message = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (brokerHandler.getSubscriptionRegistry().findSubscriptions(message).isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Subscription to %s was not registered".formatted(destination));
+            Thread.sleep(10);
+        }
+    }
 }